@@ -11,16 +11,53 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.Singular;
 import lombok.extern.slf4j.Slf4j;
+import org.gegolabs.mcp.journal.CallJournal;
+import org.gegolabs.mcp.limits.RateLimiter;
+import org.gegolabs.mcp.resilience.CircuitBreaker;
+import org.gegolabs.mcp.model.Prompt;
+import org.gegolabs.mcp.model.ResourceTemplate;
+import org.gegolabs.mcp.pipeline.Pipeline;
+import org.gegolabs.mcp.prompts.PromptRegistry;
+import org.gegolabs.mcp.resources.ResourceTemplateRegistry;
+import org.gegolabs.mcp.results.ResultStore;
+import org.gegolabs.mcp.roots.RootsManager;
+import org.gegolabs.mcp.sampling.SamplingClient;
+import org.gegolabs.mcp.protocol.Breaker;
+import org.gegolabs.mcp.protocol.Bulkhead;
 import org.gegolabs.mcp.protocol.Capability;
 import org.gegolabs.mcp.protocol.CapabilityException;
+import org.gegolabs.mcp.scheduling.BulkheadExecutor;
+import org.gegolabs.mcp.scheduling.CallTracker;
+import org.gegolabs.mcp.scheduling.FairScheduler;
+import org.gegolabs.mcp.tools.MethodCapability;
+import org.gegolabs.mcp.tools.ToolRegistry;
+import org.gegolabs.mcp.tracing.TraceQueryTool;
+import org.gegolabs.mcp.tracing.Tracer;
+import org.gegolabs.mcp.transport.HttpServerTransportProvider;
+import org.gegolabs.mcp.transport.InterceptingTransportProvider;
+import org.gegolabs.mcp.transport.SessionListener;
+import org.gegolabs.mcp.transport.TransportType;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Server implementation for the Model Context Protocol (MCP).
  * This class manages the MCP server lifecycle and tool registration.
- * It always uses TCP transport via mcp-java-bridge.
+ * By default it uses TCP transport via mcp-java-bridge; the Streamable HTTP
+ * transport can be selected with {@code transportType(TransportType.HTTP)}.
  * 
  * Use the builder() method to create a new instance with the builder pattern.
  */
@@ -32,6 +69,16 @@ public class MCPServer {
      * Default TCP port for MCP server
      */
     private static final int DEFAULT_PORT = 3000;
+
+    /**
+     * Default time close() waits for calls in flight
+     */
+    private static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * Default time each tool may take to shut down
+     */
+    private static final Duration DEFAULT_TOOL_SHUTDOWN_TIMEOUT = Duration.ofSeconds(5);
     
     /**
      * TCP port for the server
@@ -45,6 +92,46 @@ public class MCPServer {
     @Builder.Default  
     private String host = "localhost";
 
+    /**
+     * Transport used to serve clients.
+     * TCP goes through mcp-java-bridge, HTTP is served directly by this process.
+     */
+    @Builder.Default
+    private TransportType transportType = TransportType.TCP;
+
+    /**
+     * Endpoint path for the HTTP transport.
+     */
+    @Builder.Default
+    private String httpEndpoint = "/mcp";
+
+    /**
+     * Maximum number of concurrent HTTP sessions. Zero uses the transport default.
+     */
+    private int httpMaxSessions;
+
+    /**
+     * Maximum number of concurrently open SSE streams. Zero uses the transport default.
+     */
+    private int httpMaxStreams;
+
+    /**
+     * Interval between keep-alive comments on idle SSE streams. Null uses the transport default.
+     */
+    private Duration httpKeepAliveInterval;
+
+    /**
+     * Tool calls each session may run at once; later calls from the session wait for a slot.
+     * 0 uses 16.
+     */
+    private int sessionMaxInFlight;
+
+    /**
+     * Tool calls each session may have waiting for a slot; calls beyond it get an error result.
+     * 0 uses 1024.
+     */
+    private int sessionMaxQueued;
+
     /**
      * List of capability tools to be registered with the server.
      * Each tool provides a specific functionality to the MCP server.
@@ -52,6 +139,165 @@ public class MCPServer {
     @Singular
     private List<Capability> tools;
 
+    /**
+     * Objects whose methods annotated with {@code @MCPServer} are exposed as tools, one per method.
+     * A Class exposes its annotated static methods.
+     */
+    @Singular
+    private List<Object> toolObjects;
+
+    /**
+     * Pipelines exposed as tools, each chaining registered tools on the server side.
+     * Their stages are bound to the other tools when the server starts.
+     */
+    @Singular
+    private List<Pipeline> pipelines;
+
+    /**
+     * Number of tools per tools/list page. Zero lists every tool in one page.
+     */
+    private int toolPageSize;
+
+    /**
+     * Serialized tool descriptors, created when start() is called.
+     */
+    @Getter
+    private ToolRegistry toolRegistry;
+
+    /**
+     * Prompt templates offered to clients.
+     */
+    @Singular
+    private List<Prompt> prompts;
+
+    /**
+     * Number of prompts per prompts/list page. Zero uses the registry default.
+     */
+    private int promptPageSize;
+
+    /**
+     * Characters of rendered prompts kept in the render cache. Zero uses the registry default.
+     */
+    private long promptCacheWeight;
+
+    /**
+     * Compiled prompts, created when start() is called.
+     */
+    @Getter
+    private PromptRegistry promptRegistry;
+
+    /**
+     * Resource templates, matched by URI on resources/read.
+     */
+    @Singular
+    private List<ResourceTemplate<?>> resourceTemplates;
+
+    /**
+     * Compiled resource templates, created when start() is called.
+     */
+    @Getter
+    private ResourceTemplateRegistry resourceTemplateRegistry;
+
+    /**
+     * Optional tracker of client roots. When set, the roots of every session that supports them
+     * are fetched and indexed, and capabilities can query the files of the calling session.
+     */
+    @Getter
+    private RootsManager roots;
+
+    /**
+     * Optional sampling client. When set, capabilities can ask the client of the current call
+     * to sample LLM messages.
+     */
+    @Getter
+    private SamplingClient sampling;
+
+    /**
+     * Further listeners of client session lifecycle events, for instance to release the state
+     * kept for a session once it closes.
+     */
+    @Singular
+    private List<SessionListener> sessionListeners;
+
+    /**
+     * Optional weighted fair scheduler shared by all tools.
+     * When set, calls are queued per client session instead of going straight to the executor.
+     */
+    private FairScheduler scheduler;
+
+    /**
+     * Named bulkheads, each an isolated executor for a group of tools.
+     */
+    @Singular
+    private List<BulkheadExecutor> bulkheads;
+
+    /**
+     * Assignment of tools to bulkheads by tool name.
+     * Takes precedence over the {@code @Bulkhead} annotation.
+     */
+    @Singular
+    private Map<String, String> bulkheadAssignments;
+
+    /**
+     * Named circuit breakers, each guarding the tools backed by one downstream service.
+     */
+    @Singular
+    private List<CircuitBreaker> circuitBreakers;
+
+    /**
+     * Assignment of tools to circuit breakers by tool name.
+     * Takes precedence over the {@code @Breaker} annotation.
+     */
+    @Singular
+    private Map<String, String> circuitBreakerAssignments;
+
+    /**
+     * Longest time close() waits for calls in flight before cancelling them. Null uses 30 seconds.
+     */
+    private Duration drainTimeout;
+
+    /**
+     * Longest time each tool's shutdown, and the final close of the transport, may take.
+     * Null uses 5 seconds.
+     */
+    private Duration toolShutdownTimeout;
+
+    /**
+     * Optional tracer sampling tool calls. When set, the built-in "traces" tool lists the recent traced calls.
+     */
+    @Getter
+    private Tracer tracer;
+
+    /**
+     * Optional journal recording every tool call, for offline replay. Closed with the server.
+     */
+    @Getter
+    private CallJournal journal;
+
+    /**
+     * Optional per-session rate limits and quotas, across all tools and per tool.
+     */
+    @Getter
+    private RateLimiter rateLimiter;
+
+    /**
+     * Optional store for oversized tool results. When set, results over its threshold are returned
+     * as a summary, and their pages are served as resources. Closed with the server.
+     */
+    @Getter
+    private ResultStore resultStore;
+
+    /**
+     * Calls in flight, drained on close.
+     */
+    @Builder.Default
+    private CallTracker callTracker = new CallTracker();
+
+    /**
+     * Outcome of the shutdown, once close() has run.
+     */
+    private ShutdownReport shutdownReport;
+
     /**
      * The name of the MCP server.
      * Used for identification in logs and client communications.
@@ -78,22 +324,73 @@ public class MCPServer {
     private List<ToolContainer> toolContainers = new ArrayList<>();
     
     /**
-     * The transport provider - always TCP via bridge
+     * The transport provider, TCP via bridge or HTTP depending on the transport type
      */
     private McpServerTransportProvider transport;
 
     /**
      * Starts the MCP asynchronous server. If the server is not already initialized, it sets up
-     * the server instance with TCP transport via mcp-java-bridge.
+     * the server instance with the configured transport (TCP via mcp-java-bridge by default).
      * Registers all tools synchronously before returning.
      *
      */
     public void start() throws Exception {
         if (mcpAsyncServer == null) {
-            // Always use TCP transport via mcp-java-bridge
-            transport = McpBridge.tcpTransport(host, port);
-            log.info("Starting uMCP server on {}:{} via mcp-java-bridge", host, port);
+            HttpServerTransportProvider httpTransport = null;
+            if (transportType == TransportType.HTTP) {
+                httpTransport = HttpServerTransportProvider.builder()
+                        .host(host)
+                        .port(port)
+                        .endpoint(httpEndpoint)
+                        .maxSessions(httpMaxSessions)
+                        .maxStreams(httpMaxStreams)
+                        .keepAliveInterval(httpKeepAliveInterval)
+                        .build();
+                transport = httpTransport;
+                log.info("Starting uMCP server on http://{}:{}{}", host, port, httpEndpoint);
+            } else {
+                transport = McpBridge.tcpTransport(host, port);
+                log.info("Starting uMCP server on {}:{} via mcp-java-bridge", host, port);
+            }
             
+            // Expose request ids and progress tokens to tool handlers, and run each session's calls concurrently
+            InterceptingTransportProvider intercepting = new InterceptingTransportProvider(transport, sessionMaxInFlight, sessionMaxQueued);
+            transport = intercepting;
+
+            if (roots != null) {
+                intercepting.addSessionListener(roots);
+            }
+            if (sampling != null) {
+                intercepting.addSessionListener(sampling);
+            }
+            sessionListeners.forEach(intercepting::addSessionListener);
+
+            // Serve tools/list from descriptors serialized once at registration
+            toolRegistry = new ToolRegistry(toolPageSize);
+            intercepting.overrideRequest(McpSchema.METHOD_TOOLS_LIST,
+                    params -> Mono.fromCallable(() -> toolRegistry.list(MiscTools.getCursor(params))));
+
+            // Compile prompt templates once and serve the precomputed list pages
+            promptRegistry = PromptRegistry.builder()
+                    .prompts(prompts)
+                    .pageSize(promptPageSize)
+                    .cacheWeight(promptCacheWeight)
+                    .build();
+            intercepting.overrideRequest(McpSchema.METHOD_PROMPT_LIST,
+                    params -> Mono.fromCallable(() -> promptRegistry.list(MiscTools.getCursor(params))));
+
+            // Match resource templates through the index; other URIs go to the SDK
+            ResourceTemplateRegistry.ResourceTemplateRegistryBuilder templates = ResourceTemplateRegistry.builder()
+                    .templates(resourceTemplates);
+            if (resultStore != null) {
+                templates.template(resultStore.template());
+            }
+            resourceTemplateRegistry = templates.build();
+            intercepting.overrideRequest(McpSchema.METHOD_RESOURCES_TEMPLATES_LIST,
+                    params -> Mono.just(resourceTemplateRegistry.list()));
+            intercepting.overrideRequest(McpSchema.METHOD_RESOURCES_READ,
+                    params -> resourceTemplateRegistry.read(MiscTools.getStringParam(params, "uri")));
+
             mcpAsyncServer = McpServer.async(transport)
                     .serverInfo(name, version)
                     .capabilities(McpSchema.ServerCapabilities.builder()
@@ -105,30 +402,79 @@ public class MCPServer {
                     .build();
 
             // Register tools synchronously before returning
-            for (Capability tool : tools) {
+            List<Capability> allTools = new ArrayList<>(tools);
+            for (Object toolObject : toolObjects) {
+                allTools.addAll(MethodCapability.discover(toolObject));
+            }
+            if (tracer != null) {
+                allTools.add(new TraceQueryTool(tracer));
+            }
+            allTools.addAll(pipelines);
+            for (Capability tool : allTools) {
                 try {
-                    ToolContainer toolContainer = ToolContainer.builder().tool(tool).build();
+                    ToolContainer toolContainer = ToolContainer.builder()
+                            .tool(tool)
+                            .scheduler(scheduler)
+                            .bulkhead(resolveBulkhead(tool))
+                            .circuitBreaker(resolveCircuitBreaker(tool))
+                            .tracker(callTracker)
+                            .tracer(tracer)
+                            .journal(journal)
+                            .rateLimiter(rateLimiter)
+                            .resultStore(resultStore)
+                            .build();
                     toolContainers.add(toolContainer);
 
                     // Get the tool specification without initializing the tool
                     McpServerFeatures.AsyncToolSpecification toolSpec = toolContainer.getUninitializedAsyncToolSpecification();
                     mcpAsyncServer.addTool(toolSpec)
                             .doOnSuccess(v -> {
-                                log.info("Tool registered successfully: {}", tool.getClass().getSimpleName());
+                                log.info("Tool registered successfully: {}", MiscTools.getToolName(tool));
+                                toolRegistry.add(toolSpec.tool());
                                 try {
                                     // Initialize the tool after it has been successfully registered
                                     toolContainer.initialize();
                                 } catch (CapabilityException e) {
-                                    log.error("Failed to initialize tool: {}", tool.getClass().getSimpleName(), e);
+                                    log.error("Failed to initialize tool: {}", MiscTools.getToolName(tool), e);
                                 }
                             })
-                            .doOnError(e -> log.error("Failed to register tool: {}", tool.getClass().getSimpleName(), e))
+                            .doOnError(e -> log.error("Failed to register tool: {}", MiscTools.getToolName(tool), e))
                             .block(); // Block to ensure tool is registered
                 } catch (Exception e) {
-                    log.error("Exception registering tool: {}", tool.getClass().getSimpleName(), e);
+                    log.error("Exception registering tool: {}", MiscTools.getToolName(tool), e);
                 }
             }
-            
+
+            // Bind pipeline stages to the registered tools, pipelines included
+            Map<String, ToolContainer> containersByName = new HashMap<>();
+            for (ToolContainer toolContainer : toolContainers) {
+                containersByName.put(toolContainer.getName(), toolContainer);
+            }
+            for (Pipeline pipeline : pipelines) {
+                try {
+                    pipeline.resolve(containersByName::get);
+                } catch (IllegalArgumentException e) {
+                    log.error("Pipeline {} cannot run: {}", pipeline.getName(), e.getMessage());
+                }
+            }
+
+            for (McpServerFeatures.AsyncPromptSpecification promptSpec : promptRegistry.getAsyncPromptSpecifications()) {
+                mcpAsyncServer.addPrompt(promptSpec).block();
+            }
+            if (promptRegistry.size() > 0) {
+                log.info("{} prompts registered", promptRegistry.size());
+            }
+            if (resourceTemplateRegistry.size() > 0) {
+                log.info("{} resource templates registered", resourceTemplateRegistry.size());
+            }
+
+            if (httpTransport != null) {
+                // Start accepting connections once every tool is registered
+                httpTransport.start();
+                log.info("uMCP server started successfully");
+                return;
+            }
+
             log.info("uMCP server started successfully");
             log.info("To connect with Claude Desktop:");
             log.info("1. Download mcp-java-bridge connector JAR");
@@ -138,23 +484,243 @@ public class MCPServer {
     }
 
     /**
-     * Gracefully closes the MCP server and shuts down all tools.
+     * Gets saturation statistics for every declared bulkhead.
+     *
+     * @return one snapshot per bulkhead
+     */
+    public List<BulkheadExecutor.BulkheadStats> getBulkheadStats() {
+        List<BulkheadExecutor.BulkheadStats> stats = new ArrayList<>();
+        for (BulkheadExecutor bulkhead : bulkheads) {
+            stats.add(bulkhead.getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * Finds the bulkhead a tool is assigned to, by builder assignment or {@code @Bulkhead} annotation.
+     *
+     * @param tool the tool
+     * @return the bulkhead, or null if the tool runs on its own executor
+     */
+    private BulkheadExecutor resolveBulkhead(Capability tool) {
+        String toolName = MiscTools.getToolName(tool);
+        String bulkheadName = bulkheadAssignments.get(toolName);
+        if (bulkheadName == null) {
+            Bulkhead annotation = tool instanceof MethodCapability method
+                    ? method.getAnnotation(Bulkhead.class)
+                    : tool.getClass().getAnnotation(Bulkhead.class);
+            if (annotation == null) {
+                return null;
+            }
+            bulkheadName = annotation.value();
+        }
+        for (BulkheadExecutor bulkhead : bulkheads) {
+            if (bulkhead.getName().equals(bulkheadName)) {
+                log.info("Tool {} assigned to bulkhead {}", toolName, bulkheadName);
+                return bulkhead;
+            }
+        }
+        log.warn("Bulkhead {} for tool {} is not declared, using the tool's own executor", bulkheadName, toolName);
+        return null;
+    }
+
+    /**
+     * Gets the state and recent failure rates of every declared circuit breaker.
+     *
+     * @return one snapshot per circuit breaker
+     */
+    public List<CircuitBreaker.CircuitBreakerStats> getCircuitBreakerStats() {
+        List<CircuitBreaker.CircuitBreakerStats> stats = new ArrayList<>();
+        for (CircuitBreaker circuitBreaker : circuitBreakers) {
+            stats.add(circuitBreaker.getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * Finds the circuit breaker guarding a tool, by builder assignment or {@code @Breaker} annotation.
+     *
+     * @param tool the tool
+     * @return the circuit breaker, or null if the tool is not guarded
+     */
+    private CircuitBreaker resolveCircuitBreaker(Capability tool) {
+        String toolName = MiscTools.getToolName(tool);
+        String breakerName = circuitBreakerAssignments.get(toolName);
+        if (breakerName == null) {
+            Breaker annotation = tool instanceof MethodCapability method
+                    ? method.getAnnotation(Breaker.class)
+                    : tool.getClass().getAnnotation(Breaker.class);
+            if (annotation == null) {
+                return null;
+            }
+            breakerName = annotation.value();
+        }
+        for (CircuitBreaker circuitBreaker : circuitBreakers) {
+            if (circuitBreaker.getName().equals(breakerName)) {
+                log.info("Tool {} guarded by circuit breaker {}", toolName, breakerName);
+                return circuitBreaker;
+            }
+        }
+        log.warn("Circuit breaker {} for tool {} is not declared, calling the tool unguarded", breakerName, toolName);
+        return null;
+    }
+
+    /**
+     * Gracefully closes the MCP server. Equivalent to {@link #shutdown()}.
      */
     public void close() {
-        // Shutdown all tools
-        for (ToolContainer toolContainer : toolContainers) {
-            try {
-                toolContainer.shutdown();
-            } catch (CapabilityException e) {
-                log.error("Error shutting down tool: {}", e.getMessage(), e);
+        shutdown();
+    }
+
+    /**
+     * Drains the server and shuts it down.
+     * <p>
+     * New tool calls are refused, calls in flight get up to the drain timeout to finish and are
+     * cancelled after it, tools are shut down in parallel, each within the tool shutdown timeout,
+     * and the transport is closed. Returns once everything is done, so it can run in a JVM
+     * shutdown hook. Calling it again returns the first report.
+     *
+     * @return what was drained and what was abandoned
+     */
+    public synchronized ShutdownReport shutdown() {
+        if (shutdownReport != null) {
+            return shutdownReport;
+        }
+        long started = System.nanoTime();
+        Duration toolTimeout = toolShutdownTimeout != null ? toolShutdownTimeout : DEFAULT_TOOL_SHUTDOWN_TIMEOUT;
+
+        // Stop accepting calls and let the ones in flight finish
+        callTracker.drain();
+        int inFlight = callTracker.getInFlight();
+        if (inFlight > 0) {
+            log.info("Draining {} calls in flight", inFlight);
+        }
+        List<CallTracker.AbandonedCall> abandoned = List.of();
+        try {
+            if (!callTracker.awaitIdle(drainTimeout != null ? drainTimeout : DEFAULT_DRAIN_TIMEOUT)) {
+                abandoned = callTracker.abandon();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandoned = callTracker.abandon();
+        }
+
+        List<ToolFailure> failedTools = shutdownTools(toolTimeout);
+
+        for (BulkheadExecutor bulkhead : bulkheads) {
+            bulkhead.shutdown();
+        }
+
+        if (roots != null) {
+            roots.close();
+        }
+
+        if (tracer != null) {
+            tracer.close();
+        }
+
+        if (journal != null) {
+            journal.close();
+        }
+
+        if (resultStore != null) {
+            resultStore.close();
         }
 
         // Close the server
         if (mcpAsyncServer != null) {
-            mcpAsyncServer.closeGracefully()
-                    .doOnSuccess(v -> log.info("Server closed"))
-                    .subscribe();
+            try {
+                mcpAsyncServer.closeGracefully().block(toolTimeout);
+                log.info("Server closed");
+            } catch (RuntimeException e) {
+                log.warn("Server did not close cleanly: {}", e.getMessage());
+            }
+        }
+
+        shutdownReport = new ShutdownReport(Math.max(0, inFlight - abandoned.size()), abandoned, failedTools,
+                Duration.ofNanos(System.nanoTime() - started));
+        log.info("Shutdown finished: {}", shutdownReport);
+        return shutdownReport;
+    }
+
+    /**
+     * Shuts every tool down in parallel. A tool that exceeds the timeout is reported and left behind.
+     *
+     * @param timeout the longest time each tool may take, counted from when its shutdown is submitted
+     * @return the tools that failed or timed out
+     */
+    private List<ToolFailure> shutdownTools(Duration timeout) {
+        if (toolContainers.isEmpty()) {
+            return List.of();
         }
+        AtomicInteger counter = new AtomicInteger();
+        // Unbounded so a stuck tool cannot hold back the others; most shutdowns finish at once and reuse threads
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "umcp-shutdown-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Map<String, CompletableFuture<Void>> results = new LinkedHashMap<>();
+        try {
+            for (ToolContainer toolContainer : toolContainers) {
+                // The deadline is set here, so a shutdown waiting for a thread is not granted extra time
+                results.put(toolContainer.getName(), CompletableFuture.runAsync(() -> {
+                    try {
+                        toolContainer.shutdown();
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor).orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS));
+            }
+            CompletableFuture.allOf(results.values().toArray(new CompletableFuture[0]))
+                    .exceptionally(e -> null)
+                    .join();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<ToolFailure> failures = new ArrayList<>();
+        results.forEach((tool, result) -> {
+            try {
+                result.join();
+            } catch (CompletionException e) {
+                String reason = e.getCause() instanceof TimeoutException
+                        ? "timed out after " + timeout.toMillis() + " ms"
+                        : String.valueOf(e.getCause().getMessage());
+                log.error("Error shutting down tool {}: {}", tool, reason);
+                failures.add(new ToolFailure(tool, reason));
+            }
+        });
+        return failures;
+    }
+
+    /**
+     * Outcome of {@link #shutdown()}.
+     *
+     * @param drainedCalls calls that were in flight when draining started and finished in time
+     * @param abandonedCalls calls cancelled at the drain deadline
+     * @param failedTools tools whose shutdown failed or timed out
+     * @param duration how long the shutdown took
+     */
+    public record ShutdownReport(int drainedCalls, List<CallTracker.AbandonedCall> abandonedCalls,
+                                 List<ToolFailure> failedTools, Duration duration) {
+
+        /**
+         * Checks whether nothing was abandoned.
+         *
+         * @return true if every call finished and every tool shut down
+         */
+        public boolean isClean() {
+            return abandonedCalls.isEmpty() && failedTools.isEmpty();
+        }
+    }
+
+    /**
+     * A tool whose shutdown did not complete.
+     *
+     * @param tool the tool name
+     * @param reason the error or timeout
+     */
+    public record ToolFailure(String tool, String reason) {
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,28 @@
 package org.gegolabs.mcp;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
 import lombok.extern.slf4j.Slf4j;
 import org.gegolabs.mcp.impl.DomainAvailability;
 import org.gegolabs.mcp.impl.SystemInformation;
+import org.gegolabs.mcp.resilience.CircuitBreaker;
+import org.gegolabs.mcp.scheduling.BulkheadExecutor;
+import org.gegolabs.mcp.transport.HttpServerTransportProvider;
+import org.gegolabs.mcp.transport.TransportType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 
 /**
  * Main application class for the uMCP server.
@@ -13,6 +33,13 @@ import org.gegolabs.mcp.impl.SystemInformation;
 @Slf4j
 public class MCPServerCLI {
 
+    private static final String TRAINING_INITIALIZE = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":"
+            + "{\"protocolVersion\":\"2024-11-05\",\"capabilities\":{},\"clientInfo\":{\"name\":\"cds-training\",\"version\":\"1.0\"}}}";
+    private static final String TRAINING_INITIALIZED = "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}";
+    private static final String TRAINING_LIST = "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/list\"}";
+    private static final String TRAINING_CALL = "{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"tools/call\","
+            + "\"params\":{\"name\":\"SystemInformation\",\"arguments\":{}}}";
+
     /**
      * Static initializer block that sets up logging to a file.
      */
@@ -23,16 +50,28 @@ public class MCPServerCLI {
     /**
      * Main entry point for the application.
      * Starts the MCP server on default TCP port 3000.
+     * <p>
+     * Options: {@code --http} serves the Streamable HTTP transport instead of TCP, and
+     * {@code --cds-training} runs a training start for an AppCDS archive: the server starts,
+     * serves a few typical requests and exits, so the JVM can dump the classes it loaded.
      *
-     * @param args command line arguments - optionally specify port
+     * @param args command line arguments - optionally specify port, then options
      */
     public static void main(String[] args) throws Exception {
         int port = 3000;
-        if (args.length > 0) {
-            try {
-                port = Integer.parseInt(args[0]);
-            } catch (NumberFormatException e) {
-                log.warn("Invalid port number: {}, using default 3000", args[0]);
+        boolean http = false;
+        boolean training = false;
+        for (String arg : args) {
+            if ("--http".equals(arg)) {
+                http = true;
+            } else if ("--cds-training".equals(arg)) {
+                training = true;
+            } else {
+                try {
+                    port = Integer.parseInt(arg);
+                } catch (NumberFormatException e) {
+                    log.warn("Invalid port number: {}, using default 3000", arg);
+                }
             }
         }
         
@@ -40,12 +79,22 @@ public class MCPServerCLI {
                 .name("uMCP")
                 .version("1.1.0")
                 .port(port)  // TCP transport is now default
+                .transportType(http ? TransportType.HTTP : TransportType.TCP)
+                .bulkhead(BulkheadExecutor.builder().name("whois").threads(4).queueCapacity(64).build())
+                .circuitBreaker(CircuitBreaker.builder().name("whois").slowCallDuration(Duration.ofSeconds(5)).build())
                 .tool(new DomainAvailability())
                 .tool(new SystemInformation())
                 .build();
         // Create an async server with custom configuration
         mcpServer.start();
 
+        if (training) {
+            train(mcpServer, http, port);
+            mcpServer.close();
+            // Exit explicitly so -XX:ArchiveClassesAtExit dumps the archive
+            System.exit(0);
+        }
+
         // Keep the server running
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             log.info("Shutting down MCP server...");
@@ -60,4 +109,103 @@ public class MCPServerCLI {
             Thread.currentThread().interrupt();
         }
     }
+
+    /**
+     * Exercises the request path so its classes are loaded during a training start.
+     * The JSON-RPC and tool list code runs in process, then the server is called as a client would.
+     * If the server cannot be reached, the archive still covers the in-process part.
+     *
+     * @param mcpServer the started server
+     * @param http whether the server serves the HTTP transport rather than TCP
+     * @param port the server port
+     */
+    private static void train(MCPServer mcpServer, boolean http, int port) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        McpSchema.deserializeJsonRpcMessage(mapper, TRAINING_LIST);
+        mapper.writeValueAsString(mcpServer.getToolRegistry().list(null));
+
+        try {
+            if (http) {
+                trainHttp(URI.create("http://localhost:" + port + "/mcp"));
+            } else {
+                trainTcp(port);
+            }
+        } catch (IOException e) {
+            log.warn("Could not call the server during the CDS training run, the archive covers less: {}", e.toString());
+        }
+        log.info("CDS training run finished");
+    }
+
+    /**
+     * Calls the server over HTTP as a client would, so the classes of the request path are loaded
+     * during a training start.
+     *
+     * @param endpoint the HTTP endpoint
+     */
+    private static void trainHttp(URI endpoint) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> init = client.send(trainingRequest(endpoint, null, TRAINING_INITIALIZE), HttpResponse.BodyHandlers.ofString());
+        String session = init.headers().firstValue(HttpServerTransportProvider.SESSION_HEADER).orElse(null);
+        for (String message : new String[] {TRAINING_INITIALIZED, TRAINING_LIST, TRAINING_CALL}) {
+            client.send(trainingRequest(endpoint, session, message), HttpResponse.BodyHandlers.ofString());
+        }
+    }
+
+    /**
+     * Calls the server over TCP as the bridge connector would, one JSON-RPC message per line, so
+     * the classes of the request path are loaded during a training start.
+     *
+     * @param port the TCP port
+     */
+    private static void trainTcp(int port) throws IOException, InterruptedException {
+        try (Socket socket = connect(port);
+             Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            socket.setSoTimeout(30_000);
+            String[][] exchanges = {{TRAINING_INITIALIZE, "1"}, {TRAINING_INITIALIZED, null}, {TRAINING_LIST, "2"}, {TRAINING_CALL, "3"}};
+            ObjectMapper mapper = new ObjectMapper();
+            for (String[] exchange : exchanges) {
+                out.write(exchange[0]);
+                out.write('\n');
+                out.flush();
+                String id = exchange[1];
+                while (id != null) {
+                    String line = in.readLine();
+                    if (line == null) {
+                        throw new IOException("Server closed the training connection");
+                    }
+                    // Skip notifications and anything else until the response to this request
+                    if (!line.isBlank() && id.equals(mapper.readTree(line).path("id").asText())) {
+                        id = null;
+                    }
+                }
+            }
+        }
+    }
+
+    private static Socket connect(int port) throws IOException, InterruptedException {
+        // The bridge starts listening in the background once the server has started
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (true) {
+            try {
+                return new Socket("localhost", port);
+            } catch (ConnectException e) {
+                if (System.nanoTime() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private static HttpRequest trainingRequest(URI endpoint, String session, String body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(endpoint)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json, text/event-stream")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (session != null) {
+            request.header(HttpServerTransportProvider.SESSION_HEADER, session);
+        }
+        return request.build();
+    }
 }
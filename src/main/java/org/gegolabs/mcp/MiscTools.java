@@ -9,6 +9,8 @@ import ch.qos.logback.core.FileAppender;
 import io.modelcontextprotocol.spec.McpSchema;
 import lombok.extern.slf4j.Slf4j;
 import org.gegolabs.mcp.protocol.Capability;
+import org.gegolabs.mcp.protocol.Name;
+import org.gegolabs.mcp.tools.DeclaredCapability;
 import org.slf4j.LoggerFactory;
 
 import java.lang.management.ManagementFactory;
@@ -23,6 +25,7 @@ import java.util.Map;
 import com.github.victools.jsonschema.generator.*;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 /**
  * Utility class providing miscellaneous tools for the MCP server.
@@ -88,6 +91,10 @@ public class MiscTools {
                     if (inputType instanceof Class) {
                         return (Class<?>) inputType;
                     }
+                    // Generic inputs such as Map<String, Object> bind to their raw class
+                    if (inputType instanceof ParameterizedType parameterized && parameterized.getRawType() instanceof Class<?> rawClass) {
+                        return rawClass;
+                    }
                 }
             }
         }
@@ -95,6 +102,49 @@ public class MiscTools {
         return null; // Could not determine the argument class
     }
 
+    /**
+     * Gets the name under which a tool is exposed.
+     * Uses the Name annotation when present, otherwise the simple class name.
+     * Tools that declare their name, such as method tools and pipelines, use it.
+     *
+     * @param tool the capability tool
+     * @return the tool name
+     */
+    public static String getToolName(Capability<?, ?> tool) {
+        if (tool instanceof DeclaredCapability<?, ?> declared) {
+            return declared.getName();
+        }
+        Name name = tool.getClass().getAnnotation(Name.class);
+        if (name != null && !name.value().isEmpty()) {
+            return name.value();
+        }
+        return tool.getClass().getSimpleName();
+    }
+
+    /**
+     * Extracts a string parameter from the raw params of a request.
+     *
+     * @param params the raw request params, may be null
+     * @param name the parameter name
+     * @return the value, or null if absent or not a string
+     */
+    public static String getStringParam(Object params, String name) {
+        if (params instanceof Map<?, ?> map && map.get(name) instanceof String value) {
+            return value;
+        }
+        return null;
+    }
+
+    /**
+     * Extracts the pagination cursor from the raw params of a list request.
+     *
+     * @param params the raw request params, may be null
+     * @return the cursor, or null for the first page
+     */
+    public static String getCursor(Object params) {
+        return getStringParam(params, "cursor");
+    }
+
     /**
      * Generates a JSON schema for the given class.
      * 
@@ -121,33 +171,7 @@ public class MiscTools {
                     Map<String, Object> properties = new HashMap<>();
 
                     // Generate schema for the primitive type
-                    SchemaGeneratorConfigBuilder configBuilder = new SchemaGeneratorConfigBuilder(SchemaVersion.DRAFT_2019_09, OptionPreset.PLAIN_JSON);
-                    configBuilder.with(Option.FORBIDDEN_ADDITIONAL_PROPERTIES_BY_DEFAULT);
-                    configBuilder.without(Option.NONPUBLIC_NONSTATIC_FIELDS_WITHOUT_GETTERS);
-                    configBuilder.without(Option.NONSTATIC_NONVOID_NONGETTER_METHODS);
-
-                    // Add configuration for using camelCase in property names
-                    configBuilder.forFields().withPropertyNameOverrideResolver(field -> {
-                        String originalName = field.getName();
-                        // Convert snake_case to camelCase if necessary
-                        if (originalName.contains("_")) {
-                            StringBuilder camelCase = new StringBuilder();
-                            boolean capitalizeNext = false;
-                            for (char c : originalName.toCharArray()) {
-                                if (c == '_') {
-                                    capitalizeNext = true;
-                                } else {
-                                    camelCase.append(capitalizeNext ? Character.toUpperCase(c) : c);
-                                    capitalizeNext = false;
-                                }
-                            }
-                            return camelCase.toString();
-                        }
-                        return originalName;
-                    });
-
-                    SchemaGeneratorConfig config = configBuilder.build();
-                    SchemaGenerator generator = new SchemaGenerator(config);
+                    SchemaGenerator generator = createSchemaGenerator();
                     JsonNode primitiveSchema = generator.generateSchema(clazz);
 
                     // Convert the primitive schema and add it as a property
@@ -161,33 +185,7 @@ public class MiscTools {
                     return new McpSchema.JsonSchema("object", properties, required, false, null, null);
                 } else {
                     // For non-primitive types, generate schema normally
-                    SchemaGeneratorConfigBuilder configBuilder = new SchemaGeneratorConfigBuilder(SchemaVersion.DRAFT_2019_09, OptionPreset.PLAIN_JSON);
-                    configBuilder.with(Option.FORBIDDEN_ADDITIONAL_PROPERTIES_BY_DEFAULT);
-                    configBuilder.without(Option.NONPUBLIC_NONSTATIC_FIELDS_WITHOUT_GETTERS);
-                    configBuilder.without(Option.NONSTATIC_NONVOID_NONGETTER_METHODS);
-
-                    // Add configuration for using camelCase in property names
-                    configBuilder.forFields().withPropertyNameOverrideResolver(field -> {
-                        String originalName = field.getName();
-                        // Convert snake_case to camelCase if necessary
-                        if (originalName.contains("_")) {
-                            StringBuilder camelCase = new StringBuilder();
-                            boolean capitalizeNext = false;
-                            for (char c : originalName.toCharArray()) {
-                                if (c == '_') {
-                                    capitalizeNext = true;
-                                } else {
-                                    camelCase.append(capitalizeNext ? Character.toUpperCase(c) : c);
-                                    capitalizeNext = false;
-                                }
-                            }
-                            return camelCase.toString();
-                        }
-                        return originalName;
-                    });
-
-                    SchemaGeneratorConfig config = configBuilder.build();
-                    SchemaGenerator generator = new SchemaGenerator(config);
+                    SchemaGenerator generator = createSchemaGenerator();
                     JsonNode jsonSchema = generator.generateSchema(clazz);
 
                     // Convert JsonNode to your McpSchema.JsonSchema format
@@ -207,6 +205,56 @@ public class MiscTools {
         return null;
     }
 
+    /**
+     * Generates the JSON schema of a single value, such as a method parameter.
+     * Unlike {@link #generateJsonSchema(Class)}, primitive types are not wrapped in an object.
+     *
+     * @param type the value type, possibly generic
+     * @param description the description of the value, may be null
+     * @return the generated JSON schema
+     */
+    public static McpSchema.JsonSchema generateValueSchema(Type type, String description) {
+        JsonNode jsonSchema = createSchemaGenerator().generateSchema(type);
+        if (description != null && !description.isEmpty() && jsonSchema instanceof ObjectNode node) {
+            node.put("description", description);
+        }
+        return convertJsonNodeToMcpSchema(jsonSchema);
+    }
+
+    /**
+     * Creates the schema generator shared by the generate methods.
+     *
+     * @return a generator producing plain JSON schemas with camelCase property names
+     */
+    private static SchemaGenerator createSchemaGenerator() {
+        SchemaGeneratorConfigBuilder configBuilder = new SchemaGeneratorConfigBuilder(SchemaVersion.DRAFT_2019_09, OptionPreset.PLAIN_JSON);
+        configBuilder.with(Option.FORBIDDEN_ADDITIONAL_PROPERTIES_BY_DEFAULT);
+        configBuilder.without(Option.NONPUBLIC_NONSTATIC_FIELDS_WITHOUT_GETTERS);
+        configBuilder.without(Option.NONSTATIC_NONVOID_NONGETTER_METHODS);
+
+        // Add configuration for using camelCase in property names
+        configBuilder.forFields().withPropertyNameOverrideResolver(field -> {
+            String originalName = field.getName();
+            // Convert snake_case to camelCase if necessary
+            if (originalName.contains("_")) {
+                StringBuilder camelCase = new StringBuilder();
+                boolean capitalizeNext = false;
+                for (char c : originalName.toCharArray()) {
+                    if (c == '_') {
+                        capitalizeNext = true;
+                    } else {
+                        camelCase.append(capitalizeNext ? Character.toUpperCase(c) : c);
+                        capitalizeNext = false;
+                    }
+                }
+                return camelCase.toString();
+            }
+            return originalName;
+        });
+
+        return new SchemaGenerator(configBuilder.build());
+    }
+
     /**
      * Converts a Jackson JsonNode (from victools) to a McpSchema.JsonSchema object.
      * This method handles the conversion of JSON Schema elements like type, properties,
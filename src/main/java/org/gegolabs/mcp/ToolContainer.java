@@ -6,11 +6,43 @@ import io.modelcontextprotocol.server.McpServerFeatures;
 import io.modelcontextprotocol.spec.McpSchema;
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
+import org.gegolabs.mcp.journal.CallJournal;
+import org.gegolabs.mcp.limits.RateLimiter;
+import org.gegolabs.mcp.protocol.CallContext;
 import org.gegolabs.mcp.protocol.Capability;
 import org.gegolabs.mcp.protocol.CapabilityException;
 import org.gegolabs.mcp.protocol.Description;
-import org.gegolabs.mcp.protocol.Name;
+import org.gegolabs.mcp.resilience.CircuitBreaker;
+import org.gegolabs.mcp.results.ResultStore;
+import org.gegolabs.mcp.scheduling.BulkheadExecutor;
+import org.gegolabs.mcp.scheduling.CallTracker;
+import org.gegolabs.mcp.protocol.StreamingCapability;
+import org.gegolabs.mcp.scheduling.FairScheduler;
+import org.gegolabs.mcp.tools.ArgumentValidator;
+import org.gegolabs.mcp.tools.DeclaredCapability;
+import org.gegolabs.mcp.tracing.Span;
+import org.gegolabs.mcp.tracing.Tracer;
+import org.gegolabs.mcp.transport.ToolCallContext;
+import reactor.adapter.JdkFlowAdapter;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 /**
  * Container for MCP tools that provides conversion to AsyncToolSpecification.
@@ -22,17 +54,84 @@ import reactor.core.publisher.Mono;
 @Slf4j
 @Builder
 public class ToolContainer{
+
+    /**
+     * Shared mapper used to serialize schemas and bind arguments.
+     * ObjectMapper is thread-safe once configured, and creating one per call is expensive.
+     */
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     /**
      * The capability tool contained in this container.
      * This tool will be converted to an AsyncToolSpecification.
      */
     private Capability tool;
 
+    /**
+     * Optional scheduler that queues calls per client session.
+     * When null, calls go straight to the capability's executor.
+     */
+    private FairScheduler scheduler;
+
+    /**
+     * Optional bulkhead the tool runs on.
+     * When set, the capability's execute method runs on the bulkhead's threads
+     * instead of the capability's own executor.
+     */
+    private BulkheadExecutor bulkhead;
+
+    /**
+     * Optional circuit breaker guarding the tool.
+     * While it is open, calls fail at once instead of running the capability.
+     */
+    private CircuitBreaker circuitBreaker;
+
+    /**
+     * Optional tracker of calls in flight, used by the server to drain calls on shutdown.
+     * When draining, new calls are refused.
+     */
+    private CallTracker tracker;
+
+    /**
+     * Optional tracer sampling calls.
+     * A traced call gets spans for binding its arguments, waiting in the queue, executing and serializing the result.
+     */
+    private Tracer tracer;
+
+    /**
+     * Optional journal recording each call's arguments, timing and result size.
+     */
+    private CallJournal journal;
+
+    /**
+     * Optional per-session rate limits and quotas.
+     * A call over a limit is answered at once with an error result saying when to retry.
+     */
+    private RateLimiter rateLimiter;
+
+    /**
+     * Optional store for oversized results.
+     * A result over its threshold is stored in pages and the call returns a summary with their URIs.
+     */
+    private ResultStore resultStore;
+
     /**
      * Flag indicating whether the tool has been initialized.
      */
     private boolean initialized;
 
+    /**
+     * Tool specification, created once on first request.
+     */
+    private McpServerFeatures.AsyncToolSpecification specification;
+
+    /**
+     * Input class of the tool and how arguments bind to it, set with the specification.
+     */
+    private Class<?> argumentClass;
+    private boolean primitiveArgument;
+    private ArgumentValidator validator;
+
     /**
      * Initializes the capability tool.
      * This method should be called before using the tool.
@@ -61,6 +160,15 @@ public class ToolContainer{
         }
     }
 
+    /**
+     * Gets the name under which the tool is exposed.
+     *
+     * @return the tool name
+     */
+    public String getName() {
+        return getToolName();
+    }
+
     /**
      * Creates and returns an AsyncToolSpecification for the contained tool.
      * Initializes the tool if it hasn't been initialized yet.
@@ -87,12 +195,20 @@ public class ToolContainer{
     }
 
     /**
-     * Internal method to create an AsyncToolSpecification without initializing the tool.
-     * 
+     * Internal method to get the AsyncToolSpecification without initializing the tool.
+     * The schema is generated and serialized only once per container.
+     *
      * @return the AsyncToolSpecification for the tool, or null if the argument class cannot be determined
      * @throws CapabilityException if there is an error creating the tool specification
      */
-    private McpServerFeatures.AsyncToolSpecification createAsyncToolSpecification() throws CapabilityException {
+    private synchronized McpServerFeatures.AsyncToolSpecification createAsyncToolSpecification() throws CapabilityException {
+        if (specification == null) {
+            specification = buildAsyncToolSpecification();
+        }
+        return specification;
+    }
+
+    private McpServerFeatures.AsyncToolSpecification buildAsyncToolSpecification() throws CapabilityException {
         Class<?> toolExecuteArgumentClass = MiscTools.getToolExecuteArgumentClass(tool);
         if(toolExecuteArgumentClass == null){
             log.error("Could not determine the argument class for tool {}", tool.getClass().getCanonicalName());
@@ -101,87 +217,483 @@ public class ToolContainer{
 
         // Check if the tool expects a primitive type
         boolean isPrimitive = isPrimitiveOrWrapper(toolExecuteArgumentClass);
+        argumentClass = toolExecuteArgumentClass;
+        primitiveArgument = isPrimitive;
 
-        // Generate schema - this will wrap primitives in objects
-        McpSchema.JsonSchema schema = MiscTools.generateJsonSchema(toolExecuteArgumentClass);
+        // Generate schema - this will wrap primitives in objects. Method tools describe their parameters.
+        McpSchema.JsonSchema schema = tool instanceof DeclaredCapability<?, ?> declared
+                ? declared.getInputSchema()
+                : MiscTools.generateJsonSchema(toolExecuteArgumentClass);
 
         log.info("Tool schema: {}", schema);
 
+        // Compile the schema once so invalid calls fail before binding
+        validator = !isPrimitive && schema != null ? ArgumentValidator.compile(schema) : null;
+
         // Convert schema to JSON string
         String schemaJson;
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            schemaJson = mapper.writeValueAsString(schema);
+            schemaJson = OBJECT_MAPPER.writeValueAsString(schema);
         } catch (Exception e) {
             throw new RuntimeException("Failed to serialize schema", e);
         }
         
-        McpServerFeatures.AsyncToolSpecification asyncToolSpecification = new McpServerFeatures.AsyncToolSpecification(
-                new McpSchema.Tool(getToolName(), getToolDescription(), schemaJson),
+        BiFunction<McpAsyncServerExchange, Map<String, Object>, Mono<McpSchema.CallToolResult>> handler =
                 (exchange, arguments) -> {
                     log.info("Tool {} called with arguments: {}", getToolName(), arguments);
+                    Span span = Span.current();
 
-                    Object inputObject = null;
-                    if (arguments != null) {
-                        try {
-                            ObjectMapper objectMapper = new ObjectMapper();
-
-                            // Handle primitive types specially
-                            if (isPrimitive) {
-                                // Extract the value from the wrapper object
-                                // The schema wraps primitives in an object with a "value" property
-                                Object value = arguments.get("value");
-                                if (value == null) {
-                                    // Try with the lowercase class name as property
-                                    String propertyName = toolExecuteArgumentClass.getSimpleName().toLowerCase();
-                                    value = arguments.get(propertyName);
-                                }
-
-                                if (value != null) {
-                                    // Convert the value to the expected primitive type
-                                    inputObject = objectMapper.convertValue(value, toolExecuteArgumentClass);
-                                } else {
-                                    log.error("Could not find value property in arguments for primitive type {}", toolExecuteArgumentClass.getName());
-                                    return Mono.just(new McpSchema.CallToolResult("Missing value property for primitive type", true));
-                                }
-                            } else {
-                                // For non-primitive types, convert normally
-                                inputObject = objectMapper.convertValue(arguments, toolExecuteArgumentClass);
-                            }
-                        } catch (Exception e) {
-                            log.error("Error deserializing arguments to {}: {}", toolExecuteArgumentClass.getName(), e.getMessage());
-                            return Mono.just(new McpSchema.CallToolResult("Error en los argumentos: " + e.getMessage(), true));
-                        }
-                    } else {
-                        // Si arguments es null y la clase espera Void, podemos continuar
-                        if (toolExecuteArgumentClass == Void.class) {
-                            inputObject = null;
-                        } else {
-                            return Mono.just(new McpSchema.CallToolResult("Se requieren argumentos para esta herramienta", true));
-                        }
-                    }
-
-
-                    Object result = null;
+                    Object input;
+                    Span bind = span.child("bind");
                     try {
-                        log.info("Executing tool {} with input: {}", getToolName(), inputObject);
-                        result = tool.execute(inputObject);
-                        log.info("Tool {} result: {}", getToolName(), result);
-
-                        return Mono.just(new McpSchema.CallToolResult(result.toString(), false));
-
+                        input = bind(arguments);
                     } catch (CapabilityException e) {
-                        log.error("Tool {} execution failed with CapabilityException: {}", getToolName(), e.getMessage());
                         return Mono.just(new McpSchema.CallToolResult(e.getMessage(), true));
-                    } catch (Exception e) {
-                        log.error("Tool {} execution failed with unexpected exception", getToolName(), e);
-                        return Mono.just(new McpSchema.CallToolResult("Unexpected error: " + e.getMessage(), true));
+                    } finally {
+                        bind.end();
                     }
+
+                    return Mono.deferContextual(context -> {
+                        ToolCallContext call = context.getOrDefault(ToolCallContext.CONTEXT_KEY, null);
+                        log.info("Executing tool {} with input: {}", getToolName(), input);
+                        CallContext callContext = call != null ? call.getCallContext() : new CallContext(null);
+                        span.attribute("session", callContext.getSessionId()).attribute("request", callContext.getRequestId());
+                        Supplier<CompletableFuture<Object>> execution = traced(span, tool instanceof StreamingCapability
+                                ? () -> executeStreaming(input, call)
+                                : () -> executeAsync(input, callContext));
+                        Supplier<CompletableFuture<Object>> scheduled = scheduler != null
+                                ? () -> scheduler.submit(exchange, execution)
+                                : execution;
+                        CompletableFuture<Object> future = tracker != null ? tracker.track(getToolName(), scheduled) : scheduled.get();
+                        if (future == null) {
+                            log.info("Tool {} call refused, server is shutting down", getToolName());
+                            return Mono.just(new McpSchema.CallToolResult("Server is shutting down", true));
+                        }
+                        // Client cancellation drops the call if queued and interrupts it if running
+                        callContext.onCancel(() -> future.cancel(true));
+
+                        return Mono.fromFuture(future)
+                                .map(result -> {
+                                    log.info("Tool {} result: {}", getToolName(), result);
+                                    Span serialize = span.child("serialize");
+                                    try {
+                                        return toResult(result.toString());
+                                    } finally {
+                                        serialize.end();
+                                    }
+                                })
+                                .defaultIfEmpty(new McpSchema.CallToolResult("", false))
+                                .onErrorResume(e -> Mono.just(toErrorResult(e)));
+                    });
+                };
+
+        McpServerFeatures.AsyncToolSpecification asyncToolSpecification = new McpServerFeatures.AsyncToolSpecification(
+                new McpSchema.Tool(getToolName(), getToolDescription(), schemaJson),
+                (exchange, arguments) -> {
+                    long started = System.nanoTime();
+                    Mono<McpSchema.CallToolResult> result = rateLimiter != null
+                            ? limited(handler, exchange, arguments)
+                            : handleTraced(handler, exchange, arguments);
+                    return journal != null ? journaled(result, arguments, started) : result;
                 }
         );
         return asyncToolSpecification;
     }
 
+    /**
+     * Builds the result of a successful call, storing it in the result store if it is too large.
+     * Falls back to the inline result if it cannot be stored.
+     *
+     * @param text the result text
+     * @return the call result
+     */
+    private McpSchema.CallToolResult toResult(String text) {
+        if (resultStore != null && resultStore.shouldStore(text)) {
+            try {
+                return resultStore.store(getToolName(), text);
+            } catch (IOException e) {
+                log.warn("Failed to store the result of tool {}, returning it inline: {}", getToolName(), e.getMessage());
+            }
+        }
+        return new McpSchema.CallToolResult(text, false);
+    }
+
+    /**
+     * Runs the call handler if the calling session is within its rate limits and quotas.
+     *
+     * @param handler the call handler
+     * @param exchange the server exchange
+     * @param arguments the call arguments
+     * @return the call result, or an error result with the retry delay if the call is over a limit
+     */
+    private Mono<McpSchema.CallToolResult> limited(
+            BiFunction<McpAsyncServerExchange, Map<String, Object>, Mono<McpSchema.CallToolResult>> handler,
+            McpAsyncServerExchange exchange, Map<String, Object> arguments) {
+        return Mono.deferContextual(context -> {
+            ToolCallContext call = context.getOrDefault(ToolCallContext.CONTEXT_KEY, null);
+            String sessionId = call != null ? call.getCallContext().getSessionId() : null;
+            RateLimiter.Decision decision = rateLimiter.acquire(sessionId, getToolName());
+            if (!decision.allowed()) {
+                return Mono.just(new McpSchema.CallToolResult(decision.message(getToolName()), true));
+            }
+            return handleTraced(handler, exchange, arguments);
+        });
+    }
+
+    /**
+     * Runs the call handler inside a root span, if the tracer samples the call.
+     *
+     * @param handler the call handler
+     * @param exchange the server exchange
+     * @param arguments the call arguments
+     * @return the call result
+     */
+    private Mono<McpSchema.CallToolResult> handleTraced(
+            BiFunction<McpAsyncServerExchange, Map<String, Object>, Mono<McpSchema.CallToolResult>> handler,
+            McpAsyncServerExchange exchange, Map<String, Object> arguments) {
+        Span span = tracer != null ? tracer.startTrace("tools/call " + getToolName()) : Span.NOOP;
+        if (!span.isRecording()) {
+            return handler.apply(exchange, arguments);
+        }
+        span.attribute("tool", getToolName());
+        Mono<McpSchema.CallToolResult> result;
+        try (Span.Scope scope = span.activate()) {
+            result = handler.apply(exchange, arguments);
+        }
+        // End the span before the result is passed on, so it is recorded by the time the caller sees the result
+        return result
+                .doOnNext(callResult -> {
+                    if (Boolean.TRUE.equals(callResult.isError()) && !callResult.content().isEmpty()
+                            && callResult.content().get(0) instanceof McpSchema.TextContent text) {
+                        span.error(text.text());
+                    }
+                    span.end();
+                })
+                .doFinally(signal -> {
+                    if (signal == SignalType.CANCEL) {
+                        span.error("cancelled");
+                    }
+                    span.end();
+                });
+    }
+
+    /**
+     * Records the call in the journal once its result is ready.
+     *
+     * @param result the call result
+     * @param arguments the call arguments
+     * @param startNanos when the call arrived, from System.nanoTime()
+     * @return the call result
+     */
+    private Mono<McpSchema.CallToolResult> journaled(Mono<McpSchema.CallToolResult> result, Map<String, Object> arguments, long startNanos) {
+        return result.doOnNext(callResult -> {
+            long duration = System.nanoTime() - startNanos;
+            Instant now = Instant.now();
+            long startEpochNanos = now.getEpochSecond() * 1_000_000_000L + now.getNano() - duration;
+            String argumentsJson = null;
+            if (arguments != null) {
+                try {
+                    argumentsJson = OBJECT_MAPPER.writeValueAsString(arguments);
+                } catch (Exception e) {
+                    log.warn("Failed to serialize arguments of tool {} for the journal: {}", getToolName(), e.getMessage());
+                }
+            }
+            int resultSize = 0;
+            for (McpSchema.Content content : callResult.content()) {
+                if (content instanceof McpSchema.TextContent text && text.text() != null) {
+                    resultSize += text.text().length();
+                }
+            }
+            journal.record(getToolName(), argumentsJson, startEpochNanos, duration, resultSize, Boolean.TRUE.equals(callResult.isError()));
+        });
+    }
+
+    /**
+     * Runs the tool from another capability, such as a pipeline stage, and returns its raw result.
+     * The arguments are validated and bound as for a client call, and the call runs on the tool's
+     * bulkhead and behind its circuit breaker, with the current call context. Scheduling, rate
+     * limits and the journal apply to the calling tool instead.
+     *
+     * @param arguments the tool arguments
+     * @return the future result of the tool, before conversion to text
+     */
+    public CompletableFuture<Object> invoke(Map<String, Object> arguments) {
+        Object input;
+        try {
+            input = bindForInvocation(arguments);
+        } catch (CapabilityException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CallContext current = CallContext.current();
+        return executeAsync(input, current != null ? current : new CallContext(null));
+    }
+
+    /**
+     * Runs the tool from another capability as a stream of results. A streaming tool emits its
+     * chunks as it produces them, without folding them into one result; any other tool emits its
+     * single raw result. The call is made as by {@link #invoke(Map)}, on the tool's bulkhead and
+     * behind its circuit breaker, with the call context current when this method is called. Nothing runs until the
+     * flux is subscribed, and cancelling the subscription cancels the call.
+     *
+     * @param arguments the tool arguments
+     * @return the results of the tool, before conversion to text
+     */
+    @SuppressWarnings("unchecked")
+    public Flux<Object> stream(Map<String, Object> arguments) {
+        CallContext current = CallContext.current();
+        CallContext callContext = current != null ? current : new CallContext(null);
+        if (!(tool instanceof StreamingCapability)) {
+            return Mono.fromFuture(() -> {
+                try {
+                    return callContext.call(() -> invoke(arguments));
+                } catch (Exception e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }).flux();
+        }
+        StreamingCapability<Object, Object> streaming = (StreamingCapability<Object, Object>) tool;
+        return Flux.defer(() -> {
+            Object input;
+            try {
+                input = bindForInvocation(arguments);
+            } catch (CapabilityException e) {
+                return Flux.error(e);
+            }
+            return runStream(streaming, input, callContext);
+        });
+    }
+
+    /**
+     * Runs a streaming tool on its bulkhead if it has one, as other executions do. The stream then
+     * holds one bulkhead thread until it ends, and is subscribed and requested from that thread.
+     * The breaker is asked once the stream has its thread, and sees the stream as one call lasting
+     * until the last chunk.
+     */
+    private Flux<Object> runStream(StreamingCapability<Object, Object> streaming, Object input, CallContext callContext) {
+        Flux<Object> stream = Flux.defer(() -> {
+            if (circuitBreaker == null) {
+                return startStream(streaming, input, callContext);
+            }
+            CompletableFuture<Object> done = new CompletableFuture<>();
+            CompletableFuture<Object> guarded = circuitBreaker.execute(() -> done);
+            if (guarded.isCompletedExceptionally()) {
+                return Mono.fromFuture(guarded).flux();
+            }
+            return startStream(streaming, input, callContext)
+                    .doOnComplete(() -> done.complete(null))
+                    .doOnError(done::completeExceptionally)
+                    .doOnCancel(() -> done.cancel(false));
+        });
+        if (bulkhead == null) {
+            return stream;
+        }
+        return Flux.defer(() -> {
+            BlockingQueue<Runnable> work = new LinkedBlockingQueue<>();
+            AtomicBoolean ended = new AtomicBoolean();
+            CompletableFuture<Object> thread = bulkhead.submit(Span.propagate("bulkhead.wait", () -> {
+                while (!ended.get()) {
+                    work.take().run();
+                }
+                return null;
+            }));
+            if (thread.isCompletedExceptionally()) {
+                return Mono.fromFuture(thread).flux();
+            }
+            // Fails the stream if the bulkhead interrupts its thread, for instance on shutdown
+            Mono<Object> lost = Mono.fromFuture(thread, true).then(Mono.never());
+            return stream.subscribeOn(Schedulers.fromExecutor(work::add), true)
+                    .takeUntilOther(lost)
+                    .doFinally(signal -> {
+                        ended.set(true);
+                        work.add(() -> {
+                        });
+                        if (signal == SignalType.CANCEL) {
+                            thread.cancel(true);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Starts a streaming tool with the call context bound, as other executions are.
+     */
+    private Flux<Object> startStream(StreamingCapability<Object, Object> streaming, Object input, CallContext callContext) {
+        try {
+            return JdkFlowAdapter.flowPublisherToFlux(callContext.call(() -> streaming.stream(input)));
+        } catch (Exception e) {
+            return Flux.error(e);
+        }
+    }
+
+    private Object bindForInvocation(Map<String, Object> arguments) throws CapabilityException {
+        if (createAsyncToolSpecification() == null) {
+            throw new CapabilityException("Tool " + getToolName() + " cannot be called");
+        }
+        return bind(arguments);
+    }
+
+    /**
+     * Binds call arguments to the tool's input object, validating them against the tool's schema.
+     *
+     * @param arguments the call arguments, may be null
+     * @return the input object
+     * @throws CapabilityException with the message for the client if the arguments do not bind
+     */
+    private Object bind(Map<String, Object> arguments) throws CapabilityException {
+        if (arguments == null) {
+            // Si arguments es null y la clase espera Void, podemos continuar
+            if (argumentClass == Void.class) {
+                return null;
+            }
+            throw new CapabilityException("Se requieren argumentos para esta herramienta");
+        }
+        try {
+            // Handle primitive types specially
+            if (primitiveArgument) {
+                // Extract the value from the wrapper object
+                // The schema wraps primitives in an object with a "value" property
+                Object value = arguments.get("value");
+                if (value == null) {
+                    // Try with the lowercase class name as property
+                    value = arguments.get(argumentClass.getSimpleName().toLowerCase());
+                }
+                if (value == null) {
+                    log.error("Could not find value property in arguments for primitive type {}", argumentClass.getName());
+                    throw new CapabilityException("Missing value property for primitive type");
+                }
+                // Convert the value to the expected primitive type
+                return OBJECT_MAPPER.convertValue(value, argumentClass);
+            }
+            List<String> errors = validator != null ? validator.validate(arguments) : List.of();
+            if (!errors.isEmpty()) {
+                log.warn("Invalid arguments for tool {}: {}", getToolName(), errors);
+                throw new CapabilityException("Invalid arguments: " + String.join("; ", errors));
+            }
+            // For non-primitive types, convert normally
+            return OBJECT_MAPPER.convertValue(arguments, argumentClass);
+        } catch (RuntimeException e) {
+            log.error("Error deserializing arguments to {}: {}", argumentClass.getName(), e.getMessage());
+            throw new CapabilityException("Error en los argumentos: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Adds the queue and execute spans of a traced call around its execution.
+     * The queue span covers the wait for a scheduler slot; the execute span is current while the
+     * execution starts, so executor and bulkhead waits and the capability's own spans nest under it.
+     *
+     * @param span the root span of the call
+     * @param execution starts the execution
+     * @return the traced execution, or the execution itself if the call is not traced
+     */
+    private static Supplier<CompletableFuture<Object>> traced(Span span, Supplier<CompletableFuture<Object>> execution) {
+        if (!span.isRecording()) {
+            return execution;
+        }
+        Span queue = span.child("queue");
+        return () -> {
+            queue.end();
+            Span execute = span.child("execute");
+            CompletableFuture<Object> future;
+            try (Span.Scope scope = execute.activate()) {
+                future = execution.get();
+            } catch (RuntimeException e) {
+                execute.error(e.getMessage()).end();
+                throw e;
+            }
+            // Later stages wait for the span to end; cancelling them still cancels the execution
+            CompletableFuture<Object> ended = future.whenComplete((result, error) -> {
+                if (error != null) {
+                    execute.error(String.valueOf(error.getMessage()));
+                }
+                execute.end();
+            });
+            ended.whenComplete((result, error) -> {
+                if (ended.isCancelled()) {
+                    future.cancel(true);
+                }
+            });
+            return ended;
+        };
+    }
+
+    /**
+     * Starts the asynchronous execution of the tool behind its circuit breaker, on its bulkhead if
+     * it has one. On a bulkhead the breaker is asked once the call has a thread, so rejections and
+     * time spent in the bulkhead queue count neither as failures nor as slow calls.
+     * The call context is bound while the execution starts so it reaches the executing thread.
+     *
+     * @param input the bound input object
+     * @param callContext the call context
+     * @return the future result of the execution
+     */
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<Object> executeAsync(Object input, CallContext callContext) {
+        if (bulkhead != null) {
+            return bulkhead.submit(Span.propagate("bulkhead.wait", () -> callContext.call(() -> circuitBreaker != null
+                    ? circuitBreaker.call(() -> tool.execute(input))
+                    : tool.execute(input))));
+        }
+        Supplier<CompletableFuture<Object>> execution = () -> {
+            try {
+                return callContext.call(() -> (CompletableFuture<Object>) tool.executeAsync(input));
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        };
+        return circuitBreaker != null ? circuitBreaker.execute(execution) : execution.get();
+    }
+
+    /**
+     * Runs a streaming tool, forwarding each chunk as a progress notification when the client
+     * asked for progress. The next chunk is requested only after the previous notification was sent.
+     *
+     * @param input the bound input object
+     * @param call the protocol context of the call, may be null
+     * @return the future accumulated result
+     */
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<Object> executeStreaming(Object input, ToolCallContext call) {
+        StreamingCapability<Object, Object> streaming = (StreamingCapability<Object, Object>) tool;
+        if (call == null || call.getProgressToken() == null) {
+            return executeAsync(input, call != null ? call.getCallContext() : new CallContext(null));
+        }
+        AtomicLong progress = new AtomicLong();
+        return runStream(streaming, input, call.getCallContext())
+                .concatMap(chunk -> call.sendProgress(progress.incrementAndGet(), null, String.valueOf(chunk))
+                        .onErrorResume(e -> {
+                            log.warn("Failed to send progress for tool {}: {}", getToolName(), e.getMessage());
+                            return Mono.empty();
+                        })
+                        .thenReturn(chunk), 1)
+                .reduceWith(StringBuilder::new, streaming::accumulate)
+                .<Object>map(StringBuilder::toString)
+                .toFuture();
+    }
+
+    /**
+     * Converts an execution failure into an error result for the client.
+     *
+     * @param error the failure, possibly wrapped in a CompletionException
+     * @return the error result
+     */
+    private McpSchema.CallToolResult toErrorResult(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof CancellationException) {
+            log.info("Tool {} call cancelled", getToolName());
+            return new McpSchema.CallToolResult("Call cancelled", true);
+        }
+        if (cause instanceof CapabilityException) {
+            log.error("Tool {} execution failed with CapabilityException: {}", getToolName(), cause.getMessage());
+            return new McpSchema.CallToolResult(cause.getMessage(), true);
+        }
+        log.error("Tool {} execution failed with unexpected exception", getToolName(), cause);
+        return new McpSchema.CallToolResult("Unexpected error: " + cause.getMessage(), true);
+    }
+
     /**
      * Gets the name of the tool.
      * First tries to get the name from the Name annotation.
@@ -190,14 +702,7 @@ public class ToolContainer{
      * @return the tool name
      */
     private String getToolName(){
-        // Try to get name from Name annotation
-        Name name = tool.getClass().getAnnotation(Name.class);
-        if (name != null && !name.value().isEmpty()) {
-            return name.value();
-        }
-
-        // Fallback to simple class name if no annotation is present
-        return tool.getClass().getSimpleName();
+        return MiscTools.getToolName(tool);
     }
 
     /**
@@ -208,6 +713,10 @@ public class ToolContainer{
      * @return the tool description
      */
     private String getToolDescription(){
+        if (tool instanceof DeclaredCapability<?, ?> declared) {
+            return declared.getDescription();
+        }
+
         // Try to get description from Info annotation
         Description description = tool.getClass().getAnnotation(Description.class);
         if (description != null && !description.value().isEmpty()) {
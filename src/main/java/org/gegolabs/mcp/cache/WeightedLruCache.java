@@ -0,0 +1,137 @@
+package org.gegolabs.mcp.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Least-recently-used cache bounded by the total weight of its values rather than their count.
+ * <p>
+ * Values heavier than the whole budget are never cached. All operations are synchronized, which is
+ * fine for the short critical sections involved.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class WeightedLruCache<K, V> {
+
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxWeight maximum total weight of cached values
+     * @param weigher function computing the weight of a value
+     */
+    public WeightedLruCache(long maxWeight, ToLongFunction<V> weigher) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Gets a cached value and marks it as recently used.
+     *
+     * @param key the key
+     * @return the value, or null if not cached
+     */
+    public synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return value;
+    }
+
+    /**
+     * Caches a value, evicting the least recently used entries until it fits.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    public synchronized void put(K key, V value) {
+        long valueWeight = weigher.applyAsLong(value);
+        if (valueWeight > maxWeight) {
+            return;
+        }
+        V previous = entries.put(key, value);
+        if (previous != null) {
+            weight -= weigher.applyAsLong(previous);
+        }
+        weight += valueWeight;
+        Iterator<Map.Entry<K, V>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            Map.Entry<K, V> entry = eldest.next();
+            weight -= weigher.applyAsLong(entry.getValue());
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Removes the entries whose key matches a filter.
+     *
+     * @param filter selects the keys to remove
+     */
+    public synchronized void removeIf(Predicate<? super K> filter) {
+        Iterator<Map.Entry<K, V>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, V> entry = iterator.next();
+            if (filter.test(entry.getKey())) {
+                weight -= weigher.applyAsLong(entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Gets the number of cached entries.
+     *
+     * @return the entry count
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the total weight of cached values.
+     *
+     * @return the current weight
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Gets the number of lookups that found a value.
+     *
+     * @return the hit count
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that found nothing.
+     *
+     * @return the miss count
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
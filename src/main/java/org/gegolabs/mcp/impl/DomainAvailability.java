@@ -3,13 +3,17 @@ package org.gegolabs.mcp.impl;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.net.whois.WhoisClient;
+import org.gegolabs.mcp.protocol.Breaker;
+import org.gegolabs.mcp.protocol.Bulkhead;
 import org.gegolabs.mcp.protocol.CapabilityException;
 import org.gegolabs.mcp.protocol.Description;
 import org.gegolabs.mcp.protocol.Name;
 import org.gegolabs.mcp.protocol.SyncCapability;
+import org.gegolabs.mcp.resilience.Hedger;
 
 import java.io.IOException;
 import java.net.SocketException;
+import java.time.Duration;
 
 /**
  * A capability that checks if a domain name is available for registration
@@ -18,49 +22,53 @@ import java.net.SocketException;
 @Slf4j
 @Description("Checks if a domain name is available for registration based on a domain registry query.")
 @Name("domain-availability")
+@Bulkhead("whois")
+@Breaker("whois")
 public class DomainAvailability implements SyncCapability<String,Boolean> {
 
     /**
-     * The WhoisClient instance used for WHOIS queries.
+     * Time allowed to connect to the WHOIS server, in milliseconds.
      */
-    private WhoisClient whoisClient;
+    private static final int CONNECT_TIMEOUT = 5_000;
+
+    /**
+     * Time allowed for each read from the WHOIS server, in milliseconds.
+     */
+    private static final int READ_TIMEOUT = 10_000;
+
+    /**
+     * Hedger for WHOIS queries. A query slower than most gets a second one on a fresh connection.
+     */
+    private Hedger hedger;
 
     /**
      * Default constructor for DomainAvailability.
      */
     public DomainAvailability() {
-        // Client will be initialized in initialize() method
+        // Hedger will be initialized in initialize() method
     }
 
     /**
-     * Initializes the capability by creating a WhoisClient instance.
+     * Initializes the capability by creating the hedger for WHOIS queries.
      *
      * @throws CapabilityException if initialization fails
      */
     @Override
     public void initialize() throws CapabilityException {
         log.info("Initializing DomainAvailability capability");
-        try {
-            whoisClient = new WhoisClient();
-        } catch (Exception e) {
-            throw new CapabilityException("Failed to initialize WhoisClient", e);
-        }
+        hedger = Hedger.builder().name("whois").initialDelay(Duration.ofSeconds(1)).build();
     }
 
     /**
-     * Shuts down the capability by disconnecting the WhoisClient if it's connected.
+     * Shuts down the capability, interrupting the WHOIS queries still running.
      *
      * @throws CapabilityException if shutdown fails
      */
     @Override
     public void shutdown() throws CapabilityException {
         log.info("Shutting down DomainAvailability capability");
-        if (whoisClient != null && whoisClient.isConnected()) {
-            try {
-                whoisClient.disconnect();
-            } catch (IOException e) {
-                throw new CapabilityException("Failed to disconnect WhoisClient", e);
-            }
+        if (hedger != null) {
+            hedger.close();
         }
     }
 
@@ -84,31 +92,60 @@ public class DomainAvailability implements SyncCapability<String,Boolean> {
 
     /**
      * Performs a WHOIS query for the specified domain name.
+     * The query is hedged: if it is slow, a second query is sent on another connection and the first answer wins.
      *
      * @param domainName the domain name to query
      * @return the WHOIS query result as a string
      * @throws CapabilityException if there is an error performing the WHOIS query
      */
     public String whois(String domainName) throws CapabilityException {
-        StringBuilder whoisResult = new StringBuilder();
         try {
-            // Connect to the WHOIS server if not already connected
-            if (!whoisClient.isConnected()) {
-                whoisClient.connect(WhoisClient.DEFAULT_HOST);
-            }
-
-            // Query the WHOIS server
-            String whoisData = whoisClient.query("=" + domainName);
-            whoisResult.append(whoisData);
+            return hedger.call(attempt -> query(domainName, attempt));
+        } catch (CapabilityException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CapabilityException("WHOIS query interrupted", e);
+        } catch (Exception e) {
+            throw new CapabilityException("WHOIS query failed: " + e.getMessage(), e);
+        }
+    }
 
-            // Note: We don't disconnect after each query to allow reuse of the connection
+    /**
+     * Sends one WHOIS query on its own connection.
+     * WHOIS servers close the connection after answering, so connections are never reused,
+     * and concurrent queries never share a client.
+     *
+     * @param domainName the domain name to query
+     * @param attempt the hedged attempt; losing it closes the connection
+     * @return the WHOIS query result as a string
+     * @throws CapabilityException if there is an error performing the WHOIS query
+     */
+    private String query(String domainName, Hedger.Attempt attempt) throws CapabilityException {
+        WhoisClient whoisClient = new WhoisClient();
+        // Bounded waits, so a degraded server shows up as failures the circuit breaker can count
+        whoisClient.setConnectTimeout(CONNECT_TIMEOUT);
+        whoisClient.setDefaultTimeout(READ_TIMEOUT);
+        attempt.onCancel(() -> disconnect(whoisClient));
+        try {
+            whoisClient.connect(WhoisClient.DEFAULT_HOST);
+            return whoisClient.query("=" + domainName);
         } catch (SocketException e) {
             log.error("Socket error during WHOIS query", e);
             throw new CapabilityException("Socket error during WHOIS query", e);
         } catch (IOException e) {
             log.error("I/O error during WHOIS query", e);
             throw new CapabilityException("I/O error during WHOIS query", e);
+        } finally {
+            disconnect(whoisClient);
+        }
+    }
+
+    private static void disconnect(WhoisClient whoisClient) {
+        try {
+            whoisClient.disconnect();
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to disconnect WhoisClient: {}", e.getMessage());
         }
-        return whoisResult.toString();
     }
 }
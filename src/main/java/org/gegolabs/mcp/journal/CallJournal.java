@@ -0,0 +1,280 @@
+package org.gegolabs.mcp.journal;
+
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Append-only binary journal of tool calls, for capturing production traffic and replaying it offline.
+ * <p>
+ * The journal is a directory of fixed-size segment files, each mapped into memory. A writer reserves
+ * space for its record with a single atomic add on the segment's write position, copies the record
+ * into the mapping and publishes it by writing its length last, so appends never take a lock. When a
+ * segment is full, the next one is created; the oldest segments beyond {@code maxSegments} are deleted.
+ * <p>
+ * Segment layout: an 8-byte magic, the 8-byte creation time in epoch milliseconds, then records
+ * aligned to 4 bytes, each a 4-byte length followed by the body written by {@link JournalEntry}.
+ * A length of zero marks the end of the written part of a segment. Read with {@link JournalReader}.
+ */
+@Slf4j
+public class CallJournal implements AutoCloseable {
+
+    /**
+     * Magic number at the start of every segment.
+     */
+    static final long MAGIC = 0x554D43504A524E31L; // "UMCPJRN1"
+
+    /**
+     * Size of the segment header.
+     */
+    static final int HEADER_SIZE = 16;
+
+    /**
+     * Prefix and suffix of segment file names, around a zero-padded sequence number.
+     */
+    static final String SEGMENT_PREFIX = "calls-";
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    private static final VarHandle INT_VIEW = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final int DEFAULT_MAX_SEGMENTS = 16;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final List<Path> segmentFiles = new ArrayList<>();
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile Segment current;
+    private volatile boolean closed;
+
+    /**
+     * Creates a journal, continuing with a new segment after the last one found in the directory.
+     *
+     * @param directory the directory holding the segments, created if missing
+     * @param segmentSize size of each segment file in bytes (default 64 MB)
+     * @param maxSegments number of segments kept, older ones are deleted (default 16)
+     * @throws IOException if the directory or the first segment cannot be created
+     */
+    @Builder
+    public CallJournal(Path directory, int segmentSize, int maxSegments) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("A journal directory is required");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize > 0 ? segmentSize : DEFAULT_SEGMENT_SIZE;
+        this.maxSegments = maxSegments > 0 ? maxSegments : DEFAULT_MAX_SEGMENTS;
+        if (this.segmentSize < HEADER_SIZE + 64) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentSize);
+        }
+        Files.createDirectories(directory);
+        segmentFiles.addAll(listSegments(directory));
+        int next = segmentFiles.isEmpty() ? 0 : sequence(segmentFiles.get(segmentFiles.size() - 1)) + 1;
+        this.current = openSegment(next);
+    }
+
+    /**
+     * Records a call. Never blocks on other writers; records too large for a segment are dropped.
+     *
+     * @param tool the tool name
+     * @param argumentsJson the call arguments as JSON, may be null
+     * @param startEpochNanos when the call arrived, in nanoseconds since the epoch
+     * @param durationNanos how long the call took
+     * @param resultSize the size of the result text in characters
+     * @param error whether the call returned an error
+     */
+    public void record(String tool, String argumentsJson, long startEpochNanos, long durationNanos, int resultSize, boolean error) {
+        if (closed) {
+            dropped.incrementAndGet();
+            return;
+        }
+        byte[] body = new JournalEntry(tool, argumentsJson, startEpochNanos, durationNanos, resultSize, error).encode();
+        int size = align(Integer.BYTES + body.length);
+        if (size > segmentSize - HEADER_SIZE) {
+            dropped.incrementAndGet();
+            log.warn("Journal record of {} bytes for tool {} exceeds the segment size", body.length, tool);
+            return;
+        }
+        while (true) {
+            Segment segment = current;
+            int offset = segment.position.getAndAdd(size);
+            if (offset + size <= segmentSize) {
+                segment.buffer.put(offset + Integer.BYTES, body);
+                // Publish: readers only see a record once its length is set
+                INT_VIEW.setRelease(segment.buffer, offset, body.length);
+                recorded.incrementAndGet();
+                return;
+            }
+            if (closed) {
+                // No segment will follow a closed one
+                dropped.incrementAndGet();
+                return;
+            }
+            try {
+                rotate(segment);
+            } catch (IOException e) {
+                dropped.incrementAndGet();
+                log.error("Failed to rotate journal segment in {}: {}", directory, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of calls recorded.
+     *
+     * @return the record count
+     */
+    public long getRecorded() {
+        return recorded.get();
+    }
+
+    /**
+     * Gets the number of calls not recorded, because they were too large, a segment could not be
+     * created or the journal was closed.
+     *
+     * @return the dropped record count
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Gets the journal directory.
+     *
+     * @return the directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Flushes the current segment to disk and stops recording.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        current.buffer.force();
+        log.info("Journal closed: {} calls recorded, {} dropped", recorded.get(), dropped.get());
+    }
+
+    /**
+     * Replaces a full segment. Only the first writer to find the segment full creates the next one.
+     *
+     * @param full the segment found full
+     * @throws IOException if the next segment cannot be created
+     */
+    private synchronized void rotate(Segment full) throws IOException {
+        if (current != full || closed) {
+            return;
+        }
+        full.buffer.force();
+        current = openSegment(full.sequence + 1);
+    }
+
+    private Segment openSegment(int sequence) throws IOException {
+        Path file = directory.resolve(segmentName(sequence));
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        buffer.putLong(0, MAGIC);
+        buffer.putLong(8, Instant.now().toEpochMilli());
+        segmentFiles.add(file);
+        log.info("Journal segment {} created", file);
+        while (segmentFiles.size() > maxSegments) {
+            Path oldest = segmentFiles.remove(0);
+            try {
+                Files.deleteIfExists(oldest);
+            } catch (IOException e) {
+                log.warn("Failed to delete journal segment {}: {}", oldest, e.getMessage());
+            }
+        }
+        return new Segment(sequence, buffer);
+    }
+
+    /**
+     * Lists the segment files of a journal directory, oldest first.
+     *
+     * @param directory the journal directory
+     * @return the segment files
+     * @throws IOException if the directory cannot be read
+     */
+    static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static String segmentName(int sequence) {
+        return String.format("%s%08d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX);
+    }
+
+    private static int sequence(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static int align(int size) {
+        return (size + 3) & ~3;
+    }
+
+    /**
+     * Reads the length of the record at an offset, with acquire semantics to pair with the writer's release.
+     *
+     * @param buffer the segment
+     * @param offset the record offset
+     * @return the body length, 0 if the record is not written
+     */
+    static int readLength(ByteBuffer buffer, int offset) {
+        return (int) INT_VIEW.getAcquire(buffer, offset);
+    }
+
+    /**
+     * Encodes a string as UTF-8.
+     *
+     * @param value the string, may be null
+     * @return the bytes, empty for null
+     */
+    static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    private static final class Segment {
+        final int sequence;
+        final MappedByteBuffer buffer;
+        final AtomicInteger position = new AtomicInteger(HEADER_SIZE);
+
+        Segment(int sequence, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.buffer = buffer;
+        }
+    }
+}
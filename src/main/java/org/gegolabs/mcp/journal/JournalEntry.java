@@ -0,0 +1,92 @@
+package org.gegolabs.mcp.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * One recorded tool call.
+ * <p>
+ * Encoded as: start time and duration in nanoseconds (8 bytes each), result size (4 bytes),
+ * flags (1 byte, bit 0 set for errors), the tool name (2-byte length and UTF-8 bytes) and the
+ * arguments as JSON (4-byte length, -1 for none, and UTF-8 bytes).
+ *
+ * @param tool the tool name
+ * @param argumentsJson the call arguments as JSON, may be null
+ * @param startEpochNanos when the call arrived, in nanoseconds since the epoch
+ * @param durationNanos how long the call took
+ * @param resultSize the size of the result text in characters
+ * @param error whether the call returned an error
+ */
+public record JournalEntry(String tool, String argumentsJson, long startEpochNanos, long durationNanos,
+                           int resultSize, boolean error) {
+
+    private static final int FIXED_SIZE = Long.BYTES * 2 + Integer.BYTES + 1 + Short.BYTES + Integer.BYTES;
+
+    /**
+     * Gets when the call arrived.
+     *
+     * @return the start time
+     */
+    public Instant start() {
+        return Instant.ofEpochSecond(0, startEpochNanos);
+    }
+
+    /**
+     * Gets how long the call took.
+     *
+     * @return the duration
+     */
+    public Duration duration() {
+        return Duration.ofNanos(durationNanos);
+    }
+
+    /**
+     * Encodes the entry as a journal record body.
+     *
+     * @return the encoded bytes
+     */
+    byte[] encode() {
+        byte[] name = CallJournal.utf8(tool);
+        if (name.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Tool name too long");
+        }
+        byte[] arguments = argumentsJson != null ? CallJournal.utf8(argumentsJson) : null;
+        ByteBuffer body = ByteBuffer.allocate(FIXED_SIZE + name.length + (arguments != null ? arguments.length : 0));
+        body.putLong(startEpochNanos)
+                .putLong(durationNanos)
+                .putInt(resultSize)
+                .put((byte) (error ? 1 : 0))
+                .putShort((short) name.length)
+                .put(name)
+                .putInt(arguments != null ? arguments.length : -1);
+        if (arguments != null) {
+            body.put(arguments);
+        }
+        return body.array();
+    }
+
+    /**
+     * Decodes a journal record body.
+     *
+     * @param body the body, positioned at its start and limited to its end
+     * @return the entry
+     */
+    static JournalEntry decode(ByteBuffer body) {
+        long start = body.getLong();
+        long duration = body.getLong();
+        int resultSize = body.getInt();
+        boolean error = (body.get() & 1) != 0;
+        byte[] name = new byte[body.getShort()];
+        body.get(name);
+        int argumentsLength = body.getInt();
+        String arguments = null;
+        if (argumentsLength >= 0) {
+            byte[] bytes = new byte[argumentsLength];
+            body.get(bytes);
+            arguments = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new JournalEntry(new String(name, StandardCharsets.UTF_8), arguments, start, duration, resultSize, error);
+    }
+}
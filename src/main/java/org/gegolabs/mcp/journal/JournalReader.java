@@ -0,0 +1,68 @@
+package org.gegolabs.mcp.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads the calls recorded by a {@link CallJournal}, oldest segment first.
+ * Can read a journal that is still being written; records not yet published are skipped.
+ */
+public final class JournalReader {
+
+    private JournalReader() {
+    }
+
+    /**
+     * Reads every recorded call of a journal directory.
+     *
+     * @param directory the journal directory
+     * @return the calls, in segment and append order
+     * @throws IOException if a segment cannot be read or is not a journal segment
+     */
+    public static List<JournalEntry> readAll(Path directory) throws IOException {
+        List<JournalEntry> entries = new ArrayList<>();
+        forEach(directory, entries::add);
+        return entries;
+    }
+
+    /**
+     * Passes every recorded call of a journal directory to a consumer.
+     *
+     * @param directory the journal directory
+     * @param consumer receives the calls, in segment and append order
+     * @throws IOException if a segment cannot be read or is not a journal segment
+     */
+    public static void forEach(Path directory, Consumer<JournalEntry> consumer) throws IOException {
+        for (Path segment : CallJournal.listSegments(directory)) {
+            readSegment(segment, consumer);
+        }
+    }
+
+    private static void readSegment(Path file, Consumer<JournalEntry> consumer) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < CallJournal.HEADER_SIZE || buffer.getLong(0) != CallJournal.MAGIC) {
+            throw new IOException("Not a journal segment: " + file);
+        }
+        int offset = CallJournal.HEADER_SIZE;
+        while (offset + Integer.BYTES <= buffer.capacity()) {
+            int length = CallJournal.readLength(buffer, offset);
+            if (length <= 0 || offset + Integer.BYTES + length > buffer.capacity()) {
+                // End of the written part of the segment
+                return;
+            }
+            ByteBuffer body = buffer.slice(offset + Integer.BYTES, length);
+            consumer.accept(JournalEntry.decode(body));
+            offset += (Integer.BYTES + length + 3) & ~3;
+        }
+    }
+}
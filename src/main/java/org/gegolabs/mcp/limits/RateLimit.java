@@ -0,0 +1,66 @@
+package org.gegolabs.mcp.limits;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Limits on the calls a single client session may make: a sustained rate with a burst allowance,
+ * and a quota of calls per period. Either part may be left out.
+ * <p>
+ * The quota counts calls in fixed periods aligned to the epoch, so a one-day period resets at
+ * midnight UTC. A rolling quota instead counts the calls of the last period, estimated from the
+ * current and the previous fixed period.
+ */
+@Getter
+public class RateLimit {
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final long quota;
+    private final Duration quotaPeriod;
+    private final boolean rollingQuota;
+
+    /**
+     * Creates a limit.
+     *
+     * @param permitsPerSecond sustained calls per second, zero for no rate limit
+     * @param burst calls allowed at once after a quiet period (default: one second's worth, at least 1)
+     * @param quota calls allowed per quota period, zero for no quota
+     * @param quotaPeriod length of the quota period (default one day)
+     * @param rollingQuota whether the quota applies to the last period rather than the current fixed one
+     */
+    @Builder
+    public RateLimit(double permitsPerSecond, int burst, long quota, Duration quotaPeriod, boolean rollingQuota) {
+        if (permitsPerSecond < 0 || quota < 0) {
+            throw new IllegalArgumentException("Rate and quota cannot be negative");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst > 0 ? burst : Math.max(1, (int) Math.ceil(permitsPerSecond));
+        this.quota = quota;
+        this.quotaPeriod = quotaPeriod != null && !quotaPeriod.isZero() && !quotaPeriod.isNegative()
+                ? quotaPeriod : Duration.ofDays(1);
+        this.rollingQuota = rollingQuota;
+    }
+
+    /**
+     * Describes the limit for error messages.
+     *
+     * @return the description
+     */
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder();
+        if (permitsPerSecond > 0) {
+            description.append(permitsPerSecond).append(" calls/s, burst ").append(burst);
+        }
+        if (quota > 0) {
+            if (description.length() > 0) {
+                description.append("; ");
+            }
+            description.append(quota).append(" calls per ").append(rollingQuota ? "rolling " : "").append(quotaPeriod);
+        }
+        return description.length() > 0 ? description.toString() : "unlimited";
+    }
+}
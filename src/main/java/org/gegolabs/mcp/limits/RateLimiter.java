@@ -0,0 +1,357 @@
+package org.gegolabs.mcp.limits;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-session rate limits and quotas for tool calls.
+ * <p>
+ * Each client session gets its own limits: one across all its calls and one per limited tool.
+ * A call must pass every limit that applies to it; a call refused by one limit does not use up
+ * the others. Refused calls are answered at once with the time after which a retry can succeed.
+ * <p>
+ * Rates are enforced with the generic cell rate algorithm, a token bucket kept as a single
+ * timestamp that is updated with compare-and-set, and quotas with a compare-and-set counter per
+ * period, so checking a call takes no lock. Session state is dropped once it has been idle for
+ * {@code idleTimeout}, and the least recently used sessions are dropped when there are more than
+ * {@code maxSessions}. A session that comes back after being dropped starts with full limits.
+ */
+@Slf4j
+public class RateLimiter {
+
+    /**
+     * Key used for calls made without a session (e.g. direct invocations in tests).
+     */
+    private static final String NO_SESSION = "";
+
+    private static final int DEFAULT_MAX_SESSIONS = 10_000;
+    private static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofHours(1);
+
+    private final RateLimit sessionLimit;
+    private final Map<String, RateLimit> toolLimits;
+    private final int maxSessions;
+    private final long idleTimeoutNanos;
+    private final Clock clock;
+
+    private final ConcurrentHashMap<String, SessionLimits> sessions = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final AtomicLong lastSweep = new AtomicLong();
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Creates a rate limiter.
+     *
+     * @param sessionLimit limit on all the calls of a session together, may be null
+     * @param toolLimits limits on the calls of a session to each tool, by tool name
+     * @param maxSessions number of sessions tracked before the least recently used are dropped (default 10000)
+     * @param idleTimeout time after which the state of an idle session is dropped (default one hour)
+     * @param clock the time source (default the system UTC clock)
+     */
+    @Builder
+    public RateLimiter(RateLimit sessionLimit, @Singular Map<String, RateLimit> toolLimits, int maxSessions,
+                       Duration idleTimeout, Clock clock) {
+        this.sessionLimit = sessionLimit;
+        this.toolLimits = toolLimits != null ? Map.copyOf(toolLimits) : Map.of();
+        this.maxSessions = maxSessions > 0 ? maxSessions : DEFAULT_MAX_SESSIONS;
+        this.idleTimeoutNanos = (idleTimeout != null ? idleTimeout : DEFAULT_IDLE_TIMEOUT).toNanos();
+        this.clock = clock != null ? clock : Clock.systemUTC();
+    }
+
+    /**
+     * Checks whether a tool may be called and, if so, counts the call against the limits.
+     *
+     * @param sessionId the calling session, may be null
+     * @param tool the tool name
+     * @return the decision; when refused, the limit hit and when to retry
+     */
+    public Decision acquire(String sessionId, String tool) {
+        RateLimit toolLimit = toolLimits.get(tool);
+        if (sessionLimit == null && toolLimit == null) {
+            return Decision.ALLOWED;
+        }
+        long now = now();
+        SessionLimits limits = session(sessionId != null ? sessionId : NO_SESSION, now);
+        Bucket total = limits.total;
+        long wait = total != null ? total.tryAcquire(now) : 0;
+        if (wait > 0) {
+            return reject(sessionId, tool, sessionLimit, wait);
+        }
+        if (toolLimit != null) {
+            wait = limits.tools.computeIfAbsent(tool, name -> new Bucket(toolLimit)).tryAcquire(now);
+            if (wait > 0) {
+                if (total != null) {
+                    total.release(now);
+                }
+                return reject(sessionId, tool, toolLimit, wait);
+            }
+        }
+        allowed.increment();
+        return Decision.ALLOWED;
+    }
+
+    /**
+     * Gets the number of calls allowed.
+     *
+     * @return the allowed call count
+     */
+    public long getAllowed() {
+        return allowed.sum();
+    }
+
+    /**
+     * Gets the number of calls refused by a limit.
+     *
+     * @return the rejected call count
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Gets the number of sessions whose limits are tracked.
+     *
+     * @return the session count
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    private Decision reject(String sessionId, String tool, RateLimit limit, long waitNanos) {
+        rejected.increment();
+        log.debug("Call to tool {} from session {} rate limited ({}), retry after {} ms",
+                tool, sessionId, limit, waitNanos / 1_000_000);
+        return new Decision(false, limit.toString(), Duration.ofNanos(waitNanos));
+    }
+
+    private SessionLimits session(String key, long now) {
+        SessionLimits limits = sessions.get(key);
+        if (limits == null) {
+            limits = sessions.computeIfAbsent(key, k -> new SessionLimits(sessionLimit, now));
+            if (sessions.size() > maxSessions || now - lastSweep.get() > idleTimeoutNanos) {
+                sweep(now);
+            }
+        }
+        limits.lastUsed = now;
+        return limits;
+    }
+
+    /**
+     * Drops idle sessions, then the least recently used ones while there are too many.
+     * Only one thread sweeps at a time; the others carry on.
+     *
+     * @param now the current time in epoch nanoseconds
+     */
+    private void sweep(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            lastSweep.set(now);
+            sessions.entrySet().removeIf(entry -> now - entry.getValue().lastUsed > idleTimeoutNanos);
+            while (sessions.size() > maxSessions) {
+                Map.Entry<String, SessionLimits> oldest = null;
+                for (Map.Entry<String, SessionLimits> entry : sessions.entrySet()) {
+                    if (oldest == null || entry.getValue().lastUsed < oldest.getValue().lastUsed) {
+                        oldest = entry;
+                    }
+                }
+                if (oldest == null) {
+                    break;
+                }
+                sessions.remove(oldest.getKey(), oldest.getValue());
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private long now() {
+        Instant instant = clock.instant();
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    /**
+     * Outcome of {@link #acquire(String, String)}.
+     *
+     * @param allowed whether the call may proceed
+     * @param limit description of the limit that refused the call, null if allowed
+     * @param retryAfter time after which a retry can succeed, zero if allowed
+     */
+    public record Decision(boolean allowed, String limit, Duration retryAfter) {
+
+        static final Decision ALLOWED = new Decision(true, null, Duration.ZERO);
+
+        /**
+         * Describes a refusal for the client.
+         *
+         * @param tool the tool called
+         * @return the error message
+         */
+        public String message(String tool) {
+            return "Rate limit exceeded for tool " + tool + " (" + limit + "), retry after "
+                    + Math.max(1, retryAfter.toMillis()) + " ms";
+        }
+    }
+
+    /**
+     * The limits of one session.
+     */
+    private static final class SessionLimits {
+        final Bucket total;
+        final Map<String, Bucket> tools = new ConcurrentHashMap<>(4);
+        volatile long lastUsed;
+
+        SessionLimits(RateLimit sessionLimit, long now) {
+            this.total = sessionLimit != null ? new Bucket(sessionLimit) : null;
+            this.lastUsed = now;
+        }
+    }
+
+    /**
+     * Rate and quota state for one limit of one session.
+     */
+    private static final class Bucket {
+        private final long interval;
+        private final long burstTolerance;
+        private final long quota;
+        private final long period;
+        private final boolean rolling;
+        // Theoretical arrival time of the next call, in epoch nanoseconds
+        private final AtomicLong arrival = new AtomicLong(Long.MIN_VALUE / 2);
+        private final AtomicReference<Window> window = new AtomicReference<>(new Window(Long.MIN_VALUE, 0, 0));
+
+        Bucket(RateLimit limit) {
+            this.interval = limit.getPermitsPerSecond() > 0 ? (long) (1e9 / limit.getPermitsPerSecond()) : 0;
+            this.burstTolerance = interval * limit.getBurst();
+            this.quota = limit.getQuota();
+            this.period = limit.getQuotaPeriod().toNanos();
+            this.rolling = limit.isRollingQuota();
+        }
+
+        /**
+         * Takes a permit and counts the call against the quota, or neither.
+         *
+         * @param now the current time in epoch nanoseconds
+         * @return zero if the call is allowed, otherwise the nanoseconds until a retry can succeed
+         */
+        long tryAcquire(long now) {
+            long wait = takeQuota(now);
+            if (wait > 0) {
+                return wait;
+            }
+            wait = takePermit(now);
+            if (wait > 0) {
+                returnQuota(now);
+            }
+            return wait;
+        }
+
+        /**
+         * Gives back the permit and quota of a call that was refused by another limit.
+         *
+         * @param now the current time in epoch nanoseconds
+         */
+        void release(long now) {
+            if (interval > 0) {
+                arrival.addAndGet(-interval);
+            }
+            returnQuota(now);
+        }
+
+        private long takePermit(long now) {
+            if (interval == 0) {
+                return 0;
+            }
+            while (true) {
+                long current = arrival.get();
+                long next = Math.max(current, now) + interval;
+                long allowedAt = next - burstTolerance;
+                if (allowedAt > now) {
+                    return allowedAt - now;
+                }
+                if (arrival.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        private long takeQuota(long now) {
+            if (quota == 0) {
+                return 0;
+            }
+            long index = Math.floorDiv(now, period);
+            while (true) {
+                Window current = window.get();
+                Window rolled = current.at(index);
+                long elapsed = now - index * period;
+                double used = rolled.count + (rolling ? rolled.previous * (1 - (double) elapsed / period) : 0);
+                if (used + 1 > quota) {
+                    return quotaWait(rolled, elapsed);
+                }
+                if (window.compareAndSet(current, new Window(index, rolled.previous, rolled.count + 1))) {
+                    return 0;
+                }
+            }
+        }
+
+        private void returnQuota(long now) {
+            if (quota == 0) {
+                return;
+            }
+            long index = Math.floorDiv(now, period);
+            while (true) {
+                Window current = window.get();
+                if (current.index != index || current.count == 0
+                        || window.compareAndSet(current, new Window(index, current.previous, current.count - 1))) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Computes when the quota will allow one more call.
+         *
+         * @param window the current period
+         * @param elapsed nanoseconds elapsed in the current period
+         * @return the nanoseconds to wait, at least 1
+         */
+        private long quotaWait(Window window, long elapsed) {
+            long untilNextPeriod = period - elapsed;
+            if (!rolling) {
+                return Math.max(1, untilNextPeriod);
+            }
+            if (window.count + 1 > quota) {
+                // Wait into the next period, until this period's weight has decayed enough
+                double fraction = 1 - (double) (quota - 1) / window.count;
+                return Math.max(1, untilNextPeriod + (long) (Math.max(0, fraction) * period));
+            }
+            double fraction = 1 - (double) (quota - window.count - 1) / window.previous;
+            return Math.max(1, (long) (fraction * period) - elapsed);
+        }
+    }
+
+    /**
+     * Calls counted in a quota period and the one before it.
+     */
+    private record Window(long index, long previous, long count) {
+
+        Window at(long newIndex) {
+            if (newIndex == index) {
+                return this;
+            }
+            return new Window(newIndex, newIndex == index + 1 ? count : 0, 0);
+        }
+    }
+}
@@ -1,5 +1,12 @@
 package org.gegolabs.mcp.model;
 
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+import java.util.List;
+
 /**
  * The Model Context Protocol (MCP) provides a standardized way for servers to expose prompt templates to clients. Prompts allow servers to provide structured messages and instructions for interacting with language models. Clients can discover available prompts, retrieve their contents, and provide arguments to customize them.
  * Prompts are designed to be user-controlled, meaning they are exposed from servers to clients with the intention of the user being able to explicitly select them for use.
@@ -30,6 +37,107 @@ package org.gegolabs.mcp.model;
  *
  * REF: https://modelcontextprotocol.io/specification/2024-11-05/server/prompts
  *
+ * Messages are templates where {@code {{argument}}} is replaced by the value of the argument:
+ *
+ * <pre>
+ * Prompt.builder()
+ *     .name("code_review")
+ *     .description("Asks the LLM to analyze code quality and suggest improvements")
+ *     .requiredArgument("code", "The code to review")
+ *     .user("Please review this code:\n{{code}}")
+ *     .build();
+ * </pre>
  */
+@Getter
+@Builder(builderClassName = "Builder")
 public class Prompt {
+
+    /**
+     * Unique name of the prompt.
+     */
+    private final String name;
+
+    /**
+     * Human-readable description of the prompt.
+     */
+    private final String description;
+
+    /**
+     * Arguments accepted by the prompt, in declaration order.
+     */
+    @Singular
+    private final List<Argument> arguments;
+
+    /**
+     * Message templates, rendered in order.
+     */
+    @Singular
+    private final List<Message> messages;
+
+    /**
+     * Argument of a prompt.
+     *
+     * @param name argument name, used as placeholder in the templates
+     * @param description human-readable description
+     * @param required whether clients must provide a value
+     */
+    public record Argument(String name, String description, boolean required) {
+    }
+
+    /**
+     * Message template of a prompt.
+     *
+     * @param role role of the message author
+     * @param template message text with {@code {{argument}}} placeholders
+     */
+    public record Message(McpSchema.Role role, String template) {
+    }
+
+    /**
+     * Builder with shortcuts for arguments and messages.
+     */
+    public static class Builder {
+
+        /**
+         * Adds an argument clients must provide.
+         *
+         * @param name argument name
+         * @param description human-readable description
+         * @return this builder
+         */
+        public Builder requiredArgument(String name, String description) {
+            return argument(new Argument(name, description, true));
+        }
+
+        /**
+         * Adds an argument clients may omit. Its placeholders render as empty text.
+         *
+         * @param name argument name
+         * @param description human-readable description
+         * @return this builder
+         */
+        public Builder optionalArgument(String name, String description) {
+            return argument(new Argument(name, description, false));
+        }
+
+        /**
+         * Adds a user message template.
+         *
+         * @param template message text with {@code {{argument}}} placeholders
+         * @return this builder
+         */
+        public Builder user(String template) {
+            return message(new Message(McpSchema.Role.USER, template));
+        }
+
+        /**
+         * Adds an assistant message template.
+         *
+         * @param template message text with {@code {{argument}}} placeholders
+         * @return this builder
+         */
+        public Builder assistant(String template) {
+            return message(new Message(McpSchema.Role.ASSISTANT, template));
+        }
+    }
 }
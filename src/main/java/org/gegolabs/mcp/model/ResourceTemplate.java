@@ -1,5 +1,9 @@
 package org.gegolabs.mcp.model;
 
+import lombok.Builder;
+import lombok.Getter;
+import org.gegolabs.mcp.protocol.ResourceReader;
+
 /**
  * Resource templates allow servers to expose parameterized resources using URI templates. Arguments may be auto-completed through the completion API.
  *
@@ -35,6 +39,53 @@ package org.gegolabs.mcp.model;
  *   "blob": "base64-encoded-data"
  * }
  *
+ * Template variables are bound to the reader's parameter type, converting values as needed:
+ *
+ * <pre>
+ * record Page(String book, int number) {}
+ *
+ * ResourceTemplate.&lt;Page&gt;builder()
+ *     .uriTemplate("books://{book}/pages/{number}")
+ *     .name("Book pages")
+ *     .mimeType("text/plain")
+ *     .variablesType(Page.class)
+ *     .reader(page -&gt; library.page(page.book(), page.number()))
+ *     .build();
+ * </pre>
+ *
+ * @param <I> type the template variables are bound to
  */
-public class ResourceTemplate {
+@Getter
+@Builder(builderClassName = "Builder")
+public class ResourceTemplate<I> {
+
+    /**
+     * RFC 6570 URI template, e.g. {@code file:///{+path}}.
+     */
+    private final String uriTemplate;
+
+    /**
+     * Human-readable name of the template.
+     */
+    private final String name;
+
+    /**
+     * Human-readable description of the template.
+     */
+    private final String description;
+
+    /**
+     * MIME type of the resources, may be null.
+     */
+    private final String mimeType;
+
+    /**
+     * Type the variables are bound to. When null, the reader receives the variables as a {@code Map<String, String>}.
+     */
+    private final Class<I> variablesType;
+
+    /**
+     * Reads a resource given the variables extracted from its URI.
+     */
+    private final ResourceReader<I> reader;
 }
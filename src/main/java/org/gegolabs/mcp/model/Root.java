@@ -31,6 +31,8 @@ package org.gegolabs.mcp.model;
  * ]
  *
  * REF: https://modelcontextprotocol.io/specification/2024-11-05/client/roots
+ *
+ * @see org.gegolabs.mcp.roots.RootsManager
  */
 public class Root {
 }
@@ -82,6 +82,8 @@ package org.gegolabs.mcp.model;
  *   "speedPriority": 0.8, // Speed is very important
  *   "intelligencePriority": 0.5 // Moderate capability needs
  * }
+ *
+ * @see org.gegolabs.mcp.sampling.SamplingClient
  */
 public class Sampling {
 }
@@ -0,0 +1,299 @@
+package org.gegolabs.mcp.pipeline;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.extern.slf4j.Slf4j;
+import org.gegolabs.mcp.ToolContainer;
+import org.gegolabs.mcp.protocol.CallContext;
+import org.gegolabs.mcp.protocol.CapabilityException;
+import org.gegolabs.mcp.protocol.StreamingCapability;
+import org.gegolabs.mcp.tools.DeclaredCapability;
+import org.gegolabs.mcp.tracing.Span;
+import reactor.adapter.JdkFlowAdapter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A tool made of other registered tools, connected as a directed acyclic graph of stages.
+ * <p>
+ * A client that would otherwise chain tools itself, one round trip per hop, calls the pipeline
+ * once instead. Stages run as soon as their inputs are ready, so independent stages run in
+ * parallel. A {@code forEach} stage consumes its source as a stream: each item is handed on as
+ * soon as it is produced, without waiting for the whole source stage. When the source stage
+ * calls a {@link StreamingCapability}, every chunk it emits is an item.
+ * <p>
+ * The pipeline must have exactly one final stage, which no other stage reads. Its results are
+ * the pipeline's result, one per line, and are sent as progress notifications as they arrive
+ * when the client asked for progress. A failing stage fails the pipeline and cancels the stages
+ * still running.
+ * <p>
+ * Stages call their tools through the tools' containers, so arguments are validated as for a
+ * client call and each tool keeps its bulkhead and circuit breaker. Pipelines are resolved
+ * against the server's tools when it starts.
+ */
+@Slf4j
+public class Pipeline implements StreamingCapability<Map<String, Object>, Object>, DeclaredCapability<Map<String, Object>, String> {
+
+    private static final McpSchema.JsonSchema ANY_INPUT = new McpSchema.JsonSchema("object", Map.of(), null, true, null, null);
+
+    private final String name;
+    private final String description;
+    private final McpSchema.JsonSchema inputSchema;
+
+    /**
+     * Stages in dependency order.
+     */
+    private final List<PipelineStage> stages;
+    private final PipelineStage output;
+
+    /**
+     * Number of readers of each stage's output; the final stage is read by the pipeline itself.
+     */
+    private final Map<String, Integer> readers = new HashMap<>();
+
+    private volatile Map<String, ToolContainer> tools;
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param name the tool name of the pipeline
+     * @param description the tool description (default lists the tools called)
+     * @param inputSchema the input schema of the pipeline (default any object)
+     * @param stages the stages
+     * @throws IllegalArgumentException if stages are missing, duplicated or form a cycle, or if
+     *                                  there is not exactly one final stage
+     */
+    @Builder
+    public Pipeline(String name, String description, McpSchema.JsonSchema inputSchema, @Singular List<PipelineStage> stages) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("A pipeline needs a name");
+        }
+        if (stages.isEmpty()) {
+            throw new IllegalArgumentException("Pipeline " + name + " has no stages");
+        }
+        Map<String, PipelineStage> byId = new LinkedHashMap<>();
+        for (PipelineStage stage : stages) {
+            if (byId.putIfAbsent(stage.getId(), stage) != null) {
+                throw new IllegalArgumentException("Pipeline " + name + " has two stages named " + stage.getId());
+            }
+            readers.put(stage.getId(), 0);
+        }
+        for (PipelineStage stage : stages) {
+            for (String input : stage.getInputs()) {
+                if (!byId.containsKey(input)) {
+                    throw new IllegalArgumentException("Stage " + stage.getId() + " reads unknown stage " + input);
+                }
+                readers.merge(input, 1, Integer::sum);
+            }
+        }
+        List<String> finalStages = stages.stream().map(PipelineStage::getId).filter(id -> readers.get(id) == 0).toList();
+        if (finalStages.size() != 1) {
+            throw new IllegalArgumentException("Pipeline " + name + " needs exactly one final stage, found " + finalStages);
+        }
+        List<PipelineStage> ordered = new ArrayList<>(stages.size());
+        Set<String> visited = new HashSet<>();
+        for (PipelineStage stage : stages) {
+            visit(stage, byId, visited, new HashSet<>(), ordered);
+        }
+
+        this.name = name;
+        this.description = description != null ? description
+                : "Pipeline of " + stages.stream().map(PipelineStage::getTool).distinct().collect(Collectors.joining(", "));
+        this.inputSchema = inputSchema != null ? inputSchema : ANY_INPUT;
+        this.stages = List.copyOf(ordered);
+        this.output = byId.get(finalStages.get(0));
+        readers.merge(output.getId(), 1, Integer::sum);
+    }
+
+    private static void visit(PipelineStage stage, Map<String, PipelineStage> byId, Set<String> visited,
+                              Set<String> path, List<PipelineStage> ordered) {
+        if (visited.contains(stage.getId())) {
+            return;
+        }
+        if (!path.add(stage.getId())) {
+            throw new IllegalArgumentException("Stages " + path + " form a cycle");
+        }
+        for (String input : stage.getInputs()) {
+            visit(byId.get(input), byId, visited, path, ordered);
+        }
+        path.remove(stage.getId());
+        visited.add(stage.getId());
+        ordered.add(stage);
+    }
+
+    /**
+     * Binds the stages to the containers of the tools they call.
+     *
+     * @param registry finds the container of a tool by name, returning null for unknown tools
+     * @throws IllegalArgumentException if a stage calls an unknown tool
+     */
+    public void resolve(Function<String, ToolContainer> registry) {
+        Map<String, ToolContainer> resolved = new HashMap<>();
+        for (PipelineStage stage : stages) {
+            ToolContainer container = registry.apply(stage.getTool());
+            if (container == null) {
+                throw new IllegalArgumentException("Stage " + stage.getId() + " of pipeline " + name + " calls unknown tool " + stage.getTool());
+            }
+            resolved.put(stage.getId(), container);
+        }
+        tools = resolved;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public McpSchema.JsonSchema getInputSchema() {
+        return inputSchema;
+    }
+
+    /**
+     * Runs the pipeline.
+     *
+     * @param input the pipeline arguments
+     * @return the results of the final stage
+     */
+    @Override
+    public Flow.Publisher<Object> stream(Map<String, Object> input) {
+        Map<String, ToolContainer> resolved = tools;
+        if (resolved == null) {
+            return JdkFlowAdapter.publisherToFlowPublisher(
+                    Flux.error(new CapabilityException("Pipeline " + name + " is not bound to the server's tools")));
+        }
+        Run run = new Run(input != null ? input : Map.of(), resolved, CallContext.current(), Span.current());
+        Map<String, Flux<Object>> outputs = new HashMap<>();
+        for (PipelineStage stage : stages) {
+            // Each stage runs once, when all of its readers have subscribed
+            outputs.put(stage.getId(), run.stage(stage, outputs).publish().autoConnect(readers.get(stage.getId())));
+        }
+        return JdkFlowAdapter.publisherToFlowPublisher(outputs.get(output.getId()));
+    }
+
+    /**
+     * Puts each result of the final stage on its own line.
+     */
+    @Override
+    public StringBuilder accumulate(StringBuilder result, Object item) {
+        return (result.length() > 0 ? result.append('\n') : result).append(item);
+    }
+
+    /**
+     * Gets the items a result stands for in a {@code forEach} stage.
+     *
+     * @param result a source stage result
+     * @return the elements of a collection or array, or the result itself
+     */
+    @SuppressWarnings("unchecked")
+    static List<Object> items(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return (List<Object>) collection.stream().filter(Objects::nonNull).collect(Collectors.toList());
+        }
+        if (result instanceof Object[] array) {
+            return Arrays.stream(array).filter(Objects::nonNull).collect(Collectors.toList());
+        }
+        return List.of(result);
+    }
+
+    /**
+     * One run of the pipeline.
+     */
+    private static final class Run {
+        final Map<String, Object> input;
+        final Map<String, ToolContainer> tools;
+        final CallContext callContext;
+        final Span span;
+
+        Run(Map<String, Object> input, Map<String, ToolContainer> tools, CallContext callContext, Span span) {
+            this.input = input;
+            this.tools = tools;
+            this.callContext = callContext;
+            this.span = span;
+        }
+
+        Flux<Object> stage(PipelineStage stage, Map<String, Flux<Object>> outputs) {
+            if (stage.getForEach() != null) {
+                return outputs.get(stage.getForEach())
+                        .flatMapIterable(Pipeline::items)
+                        .flatMapSequential(item -> call(stage, new StageContext(stage.getId(), input, Map.of(), item),
+                                Map.of("value", item)), stage.getConcurrency());
+            }
+            List<String> dependsOn = stage.getDependsOn();
+            if (dependsOn.isEmpty()) {
+                return call(stage, new StageContext(stage.getId(), input, Map.of(), null), input);
+            }
+            // A plain stage gets the complete results of the stages it depends on
+            List<Mono<List<Object>>> collected = dependsOn.stream().map(id -> outputs.get(id).collectList()).toList();
+            return Mono.zip(collected, values -> {
+                        Map<String, List<Object>> results = new HashMap<>();
+                        for (int i = 0; i < values.length; i++) {
+                            @SuppressWarnings("unchecked")
+                            List<Object> value = (List<Object>) values[i];
+                            results.put(dependsOn.get(i), value);
+                        }
+                        return results;
+                    })
+                    .flatMapMany(results -> call(stage, new StageContext(stage.getId(), input, results, null), input));
+        }
+
+        Flux<Object> call(PipelineStage stage, StageContext context, Map<String, Object> defaults) {
+            return Flux.defer(() -> {
+                        Map<String, Object> arguments = stage.getArguments() != null ? stage.getArguments().apply(context) : defaults;
+                        ToolContainer tool = tools.get(stage.getId());
+                        Span stageSpan = span.child("stage " + stage.getId()).attribute("tool", stage.getTool());
+                        return start(tool, arguments)
+                                .doOnError(e -> stageSpan.error(String.valueOf(e.getMessage())))
+                                .doFinally(signal -> stageSpan.end());
+                    })
+                    .onErrorMap(e -> !(e instanceof CancellationException), e -> {
+                        Throwable cause = unwrap(e);
+                        log.warn("Stage {} ({}) failed: {}", stage.getId(), stage.getTool(), cause.getMessage());
+                        return new CapabilityException("Stage " + stage.getId() + " (" + stage.getTool() + ") failed: " + cause.getMessage(), cause);
+                    });
+        }
+
+        Flux<Object> start(ToolContainer tool, Map<String, Object> arguments) {
+            if (callContext == null) {
+                return tool.stream(arguments);
+            }
+            try {
+                // Stages see the pipeline call's context, so they notice its cancellation
+                return callContext.call(() -> tool.stream(arguments));
+            } catch (Exception e) {
+                return Flux.error(e);
+            }
+        }
+
+        private static Throwable unwrap(Throwable error) {
+            Throwable cause = error;
+            while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            return cause;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.gegolabs.mcp.pipeline;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * One stage of a {@link Pipeline}: a call to a registered tool.
+ * <p>
+ * A plain stage runs once, after the stages it depends on have finished, and its arguments can
+ * use their results. A {@code forEach} stage instead runs once per item of its source stage as
+ * the items arrive, up to {@code concurrency} calls at a time, and emits the results in source
+ * order. A source result that is a collection or an array counts as one item per element.
+ */
+@Getter
+public class PipelineStage {
+
+    /**
+     * Stage id, referenced by other stages.
+     */
+    private final String id;
+
+    /**
+     * Name of the registered tool the stage calls.
+     */
+    private final String tool;
+
+    /**
+     * Stages whose results this stage needs, for plain stages.
+     */
+    private final List<String> dependsOn;
+
+    /**
+     * Source stage whose items this stage is called for, or null for a plain stage.
+     */
+    private final String forEach;
+
+    /**
+     * Calls running at once in a {@code forEach} stage.
+     */
+    private final int concurrency;
+
+    /**
+     * Builds the tool arguments. Defaults to the pipeline input for plain stages,
+     * and to {@code {"value": item}} for {@code forEach} stages.
+     */
+    private final Function<StageContext, Map<String, Object>> arguments;
+
+    /**
+     * Creates a pipeline stage.
+     *
+     * @param id the stage id
+     * @param tool the name of the tool to call
+     * @param dependsOn the stages whose results a plain stage needs
+     * @param forEach the source stage of a {@code forEach} stage
+     * @param concurrency calls running at once in a {@code forEach} stage (default 4)
+     * @param arguments builds the tool arguments from the stage context
+     */
+    @Builder
+    public PipelineStage(String id, String tool, @Singular("dependsOn") List<String> dependsOn, String forEach,
+                         int concurrency, Function<StageContext, Map<String, Object>> arguments) {
+        if (id == null || id.isBlank() || tool == null || tool.isBlank()) {
+            throw new IllegalArgumentException("A pipeline stage needs an id and a tool");
+        }
+        if (forEach != null && !dependsOn.isEmpty()) {
+            throw new IllegalArgumentException("Stage " + id + " iterates over " + forEach + " and cannot depend on other stages");
+        }
+        this.id = id;
+        this.tool = tool;
+        this.dependsOn = dependsOn;
+        this.forEach = forEach;
+        this.concurrency = concurrency > 0 ? concurrency : 4;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Gets the stages this stage reads from.
+     *
+     * @return the source stage of a {@code forEach} stage, or the stages a plain stage depends on
+     */
+    List<String> getInputs() {
+        return forEach != null ? List.of(forEach) : dependsOn;
+    }
+}
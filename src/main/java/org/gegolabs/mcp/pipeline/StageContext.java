@@ -0,0 +1,78 @@
+package org.gegolabs.mcp.pipeline;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What a pipeline stage can build its arguments from: the pipeline input, the results of the
+ * stages it depends on and, in a {@code forEach} stage, the current item.
+ */
+public final class StageContext {
+
+    private final String stage;
+    private final Map<String, Object> input;
+    private final Map<String, List<Object>> results;
+    private final Object item;
+
+    StageContext(String stage, Map<String, Object> input, Map<String, List<Object>> results, Object item) {
+        this.stage = stage;
+        this.input = input;
+        this.results = results;
+        this.item = item;
+    }
+
+    /**
+     * Gets the arguments the pipeline was called with.
+     *
+     * @return the pipeline input
+     */
+    public Map<String, Object> input() {
+        return input;
+    }
+
+    /**
+     * Gets an argument the pipeline was called with.
+     *
+     * @param name the argument name
+     * @return the argument value, or null if absent
+     */
+    public Object input(String name) {
+        return input.get(name);
+    }
+
+    /**
+     * Gets the current item of a {@code forEach} stage.
+     *
+     * @return the item, or null in a plain stage
+     */
+    public Object item() {
+        return item;
+    }
+
+    /**
+     * Gets the results of a stage this stage depends on. A {@code forEach} stage has one result per item.
+     *
+     * @param stageId the stage id
+     * @return the results, in order
+     * @throws IllegalArgumentException if this stage does not depend on the stage
+     */
+    public List<Object> results(String stageId) {
+        List<Object> stageResults = results.get(stageId);
+        if (stageResults == null) {
+            throw new IllegalArgumentException("Stage " + stage + " does not depend on stage " + stageId);
+        }
+        return stageResults;
+    }
+
+    /**
+     * Gets the result of a stage this stage depends on.
+     *
+     * @param stageId the stage id
+     * @return the first result of the stage, or null if it has none
+     * @throws IllegalArgumentException if this stage does not depend on the stage
+     */
+    public Object result(String stageId) {
+        List<Object> stageResults = results(stageId);
+        return stageResults.isEmpty() ? null : stageResults.get(0);
+    }
+}
@@ -0,0 +1,232 @@
+package org.gegolabs.mcp.prompts;
+
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.spec.McpError;
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.Builder;
+import lombok.Singular;
+import org.gegolabs.mcp.cache.WeightedLruCache;
+import org.gegolabs.mcp.model.Prompt;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of prompts compiled at startup.
+ * <p>
+ * Templates are parsed once, the pages of {@code prompts/list} are built once, and rendered
+ * results are cached per argument set in an LRU bounded by the total length of the rendered text.
+ */
+public class PromptRegistry {
+
+    /**
+     * Default number of prompts per {@code prompts/list} page.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    /**
+     * Default cache budget, in characters of rendered text.
+     */
+    public static final long DEFAULT_CACHE_WEIGHT = 4 * 1024 * 1024;
+
+    private final Map<String, CompiledPrompt> prompts = new LinkedHashMap<>();
+    private final List<McpSchema.ListPromptsResult> pages = new ArrayList<>();
+    private final WeightedLruCache<RenderKey, McpSchema.GetPromptResult> cache;
+
+    /**
+     * Creates a new registry.
+     *
+     * @param prompts prompts to register, listed in this order
+     * @param pageSize prompts per {@code prompts/list} page, zero for the default
+     * @param cacheWeight rendered characters to keep cached, zero for the default
+     * @throws IllegalArgumentException if a prompt is duplicated or has an invalid template
+     */
+    @Builder
+    public PromptRegistry(@Singular List<Prompt> prompts, int pageSize, long cacheWeight) {
+        for (Prompt prompt : prompts) {
+            if (this.prompts.putIfAbsent(prompt.getName(), new CompiledPrompt(prompt)) != null) {
+                throw new IllegalArgumentException("Duplicate prompt: " + prompt.getName());
+            }
+        }
+        this.cache = new WeightedLruCache<>(cacheWeight > 0 ? cacheWeight : DEFAULT_CACHE_WEIGHT, PromptRegistry::weigh);
+        buildPages(pageSize > 0 ? pageSize : DEFAULT_PAGE_SIZE);
+    }
+
+    private void buildPages(int pageSize) {
+        List<McpSchema.Prompt> descriptors = new ArrayList<>(prompts.size());
+        for (CompiledPrompt prompt : prompts.values()) {
+            descriptors.add(prompt.descriptor);
+        }
+        for (int from = 0; from < descriptors.size() || from == 0; from += pageSize) {
+            int to = Math.min(from + pageSize, descriptors.size());
+            String nextCursor = to < descriptors.size() ? encodeCursor(pages.size() + 1) : null;
+            pages.add(new McpSchema.ListPromptsResult(List.copyOf(descriptors.subList(from, to)), nextCursor));
+        }
+    }
+
+    /**
+     * Gets one page of the prompt list.
+     *
+     * @param cursor the cursor from the previous page, null for the first page
+     * @return the page
+     * @throws McpError if the cursor is not valid
+     */
+    public McpSchema.ListPromptsResult list(String cursor) {
+        if (cursor == null) {
+            return pages.get(0);
+        }
+        int page = decodeCursor(cursor);
+        if (page <= 0 || page >= pages.size()) {
+            throw invalidParams("Invalid cursor: " + cursor);
+        }
+        return pages.get(page);
+    }
+
+    /**
+     * Renders a prompt, from the cache when the same arguments were rendered before.
+     *
+     * @param name the prompt name
+     * @param arguments argument values by name, may be null
+     * @return the rendered prompt
+     * @throws McpError if the prompt does not exist or a required argument is missing
+     */
+    public McpSchema.GetPromptResult get(String name, Map<String, Object> arguments) {
+        CompiledPrompt prompt = prompts.get(name);
+        if (prompt == null) {
+            throw invalidParams("Prompt not found: " + name);
+        }
+        String[] values = prompt.bind(arguments);
+        RenderKey key = new RenderKey(name, Arrays.asList(values));
+        McpSchema.GetPromptResult result = cache.get(key);
+        if (result == null) {
+            result = prompt.render(values);
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Creates the SDK specifications used to register the prompts with the server.
+     *
+     * @return one specification per prompt
+     */
+    public List<McpServerFeatures.AsyncPromptSpecification> getAsyncPromptSpecifications() {
+        List<McpServerFeatures.AsyncPromptSpecification> specifications = new ArrayList<>(prompts.size());
+        for (CompiledPrompt prompt : prompts.values()) {
+            specifications.add(new McpServerFeatures.AsyncPromptSpecification(prompt.descriptor,
+                    (exchange, request) -> Mono.fromCallable(() -> get(request.name(), request.arguments()))));
+        }
+        return specifications;
+    }
+
+    /**
+     * Gets the number of registered prompts.
+     *
+     * @return the prompt count
+     */
+    public int size() {
+        return prompts.size();
+    }
+
+    /**
+     * Gets the render cache, for statistics.
+     *
+     * @return the cache
+     */
+    public WeightedLruCache<RenderKey, McpSchema.GetPromptResult> getCache() {
+        return cache;
+    }
+
+    private static long weigh(McpSchema.GetPromptResult result) {
+        long weight = 0;
+        for (McpSchema.PromptMessage message : result.messages()) {
+            weight += ((McpSchema.TextContent) message.content()).text().length();
+        }
+        return weight;
+    }
+
+    private static String encodeCursor(int page) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(("prompts:" + page).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return decoded.startsWith("prompts:") ? Integer.parseInt(decoded.substring("prompts:".length())) : -1;
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static McpError invalidParams(String message) {
+        return new McpError(new McpSchema.JSONRPCResponse.JSONRPCError(McpSchema.ErrorCodes.INVALID_PARAMS, message, null));
+    }
+
+    /**
+     * Cache key of a rendered prompt.
+     *
+     * @param prompt the prompt name
+     * @param values argument values in declaration order
+     */
+    public record RenderKey(String prompt, List<String> values) {
+    }
+
+    /**
+     * A prompt with its descriptor and compiled message templates.
+     */
+    private static final class CompiledPrompt {
+        private final Prompt prompt;
+        private final McpSchema.Prompt descriptor;
+        private final String[] argumentNames;
+        private final boolean[] required;
+        private final McpSchema.Role[] roles;
+        private final PromptTemplate[] templates;
+
+        CompiledPrompt(Prompt prompt) {
+            this.prompt = prompt;
+            List<String> names = new ArrayList<>();
+            List<McpSchema.PromptArgument> arguments = new ArrayList<>();
+            required = new boolean[prompt.getArguments().size()];
+            for (Prompt.Argument argument : prompt.getArguments()) {
+                required[names.size()] = argument.required();
+                names.add(argument.name());
+                arguments.add(new McpSchema.PromptArgument(argument.name(), argument.description(), argument.required()));
+            }
+            argumentNames = names.toArray(new String[0]);
+            descriptor = new McpSchema.Prompt(prompt.getName(), prompt.getDescription(), List.copyOf(arguments));
+            roles = new McpSchema.Role[prompt.getMessages().size()];
+            templates = new PromptTemplate[roles.length];
+            for (int i = 0; i < roles.length; i++) {
+                Prompt.Message message = prompt.getMessages().get(i);
+                roles[i] = message.role();
+                templates[i] = PromptTemplate.compile(message.template(), names);
+            }
+        }
+
+        String[] bind(Map<String, Object> arguments) {
+            String[] values = new String[argumentNames.length];
+            for (int i = 0; i < values.length; i++) {
+                Object value = arguments != null ? arguments.get(argumentNames[i]) : null;
+                if (value == null && required[i]) {
+                    throw invalidParams("Missing required argument '" + argumentNames[i] + "' for prompt " + prompt.getName());
+                }
+                values[i] = value != null ? value.toString() : null;
+            }
+            return values;
+        }
+
+        McpSchema.GetPromptResult render(String[] values) {
+            List<McpSchema.PromptMessage> messages = new ArrayList<>(templates.length);
+            for (int i = 0; i < templates.length; i++) {
+                messages.add(new McpSchema.PromptMessage(roles[i], new McpSchema.TextContent(templates[i].render(values))));
+            }
+            return new McpSchema.GetPromptResult(prompt.getDescription(), List.copyOf(messages));
+        }
+    }
+}
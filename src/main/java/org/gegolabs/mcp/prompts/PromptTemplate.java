@@ -0,0 +1,89 @@
+package org.gegolabs.mcp.prompts;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prompt text parsed once into literal segments and argument slots.
+ * <p>
+ * Placeholders use the {@code {{argument}}} syntax. Rendering only concatenates the precomputed
+ * literals with the argument values, without scanning the template again.
+ */
+public final class PromptTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final String[] literals;
+    private final int[] slots;
+    private final int literalLength;
+
+    private PromptTemplate(String[] literals, int[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Compiles a template against the prompt's argument names.
+     *
+     * @param template the template text
+     * @param argumentNames argument names, in the order their values are passed to {@link #render(String[])}
+     * @return the compiled template
+     * @throws IllegalArgumentException if a placeholder is unterminated or names an unknown argument
+     */
+    public static PromptTemplate compile(String template, List<String> argumentNames) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = template.indexOf(OPEN, position);
+            if (open < 0) {
+                break;
+            }
+            int close = template.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Unterminated placeholder at " + open + " in template: " + template);
+            }
+            String name = template.substring(open + OPEN.length(), close).trim();
+            int slot = argumentNames.indexOf(name);
+            if (slot < 0) {
+                throw new IllegalArgumentException("Unknown argument '" + name + "' in template: " + template);
+            }
+            literals.add(template.substring(position, open));
+            slots.add(slot);
+            position = close + CLOSE.length();
+        }
+        literals.add(template.substring(position));
+        return new PromptTemplate(literals.toArray(new String[0]), slots.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Renders the template.
+     *
+     * @param values argument values indexed like the names given to {@link #compile(String, List)}; null renders as empty
+     * @return the rendered text
+     */
+    public String render(String[] values) {
+        if (slots.length == 0) {
+            return literals[0];
+        }
+        int length = literalLength;
+        for (int slot : slots) {
+            length += values[slot] != null ? values[slot].length() : 0;
+        }
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < slots.length; i++) {
+            text.append(literals[i]);
+            String value = values[slots[i]];
+            if (value != null) {
+                text.append(value);
+            }
+        }
+        return text.append(literals[slots.length]).toString();
+    }
+}
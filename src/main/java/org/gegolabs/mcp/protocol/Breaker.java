@@ -0,0 +1,23 @@
+package org.gegolabs.mcp.protocol;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to guard a Capability with a named circuit breaker.
+ * While the breaker is open, calls to the capability fail at once instead of waiting
+ * on a degraded downstream service. Several capabilities backed by the same service can share a breaker.
+ * The breaker must be declared on the server builder. On a method exposed as a tool,
+ * it applies to that tool only.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Breaker {
+    /**
+     * Name of the circuit breaker guarding the Capability.
+     * @return the breaker name
+     */
+    String value();
+}
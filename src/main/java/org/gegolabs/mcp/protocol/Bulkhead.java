@@ -0,0 +1,23 @@
+package org.gegolabs.mcp.protocol;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to assign a Capability to a named bulkhead.
+ * Calls to the capability then run on that bulkhead's isolated executor,
+ * so slow tools cannot use up the threads of fast ones.
+ * The bulkhead must be declared on the server builder. On a method exposed as a tool,
+ * it applies to that tool only.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Bulkhead {
+    /**
+     * Name of the bulkhead the Capability runs on.
+     * @return the bulkhead name
+     */
+    String value();
+}
@@ -0,0 +1,247 @@
+package org.gegolabs.mcp.protocol;
+
+import org.gegolabs.mcp.tracing.Span;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * State of one tool call, visible to the capability while it runs.
+ * <p>
+ * The framework binds the context to the thread running the call, including threads of the
+ * capability's executor when the default {@link Capability#executeAsync(Object)} is used.
+ * When the client cancels the call, the context is flagged, cancel listeners run and the
+ * thread running the default execution is interrupted.
+ * <p>
+ * The current {@link Span} travels along with the context, so steps a capability traces on its
+ * executor belong to the call's trace, and the time a task waits for a thread is recorded.
+ */
+public final class CallContext {
+
+    private static final ThreadLocal<CallContext> CURRENT = new ThreadLocal<>();
+
+    private final String sessionId;
+    private final Object requestId;
+    private final List<Runnable> cancelListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean cancelled;
+    private volatile String cancelReason;
+
+    /**
+     * Creates a new call context.
+     *
+     * @param requestId the JSON-RPC id of the call, may be null
+     */
+    public CallContext(Object requestId) {
+        this(null, requestId);
+    }
+
+    /**
+     * Creates a new call context.
+     *
+     * @param sessionId the id of the client session, may be null
+     * @param requestId the JSON-RPC id of the call, may be null
+     */
+    public CallContext(String sessionId, Object requestId) {
+        this.sessionId = sessionId;
+        this.requestId = requestId;
+    }
+
+    /**
+     * Gets the context bound to the current thread.
+     *
+     * @return the current context, or null outside of a tool call
+     */
+    public static CallContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Gets the id of the client session that made the call.
+     *
+     * @return the session id, may be null
+     */
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Gets the JSON-RPC id of the call.
+     *
+     * @return the request id, may be null
+     */
+    public Object getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * Checks whether the client cancelled the call.
+     *
+     * @return true if the call was cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Gets the reason given by the client when cancelling.
+     *
+     * @return the reason, or null
+     */
+    public String getCancelReason() {
+        return cancelReason;
+    }
+
+    /**
+     * Cancels the call and notifies listeners. Only the first call has an effect.
+     *
+     * @param reason the reason for cancelling, may be null
+     */
+    public void cancel(String reason) {
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelReason = reason;
+            cancelled = true;
+        }
+        for (Runnable listener : cancelListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Registers an action to run when the call is cancelled.
+     * Runs immediately if the call is already cancelled.
+     *
+     * @param listener the action
+     */
+    public void onCancel(Runnable listener) {
+        cancelListeners.add(listener);
+        if (cancelled) {
+            cancelListeners.remove(listener);
+            listener.run();
+        }
+    }
+
+    /**
+     * Runs work with this context bound to the current thread.
+     *
+     * @param work the work
+     * @param <T> result type
+     * @return the work's result
+     * @throws Exception if the work fails
+     */
+    public <T> T call(Callable<T> work) throws Exception {
+        CallContext previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return work.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Wraps a task so it runs with this context and the current span bound, on whatever thread executes it.
+     *
+     * @param task the task
+     * @return the wrapped task
+     */
+    public Runnable wrap(Runnable task) {
+        return Span.propagate("executor.wait", () -> {
+            CallContext previous = CURRENT.get();
+            CURRENT.set(this);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        });
+    }
+
+    /**
+     * Runs work asynchronously, carrying the caller's context and span to the executor thread.
+     * Cancelling the returned future, or the call itself, interrupts the thread running the work.
+     *
+     * @param work the work
+     * @param executor the executor to run on
+     * @param <T> result type
+     * @return a future with the work's result
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Callable<T> work, Executor executor) {
+        CallContext context = current();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runner runner = new Runner();
+        try {
+            executor.execute(Span.propagate("executor.wait", () -> {
+                if (result.isDone() || !runner.enter()) {
+                    // Cancelled before it started
+                    return;
+                }
+                CallContext previous = CURRENT.get();
+                CURRENT.set(context);
+                try {
+                    result.complete(work.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    restore(previous);
+                    runner.exit();
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()) {
+                runner.interrupt();
+            }
+        });
+        if (context != null) {
+            context.onCancel(() -> result.cancel(true));
+        }
+        return result;
+    }
+
+    private static void restore(CallContext previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Tracks the thread running a task so it can be interrupted only while the task runs.
+     */
+    private static final class Runner {
+        private Thread thread;
+        private boolean interrupted;
+
+        synchronized boolean enter() {
+            if (interrupted) {
+                return false;
+            }
+            thread = Thread.currentThread();
+            return true;
+        }
+
+        synchronized void exit() {
+            thread = null;
+            // Do not leak an interrupt aimed at this task to the next task on the thread
+            Thread.interrupted();
+        }
+
+        synchronized void interrupt() {
+            interrupted = true;
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+}
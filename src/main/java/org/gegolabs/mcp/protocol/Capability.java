@@ -1,7 +1,6 @@
 package org.gegolabs.mcp.protocol;
 
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ForkJoinPool;
 
@@ -56,19 +55,25 @@ public interface Capability<I, O> {
 
     /**
      * Asynchronous execution (returns immediately).
-     * By default, executes the sync method in another thread.
+     * By default, executes the sync method in another thread, carrying the call context along.
+     * Cancelling the returned future interrupts that thread.
      *
      * @param input the input for the capability
      * @return a CompletableFuture that will complete with the output of the capability execution
      */
     default CompletableFuture<O> executeAsync(I input) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                return execute(input);
-            } catch (Exception e) {
-                throw new CompletionException(e);
-            }
-        }, getExecutor());
+        return CallContext.supplyAsync(() -> execute(input), getExecutor());
+    }
+
+    /**
+     * Cooperative cancellation check for long-running executions.
+     * Returns true once the client has cancelled the call being executed on this thread.
+     *
+     * @return true if the current call was cancelled
+     */
+    default boolean isCancelled() {
+        CallContext context = CallContext.current();
+        return context != null && context.isCancelled();
     }
 
     /**
@@ -12,7 +12,7 @@ import java.lang.annotation.Target;
  * It can be used at the class level, parameter level, and method level.
  */
 @Retention(RetentionPolicy.RUNTIME)
-@Target({ElementType.TYPE})
+@Target({ElementType.TYPE, ElementType.METHOD, ElementType.PARAMETER})
 public @interface Name {
     /**
      * Description of the Capability. This is the default parameter, so it can be used without explicitly naming it.
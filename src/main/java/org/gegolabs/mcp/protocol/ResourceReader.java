@@ -0,0 +1,22 @@
+package org.gegolabs.mcp.protocol;
+
+/**
+ * Reads the content of a resource addressed by a URI template.
+ * <p>
+ * The returned content is sent as text for a {@code String}, as a base64 blob for a
+ * {@code byte[]}, and serialized to JSON otherwise.
+ *
+ * @param <I> type the template variables are bound to
+ */
+@FunctionalInterface
+public interface ResourceReader<I> {
+
+    /**
+     * Reads the resource.
+     *
+     * @param variables the variables extracted from the requested URI
+     * @return the resource content
+     * @throws CapabilityException if the resource cannot be read
+     */
+    Object read(I variables) throws CapabilityException;
+}
@@ -0,0 +1,60 @@
+package org.gegolabs.mcp.protocol;
+
+import reactor.adapter.JdkFlowAdapter;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Interface for capabilities that produce their result incrementally.
+ * <p>
+ * Chunks emitted by {@link #stream(Object)} are forwarded to the client as progress notifications
+ * (when the client sent a progress token) as soon as they are produced. The next chunk is only
+ * requested once the previous notification has been handed to the transport. The final tool
+ * result is folded from the chunks with {@link #accumulate(StringBuilder, Object)}.
+ *
+ * @param <I> Input type
+ * @param <C> Chunk type
+ */
+public interface StreamingCapability<I, C> extends Capability<I, String> {
+
+    /**
+     * Starts producing the result.
+     * This implementation must be provided by classes that implement this interface.
+     *
+     * @param input the input for the capability
+     * @return a publisher of result chunks, honoring the subscriber's demand
+     */
+    Flow.Publisher<C> stream(I input);
+
+    /**
+     * Folds one chunk into the final result.
+     * By default chunks are appended as text, so the whole output is held in memory until the
+     * stream ends. Override to keep only what the final result needs (a count, a summary, the
+     * last chunk) when the stream can run long.
+     *
+     * @param result the result built so far
+     * @param chunk the next chunk
+     * @return the result including the chunk
+     */
+    default StringBuilder accumulate(StringBuilder result, C chunk) {
+        return result.append(chunk);
+    }
+
+    /**
+     * Asynchronous execution without progress notifications.
+     * Consumes the stream one chunk at a time and completes with the accumulated result.
+     *
+     * @param input the input for the capability
+     * @return a CompletableFuture that will complete with the accumulated result
+     */
+    @Override
+    default CompletableFuture<String> executeAsync(I input) {
+        return Flux.defer(() -> JdkFlowAdapter.flowPublisherToFlux(stream(input)))
+                .limitRate(1)
+                .reduceWith(StringBuilder::new, this::accumulate)
+                .map(StringBuilder::toString)
+                .toFuture();
+    }
+}
@@ -0,0 +1,427 @@
+package org.gegolabs.mcp.resilience;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker for calls to a downstream service.
+ * <p>
+ * While closed, the outcome of the last {@code windowSize} calls is kept. Once at least
+ * {@code minimumCalls} are recorded and the share of failed calls reaches
+ * {@code failureRateThreshold}, or the share of calls slower than {@code slowCallDuration} reaches
+ * {@code slowCallRateThreshold}, the breaker opens: calls fail at once with a
+ * {@link CircuitOpenException} instead of waiting on the service. After {@code openDuration} it
+ * lets {@code halfOpenProbes} calls through. If they all succeed in time it closes again, and if
+ * any fails or is slow it opens for another period.
+ * <p>
+ * Checking a closed breaker reads a volatile field; outcomes are recorded under a short lock.
+ * State changes are logged and passed to the listeners.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    /**
+     * Breaker state.
+     */
+    public enum State {
+        /** Calls go through and outcomes are recorded. */
+        CLOSED,
+        /** Calls fail immediately. */
+        OPEN,
+        /** A few probe calls go through to test the service. */
+        HALF_OPEN
+    }
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    /**
+     * Name of the breaker, referenced by {@code @Breaker} or the server builder.
+     */
+    @Getter
+    private final String name;
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final Duration openDuration;
+    private final int halfOpenProbes;
+    private final List<Consumer<Transition>> listeners;
+    private final Clock clock;
+
+    private final byte[] outcomes;
+    private int next;
+    private int recorded;
+    private int failed;
+    private int slow;
+
+    private volatile State state = State.CLOSED;
+    // Incremented on every transition, so late outcomes of earlier states are ignored; written under the lock
+    private volatile long generation;
+    private long openUntil;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timesOpened = new LongAdder();
+
+    /**
+     * Creates a closed circuit breaker.
+     *
+     * @param name the breaker name
+     * @param windowSize number of recent calls whose outcome is kept (default 50)
+     * @param minimumCalls calls recorded before the breaker may open (default 10, at most the window size)
+     * @param failureRateThreshold share of failed calls that opens the breaker (default 0.5)
+     * @param slowCallRateThreshold share of slow calls that opens the breaker (default 1, only when every call is slow)
+     * @param slowCallDuration duration from which a call counts as slow (default 10 seconds)
+     * @param openDuration time the breaker stays open before probing (default 30 seconds)
+     * @param halfOpenProbes calls let through to probe the service (default 3)
+     * @param listeners called on every state change, on the thread that caused it
+     * @param clock the time source for the open period (default the system UTC clock)
+     */
+    @Builder
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          double slowCallRateThreshold, Duration slowCallDuration, Duration openDuration,
+                          int halfOpenProbes, @Singular List<Consumer<Transition>> listeners, Clock clock) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Circuit breaker name is required");
+        }
+        this.name = name;
+        this.windowSize = windowSize > 0 ? windowSize : 50;
+        this.minimumCalls = Math.min(this.windowSize, minimumCalls > 0 ? minimumCalls : 10);
+        this.failureRateThreshold = failureRateThreshold > 0 ? failureRateThreshold : 0.5;
+        this.slowCallRateThreshold = slowCallRateThreshold > 0 ? slowCallRateThreshold : 1;
+        this.slowCallNanos = (slowCallDuration != null ? slowCallDuration : Duration.ofSeconds(10)).toNanos();
+        this.openDuration = openDuration != null ? openDuration : Duration.ofSeconds(30);
+        this.halfOpenProbes = halfOpenProbes > 0 ? halfOpenProbes : 3;
+        this.listeners = listeners != null ? List.copyOf(listeners) : List.of();
+        this.clock = clock != null ? clock : Clock.systemUTC();
+        this.outcomes = new byte[this.windowSize];
+    }
+
+    /**
+     * Asks to make a call.
+     *
+     * @return a permit to report the call's outcome with, or null if the breaker is open
+     */
+    public Permit tryAcquire() {
+        if (state == State.CLOSED) {
+            // Unsynchronized read; a call racing with the breaker opening is counted as a closed call
+            return new Permit(generation, false);
+        }
+        Transition transition = null;
+        Permit permit = null;
+        synchronized (this) {
+            if (state == State.OPEN && clock.millis() >= openUntil) {
+                transition = transition(State.HALF_OPEN);
+            }
+            if (state == State.CLOSED) {
+                permit = new Permit(generation, false);
+            } else if (state == State.HALF_OPEN && probesStarted < halfOpenProbes) {
+                probesStarted++;
+                permit = new Permit(generation, true);
+            }
+        }
+        notifyListeners(transition);
+        if (permit == null) {
+            rejected.increment();
+        }
+        return permit;
+    }
+
+    /**
+     * Runs a call through the breaker. A call that is interrupted, e.g. because it was cancelled,
+     * is not counted.
+     *
+     * @param call the call
+     * @param <T> result type
+     * @return the call's result
+     * @throws CircuitOpenException if the breaker is open
+     * @throws Exception if the call fails
+     */
+    public <T> T call(Callable<T> call) throws Exception {
+        Permit permit = acquireOrThrow();
+        try {
+            T result = call.call();
+            permit.success();
+            return result;
+        } catch (InterruptedException e) {
+            permit.release();
+            throw e;
+        } catch (Exception e) {
+            if (Thread.currentThread().isInterrupted()) {
+                permit.release();
+            } else {
+                permit.failure();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Runs an asynchronous call through the breaker. The outcome is recorded when the future completes,
+     * before the returned future completes; a cancelled call is not counted.
+     *
+     * @param call starts the call
+     * @param <T> result type
+     * @return the call's future, failed with a {@link CircuitOpenException} if the breaker is open;
+     *         cancelling it cancels the call
+     */
+    public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> call) {
+        Permit permit;
+        try {
+            permit = acquireOrThrow();
+        } catch (CircuitOpenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            permit.failure();
+            throw e;
+        }
+        CompletableFuture<T> recorded = future.whenComplete((result, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause == null) {
+                permit.success();
+            } else if (cause instanceof CancellationException) {
+                permit.release();
+            } else {
+                permit.failure();
+            }
+        });
+        recorded.whenComplete((result, error) -> {
+            if (recorded.isCancelled()) {
+                future.cancel(true);
+            }
+        });
+        return recorded;
+    }
+
+    /**
+     * Gets the current state. An open breaker whose open period is over still reports OPEN
+     * until the next call moves it to HALF_OPEN.
+     *
+     * @return the state
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Gets a snapshot of the breaker's state and recent outcomes.
+     *
+     * @return the current statistics
+     */
+    public synchronized CircuitBreakerStats getStats() {
+        return new CircuitBreakerStats(name, state, recorded, failureRate(), slowCallRate(),
+                rejected.sum(), timesOpened.sum());
+    }
+
+    private CircuitOpenException openException() {
+        long retryAfter;
+        synchronized (this) {
+            retryAfter = Math.max(0, openUntil - clock.millis());
+        }
+        return new CircuitOpenException(name, Duration.ofMillis(retryAfter));
+    }
+
+    private Permit acquireOrThrow() throws CircuitOpenException {
+        Permit permit = tryAcquire();
+        if (permit == null) {
+            throw openException();
+        }
+        return permit;
+    }
+
+    private void complete(Permit permit, long durationNanos, boolean failure) {
+        Transition transition = null;
+        synchronized (this) {
+            if (permit.generation != generation) {
+                return;
+            }
+            boolean isSlow = durationNanos >= slowCallNanos;
+            if (state == State.CLOSED) {
+                record((byte) ((failure ? FAILED : 0) | (isSlow ? SLOW : 0)));
+                if (recorded >= minimumCalls
+                        && (failureRate() >= failureRateThreshold || slowCallRate() >= slowCallRateThreshold)) {
+                    transition = transition(State.OPEN);
+                }
+            } else if (state == State.HALF_OPEN && permit.probe) {
+                if (failure || isSlow) {
+                    transition = transition(State.OPEN);
+                } else if (++probesSucceeded >= halfOpenProbes) {
+                    transition = transition(State.CLOSED);
+                }
+            }
+        }
+        notifyListeners(transition);
+    }
+
+    private synchronized void release(Permit permit) {
+        if (permit.probe && permit.generation == generation && state == State.HALF_OPEN) {
+            probesStarted--;
+        }
+    }
+
+    private void record(byte outcome) {
+        if (recorded == windowSize) {
+            byte oldest = outcomes[next];
+            failed -= oldest & FAILED;
+            slow -= (oldest & SLOW) >> 1;
+        } else {
+            recorded++;
+        }
+        outcomes[next] = outcome;
+        failed += outcome & FAILED;
+        slow += (outcome & SLOW) >> 1;
+        next = (next + 1) % windowSize;
+    }
+
+    private double failureRate() {
+        return recorded > 0 ? (double) failed / recorded : 0;
+    }
+
+    private double slowCallRate() {
+        return recorded > 0 ? (double) slow / recorded : 0;
+    }
+
+    /**
+     * Changes the state. Must be called holding the lock.
+     *
+     * @param to the new state
+     * @return the transition, for the listeners
+     */
+    private Transition transition(State to) {
+        Transition transition = new Transition(name, state, to, failureRate(), slowCallRate());
+        state = to;
+        generation++;
+        probesStarted = 0;
+        probesSucceeded = 0;
+        if (to == State.OPEN) {
+            openUntil = clock.millis() + openDuration.toMillis();
+            timesOpened.increment();
+        } else if (to == State.CLOSED) {
+            next = 0;
+            recorded = 0;
+            failed = 0;
+            slow = 0;
+        }
+        return transition;
+    }
+
+    private void notifyListeners(Transition transition) {
+        if (transition == null) {
+            return;
+        }
+        if (transition.to() == State.OPEN) {
+            log.warn("Circuit breaker '{}' opened from {} (failure rate {}, slow call rate {}), failing calls for {} ms",
+                    name, transition.from(), String.format("%.2f", transition.failureRate()),
+                    String.format("%.2f", transition.slowCallRate()), openDuration.toMillis());
+        } else {
+            log.info("Circuit breaker '{}' moved from {} to {}", name, transition.from(), transition.to());
+        }
+        for (Consumer<Transition> listener : listeners) {
+            try {
+                listener.accept(transition);
+            } catch (RuntimeException e) {
+                log.warn("Circuit breaker listener failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Permission to make one call. Report its outcome exactly once.
+     */
+    public final class Permit {
+        private final long generation;
+        private final boolean probe;
+        private final long started = System.nanoTime();
+        private boolean done;
+
+        private Permit(long generation, boolean probe) {
+            this.generation = generation;
+            this.probe = probe;
+        }
+
+        /**
+         * Records that the call succeeded.
+         */
+        public void success() {
+            finish(false);
+        }
+
+        /**
+         * Records that the call failed.
+         */
+        public void failure() {
+            finish(true);
+        }
+
+        /**
+         * Gives the permit back without recording an outcome, e.g. when the call was cancelled.
+         */
+        public void release() {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+            }
+            CircuitBreaker.this.release(this);
+        }
+
+        private void finish(boolean failure) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+            }
+            complete(this, System.nanoTime() - started, failure);
+        }
+    }
+
+    /**
+     * A state change.
+     *
+     * @param breaker the breaker name
+     * @param from the previous state
+     * @param to the new state
+     * @param failureRate share of failed calls in the window when the state changed
+     * @param slowCallRate share of slow calls in the window when the state changed
+     */
+    public record Transition(String breaker, State from, State to, double failureRate, double slowCallRate) {
+    }
+
+    /**
+     * Circuit breaker snapshot.
+     *
+     * @param name breaker name
+     * @param state current state
+     * @param bufferedCalls calls in the window
+     * @param failureRate share of failed calls in the window
+     * @param slowCallRate share of slow calls in the window
+     * @param rejected calls refused while open or half-open
+     * @param timesOpened number of times the breaker opened
+     */
+    public record CircuitBreakerStats(String name, State state, int bufferedCalls, double failureRate,
+                                      double slowCallRate, long rejected, long timesOpened) {
+    }
+}
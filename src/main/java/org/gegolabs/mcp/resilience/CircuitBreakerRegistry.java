@@ -0,0 +1,56 @@
+package org.gegolabs.mcp.resilience;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Circuit breakers by downstream key, created on first use.
+ * <p>
+ * For capabilities that call several downstream services or hosts, one breaker per key keeps an
+ * outage of one from failing calls to the others:
+ * <pre>
+ * CircuitBreakerRegistry breakers = new CircuitBreakerRegistry(
+ *         key -&gt; CircuitBreaker.builder().name("whois:" + key).build());
+ * String data = breakers.get(host).call(() -&gt; query(host, domain));
+ * </pre>
+ */
+public class CircuitBreakerRegistry {
+
+    private final Function<String, CircuitBreaker> factory;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a registry.
+     *
+     * @param factory creates the breaker for a key
+     */
+    public CircuitBreakerRegistry(Function<String, CircuitBreaker> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Gets the breaker for a key, creating it if needed.
+     *
+     * @param key the downstream key
+     * @return the breaker
+     */
+    public CircuitBreaker get(String key) {
+        return breakers.computeIfAbsent(key, factory);
+    }
+
+    /**
+     * Gets a snapshot of every breaker created so far.
+     *
+     * @return one snapshot per breaker
+     */
+    public List<CircuitBreaker.CircuitBreakerStats> getStats() {
+        List<CircuitBreaker.CircuitBreakerStats> stats = new ArrayList<>();
+        for (CircuitBreaker breaker : breakers.values()) {
+            stats.add(breaker.getStats());
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,44 @@
+package org.gegolabs.mcp.resilience;
+
+import org.gegolabs.mcp.protocol.CapabilityException;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown instead of making a call while a circuit breaker is open.
+ */
+public class CircuitOpenException extends CapabilityException {
+
+    private final String breaker;
+    private final Duration retryAfter;
+
+    /**
+     * Constructs a new circuit open exception.
+     *
+     * @param breaker the name of the open breaker
+     * @param retryAfter time until the breaker lets probe calls through
+     */
+    public CircuitOpenException(String breaker, Duration retryAfter) {
+        super("Circuit breaker '" + breaker + "' is open, retry after " + retryAfter.toMillis() + " ms");
+        this.breaker = breaker;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Gets the name of the open breaker.
+     *
+     * @return the breaker name
+     */
+    public String getBreaker() {
+        return breaker;
+    }
+
+    /**
+     * Gets the time until the breaker lets probe calls through.
+     *
+     * @return the retry delay
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,392 @@
+package org.gegolabs.mcp.resilience;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.gegolabs.mcp.protocol.CallContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hedged requests for remote lookups with a long latency tail.
+ * <p>
+ * A call starts a primary attempt. If it has not answered once the hedge delay has passed, a
+ * backup attempt is started, typically on another connection or against a mirror. The first
+ * attempt to succeed answers the call and the other is cancelled. A failed attempt only fails the
+ * call if no other attempt is still running.
+ * <p>
+ * The hedge delay adapts to the service: it is the {@code percentile} of the latencies of recent
+ * successful attempts (by default the 95th), so only the slowest calls are hedged. Failures and
+ * cancelled attempts end early and are left out, so a failing service is not hedged harder. Until {@code minSamples} latencies
+ * are known, {@code initialDelay} is used. Hedges are paid from a budget: each call earns
+ * {@code budget} hedges, up to {@code burst}, so the extra load stays around {@code budget} times
+ * the call rate even when the service slows down as a whole.
+ * <p>
+ * Attempts run on the hedger's executor with the caller's {@link CallContext}, so cancelling the
+ * call cancels its attempts.
+ */
+@Slf4j
+public class Hedger implements AutoCloseable {
+
+    /**
+     * A lookup that can be attempted more than once.
+     *
+     * @param <T> result type
+     */
+    @FunctionalInterface
+    public interface HedgedCall<T> {
+        /**
+         * Makes one attempt.
+         *
+         * @param attempt the attempt, telling whether it is the primary or the backup
+         * @return the result
+         * @throws Exception if the attempt fails
+         */
+        T call(Attempt attempt) throws Exception;
+    }
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "umcp-hedge-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final long MILLIONTH = 1_000_000;
+
+    /**
+     * Name of the hedger, used in logs and statistics.
+     */
+    @Getter
+    private final String name;
+
+    private final double percentile;
+    private final long initialDelayNanos;
+    private final long minDelayNanos;
+    private final int minSamples;
+    private final long earnedPerCall;
+    private final long maxCredit;
+    private final Executor executor;
+    private final ExecutorService ownExecutor;
+
+    private final long[] samples;
+    private int nextSample;
+    private int sampleCount;
+    private int sinceRecompute;
+    private volatile long delayNanos;
+
+    // Hedge budget in millionths of a hedge
+    private final AtomicLong credit;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder backupWins = new LongAdder();
+    private final LongAdder overBudget = new LongAdder();
+
+    /**
+     * Creates a hedger.
+     *
+     * @param name the hedger name
+     * @param percentile attempt latency percentile used as hedge delay, between 0 and 1 (default 0.95)
+     * @param initialDelay hedge delay until enough latencies are known (default 100 ms)
+     * @param minDelay shortest hedge delay (default 1 ms)
+     * @param sampleSize number of recent attempt latencies kept (default 1000)
+     * @param minSamples latencies needed before the delay adapts (default 20)
+     * @param budget hedges allowed per call, on average (default 0.05)
+     * @param burst hedges that can be saved up (default 10)
+     * @param executor runs the attempts (default a cached pool of daemon threads, shut down on close)
+     */
+    @Builder
+    public Hedger(String name, double percentile, Duration initialDelay, Duration minDelay, int sampleSize,
+                  int minSamples, double budget, int burst, Executor executor) {
+        this.name = name != null ? name : "hedger";
+        this.percentile = percentile > 0 && percentile < 1 ? percentile : 0.95;
+        this.initialDelayNanos = (initialDelay != null ? initialDelay : Duration.ofMillis(100)).toNanos();
+        this.minDelayNanos = (minDelay != null ? minDelay : Duration.ofMillis(1)).toNanos();
+        this.samples = new long[sampleSize > 0 ? sampleSize : 1000];
+        this.minSamples = Math.min(samples.length, minSamples > 0 ? minSamples : 20);
+        this.earnedPerCall = (long) ((budget > 0 ? budget : 0.05) * MILLIONTH);
+        this.maxCredit = (burst > 0 ? burst : 10) * MILLIONTH;
+        this.credit = new AtomicLong(maxCredit);
+        this.delayNanos = initialDelayNanos;
+        if (executor != null) {
+            this.executor = executor;
+            this.ownExecutor = null;
+        } else {
+            AtomicInteger counter = new AtomicInteger();
+            this.ownExecutor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "umcp-hedge-" + this.name + "-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.executor = ownExecutor;
+        }
+    }
+
+    /**
+     * Makes a hedged call.
+     *
+     * @param call the lookup
+     * @param <T> result type
+     * @return a future with the first successful attempt's result; cancelling it cancels every attempt
+     */
+    public <T> CompletableFuture<T> execute(HedgedCall<T> call) {
+        calls.increment();
+        credit.accumulateAndGet(earnedPerCall, (current, earned) -> Math.min(maxCredit, current + earned));
+        Race<T> race = new Race<>(call);
+        race.launch(0);
+        ScheduledFuture<?> timer = TIMER.schedule(() -> {
+            if (race.result.isDone()) {
+                return;
+            }
+            if (!spend()) {
+                overBudget.increment();
+                return;
+            }
+            if (race.launch(1)) {
+                hedges.increment();
+                log.debug("Hedger '{}' started a backup attempt after {} ms", name, delayNanos / 1_000_000);
+            } else {
+                // The call finished in the meantime
+                credit.accumulateAndGet(MILLIONTH, (current, refund) -> Math.min(maxCredit, current + refund));
+            }
+        }, delayNanos, TimeUnit.NANOSECONDS);
+        race.result.whenComplete((result, error) -> {
+            timer.cancel(false);
+            race.cancelLosers();
+        });
+        return race.result;
+    }
+
+    /**
+     * Makes a hedged call and waits for its result.
+     *
+     * @param call the lookup
+     * @param <T> result type
+     * @return the first successful attempt's result
+     * @throws Exception the failure of the last attempt to fail, if none succeeded
+     */
+    public <T> T call(HedgedCall<T> call) throws Exception {
+        CompletableFuture<T> result = execute(call);
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /**
+     * Gets the current hedge delay.
+     *
+     * @return the delay after which a backup attempt starts
+     */
+    public Duration getDelay() {
+        return Duration.ofNanos(delayNanos);
+    }
+
+    /**
+     * Gets a snapshot of the hedger's activity.
+     *
+     * @return the current statistics
+     */
+    public HedgerStats getStats() {
+        return new HedgerStats(name, getDelay(), calls.sum(), hedges.sum(), backupWins.sum(), overBudget.sum());
+    }
+
+    /**
+     * Shuts down the executor if the hedger created it. Running attempts are interrupted.
+     */
+    @Override
+    public void close() {
+        if (ownExecutor != null) {
+            ownExecutor.shutdownNow();
+        }
+    }
+
+    private boolean spend() {
+        while (true) {
+            long current = credit.get();
+            if (current < MILLIONTH) {
+                return false;
+            }
+            if (credit.compareAndSet(current, current - MILLIONTH)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Records the latency of a successful attempt and recomputes the delay every tenth of the
+     * sample window.
+     *
+     * @param nanos the latency
+     */
+    private synchronized void record(long nanos) {
+        samples[nextSample] = nanos;
+        nextSample = (nextSample + 1) % samples.length;
+        if (sampleCount < samples.length) {
+            sampleCount++;
+        }
+        if (sampleCount < minSamples || ++sinceRecompute < Math.max(1, Math.min(minSamples, samples.length / 10))) {
+            return;
+        }
+        sinceRecompute = 0;
+        long[] sorted = Arrays.copyOf(samples, sampleCount);
+        Arrays.sort(sorted);
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1);
+        delayNanos = Math.max(minDelayNanos, sorted[Math.max(0, index)]);
+    }
+
+    /**
+     * The attempts of one call.
+     *
+     * @param <T> result type
+     */
+    private final class Race<T> {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final HedgedCall<T> call;
+        final List<Attempt> attempts = new ArrayList<>(2);
+        int running;
+
+        Race(HedgedCall<T> call) {
+            this.call = call;
+        }
+
+        synchronized boolean launch(int index) {
+            if (result.isDone()) {
+                return false;
+            }
+            Attempt attempt = new Attempt(index);
+            attempts.add(attempt);
+            running++;
+            attempt.future = CallContext.supplyAsync(() -> call.call(attempt), executor);
+            attempt.future.whenComplete((value, error) -> finish(attempt, value, error));
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void finish(Attempt attempt, Object value, Throwable error) {
+            if (error == null) {
+                record(System.nanoTime() - attempt.started);
+            }
+            // Completing under the lock keeps a backup from starting after the last attempt failed
+            synchronized (this) {
+                running--;
+                if (error == null) {
+                    // Counted first, so a caller that has the result also sees the win in the stats
+                    if (!result.isDone() && attempt.index > 0) {
+                        backupWins.increment();
+                    }
+                    result.complete((T) value);
+                } else if (running == 0) {
+                    result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error);
+                }
+            }
+        }
+
+        synchronized void cancelLosers() {
+            for (Attempt attempt : attempts) {
+                if (!attempt.future.isDone()) {
+                    attempt.cancel();
+                }
+            }
+        }
+    }
+
+    /**
+     * One attempt of a hedged call.
+     */
+    public static final class Attempt {
+        private final int index;
+        private final long started = System.nanoTime();
+        private final List<Runnable> cancelListeners = new ArrayList<>(1);
+        private CompletableFuture<?> future;
+        private boolean cancelled;
+
+        private Attempt(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Gets the attempt number.
+         *
+         * @return 0 for the primary attempt, 1 for the backup
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Checks whether this is the backup attempt, which should use another connection or mirror.
+         *
+         * @return true for the backup attempt
+         */
+        public boolean isBackup() {
+            return index > 0;
+        }
+
+        /**
+         * Registers an action to run if the attempt loses, e.g. closing its socket so a blocked read returns.
+         * Runs immediately if the attempt is already cancelled.
+         *
+         * @param listener the action
+         */
+        public void onCancel(Runnable listener) {
+            synchronized (this) {
+                if (!cancelled) {
+                    cancelListeners.add(listener);
+                    return;
+                }
+            }
+            listener.run();
+        }
+
+        private void cancel() {
+            List<Runnable> listeners;
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                listeners = List.copyOf(cancelListeners);
+            }
+            for (Runnable listener : listeners) {
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    log.debug("Hedge cancel action failed: {}", e.getMessage());
+                }
+            }
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Hedger snapshot.
+     *
+     * @param name hedger name
+     * @param delay current hedge delay
+     * @param calls calls made
+     * @param hedges backup attempts started
+     * @param backupWins calls answered by the backup attempt
+     * @param overBudget backup attempts skipped because the budget was spent
+     */
+    public record HedgerStats(String name, Duration delay, long calls, long hedges, long backupWins, long overBudget) {
+    }
+}
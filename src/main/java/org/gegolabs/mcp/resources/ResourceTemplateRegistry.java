@@ -0,0 +1,115 @@
+package org.gegolabs.mcp.resources;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpError;
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.extern.slf4j.Slf4j;
+import org.gegolabs.mcp.model.ResourceTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of resource templates, matched through a {@link UriTemplateIndex}.
+ * <p>
+ * Serves {@code resources/read} for URIs matching a template and the precomputed
+ * {@code resources/templates/list}. Readers run on Reactor's bounded elastic scheduler,
+ * since they typically block on I/O.
+ */
+@Slf4j
+public class ResourceTemplateRegistry {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final UriTemplateIndex<ResourceTemplate<?>> index = new UriTemplateIndex<>();
+    private final McpSchema.ListResourceTemplatesResult listResult;
+
+    /**
+     * Creates a new registry.
+     *
+     * @param templates the resource templates
+     * @throws IllegalArgumentException if a template is invalid or conflicts with another one
+     */
+    @Builder
+    public ResourceTemplateRegistry(@Singular List<ResourceTemplate<?>> templates) {
+        List<McpSchema.ResourceTemplate> descriptors = new ArrayList<>(templates.size());
+        for (ResourceTemplate<?> template : templates) {
+            index.add(UriTemplate.compile(template.getUriTemplate()), template);
+            descriptors.add(new McpSchema.ResourceTemplate(template.getUriTemplate(), template.getName(),
+                    template.getDescription(), template.getMimeType(), null));
+        }
+        this.listResult = new McpSchema.ListResourceTemplatesResult(List.copyOf(descriptors), null);
+    }
+
+    /**
+     * Gets the list of resource templates.
+     *
+     * @return the precomputed list
+     */
+    public McpSchema.ListResourceTemplatesResult list() {
+        return listResult;
+    }
+
+    /**
+     * Reads the resource at a URI through the template that matches it.
+     *
+     * @param uri the resource URI
+     * @return the resource contents, or empty if no template matches the URI
+     */
+    public Mono<McpSchema.ReadResourceResult> read(String uri) {
+        UriTemplateIndex.Match<ResourceTemplate<?>> match = uri != null ? index.match(uri) : null;
+        if (match == null) {
+            return Mono.empty();
+        }
+        return Mono.fromCallable(() -> read(uri, match.value(), match.variables()))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private <I> McpSchema.ReadResourceResult read(String uri, ResourceTemplate<I> template, Map<String, String> variables) throws Exception {
+        I bound;
+        try {
+            bound = template.getVariablesType() != null
+                    ? OBJECT_MAPPER.convertValue(variables, template.getVariablesType())
+                    : castVariables(variables);
+        } catch (IllegalArgumentException e) {
+            throw new McpError(new McpSchema.JSONRPCResponse.JSONRPCError(McpSchema.ErrorCodes.INVALID_PARAMS,
+                    "Invalid variables for " + template.getUriTemplate() + ": " + e.getMessage(), null));
+        }
+        log.debug("Reading {} through template {}", uri, template.getUriTemplate());
+        return new McpSchema.ReadResourceResult(List.of(toContents(uri, template.getMimeType(), template.getReader().read(bound))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <I> I castVariables(Map<String, String> variables) {
+        return (I) variables;
+    }
+
+    private static McpSchema.ResourceContents toContents(String uri, String mimeType, Object content) throws Exception {
+        if (content instanceof McpSchema.ResourceContents contents) {
+            return contents;
+        }
+        if (content instanceof byte[] bytes) {
+            return new McpSchema.BlobResourceContents(uri, mimeType, Base64.getEncoder().encodeToString(bytes));
+        }
+        if (content instanceof String text) {
+            return new McpSchema.TextResourceContents(uri, mimeType, text);
+        }
+        return new McpSchema.TextResourceContents(uri, mimeType != null ? mimeType : "application/json",
+                OBJECT_MAPPER.writeValueAsString(content));
+    }
+
+    /**
+     * Gets the number of registered templates.
+     *
+     * @return the template count
+     */
+    public int size() {
+        return index.size();
+    }
+}
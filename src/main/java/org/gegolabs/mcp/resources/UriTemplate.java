@@ -0,0 +1,200 @@
+package org.gegolabs.mcp.resources;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * RFC 6570 URI template compiled into path segments for matching.
+ * <p>
+ * Supported expressions are simple expansion {@code {var}}, which matches a non-empty value
+ * within one path segment, and reserved expansion {@code {+var}}, which matches the rest of the
+ * URI including slashes and must be the last segment. A segment may mix literals and simple
+ * expressions, e.g. {@code {name}.{ext}}, as long as two expressions are separated by a literal.
+ * A value ends at the first occurrence of the literal that follows it.
+ */
+public final class UriTemplate {
+
+    private final String template;
+    private final List<Segment> segments;
+    private final List<String> variables;
+
+    private UriTemplate(String template, List<Segment> segments, List<String> variables) {
+        this.template = template;
+        this.segments = segments;
+        this.variables = variables;
+    }
+
+    /**
+     * Compiles a URI template.
+     *
+     * @param template the template
+     * @return the compiled template
+     * @throws IllegalArgumentException if the template uses unsupported or malformed expressions
+     */
+    public static UriTemplate compile(String template) {
+        String[] parts = template.split("/", -1);
+        List<Segment> segments = new ArrayList<>(parts.length);
+        List<String> variables = new ArrayList<>();
+        for (int i = 0; i < parts.length; i++) {
+            Segment segment = parseSegment(parts[i], template);
+            if (segment.reserved && i < parts.length - 1) {
+                throw new IllegalArgumentException("Reserved expansion must be the last segment: " + template);
+            }
+            for (String variable : segment.variables) {
+                if (variables.contains(variable)) {
+                    throw new IllegalArgumentException("Variable '" + variable + "' used twice: " + template);
+                }
+                variables.add(variable);
+            }
+            segments.add(segment);
+        }
+        return new UriTemplate(template, List.copyOf(segments), List.copyOf(variables));
+    }
+
+    private static Segment parseSegment(String text, String template) {
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        boolean reserved = false;
+        int position = 0;
+        while (true) {
+            int open = text.indexOf('{', position);
+            if (open < 0) {
+                break;
+            }
+            int close = text.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unterminated expression in template: " + template);
+            }
+            String literal = text.substring(position, open);
+            if (!variables.isEmpty() && literal.isEmpty()) {
+                throw new IllegalArgumentException("Adjacent expressions need a literal between them: " + template);
+            }
+            String expression = text.substring(open + 1, close);
+            if (expression.startsWith("+")) {
+                if (open != 0 || close != text.length() - 1) {
+                    throw new IllegalArgumentException("Reserved expansion must fill a whole segment: " + template);
+                }
+                reserved = true;
+                expression = expression.substring(1);
+            }
+            if (expression.isEmpty() || !expression.chars().allMatch(c -> Character.isLetterOrDigit(c) || c == '_')) {
+                throw new IllegalArgumentException("Unsupported expression {" + text.substring(open + 1, close) + "} in template: " + template);
+            }
+            literals.add(literal);
+            variables.add(expression);
+            position = close + 1;
+        }
+        literals.add(text.substring(position));
+        return new Segment(text, literals, variables, reserved);
+    }
+
+    /**
+     * Gets the template text.
+     *
+     * @return the template
+     */
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * Gets the variable names in order of appearance.
+     *
+     * @return the variable names
+     */
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    List<Segment> getSegments() {
+        return segments;
+    }
+
+    /**
+     * Decodes percent-encoded octets of a matched value. Unlike form decoding, '+' is kept.
+     */
+    static String decode(String value) {
+        if (value.indexOf('%') < 0) {
+            return value;
+        }
+        StringBuilder text = new StringBuilder(value.length());
+        ByteArrayOutputStream octets = new ByteArrayOutputStream();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            int high = c == '%' && i + 2 < value.length() ? Character.digit(value.charAt(i + 1), 16) : -1;
+            int low = high >= 0 ? Character.digit(value.charAt(i + 2), 16) : -1;
+            if (low >= 0) {
+                octets.write(high << 4 | low);
+                i += 2;
+            } else {
+                text.append(octets.toString(StandardCharsets.UTF_8)).append(c);
+                octets.reset();
+            }
+        }
+        return text.append(octets.toString(StandardCharsets.UTF_8)).toString();
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+
+    /**
+     * One path segment of a template: literals alternating with variables.
+     */
+    static final class Segment {
+        final String text;
+        final String[] literals;
+        final List<String> variables;
+        final boolean reserved;
+        // The segment with its variable names erased: segments of the same shape match the same values
+        final String shape;
+
+        Segment(String text, List<String> literals, List<String> variables, boolean reserved) {
+            this.text = text;
+            this.literals = literals.toArray(new String[0]);
+            this.variables = Collections.unmodifiableList(variables);
+            this.reserved = reserved;
+            this.shape = (reserved ? "+" : "") + String.join("{}", literals);
+        }
+
+        boolean isLiteral() {
+            return variables.isEmpty();
+        }
+
+        /**
+         * Matches a URI segment, appending the decoded variable values to {@code values}.
+         *
+         * @return true if the segment matches; on false, {@code values} may hold partial values
+         */
+        boolean match(String segment, List<String> values) {
+            String first = literals[0];
+            if (!segment.startsWith(first)) {
+                return false;
+            }
+            int position = first.length();
+            for (int i = 0; i < variables.size(); i++) {
+                String next = literals[i + 1];
+                int end;
+                if (i == variables.size() - 1) {
+                    // Last variable takes everything up to the trailing literal
+                    end = segment.length() - next.length();
+                    if (end <= position || !segment.endsWith(next)) {
+                        return false;
+                    }
+                } else {
+                    end = segment.indexOf(next, position + 1);
+                    if (end < 0) {
+                        return false;
+                    }
+                }
+                values.add(decode(segment.substring(position, end)));
+                position = end + next.length();
+            }
+            return position == segment.length();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.gegolabs.mcp.resources;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trie of URI templates keyed by path segment.
+ * <p>
+ * Literal segments are looked up in a hash map, so matching a URI costs one map lookup per
+ * segment plus the templated segments along the way, regardless of how many templates are
+ * registered. When several templates match, literal segments win over templated ones, and
+ * templated ones over a trailing reserved expansion.
+ * <p>
+ * Templates are meant to be added while the server starts. Matching is thread-safe once the index
+ * is no longer modified.
+ *
+ * @param <T> type of the value attached to each template
+ */
+public class UriTemplateIndex<T> {
+
+    private final Node<T> root = new Node<>();
+    private int size;
+
+    /**
+     * Adds a template.
+     *
+     * @param template the compiled template
+     * @param value the value returned when a URI matches the template
+     * @throws IllegalArgumentException if an equivalent template was already added
+     */
+    public void add(UriTemplate template, T value) {
+        Node<T> node = root;
+        List<UriTemplate.Segment> segments = template.getSegments();
+        for (UriTemplate.Segment segment : segments) {
+            if (segment.reserved) {
+                if (node.reserved != null) {
+                    throw new IllegalArgumentException("Template conflicts with " + node.reserved.template + ": " + template);
+                }
+                node.reserved = new Entry<>(template, value);
+                size++;
+                return;
+            }
+            if (segment.isLiteral()) {
+                node = node.literals.computeIfAbsent(segment.text, text -> new Node<>());
+            } else {
+                // Keyed by shape, so templates differing only in variable names conflict
+                node = node.patterns.computeIfAbsent(segment.shape, shape -> new PatternEdge<>(segment)).child;
+            }
+        }
+        if (node.terminal != null) {
+            throw new IllegalArgumentException("Template conflicts with " + node.terminal.template + ": " + template);
+        }
+        node.terminal = new Entry<>(template, value);
+        size++;
+    }
+
+    /**
+     * Finds the template matching a URI.
+     *
+     * @param uri the URI
+     * @return the match with its decoded variables, or null if no template matches
+     */
+    public Match<T> match(String uri) {
+        String[] segments = uri.split("/", -1);
+        List<String> values = new ArrayList<>();
+        Entry<T> entry = find(root, uri, segments, 0, 0, values);
+        if (entry == null) {
+            return null;
+        }
+        List<String> names = entry.template.getVariables();
+        Map<String, String> variables = new LinkedHashMap<>(names.size() * 2);
+        for (int i = 0; i < names.size(); i++) {
+            variables.put(names.get(i), values.get(i));
+        }
+        return new Match<>(entry.value, entry.template, variables);
+    }
+
+    private Entry<T> find(Node<T> node, String uri, String[] segments, int index, int offset, List<String> values) {
+        if (index == segments.length) {
+            return node.terminal;
+        }
+        String segment = segments[index];
+        int nextOffset = offset + segment.length() + 1;
+
+        Node<T> literal = node.literals.get(segment);
+        if (literal != null) {
+            Entry<T> entry = find(literal, uri, segments, index + 1, nextOffset, values);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        int mark = values.size();
+        for (PatternEdge<T> edge : node.patterns.values()) {
+            if (edge.segment.match(segment, values)) {
+                Entry<T> entry = find(edge.child, uri, segments, index + 1, nextOffset, values);
+                if (entry != null) {
+                    return entry;
+                }
+            }
+            values.subList(mark, values.size()).clear();
+        }
+        if (node.reserved != null && offset < uri.length()) {
+            values.add(UriTemplate.decode(uri.substring(offset)));
+            return node.reserved;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the number of templates in the index.
+     *
+     * @return the template count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Result of matching a URI.
+     *
+     * @param value the value attached to the matching template
+     * @param template the matching template
+     * @param variables decoded variable values by name
+     * @param <T> value type
+     */
+    public record Match<T>(T value, UriTemplate template, Map<String, String> variables) {
+    }
+
+    private record Entry<T>(UriTemplate template, T value) {
+    }
+
+    private static final class PatternEdge<T> {
+        final UriTemplate.Segment segment;
+        final Node<T> child = new Node<>();
+
+        PatternEdge(UriTemplate.Segment segment) {
+            this.segment = segment;
+        }
+    }
+
+    private static final class Node<T> {
+        final Map<String, Node<T>> literals = new HashMap<>();
+        final Map<String, PatternEdge<T>> patterns = new LinkedHashMap<>();
+        Entry<T> terminal;
+        Entry<T> reserved;
+    }
+}
@@ -0,0 +1,314 @@
+package org.gegolabs.mcp.results;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.gegolabs.mcp.model.ResourceTemplate;
+import org.gegolabs.mcp.protocol.CapabilityException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Store for tool results too large to return inline.
+ * <p>
+ * A result longer than {@code threshold} characters is written to a temporary file in pages of
+ * {@code pageSize} characters, and the call returns a short summary with a preview and the URIs of
+ * the pages instead. Clients read the pages through {@code resources/read} on
+ * {@value #URI_TEMPLATE}, served by the {@link #template()} registered with the server. A stored
+ * result is deleted once it has not been read for {@code ttl}, or when the store needs room.
+ * <p>
+ * Pages are located through a table of byte offsets kept per result, so reading a page reads only
+ * that page from disk.
+ */
+@Slf4j
+public class ResultStore implements AutoCloseable {
+
+    /**
+     * URI template of stored result pages; pages are numbered from 0.
+     */
+    public static final String URI_TEMPLATE = "umcp://results/{id}/pages/{page}";
+
+    private static final int DEFAULT_THRESHOLD = 100_000;
+    private static final int DEFAULT_PAGE_SIZE = 32_768;
+    private static final int DEFAULT_PREVIEW_LENGTH = 1_000;
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+    private static final long DEFAULT_MAX_BYTES = 1L << 30;
+
+    private final int threshold;
+    private final int pageSize;
+    private final int previewLength;
+    private final long ttlNanos;
+    private final long maxBytes;
+    private final Path directory;
+    private final boolean ownDirectory;
+    private final Map<String, StoredResult> results = new ConcurrentHashMap<>();
+    private final AtomicLong storedBytes = new AtomicLong();
+    private final ScheduledExecutorService cleaner;
+
+    /**
+     * Page of a stored result, as bound from a page URI.
+     *
+     * @param id the result id
+     * @param page the page number, from 0
+     */
+    public record Page(String id, int page) {
+    }
+
+    /**
+     * Creates a result store.
+     *
+     * @param threshold result length in characters above which results are stored (default 100000)
+     * @param pageSize characters per page (default 32768)
+     * @param previewLength characters of the result included in the summary (default 1000)
+     * @param ttl time a stored result is kept after it was last read (default 10 minutes)
+     * @param maxBytes total size of stored results; the oldest are deleted beyond it (default 1 GB)
+     * @param directory directory of the result files (default a new temporary directory)
+     * @throws IOException if the directory cannot be created
+     */
+    @Builder
+    public ResultStore(int threshold, int pageSize, int previewLength, Duration ttl, long maxBytes, Path directory) throws IOException {
+        this.threshold = threshold > 0 ? threshold : DEFAULT_THRESHOLD;
+        this.pageSize = pageSize > 0 ? pageSize : DEFAULT_PAGE_SIZE;
+        this.previewLength = previewLength > 0 ? Math.min(previewLength, this.threshold) : Math.min(DEFAULT_PREVIEW_LENGTH, this.threshold);
+        this.ttlNanos = (ttl != null ? ttl : DEFAULT_TTL).toNanos();
+        this.maxBytes = maxBytes > 0 ? maxBytes : DEFAULT_MAX_BYTES;
+        this.ownDirectory = directory == null;
+        this.directory = directory != null ? Files.createDirectories(directory) : Files.createTempDirectory("umcp-results");
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "umcp-result-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepMillis = Math.max(1000, TimeUnit.NANOSECONDS.toMillis(ttlNanos) / 2);
+        cleaner.scheduleWithFixedDelay(this::expire, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Checks whether a result is too large to return inline.
+     *
+     * @param result the result text
+     * @return true if the result should be stored
+     */
+    public boolean shouldStore(String result) {
+        return result.length() > threshold;
+    }
+
+    /**
+     * Stores a result and builds the summary returned in its place.
+     *
+     * @param tool the tool that produced the result
+     * @param result the result text
+     * @return the summary result, pointing to the stored pages
+     * @throws IOException if the result cannot be written
+     */
+    public McpSchema.CallToolResult store(String tool, String result) throws IOException {
+        String id = UUID.randomUUID().toString();
+        Path file = directory.resolve(id + ".txt");
+        List<Long> offsets = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            int start = 0;
+            while (start < result.length()) {
+                int end = Math.min(result.length(), start + pageSize);
+                // Keep surrogate pairs on one page
+                if (end < result.length() && Character.isHighSurrogate(result.charAt(end - 1))) {
+                    end--;
+                }
+                offsets.add(channel.position());
+                ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(result, start, end));
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                start = end;
+            }
+            offsets.add(channel.position());
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        long[] table = offsets.stream().mapToLong(Long::longValue).toArray();
+        int pages = table.length - 1;
+        results.put(id, new StoredResult(file, table, System.nanoTime() + ttlNanos));
+        long total = storedBytes.addAndGet(table[pages]);
+        log.info("Result of tool {} ({} characters) stored as {} in {} pages", tool, result.length(), id, pages);
+        if (total > maxBytes) {
+            evictOldest(id);
+        }
+        return new McpSchema.CallToolResult(summary(tool, id, result, pages), false);
+    }
+
+    /**
+     * Reads one page of a stored result and extends the result's time to live.
+     *
+     * @param id the result id
+     * @param page the page number, from 0
+     * @return the page text
+     * @throws CapabilityException if the result has expired or the page does not exist
+     */
+    public String read(String id, int page) throws CapabilityException {
+        StoredResult stored = results.get(id);
+        if (stored == null) {
+            throw new CapabilityException("Result " + id + " has expired or does not exist");
+        }
+        int pages = stored.offsets.length - 1;
+        if (page < 0 || page >= pages) {
+            throw new CapabilityException("Result " + id + " has pages 0 to " + (pages - 1) + ", not " + page);
+        }
+        stored.expiresAt = System.nanoTime() + ttlNanos;
+        long start = stored.offsets[page];
+        ByteBuffer bytes = ByteBuffer.allocate((int) (stored.offsets[page + 1] - start));
+        try (FileChannel channel = FileChannel.open(stored.file, StandardOpenOption.READ)) {
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, start + bytes.position()) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new CapabilityException("Failed to read result " + id + ": " + e.getMessage(), e);
+        }
+        bytes.flip();
+        return StandardCharsets.UTF_8.decode(bytes).toString();
+    }
+
+    /**
+     * Gets the resource template serving the pages of stored results.
+     *
+     * @return the template, to register with the server
+     */
+    public ResourceTemplate<Page> template() {
+        return ResourceTemplate.<Page>builder()
+                .uriTemplate(URI_TEMPLATE)
+                .name("Stored tool results")
+                .description("Pages of tool results too large to return inline")
+                .mimeType("text/plain")
+                .variablesType(Page.class)
+                .reader(page -> read(page.id(), page.page()))
+                .build();
+    }
+
+    /**
+     * Gets the number of stored results.
+     *
+     * @return the result count
+     */
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * Gets the total size of the stored results on disk.
+     *
+     * @return the size in bytes
+     */
+    public long getStoredBytes() {
+        return storedBytes.get();
+    }
+
+    /**
+     * Deletes every stored result and stops the cleaner. The directory is deleted too if the store created it.
+     */
+    @Override
+    public void close() {
+        cleaner.shutdownNow();
+        for (String id : List.copyOf(results.keySet())) {
+            delete(id);
+        }
+        if (!ownDirectory) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            log.debug("Result directory {} not deleted: {}", directory, e.getMessage());
+        }
+    }
+
+    private String summary(String tool, String id, String result, int pages) {
+        String base = "umcp://results/" + id + "/pages/";
+        return "The result of " + tool + " is too large to return inline (" + result.length() + " characters). "
+                + "It is stored in " + pages + " pages of up to " + pageSize + " characters: read them with resources/read "
+                + "from " + base + "0 to " + base + (pages - 1) + ". "
+                + "The pages are kept for " + TimeUnit.NANOSECONDS.toSeconds(ttlNanos) + " seconds after the last read.\n\n"
+                + "Preview:\n" + result.substring(0, previewEnd(result));
+    }
+
+    private int previewEnd(String result) {
+        int end = Math.min(previewLength, result.length());
+        return end > 0 && Character.isHighSurrogate(result.charAt(end - 1)) ? end - 1 : end;
+    }
+
+    /**
+     * Deletes expired results.
+     */
+    void expire() {
+        long now = System.nanoTime();
+        for (Map.Entry<String, StoredResult> entry : results.entrySet()) {
+            if (now - entry.getValue().expiresAt > 0) {
+                log.debug("Stored result {} expired", entry.getKey());
+                delete(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Deletes the results closest to expiring until the stored size fits, keeping the one just stored.
+     *
+     * @param keep the id of the result just stored
+     */
+    private void evictOldest(String keep) {
+        List<Map.Entry<String, StoredResult>> entries = new ArrayList<>(results.entrySet());
+        entries.sort(Comparator.comparingLong(entry -> entry.getValue().expiresAt));
+        for (Map.Entry<String, StoredResult> entry : entries) {
+            if (storedBytes.get() <= maxBytes) {
+                return;
+            }
+            if (!entry.getKey().equals(keep)) {
+                log.info("Stored result {} deleted to make room", entry.getKey());
+                delete(entry.getKey());
+            }
+        }
+    }
+
+    private void delete(String id) {
+        StoredResult stored = results.remove(id);
+        if (stored == null) {
+            return;
+        }
+        storedBytes.addAndGet(-stored.offsets[stored.offsets.length - 1]);
+        try {
+            Files.deleteIfExists(stored.file);
+        } catch (IOException e) {
+            // The result is gone from the store either way; keep expiring and evicting the others
+            log.warn("Could not delete stored result file {}: {}", stored.file, e.getMessage());
+        }
+    }
+
+    private static final class StoredResult {
+        final Path file;
+        final long[] offsets;
+        volatile long expiresAt;
+
+        StoredResult(Path file, long[] offsets, long expiresAt) {
+            this.file = file;
+            this.offsets = offsets;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
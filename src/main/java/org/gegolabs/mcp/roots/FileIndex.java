@@ -0,0 +1,363 @@
+package org.gegolabs.mcp.roots;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory index of the files under a root directory, kept current by a {@link WatchService}.
+ * <p>
+ * Entries are stored in a sorted map keyed by the path relative to the root, with {@code /} as
+ * separator, so prefix queries are a range scan and glob queries only test the files under the
+ * glob's literal prefix. The initial scan and the watcher run on a daemon thread; queries never
+ * block and see the index as it is being built until {@link #ready()} completes.
+ */
+@Slf4j
+public class FileIndex implements Closeable {
+
+    /**
+     * Default maximum number of files indexed per root.
+     */
+    public static final int DEFAULT_MAX_FILES = 200_000;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final Path root;
+    private final boolean hashContents;
+    private final int maxFiles;
+    private final Set<String> excludedDirectories;
+    private final ConcurrentSkipListMap<String, FileEntry> entries = new ConcurrentSkipListMap<>();
+    private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+    private WatchService watchService;
+    private Thread thread;
+    private volatile boolean closed;
+    private volatile boolean truncated;
+
+    /**
+     * Creates a new index. Call {@link #start()} to build it.
+     *
+     * @param root the root directory
+     * @param hashContents whether to compute a SHA-256 hash of each file's content
+     * @param maxFiles maximum number of files to index, zero for the default
+     * @param excludedDirectories names of directories to skip at any depth, e.g. {@code .git}
+     */
+    @Builder
+    public FileIndex(Path root, boolean hashContents, int maxFiles, @Singular Set<String> excludedDirectories) {
+        this.root = root.toAbsolutePath().normalize();
+        this.hashContents = hashContents;
+        this.maxFiles = maxFiles > 0 ? maxFiles : DEFAULT_MAX_FILES;
+        this.excludedDirectories = Set.copyOf(excludedDirectories);
+    }
+
+    /**
+     * Starts the initial scan and the watcher in the background.
+     *
+     * @throws IOException if the watcher cannot be created
+     */
+    public synchronized void start() throws IOException {
+        if (thread != null) {
+            return;
+        }
+        watchService = root.getFileSystem().newWatchService();
+        thread = new Thread(this::run, "umcp-file-index-" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        try {
+            scan(root, entries);
+            log.info("Indexed {} files under {}{}", entries.size(), root, truncated ? " (truncated)" : "");
+            ready.complete(null);
+            watch();
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Closed
+        } catch (Exception e) {
+            log.error("File index for {} failed", root, e);
+            ready.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Gets a future completing when the initial scan is done.
+     *
+     * @return the future
+     */
+    public CompletableFuture<Void> ready() {
+        return ready;
+    }
+
+    /**
+     * Gets the root directory.
+     *
+     * @return the absolute root path
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Gets the number of indexed files.
+     *
+     * @return the file count
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Checks whether files were left out, because the index reached its maximum size, a directory
+     * could not be watched or a change could not be applied. A rescan after lost watch events
+     * starts over.
+     *
+     * @return true if the index is incomplete
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Gets a file by path.
+     *
+     * @param relativePath path relative to the root, with {@code /} as separator
+     * @return the entry, if indexed
+     */
+    public Optional<FileEntry> get(String relativePath) {
+        return Optional.ofNullable(entries.get(relativePath));
+    }
+
+    /**
+     * Finds the files whose relative path starts with a prefix.
+     *
+     * @param prefix the prefix, e.g. {@code src/main/}
+     * @return the matching entries in path order
+     */
+    public List<FileEntry> findByPrefix(String prefix) {
+        return new ArrayList<>(prefixRange(prefix).values());
+    }
+
+    /**
+     * Finds the files whose relative path matches a glob, e.g. {@code src/**}{@code /*.java}.
+     *
+     * @param glob the glob, in {@link java.nio.file.FileSystem#getPathMatcher(String)} syntax
+     * @return the matching entries in path order
+     */
+    public List<FileEntry> findByGlob(String glob) {
+        PathMatcher matcher = root.getFileSystem().getPathMatcher("glob:" + glob);
+        List<FileEntry> matches = new ArrayList<>();
+        for (FileEntry entry : prefixRange(literalPrefix(glob)).values()) {
+            if (matcher.matches(Path.of(entry.path()))) {
+                matches.add(entry);
+            }
+        }
+        return matches;
+    }
+
+    private Map<String, FileEntry> prefixRange(String prefix) {
+        if (prefix.isEmpty()) {
+            return entries;
+        }
+        return entries.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static String literalPrefix(String glob) {
+        for (int i = 0; i < glob.length(); i++) {
+            if ("*?[{\\".indexOf(glob.charAt(i)) >= 0) {
+                return glob.substring(0, i);
+            }
+        }
+        return glob;
+    }
+
+    /**
+     * Walks a directory, registering it and its subdirectories with the watcher and indexing their files.
+     */
+    private void scan(Path directory, ConcurrentSkipListMap<String, FileEntry> target) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+                if (closed) {
+                    return FileVisitResult.TERMINATE;
+                }
+                if (!dir.equals(root) && excludedDirectories.contains(dir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                try {
+                    watchedDirectories.put(dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY), dir);
+                } catch (IOException e) {
+                    // Out of watches, or deleted during the walk: an unwatched directory would go stale
+                    log.warn("Cannot watch {}, leaving it out of the index: {}", dir, e.toString());
+                    truncated = true;
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile()) {
+                    index(file, attributes, target);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                log.debug("Cannot index {}: {}", file, e.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void index(Path file, BasicFileAttributes attributes, ConcurrentSkipListMap<String, FileEntry> target) {
+        String key = relativize(file);
+        if (!target.containsKey(key) && target.size() >= maxFiles) {
+            truncated = true;
+            return;
+        }
+        target.put(key, new FileEntry(key, attributes.size(), attributes.lastModifiedTime().toMillis(),
+                hashContents ? hash(file) : null));
+    }
+
+    private void watch() throws InterruptedException {
+        while (!closed) {
+            WatchKey key = watchService.take();
+            Path directory = watchedDirectories.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                try {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        log.debug("Watch events lost under {}, rescanning", root);
+                        rescan();
+                    } else if (directory != null) {
+                        update(directory.resolve((Path) event.context()), event.kind());
+                    }
+                } catch (IOException | RuntimeException e) {
+                    if (closed) {
+                        return;
+                    }
+                    // Keep watching: only what this event changed may be missing
+                    log.warn("Cannot apply a change under {}: {}", root, e.toString());
+                    truncated = true;
+                }
+            }
+            if (!key.reset()) {
+                watchedDirectories.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the index after watch events were lost. The files are scanned into a new map that is
+     * then reconciled with the current one, so queries never see an empty or partial index.
+     */
+    private void rescan() throws IOException {
+        ConcurrentSkipListMap<String, FileEntry> scanned = new ConcurrentSkipListMap<>();
+        truncated = false;
+        scan(root, scanned);
+        entries.keySet().retainAll(scanned.keySet());
+        entries.putAll(scanned);
+    }
+
+    private void update(Path path, WatchEvent.Kind<?> kind) throws IOException {
+        if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+            String key = relativize(path);
+            entries.remove(key);
+            prefixRange(key + "/").clear();
+            return;
+        }
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            // Gone again before we looked at it
+            return;
+        }
+        if (attributes.isDirectory()) {
+            if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+                scan(path, entries);
+            }
+        } else if (attributes.isRegularFile()) {
+            index(path, attributes, entries);
+        }
+    }
+
+    private String relativize(Path path) {
+        String relative = root.relativize(path).toString();
+        return path.getFileSystem().getSeparator().equals("/") ? relative : relative.replace(path.getFileSystem().getSeparator(), "/");
+    }
+
+    private static String hash(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            return null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Stops the watcher and releases the index.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("Error closing watcher for {}: {}", root, e.getMessage());
+            }
+        }
+        ready.cancel(false);
+        entries.clear();
+    }
+
+    /**
+     * An indexed file.
+     *
+     * @param path path relative to the root, with {@code /} as separator
+     * @param size size in bytes
+     * @param lastModified last modification time in epoch milliseconds
+     * @param hash hex SHA-256 of the content, or null if hashing is disabled
+     */
+    public record FileEntry(String path, long size, long lastModified, String hash) {
+    }
+}
@@ -0,0 +1,210 @@
+package org.gegolabs.mcp.roots;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.extern.slf4j.Slf4j;
+import org.gegolabs.mcp.protocol.CallContext;
+import org.gegolabs.mcp.transport.SessionListener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tracks the filesystem roots of each client session and keeps a {@link FileIndex} per root.
+ * <p>
+ * Roots are fetched with {@code roots/list} once the client is initialized, if it declared the
+ * roots capability, and again on every {@code notifications/roots/list_changed}. Sessions sharing
+ * a root share its index, which is closed when the last of them closes or drops the root.
+ * Capabilities find the indexes of the session that called them with {@link #getIndexes()}.
+ */
+@Slf4j
+public class RootsManager implements SessionListener, Closeable {
+
+    private static final TypeReference<McpSchema.ListRootsResult> LIST_ROOTS_RESULT = new TypeReference<>() {
+    };
+
+    private final boolean hashContents;
+    private final int maxFiles;
+    private final Set<String> excludedDirectories;
+    private final Map<String, SessionRoots> sessionRoots = new HashMap<>();
+    private final Map<Path, SharedIndex> indexes = new HashMap<>();
+
+    /**
+     * Creates a new roots manager.
+     *
+     * @param hashContents whether indexes compute a content hash for each file
+     * @param maxFiles maximum number of files per root, zero for the default
+     * @param excludedDirectories names of directories never indexed, e.g. {@code .git}
+     */
+    @Builder
+    public RootsManager(boolean hashContents, int maxFiles, @Singular Set<String> excludedDirectories) {
+        this.hashContents = hashContents;
+        this.maxFiles = maxFiles;
+        this.excludedDirectories = Set.copyOf(excludedDirectories);
+    }
+
+    @Override
+    public void onInitialized(McpServerSession session, Map<?, ?> clientCapabilities) {
+        if (clientCapabilities.containsKey("roots")) {
+            refresh(session);
+        }
+    }
+
+    @Override
+    public void onNotification(McpServerSession session, String method, Object params) {
+        if (McpSchema.METHOD_NOTIFICATION_ROOTS_LIST_CHANGED.equals(method)) {
+            refresh(session);
+        }
+    }
+
+    @Override
+    public void onClosed(McpServerSession session) {
+        setRoots(session.getId(), List.of());
+    }
+
+    private void refresh(McpServerSession session) {
+        session.sendRequest(McpSchema.METHOD_ROOTS_LIST, null, LIST_ROOTS_RESULT)
+                .subscribe(result -> setRoots(session.getId(), result.roots()),
+                        e -> log.warn("Could not list roots of session {}: {}", session.getId(), e.getMessage()));
+    }
+
+    /**
+     * Replaces the roots of a session, opening indexes for new roots and releasing dropped ones.
+     * Roots that are not local directories ({@code file:} URIs) are tracked but not indexed.
+     *
+     * @param sessionId the session id
+     * @param roots the session's current roots
+     */
+    public synchronized void setRoots(String sessionId, List<McpSchema.Root> roots) {
+        List<Path> paths = new ArrayList<>();
+        for (McpSchema.Root root : roots) {
+            Path path = toPath(root);
+            if (path != null && acquire(path)) {
+                paths.add(path);
+            }
+        }
+        SessionRoots previous = roots.isEmpty()
+                ? sessionRoots.remove(sessionId)
+                : sessionRoots.put(sessionId, new SessionRoots(List.copyOf(roots), List.copyOf(paths)));
+        if (previous != null) {
+            previous.paths().forEach(this::release);
+        }
+        log.info("Session {} has {} roots, {} indexed", sessionId, roots.size(), paths.size());
+    }
+
+    /**
+     * Gets the roots of a session.
+     *
+     * @param sessionId the session id
+     * @return the roots, empty if unknown
+     */
+    public synchronized List<McpSchema.Root> getRoots(String sessionId) {
+        SessionRoots roots = sessionRoots.get(sessionId);
+        return roots != null ? roots.roots() : List.of();
+    }
+
+    /**
+     * Gets the file indexes of a session's roots.
+     *
+     * @param sessionId the session id
+     * @return one index per local root
+     */
+    public synchronized List<FileIndex> getIndexes(String sessionId) {
+        SessionRoots roots = sessionRoots.get(sessionId);
+        if (roots == null) {
+            return List.of();
+        }
+        List<FileIndex> result = new ArrayList<>(roots.paths().size());
+        for (Path path : roots.paths()) {
+            result.add(indexes.get(path).index);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the file indexes of the session making the current tool call.
+     *
+     * @return one index per local root, empty outside of a tool call
+     */
+    public List<FileIndex> getIndexes() {
+        CallContext context = CallContext.current();
+        return context != null && context.getSessionId() != null ? getIndexes(context.getSessionId()) : List.of();
+    }
+
+    private boolean acquire(Path path) {
+        SharedIndex shared = indexes.get(path);
+        if (shared == null) {
+            FileIndex index = FileIndex.builder()
+                    .root(path)
+                    .hashContents(hashContents)
+                    .maxFiles(maxFiles)
+                    .excludedDirectories(excludedDirectories)
+                    .build();
+            try {
+                index.start();
+            } catch (IOException e) {
+                log.warn("Cannot watch root {}: {}", path, e.getMessage());
+                return false;
+            }
+            shared = new SharedIndex(index);
+            indexes.put(path, shared);
+        }
+        shared.references++;
+        return true;
+    }
+
+    private void release(Path path) {
+        SharedIndex shared = indexes.get(path);
+        if (shared != null && --shared.references == 0) {
+            indexes.remove(path);
+            shared.index.close();
+        }
+    }
+
+    private static Path toPath(McpSchema.Root root) {
+        try {
+            URI uri = URI.create(root.uri());
+            if (!"file".equals(uri.getScheme())) {
+                return null;
+            }
+            Path path = Path.of(uri).toAbsolutePath().normalize();
+            return Files.isDirectory(path) ? path : null;
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring root {}: {}", root.uri(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Closes every index.
+     */
+    @Override
+    public synchronized void close() {
+        indexes.values().forEach(shared -> shared.index.close());
+        indexes.clear();
+        sessionRoots.clear();
+    }
+
+    private record SessionRoots(List<McpSchema.Root> roots, List<Path> paths) {
+    }
+
+    private static final class SharedIndex {
+        final FileIndex index;
+        int references;
+
+        SharedIndex(FileIndex index) {
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package org.gegolabs.mcp.router;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.gegolabs.mcp.protocol.CapabilityException;
+import org.gegolabs.mcp.transport.HttpServerTransportProvider;
+import org.gegolabs.mcp.transport.InterceptingTransportProvider;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A uMCP server behind the {@link Router}, reached over the Streamable HTTP transport.
+ * <p>
+ * The router opens one MCP session on the backend per client session of the router, and sends the
+ * calls of each client on its own session, as JSON requests answered with JSON. The backend thus
+ * schedules, limits and windows every client on its own, as if the client were connected to it.
+ * Health checks, tool listings and calls made outside of a client session share one more session.
+ * A session is opened on first use, opened again when the backend no longer knows it, for
+ * instance after a restart, and ended when the client session it belongs to is closed.
+ * <p>
+ * A backend is healthy while it answers pings. It is marked down after {@code unhealthyThreshold}
+ * failed checks in a row, or at once when a call cannot reach it, and up again after one
+ * successful check.
+ */
+@Slf4j
+public class Backend {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String PROTOCOL_VERSION = "2024-11-05";
+    private static final String SHARED_SESSION = "";
+
+    /**
+     * MCP endpoint of the backend.
+     */
+    @Getter
+    private final URI endpoint;
+
+    private final HttpClient client;
+    private final Duration requestTimeout;
+    private final int unhealthyThreshold;
+    private final AtomicLong ids = new AtomicLong();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    private volatile boolean healthy;
+    private int failedChecks;
+
+    /**
+     * Creates a backend, initially down until it is checked.
+     *
+     * @param endpoint the MCP endpoint of the backend
+     * @param client the HTTP client shared by the router
+     * @param requestTimeout the longest a forwarded call may take
+     * @param unhealthyThreshold failed checks in a row after which the backend is down
+     */
+    Backend(URI endpoint, HttpClient client, Duration requestTimeout, int unhealthyThreshold) {
+        this.endpoint = endpoint;
+        this.client = client;
+        this.requestTimeout = requestTimeout;
+        this.unhealthyThreshold = unhealthyThreshold;
+    }
+
+    /**
+     * Tells whether the backend takes calls.
+     *
+     * @return true if the last checks succeeded
+     */
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    /**
+     * Pings the backend and updates its health.
+     *
+     * @param timeout the longest to wait for the answer
+     * @return a future completed once the check is done, never failed
+     */
+    CompletableFuture<Void> check(Duration timeout) {
+        return request(null, McpSchema.METHOD_PING, null, timeout)
+                .handle((result, error) -> {
+                    if (error == null) {
+                        markUp();
+                    } else {
+                        markFailed(unwrap(error));
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * Marks the backend down at once, after a call could not reach it.
+     *
+     * @param cause why the backend is unreachable
+     */
+    synchronized void markDown(Throwable cause) {
+        failedChecks = unhealthyThreshold;
+        if (healthy) {
+            healthy = false;
+            log.warn("Backend {} is down: {}", endpoint, cause.getMessage());
+        }
+    }
+
+    private synchronized void markUp() {
+        failedChecks = 0;
+        if (!healthy) {
+            healthy = true;
+            log.info("Backend {} is up", endpoint);
+        }
+    }
+
+    private synchronized void markFailed(Throwable cause) {
+        failedChecks++;
+        if (healthy && failedChecks >= unhealthyThreshold) {
+            healthy = false;
+            log.warn("Backend {} is down after {} failed checks: {}", endpoint, failedChecks, cause.getMessage());
+        }
+    }
+
+    /**
+     * Lists the tools of the backend, following every page.
+     *
+     * @return the tools
+     */
+    CompletableFuture<List<McpSchema.Tool>> listTools() {
+        return listTools(null, new ArrayList<>());
+    }
+
+    private CompletableFuture<List<McpSchema.Tool>> listTools(String cursor, List<McpSchema.Tool> tools) {
+        Map<String, Object> params = cursor != null ? Map.of("cursor", cursor) : null;
+        return request(null, McpSchema.METHOD_TOOLS_LIST, params, requestTimeout).thenCompose(result -> {
+            McpSchema.ListToolsResult page = OBJECT_MAPPER.convertValue(result, McpSchema.ListToolsResult.class);
+            tools.addAll(page.tools());
+            return page.nextCursor() != null
+                    ? listTools(page.nextCursor(), tools)
+                    : CompletableFuture.completedFuture(tools);
+        });
+    }
+
+    /**
+     * Calls a tool on the backend. Cancelling the returned future cancels the call on the backend.
+     *
+     * @param clientSession the id of the router's client session making the call, or null for
+     *                      the shared session
+     * @param name the tool name
+     * @param arguments the tool arguments
+     * @return the tool result; failed with a {@link BackendUnavailableException} if the call did
+     *         not reach the backend
+     */
+    CompletableFuture<McpSchema.CallToolResult> callTool(String clientSession, String name, Map<String, Object> arguments) {
+        calls.increment();
+        long id = ids.incrementAndGet();
+        Session session = session(clientSession);
+        CompletableFuture<JsonNode> response = request(session, id, McpSchema.METHOD_TOOLS_CALL,
+                Map.of("name", name, "arguments", arguments != null ? arguments : Map.of()), requestTimeout);
+        CompletableFuture<McpSchema.CallToolResult> result =
+                response.thenApply(node -> OBJECT_MAPPER.convertValue(node, McpSchema.CallToolResult.class));
+        result.whenComplete((value, error) -> {
+            if (error instanceof CancellationException) {
+                response.cancel(true);
+                notify(session, InterceptingTransportProvider.METHOD_NOTIFICATION_CANCELLED, Map.of("requestId", id, "reason", "Cancelled by the client"));
+            } else if (error != null) {
+                failures.increment();
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<JsonNode> request(String clientSession, String method, Object params, Duration timeout) {
+        return request(session(clientSession), ids.incrementAndGet(), method, params, timeout);
+    }
+
+    private CompletableFuture<JsonNode> request(Session session, long id, String method, Object params, Duration timeout) {
+        ObjectNode message = OBJECT_MAPPER.createObjectNode().put("jsonrpc", McpSchema.JSONRPC_VERSION).put("id", id).put("method", method);
+        if (params != null) {
+            message.set("params", OBJECT_MAPPER.valueToTree(params));
+        }
+        return send(session, message, timeout, true);
+    }
+
+    private CompletableFuture<JsonNode> send(Session session, ObjectNode message, Duration timeout, boolean reconnect) {
+        return session.open().thenCompose(current -> client.sendAsync(post(message, current, timeout), HttpResponse.BodyHandlers.ofString())
+                .exceptionallyCompose(Backend::unreachable)
+                .thenCompose(response -> {
+                    if (response.statusCode() == 404 && reconnect) {
+                        // The backend restarted or evicted the session: open a new one and resend
+                        session.reset(current);
+                        return send(session, message, timeout, false);
+                    }
+                    return CompletableFuture.completedFuture(result(response));
+                }));
+    }
+
+    private void notify(Session session, String method, Object params) {
+        String current = session.id;
+        if (current == null) {
+            return;
+        }
+        ObjectNode message = OBJECT_MAPPER.createObjectNode().put("jsonrpc", McpSchema.JSONRPC_VERSION).put("method", method);
+        if (params != null) {
+            message.set("params", OBJECT_MAPPER.valueToTree(params));
+        }
+        client.sendAsync(post(message, current, requestTimeout), HttpResponse.BodyHandlers.discarding())
+                .exceptionally(e -> {
+                    log.debug("Could not send {} to backend {}: {}", method, endpoint, e.getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * Gets the backend session of a client session of the router, creating it unopened if needed.
+     */
+    private Session session(String clientSession) {
+        return sessions.computeIfAbsent(clientSession != null ? clientSession : SHARED_SESSION, key -> new Session());
+    }
+
+    /**
+     * Ends the backend session of a client session of the router, if it has one.
+     *
+     * @param clientSession the id of the closed client session
+     */
+    void closeSession(String clientSession) {
+        Session session = sessions.remove(clientSession);
+        if (session != null) {
+            session.close();
+        }
+    }
+
+    /**
+     * A session on the backend. Concurrent callers share one initialization.
+     */
+    private final class Session {
+        private volatile String id;
+        private CompletableFuture<String> connecting;
+        private boolean closed;
+
+        synchronized CompletableFuture<String> open() {
+            String current = id;
+            if (current != null) {
+                return CompletableFuture.completedFuture(current);
+            }
+            if (closed) {
+                return CompletableFuture.failedFuture(new CancellationException("The client session is closed"));
+            }
+            if (connecting == null || connecting.isCompletedExceptionally()) {
+                connecting = connect().thenApply(this::opened);
+            }
+            return connecting;
+        }
+
+        private String opened(String opened) {
+            synchronized (this) {
+                if (!closed) {
+                    id = opened;
+                    return opened;
+                }
+            }
+            // The client session closed while this one was opening
+            delete(opened);
+            throw new CancellationException("The client session is closed");
+        }
+
+        synchronized void reset(String expired) {
+            if (expired.equals(id)) {
+                id = null;
+                connecting = null;
+            }
+        }
+
+        void close() {
+            String current;
+            synchronized (this) {
+                closed = true;
+                current = id;
+                id = null;
+            }
+            if (current != null) {
+                delete(current);
+            }
+        }
+    }
+
+    private CompletableFuture<String> connect() {
+        ObjectNode params = OBJECT_MAPPER.createObjectNode().put("protocolVersion", PROTOCOL_VERSION);
+        params.putObject("capabilities");
+        params.putObject("clientInfo").put("name", "umcp-router").put("version", "1.0");
+        ObjectNode initialize = OBJECT_MAPPER.createObjectNode().put("jsonrpc", McpSchema.JSONRPC_VERSION)
+                .put("id", ids.incrementAndGet()).put("method", McpSchema.METHOD_INITIALIZE);
+        initialize.set("params", params);
+        ObjectNode initialized = OBJECT_MAPPER.createObjectNode().put("jsonrpc", McpSchema.JSONRPC_VERSION)
+                .put("method", McpSchema.METHOD_NOTIFICATION_INITIALIZED);
+        return client.sendAsync(post(initialize, null, requestTimeout), HttpResponse.BodyHandlers.ofString())
+                .exceptionallyCompose(Backend::unreachable)
+                .thenCompose(response -> {
+                    result(response);
+                    String id = response.headers().firstValue(HttpServerTransportProvider.SESSION_HEADER)
+                            .orElseThrow(() -> new CompletionException(new IOException("Backend " + endpoint + " opened no session")));
+                    return client.sendAsync(post(initialized, id, requestTimeout), HttpResponse.BodyHandlers.discarding())
+                            .thenApply(ignored -> {
+                                log.info("Opened session {} on backend {}", id, endpoint);
+                                return id;
+                            });
+                });
+    }
+
+    private HttpRequest post(ObjectNode message, String session, Duration timeout) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(endpoint)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(message.toString()));
+        if (session != null) {
+            request.header(HttpServerTransportProvider.SESSION_HEADER, session);
+        }
+        return request.build();
+    }
+
+    /**
+     * Reads the result of a JSON response.
+     *
+     * @throws CompletionException wrapping a {@link BackendUnavailableException} if the backend
+     *                             turned the request away, or a {@link CapabilityException} for a
+     *                             JSON-RPC error
+     */
+    private JsonNode result(HttpResponse<String> response) {
+        if (response.statusCode() == 503) {
+            throw new CompletionException(new BackendUnavailableException("Backend " + endpoint + " is not taking requests"));
+        }
+        if (response.statusCode() != 200) {
+            throw new CompletionException(new IOException("Backend " + endpoint + " answered HTTP " + response.statusCode()));
+        }
+        JsonNode message;
+        try {
+            message = OBJECT_MAPPER.readTree(response.body());
+        } catch (IOException e) {
+            throw new CompletionException(new IOException("Unreadable response from backend " + endpoint, e));
+        }
+        JsonNode error = message.get("error");
+        if (error != null) {
+            throw new CompletionException(new CapabilityException(error.has("message") ? error.get("message").asText() : "Backend error"));
+        }
+        return message.get("result");
+    }
+
+    private static <T> CompletableFuture<T> unreachable(Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof ConnectException) {
+            // Nothing reached the backend, so the request can safely go elsewhere
+            return CompletableFuture.failedFuture(new BackendUnavailableException(cause.getMessage(), cause));
+        }
+        return CompletableFuture.failedFuture(cause);
+    }
+
+    static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private void delete(String session) {
+        client.sendAsync(HttpRequest.newBuilder(endpoint).timeout(requestTimeout)
+                        .header(HttpServerTransportProvider.SESSION_HEADER, session).DELETE().build(),
+                HttpResponse.BodyHandlers.discarding())
+                .exceptionally(e -> null);
+    }
+
+    /**
+     * Ends every backend session.
+     */
+    void close() {
+        for (String clientSession : sessions.keySet()) {
+            closeSession(clientSession);
+        }
+    }
+
+    /**
+     * Gets a snapshot of the backend's state.
+     *
+     * @return the snapshot
+     */
+    public BackendStats getStats() {
+        int open = (int) sessions.values().stream().filter(session -> session.id != null).count();
+        return new BackendStats(endpoint, healthy, calls.sum(), failures.sum(), open);
+    }
+
+    /**
+     * State of a backend.
+     *
+     * @param endpoint the MCP endpoint
+     * @param healthy whether the backend takes calls
+     * @param calls tool calls forwarded to the backend
+     * @param failures forwarded calls that failed to complete, not counting tool errors
+     * @param sessions sessions open on the backend, one per client session of the router plus
+     *                 the shared one
+     */
+    public record BackendStats(URI endpoint, boolean healthy, long calls, long failures, int sessions) {
+    }
+}
@@ -0,0 +1,29 @@
+package org.gegolabs.mcp.router;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a request did not reach a backend, because the backend could not be connected to
+ * or turned the request away. The request was not executed and can be sent to another backend.
+ */
+public class BackendUnavailableException extends IOException {
+
+    /**
+     * Creates the exception.
+     *
+     * @param message the detail message
+     */
+    public BackendUnavailableException(String message) {
+        super(message);
+    }
+
+    /**
+     * Creates the exception.
+     *
+     * @param message the detail message
+     * @param cause the underlying failure
+     */
+    public BackendUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
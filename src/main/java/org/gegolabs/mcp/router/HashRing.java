@@ -0,0 +1,162 @@
+package org.gegolabs.mcp.router;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Consistent hash ring mapping keys to nodes.
+ * <p>
+ * Each node is placed on the ring at {@code virtualNodes} points, hashed from its id, and a key
+ * belongs to the first node found clockwise from the key's hash. When a node joins, it only takes
+ * the keys between its points and their predecessors; when it leaves, only its own keys move, to
+ * the nodes that follow it. Lookups can skip nodes, such as unhealthy ones, in which case their
+ * keys go to the next eligible node and come back once the node is eligible again.
+ * <p>
+ * Lookups read an immutable snapshot of the ring; joins and leaves copy it under a lock.
+ *
+ * @param <N> Node type
+ */
+public class HashRing<N> {
+
+    private final int virtualNodes;
+    private final Function<N, String> ids;
+    private final Set<N> nodes = new LinkedHashSet<>();
+    private volatile Snapshot<N> ring = new Snapshot<>(Collections.emptyNavigableMap(), 0);
+
+    /**
+     * Creates an empty ring.
+     *
+     * @param virtualNodes points per node on the ring; more points spread keys more evenly
+     * @param ids gives the stable id a node is hashed from
+     */
+    public HashRing(int virtualNodes, Function<N, String> ids) {
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("A node needs at least one point on the ring");
+        }
+        this.virtualNodes = virtualNodes;
+        this.ids = ids;
+    }
+
+    /**
+     * Adds a node to the ring.
+     *
+     * @param node the node
+     * @return true if the node was not on the ring yet
+     */
+    public synchronized boolean add(N node) {
+        if (!nodes.add(node)) {
+            return false;
+        }
+        NavigableMap<Long, N> updated = new TreeMap<>(ring.points());
+        String id = ids.apply(node);
+        for (int i = 0; i < virtualNodes; i++) {
+            // On the rare hash collision the earlier point keeps its node, so lookups stay stable
+            updated.putIfAbsent(hash(id + "#" + i), node);
+        }
+        ring = new Snapshot<>(updated, nodes.size());
+        return true;
+    }
+
+    /**
+     * Removes a node from the ring.
+     *
+     * @param node the node
+     * @return true if the node was on the ring
+     */
+    public synchronized boolean remove(N node) {
+        if (!nodes.remove(node)) {
+            return false;
+        }
+        NavigableMap<Long, N> updated = new TreeMap<>(ring.points());
+        updated.values().removeIf(node::equals);
+        ring = new Snapshot<>(updated, nodes.size());
+        return true;
+    }
+
+    /**
+     * Gets the nodes on the ring.
+     *
+     * @return the nodes, in the order they joined
+     */
+    public synchronized List<N> getNodes() {
+        return List.copyOf(nodes);
+    }
+
+    /**
+     * Finds the node a key belongs to.
+     *
+     * @param key the key
+     * @return the node, or null if the ring is empty
+     */
+    public N get(String key) {
+        return get(key, node -> true);
+    }
+
+    /**
+     * Finds the first eligible node clockwise from a key.
+     *
+     * @param key the key
+     * @param eligible tells whether a node can take the key
+     * @return the node, or null if no node is eligible
+     */
+    public N get(String key, Predicate<N> eligible) {
+        Snapshot<N> snapshot = ring;
+        long hash = hash(key);
+        Set<N> rejected = new HashSet<>();
+        for (Map<Long, N> part : List.of(snapshot.points().tailMap(hash, true), snapshot.points().headMap(hash, false))) {
+            for (N node : part.values()) {
+                if (rejected.contains(node)) {
+                    continue;
+                }
+                if (eligible.test(node)) {
+                    return node;
+                }
+                rejected.add(node);
+                if (rejected.size() == snapshot.nodes()) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hashes a string to a point on the ring, from the first 8 bytes of its MD5 digest.
+     *
+     * @param value the string
+     * @return the point
+     */
+    static long hash(String value) {
+        byte[] digest = md5().digest(value.getBytes(StandardCharsets.UTF_8));
+        long hash = 0;
+        for (int i = 0; i < 8; i++) {
+            hash = (hash << 8) | (digest[i] & 0xFF);
+        }
+        return hash;
+    }
+
+    /**
+     * The points of the ring and the number of nodes they belong to.
+     */
+    private record Snapshot<N>(NavigableMap<Long, N> points, int nodes) {
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.gegolabs.mcp.router;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.gegolabs.mcp.protocol.AsyncCapability;
+import org.gegolabs.mcp.protocol.CallContext;
+import org.gegolabs.mcp.tools.DeclaredCapability;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A tool of the backends, exposed by the router under the same name, description and schema.
+ * Each call is forwarded to the backend its routing key belongs to, on the backend session of the
+ * calling client session.
+ */
+final class RemoteTool implements AsyncCapability<Map<String, Object>, String>, DeclaredCapability<Map<String, Object>, String> {
+
+    private final McpSchema.Tool tool;
+    private final Router router;
+
+    RemoteTool(McpSchema.Tool tool, Router router) {
+        this.tool = tool;
+        this.router = router;
+    }
+
+    @Override
+    public String getName() {
+        return tool.name();
+    }
+
+    @Override
+    public String getDescription() {
+        return tool.description();
+    }
+
+    @Override
+    public McpSchema.JsonSchema getInputSchema() {
+        return tool.inputSchema();
+    }
+
+    @Override
+    public CompletableFuture<String> executeAsync(Map<String, Object> input) {
+        CallContext context = CallContext.current();
+        return router.route(tool.name(), input, context != null ? context.getSessionId() : null);
+    }
+}
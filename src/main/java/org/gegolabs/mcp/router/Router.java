@@ -0,0 +1,342 @@
+package org.gegolabs.mcp.router;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+import lombok.extern.slf4j.Slf4j;
+import org.gegolabs.mcp.MCPServer;
+import org.gegolabs.mcp.protocol.CapabilityException;
+import org.gegolabs.mcp.transport.SessionListener;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Front router spreading tool calls over a pool of uMCP servers.
+ * <p>
+ * The router is itself an MCP server: it accepts client sessions on the transport of the
+ * {@link MCPServer} it is built with, and exposes the tools of its backends. Each tool call goes
+ * to one backend, chosen by consistent hashing of the tool name and a routing key, so the calls
+ * for a key keep landing on the same backend and its caches stay warm. The routing key is the
+ * argument declared for the tool with {@code keyArgument}, or all of the arguments otherwise.
+ * <p>
+ * Backends must serve the Streamable HTTP transport and expose the same tools; the tool list is
+ * taken from the first backend that answers at start. They are pinged every
+ * {@code healthCheckInterval}. A backend that is down is skipped, so its keys go to the next
+ * backends on the ring and return when it is up again; backends that join or leave with
+ * {@link #addBackend(URI)} and {@link #removeBackend(URI)} only move their own share of the keys.
+ * A call that cannot reach its backend is sent to the next one. Calls that reached a backend are
+ * never sent twice.
+ * <p>
+ * Each client session of the router gets its own session on every backend it calls, so backends
+ * apply their per-session scheduling and limits to each client rather than to the router as a
+ * whole. Those sessions are ended when the client session closes.
+ */
+@Slf4j
+public class Router implements AutoCloseable {
+
+    private static final ObjectMapper KEY_MAPPER = new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    private final MCPServer.Builder server;
+    private final List<URI> initialBackends;
+    private final Map<String, String> keyArguments;
+    private final Duration healthCheckInterval;
+    private final Duration healthCheckTimeout;
+    private final Duration requestTimeout;
+    private final int unhealthyThreshold;
+
+    private final HashRing<Backend> ring;
+    private final Map<URI, Backend> backends = new ConcurrentHashMap<>();
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private ScheduledExecutorService healthChecks;
+
+    /**
+     * The MCP server clients connect to, available once started.
+     */
+    @Getter
+    private MCPServer mcpServer;
+
+    /**
+     * Creates a router.
+     *
+     * @param server configures the server clients connect to: name, host, port, transport and
+     *               server-side policies; the backend tools are added to it
+     * @param backends the MCP endpoints of the backends
+     * @param keyArguments the argument whose value is the routing key, by tool name
+     * @param virtualNodes points per backend on the hash ring (default 128)
+     * @param healthCheckInterval time between health checks (default 5 s)
+     * @param healthCheckTimeout longest wait for a ping (default 2 s)
+     * @param unhealthyThreshold failed checks in a row after which a backend is down (default 2)
+     * @param requestTimeout longest a forwarded call may take (default 60 s)
+     */
+    @Builder
+    public Router(MCPServer.Builder server, @Singular List<URI> backends, @Singular Map<String, String> keyArguments,
+                  int virtualNodes, Duration healthCheckInterval, Duration healthCheckTimeout, int unhealthyThreshold,
+                  Duration requestTimeout) {
+        if (server == null) {
+            throw new IllegalArgumentException("The router needs a server configuration");
+        }
+        this.server = server;
+        this.initialBackends = backends;
+        this.keyArguments = keyArguments;
+        this.ring = new HashRing<>(virtualNodes > 0 ? virtualNodes : 128, backend -> backend.getEndpoint().toString());
+        this.healthCheckInterval = healthCheckInterval != null ? healthCheckInterval : Duration.ofSeconds(5);
+        this.healthCheckTimeout = healthCheckTimeout != null ? healthCheckTimeout : Duration.ofSeconds(2);
+        this.unhealthyThreshold = unhealthyThreshold > 0 ? unhealthyThreshold : 2;
+        this.requestTimeout = requestTimeout != null ? requestTimeout : Duration.ofSeconds(60);
+    }
+
+    /**
+     * Checks the backends, exposes their tools and starts accepting clients.
+     *
+     * @throws IllegalStateException if no backend answers
+     * @throws Exception if the server cannot start
+     */
+    public synchronized void start() throws Exception {
+        if (mcpServer != null) {
+            return;
+        }
+        for (URI endpoint : initialBackends) {
+            join(endpoint);
+        }
+        checkBackends();
+
+        List<McpSchema.Tool> tools = null;
+        for (Backend backend : ring.getNodes()) {
+            if (backend.isHealthy()) {
+                try {
+                    tools = backend.listTools().get(requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                    break;
+                } catch (Exception e) {
+                    log.warn("Could not list the tools of backend {}: {}", backend.getEndpoint(), e.getMessage());
+                }
+            }
+        }
+        if (tools == null) {
+            throw new IllegalStateException("No backend of the router answers: " + initialBackends);
+        }
+        for (McpSchema.Tool tool : tools) {
+            server.tool(new RemoteTool(tool, this));
+        }
+        log.info("Routing {} tools over {} backends", tools.size(), backends.size());
+
+        healthChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "umcp-router-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = healthCheckInterval.toMillis();
+        healthChecks.scheduleWithFixedDelay(this::checkBackends, interval, interval, TimeUnit.MILLISECONDS);
+
+        server.sessionListener(new SessionListener() {
+            @Override
+            public void onClosed(McpServerSession session) {
+                backends.values().forEach(backend -> backend.closeSession(session.getId()));
+            }
+        });
+        mcpServer = server.build();
+        mcpServer.start();
+    }
+
+    /**
+     * Adds a backend. It takes its share of the keys once a health check finds it up.
+     *
+     * @param endpoint the MCP endpoint of the backend
+     * @return true if the backend was not in the pool yet
+     */
+    public boolean addBackend(URI endpoint) {
+        Backend backend = join(endpoint);
+        if (backend == null) {
+            return false;
+        }
+        backend.check(healthCheckTimeout);
+        return true;
+    }
+
+    /**
+     * Removes a backend. Its keys move to the backends that follow it on the ring.
+     *
+     * @param endpoint the MCP endpoint of the backend
+     * @return true if the backend was in the pool
+     */
+    public boolean removeBackend(URI endpoint) {
+        Backend backend = backends.remove(endpoint);
+        if (backend == null) {
+            return false;
+        }
+        ring.remove(backend);
+        backend.close();
+        log.info("Backend {} left the pool", endpoint);
+        return true;
+    }
+
+    private Backend join(URI endpoint) {
+        Backend backend = new Backend(endpoint, client, requestTimeout, unhealthyThreshold);
+        if (backends.putIfAbsent(endpoint, backend) != null) {
+            return null;
+        }
+        ring.add(backend);
+        log.info("Backend {} joined the pool", endpoint);
+        return backend;
+    }
+
+    private void checkBackends() {
+        try {
+            CompletableFuture.allOf(backends.values().stream()
+                            .map(backend -> backend.check(healthCheckTimeout))
+                            .toArray(CompletableFuture[]::new))
+                    .get(healthCheckTimeout.toMillis() * 2, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("Health checks did not complete: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Finds the backend a call would be routed to.
+     *
+     * @param tool the tool name
+     * @param arguments the tool arguments
+     * @return the endpoint of the backend, or null if no backend is up
+     */
+    public URI locate(String tool, Map<String, Object> arguments) {
+        Backend backend = ring.get(routingKey(tool, arguments), Backend::isHealthy);
+        return backend != null ? backend.getEndpoint() : null;
+    }
+
+    /**
+     * Forwards a tool call to the backend its routing key belongs to, on the session the backends
+     * share for calls made outside of a client session.
+     *
+     * @param tool the tool name
+     * @param arguments the tool arguments
+     * @return the text of the tool result, as {@link #route(String, Map, String)}
+     */
+    public CompletableFuture<String> route(String tool, Map<String, Object> arguments) {
+        return route(tool, arguments, null);
+    }
+
+    /**
+     * Forwards a tool call to the backend its routing key belongs to. If that backend cannot be
+     * reached, the call goes to the next one on the ring.
+     *
+     * @param tool the tool name
+     * @param arguments the tool arguments
+     * @param clientSession the id of the client session making the call, whose own session on the
+     *                      backend carries it; null for the shared session
+     * @return the text of the tool result, failed with a {@link CapabilityException} carrying the
+     *         message of an error result; cancelling it cancels the call on the backend
+     */
+    public CompletableFuture<String> route(String tool, Map<String, Object> arguments, String clientSession) {
+        String key = routingKey(tool, arguments);
+        CompletableFuture<String> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<?>> attempt = new AtomicReference<>();
+        forward(tool, arguments, clientSession, key, new HashSet<>(), result, attempt);
+        result.whenComplete((value, error) -> {
+            CompletableFuture<?> running = attempt.get();
+            if (result.isCancelled() && running != null) {
+                running.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private void forward(String tool, Map<String, Object> arguments, String clientSession, String key, Set<Backend> tried,
+                         CompletableFuture<String> result, AtomicReference<CompletableFuture<?>> attempt) {
+        Backend backend = ring.get(key, candidate -> candidate.isHealthy() && !tried.contains(candidate));
+        if (backend == null) {
+            result.completeExceptionally(new CapabilityException("No backend is available for tool " + tool));
+            return;
+        }
+        CompletableFuture<McpSchema.CallToolResult> call = backend.callTool(clientSession, tool, arguments);
+        attempt.set(call);
+        if (result.isCancelled()) {
+            call.cancel(true);
+            return;
+        }
+        call.whenComplete((callResult, error) -> {
+            if (error == null) {
+                String text = text(callResult);
+                if (Boolean.TRUE.equals(callResult.isError())) {
+                    result.completeExceptionally(new CapabilityException(text));
+                } else {
+                    result.complete(text);
+                }
+                return;
+            }
+            Throwable cause = Backend.unwrap(error);
+            if (cause instanceof BackendUnavailableException) {
+                backend.markDown(cause);
+                tried.add(backend);
+                log.warn("Backend {} unavailable for {}, trying the next one", backend.getEndpoint(), tool);
+                forward(tool, arguments, clientSession, key, tried, result, attempt);
+            } else {
+                result.completeExceptionally(cause);
+            }
+        });
+    }
+
+    private String routingKey(String tool, Map<String, Object> arguments) {
+        String argument = keyArguments.get(tool);
+        Object key = argument != null && arguments != null ? arguments.get(argument) : arguments;
+        try {
+            return tool + '\n' + KEY_MAPPER.writeValueAsString(key);
+        } catch (JsonProcessingException e) {
+            return tool + '\n' + key;
+        }
+    }
+
+    private static String text(McpSchema.CallToolResult result) {
+        if (result.content() == null) {
+            return "";
+        }
+        return result.content().stream()
+                .filter(McpSchema.TextContent.class::isInstance)
+                .map(content -> ((McpSchema.TextContent) content).text())
+                .collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Gets the state of every backend.
+     *
+     * @return one snapshot per backend, in the order they joined
+     */
+    public List<Backend.BackendStats> getBackendStats() {
+        List<Backend.BackendStats> stats = new ArrayList<>();
+        for (Backend backend : ring.getNodes()) {
+            stats.add(backend.getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * Stops accepting clients, drains the calls in flight and ends the backend sessions.
+     */
+    @Override
+    public synchronized void close() {
+        if (mcpServer != null) {
+            mcpServer.close();
+        }
+        if (healthChecks != null) {
+            healthChecks.shutdownNow();
+        }
+        backends.values().forEach(Backend::close);
+    }
+}
@@ -0,0 +1,75 @@
+package org.gegolabs.mcp.router;
+
+import lombok.extern.slf4j.Slf4j;
+import org.gegolabs.mcp.MCPServer;
+import org.gegolabs.mcp.MiscTools;
+import org.gegolabs.mcp.transport.TransportType;
+
+import java.net.URI;
+
+/**
+ * Runs a {@link Router} as its own process, in front of uMCP servers started with {@code --http}.
+ */
+@Slf4j
+public class RouterCLI {
+
+    static {
+        MiscTools.initializeLogInFile("logs/umcp-router.log");
+    }
+
+    /**
+     * Main entry point of the router.
+     * <p>
+     * Arguments are the MCP endpoints of the backends, such as {@code http://localhost:3001/mcp}.
+     * Options: {@code --port <n>} sets the port clients connect to (default 3000), {@code --http}
+     * serves the Streamable HTTP transport instead of TCP, and {@code --key <tool>=<argument>}
+     * routes the calls of a tool by the value of one argument.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) throws Exception {
+        MCPServer.Builder server = MCPServer.builder()
+                .name("uMCP router")
+                .version("1.1.0")
+                .transportType(TransportType.TCP);
+        Router.RouterBuilder router = Router.builder();
+        boolean backends = false;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("--http".equals(arg)) {
+                server.transportType(TransportType.HTTP);
+            } else if ("--port".equals(arg) && i + 1 < args.length) {
+                server.port(Integer.parseInt(args[++i]));
+            } else if ("--key".equals(arg) && i + 1 < args.length) {
+                String[] key = args[++i].split("=", 2);
+                if (key.length != 2) {
+                    log.warn("Ignoring routing key {}, expected <tool>=<argument>", args[i]);
+                    continue;
+                }
+                router.keyArgument(key[0], key[1]);
+            } else {
+                router.backend(URI.create(arg));
+                backends = true;
+            }
+        }
+        if (!backends) {
+            System.err.println("Usage: RouterCLI [--port <n>] [--http] [--key <tool>=<argument>]... <backend endpoint>...");
+            System.exit(2);
+        }
+
+        Router running = router.server(server).build();
+        running.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            log.info("Shutting down router...");
+            running.close();
+        }));
+
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException e) {
+            log.error("Router interrupted", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package org.gegolabs.mcp.sampling;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.gegolabs.mcp.cache.WeightedLruCache;
+import org.gegolabs.mcp.protocol.CallContext;
+import org.gegolabs.mcp.protocol.CapabilityException;
+import org.gegolabs.mcp.transport.SessionListener;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Sends {@code sampling/createMessage} requests to the client of the current tool call.
+ * <p>
+ * Requests are sent without blocking any thread and complete a {@link CompletableFuture}, so
+ * capabilities can compose nested LLM calls inside {@code executeAsync}. Each session has a limit
+ * of requests in flight; further requests wait in a queue. Identical requests in flight for the
+ * same session are sent once, and results can optionally be cached by messages, system prompt and
+ * model preferences. The cache is scoped to the session: a result is only ever returned to the
+ * client that produced it, and is dropped when that session closes.
+ */
+@Slf4j
+public class SamplingClient implements SessionListener {
+
+    /**
+     * Default number of sampling requests in flight per session.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_PER_SESSION = 4;
+
+    private static final TypeReference<McpSchema.CreateMessageResult> CREATE_MESSAGE_RESULT = new TypeReference<>() {
+    };
+
+    private final int maxConcurrentPerSession;
+    private final WeightedLruCache<CacheKey, McpSchema.CreateMessageResult> cache;
+    private final Map<String, SessionSampler> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new sampling client.
+     *
+     * @param maxConcurrentPerSession requests in flight per session, zero for the default
+     * @param cacheWeight characters of sampled text to keep cached, zero to disable the cache
+     */
+    @Builder
+    public SamplingClient(int maxConcurrentPerSession, long cacheWeight) {
+        this.maxConcurrentPerSession = maxConcurrentPerSession > 0 ? maxConcurrentPerSession : DEFAULT_MAX_CONCURRENT_PER_SESSION;
+        this.cache = cacheWeight > 0 ? new WeightedLruCache<>(cacheWeight, SamplingClient::weigh) : null;
+    }
+
+    @Override
+    public void onInitialized(McpServerSession session, Map<?, ?> clientCapabilities) {
+        if (clientCapabilities.containsKey("sampling")) {
+            register(session.getId(), request -> session.sendRequest(McpSchema.METHOD_SAMPLING_CREATE_MESSAGE, request, CREATE_MESSAGE_RESULT));
+        }
+    }
+
+    @Override
+    public void onClosed(McpServerSession session) {
+        unregister(session.getId());
+    }
+
+    /**
+     * Registers a session able to sample.
+     *
+     * @param sessionId the session id
+     * @param sampler function sending a request to the session's client
+     */
+    public void register(String sessionId, Function<McpSchema.CreateMessageRequest, Mono<McpSchema.CreateMessageResult>> sampler) {
+        sessions.put(sessionId, new SessionSampler(sessionId, sampler));
+    }
+
+    /**
+     * Forgets a session. Queued requests fail and the session's cached results are dropped.
+     *
+     * @param sessionId the session id
+     */
+    public void unregister(String sessionId) {
+        SessionSampler sampler = sessions.remove(sessionId);
+        if (sampler != null) {
+            sampler.abort();
+        }
+        if (cache != null) {
+            cache.removeIf(key -> key.sessionId().equals(sessionId));
+        }
+    }
+
+    /**
+     * Checks whether a session can sample.
+     *
+     * @param sessionId the session id
+     * @return true if the session's client supports sampling
+     */
+    public boolean supports(String sessionId) {
+        return sessionId != null && sessions.containsKey(sessionId);
+    }
+
+    /**
+     * Asks the client of the current tool call to sample a message.
+     *
+     * @param request the sampling request
+     * @return a future with the client's result; cancelling it does not affect other callers of an identical request
+     */
+    public CompletableFuture<McpSchema.CreateMessageResult> createMessage(McpSchema.CreateMessageRequest request) {
+        CallContext context = CallContext.current();
+        return createMessage(context != null ? context.getSessionId() : null, request);
+    }
+
+    /**
+     * Asks the client of a session to sample a message.
+     *
+     * @param sessionId the session id
+     * @param request the sampling request
+     * @return a future with the client's result; cancelling it does not affect other callers of an identical request
+     */
+    public CompletableFuture<McpSchema.CreateMessageResult> createMessage(String sessionId, McpSchema.CreateMessageRequest request) {
+        SessionSampler sampler = sessionId != null ? sessions.get(sessionId) : null;
+        if (sampler == null) {
+            return CompletableFuture.failedFuture(new CapabilityException("Client of session " + sessionId + " does not support sampling"));
+        }
+        CacheKey key = cache != null ? new CacheKey(sessionId, request.messages(), request.systemPrompt(), request.modelPreferences()) : null;
+        if (key != null) {
+            McpSchema.CreateMessageResult cached = cache.get(key);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        CompletableFuture<McpSchema.CreateMessageResult> shared = sampler.submit(request);
+        if (key != null) {
+            shared.thenAccept(result -> {
+                // Not cached for a session that closed meanwhile
+                if (sessions.get(sessionId) == sampler) {
+                    cache.put(key, result);
+                }
+            });
+        }
+        // Each caller gets its own future, so one cancelling does not cancel the others
+        return shared.copy();
+    }
+
+    /**
+     * Gets the result cache, for statistics.
+     *
+     * @return the cache, or null if caching is disabled
+     */
+    public WeightedLruCache<CacheKey, McpSchema.CreateMessageResult> getCache() {
+        return cache;
+    }
+
+    private static long weigh(McpSchema.CreateMessageResult result) {
+        return result.content() instanceof McpSchema.TextContent text && text.text() != null ? text.text().length() : 1;
+    }
+
+    /**
+     * Cache key of a sampling result.
+     *
+     * @param sessionId the session whose client produced the result
+     * @param messages the conversation
+     * @param systemPrompt the system prompt
+     * @param modelPreferences the model preferences
+     */
+    public record CacheKey(String sessionId, List<McpSchema.SamplingMessage> messages, String systemPrompt, McpSchema.ModelPreferences modelPreferences) {
+    }
+
+    /**
+     * Per-session concurrency limit and in-flight deduplication.
+     */
+    private final class SessionSampler {
+        private final String sessionId;
+        private final Function<McpSchema.CreateMessageRequest, Mono<McpSchema.CreateMessageResult>> sampler;
+        private final Map<McpSchema.CreateMessageRequest, CompletableFuture<McpSchema.CreateMessageResult>> inFlight = new ConcurrentHashMap<>();
+        private final Queue<Runnable> waiting = new ArrayDeque<>();
+        private int running;
+        private boolean aborted;
+
+        SessionSampler(String sessionId, Function<McpSchema.CreateMessageRequest, Mono<McpSchema.CreateMessageResult>> sampler) {
+            this.sessionId = sessionId;
+            this.sampler = sampler;
+        }
+
+        CompletableFuture<McpSchema.CreateMessageResult> submit(McpSchema.CreateMessageRequest request) {
+            CompletableFuture<McpSchema.CreateMessageResult> created = new CompletableFuture<>();
+            CompletableFuture<McpSchema.CreateMessageResult> existing = inFlight.putIfAbsent(request, created);
+            if (existing != null) {
+                log.debug("Joining identical sampling request in flight for session {}", sessionId);
+                return existing;
+            }
+            created.whenComplete((result, error) -> inFlight.remove(request, created));
+            Runnable send = () -> Mono.defer(() -> sampler.apply(request)).toFuture().whenComplete((result, error) -> {
+                release();
+                if (error != null) {
+                    created.completeExceptionally(error);
+                } else {
+                    created.complete(result);
+                }
+            });
+            boolean start;
+            synchronized (this) {
+                if (aborted) {
+                    created.completeExceptionally(new CapabilityException("Session " + sessionId + " closed"));
+                    return created;
+                }
+                start = running < maxConcurrentPerSession;
+                if (start) {
+                    running++;
+                } else {
+                    waiting.add(send);
+                }
+            }
+            if (start) {
+                send.run();
+            }
+            return created;
+        }
+
+        private void release() {
+            Runnable next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    running--;
+                }
+            }
+            if (next != null) {
+                next.run();
+            }
+        }
+
+        void abort() {
+            synchronized (this) {
+                aborted = true;
+                waiting.clear();
+            }
+            inFlight.values().forEach(future -> future.completeExceptionally(new CapabilityException("Session " + sessionId + " closed")));
+        }
+    }
+}
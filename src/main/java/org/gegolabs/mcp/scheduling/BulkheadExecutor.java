@@ -0,0 +1,135 @@
+package org.gegolabs.mcp.scheduling;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.gegolabs.mcp.protocol.CapabilityException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named, isolated executor for a group of tools.
+ * <p>
+ * Each bulkhead owns a fixed number of threads and a bounded queue. When both are full,
+ * new calls fail immediately instead of piling up, and tools on other bulkheads are unaffected.
+ * Cancelling the future returned by {@link #submit(Callable)} interrupts the running call.
+ */
+@Slf4j
+public class BulkheadExecutor {
+
+    /**
+     * Name of the bulkhead, referenced by {@code @Bulkhead} or the server builder.
+     */
+    @Getter
+    private final String name;
+
+    private final int threads;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Creates a new bulkhead.
+     *
+     * @param name the bulkhead name
+     * @param threads number of threads (default: available processors)
+     * @param queueCapacity maximum number of calls waiting for a thread (default 100)
+     */
+    @Builder
+    public BulkheadExecutor(String name, int threads, int queueCapacity) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Bulkhead name is required");
+        }
+        this.name = name;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.queueCapacity = queueCapacity > 0 ? queueCapacity : 100;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "umcp-bulkhead-" + name + "-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Runs a call on this bulkhead.
+     *
+     * @param call the work to run
+     * @param <T> result type
+     * @return a future with the call's result, failed with a CapabilityException if the bulkhead is saturated
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            Future<?> task = executor.submit(() -> {
+                try {
+                    result.complete(call.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    completed.increment();
+                }
+            });
+            result.whenComplete((r, e) -> {
+                if (result.isCancelled()) {
+                    task.cancel(true);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Bulkhead '{}' saturated ({} threads, {} queued)", name, threads, queueCapacity);
+            result.completeExceptionally(new CapabilityException("Bulkhead '" + name + "' is saturated, try again later"));
+        }
+        return result;
+    }
+
+    /**
+     * Gets a snapshot of this bulkhead's saturation.
+     *
+     * @return the current statistics
+     */
+    public BulkheadStats getStats() {
+        int active = executor.getActiveCount();
+        int queued = executor.getQueue().size();
+        double saturation = (double) (active + queued) / (threads + queueCapacity);
+        return new BulkheadStats(name, threads, active, queueCapacity, queued,
+                completed.sum(), rejected.sum(), saturation);
+    }
+
+    /**
+     * Stops accepting calls and interrupts running ones.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Bulkhead saturation snapshot.
+     *
+     * @param name bulkhead name
+     * @param threads configured threads
+     * @param active threads currently running a call
+     * @param queueCapacity configured queue size
+     * @param queued calls waiting for a thread
+     * @param completed calls finished since creation
+     * @param rejected calls rejected because the bulkhead was full
+     * @param saturation fraction of threads and queue slots in use, from 0 to 1
+     */
+    public record BulkheadStats(String name, int threads, int active, int queueCapacity, int queued,
+                                long completed, long rejected, double saturation) {
+    }
+}
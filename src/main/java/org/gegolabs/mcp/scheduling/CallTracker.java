@@ -0,0 +1,161 @@
+package org.gegolabs.mcp.scheduling;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Tracks the tool calls in flight so the server can drain them before shutting down.
+ * <p>
+ * Once {@link #drain()} is called, new calls are refused while calls already admitted,
+ * queued or running, are left to finish. {@link #awaitIdle(Duration)} waits for them up to a
+ * deadline, and {@link #abandon()} cancels whatever is still running after it.
+ */
+@Slf4j
+public class CallTracker {
+
+    private final Map<Long, Call> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private volatile boolean draining;
+
+    /**
+     * Admits a call.
+     *
+     * @param tool the name of the tool called
+     * @param execution starts the call and returns its future
+     * @param <T> result type
+     * @return the call's future, or null if the tracker is draining and the call was refused
+     */
+    public <T> CompletableFuture<T> track(String tool, Supplier<CompletableFuture<T>> execution) {
+        if (draining) {
+            return null;
+        }
+        long id = ids.incrementAndGet();
+        Call call = new Call(tool, System.nanoTime());
+        inFlight.put(id, call);
+        if (draining) {
+            // Raced with drain(): it may already have taken its snapshot, so refuse
+            inFlight.remove(id);
+            notifyIdle();
+            return null;
+        }
+        CompletableFuture<T> future;
+        try {
+            future = execution.get();
+        } catch (RuntimeException e) {
+            inFlight.remove(id);
+            notifyIdle();
+            throw e;
+        }
+        call.future = future;
+        future.whenComplete((result, error) -> {
+            inFlight.remove(id);
+            notifyIdle();
+        });
+        return future;
+    }
+
+    /**
+     * Stops admitting calls.
+     */
+    public void drain() {
+        draining = true;
+    }
+
+    /**
+     * Checks whether calls are being refused.
+     *
+     * @return true after {@link #drain()}
+     */
+    public boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * Gets the number of calls in flight.
+     *
+     * @return the call count
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Waits until no call is in flight. Call after {@link #drain()}.
+     *
+     * @param timeout the longest time to wait
+     * @return true if every call finished in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (this) {
+            while (!inFlight.isEmpty()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                long millis = Math.max(1, remaining / 1_000_000);
+                wait(millis);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cancels every call still in flight.
+     *
+     * @return the cancelled calls
+     */
+    public List<AbandonedCall> abandon() {
+        long now = System.nanoTime();
+        List<AbandonedCall> abandoned = new ArrayList<>();
+        for (Call call : inFlight.values()) {
+            abandoned.add(new AbandonedCall(call.tool, Duration.ofNanos(now - call.started)));
+            CompletableFuture<?> future = call.future;
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+        if (!abandoned.isEmpty()) {
+            log.warn("Abandoned {} calls in flight: {}", abandoned.size(), abandoned);
+        }
+        return abandoned;
+    }
+
+    private void notifyIdle() {
+        // Only a draining server waits for idle, so completions skip the lock otherwise
+        if (draining && inFlight.isEmpty()) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    private static final class Call {
+        final String tool;
+        final long started;
+        volatile CompletableFuture<?> future;
+
+        Call(String tool, long started) {
+            this.tool = tool;
+            this.started = started;
+        }
+    }
+
+    /**
+     * A call that did not finish before the drain deadline.
+     *
+     * @param tool the name of the tool called
+     * @param runningFor how long the call had been in flight
+     */
+    public record AbandonedCall(String tool, Duration runningFor) {
+    }
+}
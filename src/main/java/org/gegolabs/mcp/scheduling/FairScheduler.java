@@ -0,0 +1,310 @@
+package org.gegolabs.mcp.scheduling;
+
+import io.modelcontextprotocol.server.McpAsyncServerExchange;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.extern.slf4j.Slf4j;
+import org.gegolabs.mcp.protocol.CapabilityException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Weighted fair scheduler for tool calls.
+ * <p>
+ * Sits between the tool handler and {@code Capability.executeAsync}. Each client session gets its
+ * own queue and at most {@code maxConcurrency} calls run at once across all sessions. Free slots
+ * are handed out with deficit round-robin: a session at the head of the ring may start up to
+ * {@code weight} calls before it moves to the back, so one chatty session cannot starve the others.
+ * <p>
+ * Sessions are keyed by their {@link McpAsyncServerExchange} (one per session) and weighted by the
+ * client name reported on initialize. A session's queue is discarded as soon as it is idle.
+ */
+@Slf4j
+public class FairScheduler {
+
+    /**
+     * Key used for calls made without a session (e.g. direct invocations in tests).
+     */
+    private static final Object NO_SESSION = new Object();
+
+    private final int maxConcurrency;
+    private final int maxQueueDepth;
+    private final int defaultWeight;
+    private final Map<String, Integer> weights;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Object, SessionQueue> queues = new HashMap<>();
+    private final Deque<SessionQueue> active = new ArrayDeque<>();
+    private int running;
+
+    /**
+     * Creates a new fair scheduler.
+     *
+     * @param maxConcurrency maximum number of calls running at once (default: available processors)
+     * @param maxQueueDepth maximum number of queued calls per session, further calls are rejected (default 1000)
+     * @param defaultWeight weight of sessions whose client has no explicit weight (default 1)
+     * @param weights weights by client name, as reported in the client info on initialize
+     */
+    @Builder
+    public FairScheduler(int maxConcurrency, int maxQueueDepth, int defaultWeight, @Singular Map<String, Integer> weights) {
+        this.maxConcurrency = maxConcurrency > 0 ? maxConcurrency : Math.max(2, Runtime.getRuntime().availableProcessors());
+        this.maxQueueDepth = maxQueueDepth > 0 ? maxQueueDepth : 1000;
+        this.defaultWeight = defaultWeight > 0 ? defaultWeight : 1;
+        this.weights = weights != null ? Map.copyOf(weights) : Map.of();
+    }
+
+    /**
+     * Queues a call for the session behind the given exchange.
+     *
+     * @param exchange the session exchange, may be null
+     * @param call starts the call when a slot is granted
+     * @param <T> result type
+     * @return a future completed with the call's result; cancelling it drops the call if still queued
+     */
+    public <T> CompletableFuture<T> submit(McpAsyncServerExchange exchange, Supplier<CompletableFuture<T>> call) {
+        Object key = exchange != null ? exchange : NO_SESSION;
+        String client = exchange != null && exchange.getClientInfo() != null ? exchange.getClientInfo().name() : "anonymous";
+        return submit(key, client, call);
+    }
+
+    /**
+     * Queues a call for an arbitrary session key.
+     *
+     * @param sessionKey identity of the session
+     * @param client client name used to look up the weight
+     * @param call starts the call when a slot is granted
+     * @param <T> result type
+     * @return a future completed with the call's result
+     */
+    public <T> CompletableFuture<T> submit(Object sessionKey, String client, Supplier<CompletableFuture<T>> call) {
+        Task<T> task = new Task<>(call);
+        lock.lock();
+        try {
+            SessionQueue queue = queues.computeIfAbsent(sessionKey,
+                    k -> new SessionQueue(k, client + "#" + Integer.toHexString(System.identityHashCode(k)),
+                            weights.getOrDefault(client, defaultWeight)));
+            if (queue.tasks.size() >= maxQueueDepth) {
+                task.result.completeExceptionally(new CapabilityException(
+                        "Too many queued calls for this session (" + maxQueueDepth + ")"));
+                return task.result;
+            }
+            task.session = queue;
+            task.enqueuedAt = System.nanoTime();
+            if (queue.tasks.isEmpty()) {
+                active.addLast(queue);
+            }
+            queue.tasks.addLast(task);
+        } finally {
+            lock.unlock();
+        }
+        task.result.whenComplete((r, e) -> {
+            if (task.result.isCancelled()) {
+                dequeue(task);
+            }
+        });
+        dispatch();
+        return task.result;
+    }
+
+    /**
+     * Drops a cancelled call from its session queue, if it has not started yet.
+     *
+     * @param task the cancelled call
+     */
+    private void dequeue(Task<?> task) {
+        lock.lock();
+        try {
+            SessionQueue queue = task.session;
+            if (!queue.tasks.remove(task)) {
+                return;
+            }
+            if (queue.tasks.isEmpty()) {
+                active.remove(queue);
+                queue.deficit = 0;
+            }
+            removeIfIdle(queue);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets a snapshot of every known session's queue.
+     *
+     * @return per-session statistics
+     */
+    public List<SessionStats> getSessionStats() {
+        lock.lock();
+        try {
+            List<SessionStats> stats = new ArrayList<>(queues.size());
+            for (SessionQueue queue : queues.values()) {
+                stats.add(new SessionStats(queue.label, queue.weight, queue.tasks.size(), queue.running,
+                        queue.dispatched, queue.totalWaitNanos));
+            }
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of calls currently running.
+     *
+     * @return the number of running calls
+     */
+    public int getRunning() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts queued calls while there are free slots.
+     */
+    private void dispatch() {
+        while (true) {
+            Task<?> task;
+            lock.lock();
+            try {
+                if (running >= maxConcurrency) {
+                    return;
+                }
+                task = next();
+                if (task == null) {
+                    return;
+                }
+                running++;
+                task.session.running++;
+                task.session.dispatched++;
+                task.session.totalWaitNanos += System.nanoTime() - task.enqueuedAt;
+            } finally {
+                lock.unlock();
+            }
+            task.start(this::completed);
+        }
+    }
+
+    /**
+     * Picks the next call by deficit round-robin. Must be called with the lock held.
+     *
+     * @return the next call, or null if nothing is queued
+     */
+    private Task<?> next() {
+        while (!active.isEmpty()) {
+            SessionQueue queue = active.peekFirst();
+            if (queue.deficit == 0) {
+                queue.deficit = queue.weight;
+            }
+            Task<?> task = queue.tasks.pollFirst();
+            if (queue.tasks.isEmpty()) {
+                active.pollFirst();
+                queue.deficit = 0;
+            } else if (--queue.deficit == 0) {
+                active.pollFirst();
+                active.addLast(queue);
+            }
+            if (task.result.isDone()) {
+                // Cancelled before it could be dropped from the queue
+                removeIfIdle(task.session);
+                continue;
+            }
+            return task;
+        }
+        return null;
+    }
+
+    private void completed(SessionQueue session) {
+        lock.lock();
+        try {
+            running--;
+            session.running--;
+            removeIfIdle(session);
+        } finally {
+            lock.unlock();
+        }
+        dispatch();
+    }
+
+    private void removeIfIdle(SessionQueue session) {
+        if (session.running == 0 && session.tasks.isEmpty()) {
+            queues.remove(session.key, session);
+        }
+    }
+
+    /**
+     * Per-session queue snapshot.
+     *
+     * @param session session label (client name and identity)
+     * @param weight scheduling weight
+     * @param queued calls waiting for a slot
+     * @param running calls currently running
+     * @param dispatched calls started since the session became active
+     * @param totalWaitNanos accumulated queue wait of the dispatched calls
+     */
+    public record SessionStats(String session, int weight, int queued, int running, long dispatched, long totalWaitNanos) {
+    }
+
+    private static final class SessionQueue {
+        private final Object key;
+        private final String label;
+        private final int weight;
+        private final Deque<Task<?>> tasks = new ArrayDeque<>();
+        private int deficit;
+        private int running;
+        private long dispatched;
+        private long totalWaitNanos;
+
+        SessionQueue(Object key, String label, int weight) {
+            this.key = key;
+            this.label = label;
+            this.weight = weight;
+        }
+    }
+
+    private static final class Task<T> {
+        private final Supplier<CompletableFuture<T>> call;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private SessionQueue session;
+        private long enqueuedAt;
+
+        Task(Supplier<CompletableFuture<T>> call) {
+            this.call = call;
+        }
+
+        void start(Consumer<SessionQueue> onComplete) {
+            CompletableFuture<T> future;
+            try {
+                future = call.get();
+            } catch (Throwable e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            CompletableFuture<T> started = future;
+            // Propagate cancellation of the caller's future to the running call
+            result.whenComplete((r, e) -> {
+                if (result.isCancelled()) {
+                    started.cancel(true);
+                }
+            });
+            started.whenComplete((r, e) -> {
+                if (e != null) {
+                    result.completeExceptionally(e);
+                } else {
+                    result.complete(r);
+                }
+                onComplete.accept(session);
+            });
+        }
+    }
+}
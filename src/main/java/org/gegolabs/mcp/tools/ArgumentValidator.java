@@ -0,0 +1,232 @@
+package org.gegolabs.mcp.tools;
+
+import io.modelcontextprotocol.spec.McpSchema;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Validator of tool arguments compiled from the tool's input schema.
+ * <p>
+ * The schema generated by {@link org.gegolabs.mcp.MiscTools#generateJsonSchema(Class)} is turned
+ * once into a tree of nodes holding a field table per object, the expected type and the enum
+ * values as a set. Arguments are then checked in a single pass over the values actually sent,
+ * before Jackson binds them, and every violation is reported with the path of the argument.
+ * Keywords the generated schema does not carry, such as array items, are not checked.
+ */
+public final class ArgumentValidator {
+
+    private final Node root;
+
+    private ArgumentValidator(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Compiles a validator.
+     *
+     * @param schema the input schema of a tool
+     * @return the validator
+     */
+    public static ArgumentValidator compile(McpSchema.JsonSchema schema) {
+        return new ArgumentValidator(Node.compile(schema));
+    }
+
+    /**
+     * Validates arguments against the schema.
+     *
+     * @param arguments the arguments of a tool call
+     * @return the violations, empty if the arguments are valid
+     */
+    public List<String> validate(Map<String, Object> arguments) {
+        List<String> errors = new ArrayList<>(0);
+        root.validate("", arguments, errors);
+        return errors;
+    }
+
+    /**
+     * JSON types of the schema.
+     */
+    private enum Type {
+        ANY, STRING, INTEGER, NUMBER, BOOLEAN, OBJECT, ARRAY, NULL;
+
+        static Type of(String name) {
+            if (name == null) {
+                return ANY;
+            }
+            return switch (name) {
+                case "string" -> STRING;
+                case "integer" -> INTEGER;
+                case "number" -> NUMBER;
+                case "boolean" -> BOOLEAN;
+                case "object" -> OBJECT;
+                case "array" -> ARRAY;
+                case "null" -> NULL;
+                default -> ANY;
+            };
+        }
+
+        boolean accepts(Object value) {
+            return switch (this) {
+                case ANY -> true;
+                case STRING -> value instanceof String;
+                case INTEGER -> isInteger(value);
+                case NUMBER -> value instanceof Number;
+                case BOOLEAN -> value instanceof Boolean;
+                case OBJECT -> value instanceof Map;
+                case ARRAY -> value instanceof List || value instanceof Object[];
+                case NULL -> value == null;
+            };
+        }
+
+        private static boolean isInteger(Object value) {
+            if (value instanceof Integer || value instanceof Long || value instanceof Short
+                    || value instanceof Byte || value instanceof BigInteger) {
+                return true;
+            }
+            if (value instanceof Double || value instanceof Float) {
+                double number = ((Number) value).doubleValue();
+                return number == Math.rint(number) && !Double.isInfinite(number);
+            }
+            if (value instanceof BigDecimal decimal) {
+                return decimal.stripTrailingZeros().scale() <= 0;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A compiled schema.
+     */
+    private static final class Node {
+        private static final Node ANY = new Node(Type.ANY, null, Map.of(), new String[0], false);
+
+        private final Type type;
+        private final Set<String> enumValues;
+        private final Map<String, Field> fields;
+        private final String[] required;
+        private final boolean closed;
+
+        private Node(Type type, Set<String> enumValues, Map<String, Field> fields, String[] required, boolean closed) {
+            this.type = type;
+            this.enumValues = enumValues;
+            this.fields = fields;
+            this.required = required;
+            this.closed = closed;
+        }
+
+        static Node compile(Object schema) {
+            if (!(schema instanceof McpSchema.JsonSchema json)) {
+                return ANY;
+            }
+            Map<String, Object> properties = json.properties() != null ? json.properties() : Map.of();
+            Type type = Type.of(json.type());
+            if (type == Type.OBJECT && properties.isEmpty() && json.additionalProperties() == null) {
+                // A reference or a schema without constraints: the type was only a default
+                return ANY;
+            }
+            Set<String> requiredNames = json.required() != null ? Set.copyOf(json.required()) : Set.of();
+            Map<String, Field> fields = new HashMap<>();
+            for (Map.Entry<String, Object> property : properties.entrySet()) {
+                fields.put(property.getKey(), new Field(compile(property.getValue()), requiredNames.contains(property.getKey())));
+            }
+            return new Node(type, enumValues(json), Map.copyOf(fields),
+                    requiredNames.toArray(new String[0]), Boolean.FALSE.equals(json.additionalProperties()));
+        }
+
+        private static Set<String> enumValues(McpSchema.JsonSchema json) {
+            // The generated schema carries enum values with the other attributes
+            Object values = json.definitions() != null ? json.definitions().get("enum") : null;
+            if (!(values instanceof Collection<?> collection) || collection.isEmpty()) {
+                return null;
+            }
+            // Declaration order, for error messages
+            Set<String> set = new LinkedHashSet<>();
+            for (Object value : collection) {
+                set.add(String.valueOf(value));
+            }
+            return Collections.unmodifiableSet(set);
+        }
+
+        void validate(String path, Object value, List<String> errors) {
+            if (!type.accepts(value)) {
+                errors.add(describe(path) + ": expected " + type.name().toLowerCase() + " but got " + typeOf(value));
+                return;
+            }
+            if (enumValues != null && !enumValues.contains(String.valueOf(value))) {
+                errors.add(describe(path) + ": must be one of " + enumValues);
+                return;
+            }
+            if (type == Type.OBJECT) {
+                validateObject(path, (Map<?, ?>) value, errors);
+            }
+        }
+
+        private void validateObject(String path, Map<?, ?> object, List<String> errors) {
+            int requiredSeen = 0;
+            for (Map.Entry<?, ?> entry : object.entrySet()) {
+                String name = String.valueOf(entry.getKey());
+                Field field = fields.get(name);
+                if (field == null) {
+                    if (closed) {
+                        errors.add(describe(child(path, name)) + ": unknown argument");
+                    }
+                    continue;
+                }
+                if (entry.getValue() == null) {
+                    // Null stands for absent, so only required arguments reject it
+                    continue;
+                }
+                if (field.required) {
+                    requiredSeen++;
+                }
+                field.node.validate(child(path, name), entry.getValue(), errors);
+            }
+            if (requiredSeen < required.length) {
+                for (String name : required) {
+                    if (object.get(name) == null) {
+                        errors.add(describe(child(path, name)) + ": required argument missing");
+                    }
+                }
+            }
+        }
+
+        private static String child(String path, String name) {
+            return path.isEmpty() ? name : path + "." + name;
+        }
+
+        private static String describe(String path) {
+            return path.isEmpty() ? "arguments" : "'" + path + "'";
+        }
+
+        private static String typeOf(Object value) {
+            if (value == null) {
+                return "null";
+            }
+            if (value instanceof String) {
+                return "string";
+            }
+            if (value instanceof Boolean) {
+                return "boolean";
+            }
+            if (value instanceof Number) {
+                return Type.isInteger(value) ? "integer" : "number";
+            }
+            if (value instanceof Map) {
+                return "object";
+            }
+            return value instanceof List || value instanceof Object[] ? "array" : value.getClass().getSimpleName();
+        }
+    }
+
+    private record Field(Node node, boolean required) {
+    }
+}
@@ -0,0 +1,35 @@
+package org.gegolabs.mcp.tools;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.gegolabs.mcp.protocol.Capability;
+
+/**
+ * A capability that declares its tool name, description and input schema itself, instead of
+ * taking them from its class annotations and input type.
+ *
+ * @param <I> Input type
+ * @param <O> Output type
+ */
+public interface DeclaredCapability<I, O> extends Capability<I, O> {
+
+    /**
+     * Gets the tool name.
+     *
+     * @return the tool name
+     */
+    String getName();
+
+    /**
+     * Gets the tool description.
+     *
+     * @return the tool description
+     */
+    String getDescription();
+
+    /**
+     * Gets the input schema of the tool.
+     *
+     * @return the input schema
+     */
+    McpSchema.JsonSchema getInputSchema();
+}
@@ -0,0 +1,262 @@
+package org.gegolabs.mcp.tools;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.gegolabs.mcp.MiscTools;
+import org.gegolabs.mcp.protocol.CapabilityException;
+import org.gegolabs.mcp.protocol.Description;
+import org.gegolabs.mcp.protocol.MCPServer;
+import org.gegolabs.mcp.protocol.Name;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A tool backed by a method annotated with {@link MCPServer}.
+ * <p>
+ * Each parameter of the method becomes a property of the tool's input schema, named after the
+ * parameter's {@link Name} annotation or its compiled name (with {@code -parameters}).
+ * Primitive parameters are required; other parameters are null when absent. The method is
+ * called through a {@link MethodInvoker}, and methods returning a {@link CompletionStage} are
+ * treated as asynchronous.
+ */
+@Slf4j
+public final class MethodCapability implements DeclaredCapability<Map<String, Object>, Object> {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Method method;
+    private final String name;
+    private final String description;
+    private final McpSchema.JsonSchema inputSchema;
+    private final Argument[] arguments;
+    private final MethodInvoker invoker;
+    private final boolean async;
+
+    private MethodCapability(Object target, Method method) throws IllegalAccessException {
+        this.method = method;
+        Name nameAnnotation = method.getAnnotation(Name.class);
+        this.name = nameAnnotation != null && !nameAnnotation.value().isEmpty() ? nameAnnotation.value() : method.getName();
+        Description descriptionAnnotation = method.getAnnotation(Description.class);
+        this.description = descriptionAnnotation != null && !descriptionAnnotation.value().isEmpty()
+                ? descriptionAnnotation.value() : name;
+
+        Parameter[] parameters = method.getParameters();
+        this.arguments = new Argument[parameters.length];
+        Map<String, Object> properties = new LinkedHashMap<>();
+        List<String> required = new ArrayList<>();
+        for (int i = 0; i < parameters.length; i++) {
+            Parameter parameter = parameters[i];
+            String argumentName = argumentName(parameter, i);
+            if (properties.containsKey(argumentName)) {
+                throw new IllegalArgumentException("Duplicate argument " + argumentName + " in " + method);
+            }
+            Description parameterDescription = parameter.getAnnotation(Description.class);
+            properties.put(argumentName, MiscTools.generateValueSchema(parameter.getParameterizedType(),
+                    parameterDescription != null ? parameterDescription.value() : null));
+            if (parameter.getType().isPrimitive()) {
+                required.add(argumentName);
+            }
+            arguments[i] = new Argument(argumentName, OBJECT_MAPPER.constructType(parameter.getParameterizedType()),
+                    MethodType.methodType(parameter.getType()).wrap().returnType(), parameter.getType().isPrimitive());
+        }
+        this.inputSchema = new McpSchema.JsonSchema("object", properties, required.isEmpty() ? null : required, false, null, null);
+        this.invoker = MethodInvoker.of(target, method);
+        this.async = CompletionStage.class.isAssignableFrom(method.getReturnType());
+    }
+
+    /**
+     * Finds the methods annotated with {@link MCPServer} and creates one tool for each.
+     * When the target is a {@link Class}, only its static methods are used.
+     *
+     * @param target the object whose methods become tools, or a class with static methods
+     * @return the tools, ordered by name
+     * @throws IllegalArgumentException if a method cannot be accessed or has duplicate argument names
+     */
+    public static List<MethodCapability> discover(Object target) {
+        boolean staticOnly = target instanceof Class<?>;
+        Class<?> type = staticOnly ? (Class<?>) target : target.getClass();
+        List<Method> methods = new ArrayList<>();
+        Set<String> signatures = new HashSet<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Method method : current.getDeclaredMethods()) {
+                if (!method.isAnnotationPresent(MCPServer.class) || method.isBridge() || method.isSynthetic()
+                        || (staticOnly && !Modifier.isStatic(method.getModifiers()))) {
+                    continue;
+                }
+                // Overridden methods are exposed once, from the most specific class
+                if (signatures.add(method.getName() + Arrays.toString(method.getParameterTypes()))) {
+                    methods.add(method);
+                }
+            }
+        }
+        methods.sort(Comparator.comparing(Method::getName));
+
+        List<MethodCapability> capabilities = new ArrayList<>(methods.size());
+        for (Method method : methods) {
+            try {
+                capabilities.add(new MethodCapability(staticOnly ? null : target, method));
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Cannot access " + method + ": " + e.getMessage(), e);
+            }
+        }
+        log.debug("Found {} tool methods in {}", capabilities.size(), type.getName());
+        return capabilities;
+    }
+
+    private static String argumentName(Parameter parameter, int index) {
+        Name name = parameter.getAnnotation(Name.class);
+        if (name != null && !name.value().isEmpty()) {
+            return name.value();
+        }
+        return parameter.isNamePresent() ? parameter.getName() : "arg" + index;
+    }
+
+    /**
+     * Gets the tool name.
+     *
+     * @return the method's Name annotation, or the method name
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the tool description.
+     *
+     * @return the method's Description annotation, or the tool name
+     */
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Gets the input schema, with one property per method parameter.
+     *
+     * @return the input schema
+     */
+    @Override
+    public McpSchema.JsonSchema getInputSchema() {
+        return inputSchema;
+    }
+
+    /**
+     * Gets the backing method.
+     *
+     * @return the method
+     */
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Gets an annotation of the backing method, or of its class if the method has none.
+     *
+     * @param type the annotation type
+     * @param <A> the annotation type
+     * @return the annotation, or null if absent
+     */
+    public <A extends Annotation> A getAnnotation(Class<A> type) {
+        A annotation = method.getAnnotation(type);
+        return annotation != null ? annotation : method.getDeclaringClass().getAnnotation(type);
+    }
+
+    @Override
+    public Object execute(Map<String, Object> input) throws CapabilityException {
+        Object result = invoke(input);
+        if (!async || result == null) {
+            return result;
+        }
+        try {
+            return ((CompletionStage<?>) result).toCompletableFuture().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CapabilityException("Interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CapabilityException capabilityException) {
+                throw capabilityException;
+            }
+            throw new CapabilityException(String.valueOf(e.getCause().getMessage()), e.getCause());
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Object> executeAsync(Map<String, Object> input) {
+        if (!async) {
+            return DeclaredCapability.super.executeAsync(input);
+        }
+        try {
+            // Asynchronous methods are called on the calling thread and complete on their own
+            CompletionStage<Object> stage = (CompletionStage<Object>) invoke(input);
+            return stage != null ? stage.toCompletableFuture() : CompletableFuture.completedFuture(null);
+        } catch (CapabilityException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private Object invoke(Map<String, Object> input) throws CapabilityException {
+        Object[] values = bind(input);
+        try {
+            return invoker.invoke(values);
+        } catch (CapabilityException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new CapabilityException(String.valueOf(e.getMessage()), e);
+        }
+    }
+
+    private Object[] bind(Map<String, Object> input) throws CapabilityException {
+        Object[] values = new Object[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            Argument argument = arguments[i];
+            Object value = input != null ? input.get(argument.name()) : null;
+            if (value == null) {
+                if (argument.primitive()) {
+                    throw new CapabilityException("Missing argument: " + argument.name());
+                }
+                continue;
+            }
+            if (argument.boxedType().isInstance(value) && !argument.type().isContainerType()) {
+                // Already the right type, as JSON strings, booleans and most numbers are
+                values[i] = value;
+                continue;
+            }
+            try {
+                values[i] = OBJECT_MAPPER.convertValue(value, argument.type());
+            } catch (IllegalArgumentException e) {
+                throw new CapabilityException("Invalid argument " + argument.name() + ": " + e.getMessage(), e);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * A bound method parameter.
+     *
+     * @param name the argument name
+     * @param type the parameter type, for Jackson
+     * @param boxedType the parameter class, boxed if primitive
+     * @param primitive whether the parameter is primitive and thus required
+     */
+    private record Argument(String name, JavaType type, Class<?> boxedType, boolean primitive) {
+    }
+}
@@ -0,0 +1,232 @@
+package org.gegolabs.mcp.tools;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Fast invoker of a reflected method.
+ * <p>
+ * Methods with up to {@value #MAX_LAMBDA_ARITY} parameters are bound through
+ * {@link LambdaMetafactory} to one of the functional interfaces below, so calls are plain
+ * interface calls the JIT can inline like a direct call, with no reflective access checks or
+ * argument array copies. Methods with more parameters, or whose class does not grant the
+ * required access, fall back to a spreading {@link MethodHandle}.
+ */
+@FunctionalInterface
+public interface MethodInvoker {
+
+    /**
+     * Largest number of parameters bound through {@link LambdaMetafactory}.
+     */
+    int MAX_LAMBDA_ARITY = 5;
+
+    /**
+     * Invokes the method.
+     *
+     * @param arguments one value per parameter, primitives boxed
+     * @return the returned value, null for void methods
+     * @throws Throwable whatever the method throws
+     */
+    Object invoke(Object[] arguments) throws Throwable;
+
+    /**
+     * Creates an invoker for a method.
+     *
+     * @param target the receiver, ignored for static methods
+     * @param method the method
+     * @return the invoker
+     * @throws IllegalAccessException if the method is not accessible at all
+     */
+    static MethodInvoker of(Object target, Method method) throws IllegalAccessException {
+        return Factory.create(target, method);
+    }
+
+    /** Method returning a value, with no parameters. */
+    @FunctionalInterface
+    interface F0 {
+        Object invoke() throws Throwable;
+    }
+
+    /** Method returning a value, with one parameter. */
+    @FunctionalInterface
+    interface F1 {
+        Object invoke(Object a) throws Throwable;
+    }
+
+    /** Method returning a value, with two parameters. */
+    @FunctionalInterface
+    interface F2 {
+        Object invoke(Object a, Object b) throws Throwable;
+    }
+
+    /** Method returning a value, with three parameters. */
+    @FunctionalInterface
+    interface F3 {
+        Object invoke(Object a, Object b, Object c) throws Throwable;
+    }
+
+    /** Method returning a value, with four parameters. */
+    @FunctionalInterface
+    interface F4 {
+        Object invoke(Object a, Object b, Object c, Object d) throws Throwable;
+    }
+
+    /** Method returning a value, with five parameters. */
+    @FunctionalInterface
+    interface F5 {
+        Object invoke(Object a, Object b, Object c, Object d, Object e) throws Throwable;
+    }
+
+    /** Void method with no parameters. */
+    @FunctionalInterface
+    interface V0 {
+        void invoke() throws Throwable;
+    }
+
+    /** Void method with one parameter. */
+    @FunctionalInterface
+    interface V1 {
+        void invoke(Object a) throws Throwable;
+    }
+
+    /** Void method with two parameters. */
+    @FunctionalInterface
+    interface V2 {
+        void invoke(Object a, Object b) throws Throwable;
+    }
+
+    /** Void method with three parameters. */
+    @FunctionalInterface
+    interface V3 {
+        void invoke(Object a, Object b, Object c) throws Throwable;
+    }
+
+    /** Void method with four parameters. */
+    @FunctionalInterface
+    interface V4 {
+        void invoke(Object a, Object b, Object c, Object d) throws Throwable;
+    }
+
+    /** Void method with five parameters. */
+    @FunctionalInterface
+    interface V5 {
+        void invoke(Object a, Object b, Object c, Object d, Object e) throws Throwable;
+    }
+
+    /**
+     * Builds invokers.
+     */
+    @Slf4j
+    final class Factory {
+        private static final Class<?>[] VALUE_INTERFACES = {F0.class, F1.class, F2.class, F3.class, F4.class, F5.class};
+        private static final Class<?>[] VOID_INTERFACES = {V0.class, V1.class, V2.class, V3.class, V4.class, V5.class};
+
+        private Factory() {
+        }
+
+        static MethodInvoker create(Object target, Method method) throws IllegalAccessException {
+            boolean isStatic = Modifier.isStatic(method.getModifiers());
+            MethodHandles.Lookup lookup;
+            try {
+                lookup = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+            } catch (IllegalAccessException e) {
+                // Not open to us: only public methods of public classes can be used
+                lookup = MethodHandles.publicLookup();
+            }
+            MethodHandle handle = lookup.unreflect(method);
+            if (method.getParameterCount() <= MAX_LAMBDA_ARITY && !method.isVarArgs()) {
+                try {
+                    return bindLambda(lookup, handle, method, isStatic ? null : target);
+                } catch (Throwable e) {
+                    log.debug("Falling back to a method handle for {}: {}", method, e.toString());
+                }
+            }
+            MethodHandle bound = isStatic ? handle : handle.bindTo(target);
+            MethodHandle spreader = bound.asSpreader(Object[].class, method.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+            return arguments -> spreader.invokeExact(arguments);
+        }
+
+        private static MethodInvoker bindLambda(MethodHandles.Lookup lookup, MethodHandle handle, Method method, Object receiver) throws Throwable {
+            int arity = method.getParameterCount();
+            boolean isVoid = method.getReturnType() == void.class;
+            Class<?> functionalInterface = (isVoid ? VOID_INTERFACES : VALUE_INTERFACES)[arity];
+            MethodType erased = MethodType.genericMethodType(arity);
+            MethodType samType = isVoid ? erased.changeReturnType(void.class) : erased;
+            // The dynamic type boxes primitive parameters so the lambda can unbox them
+            MethodType instantiatedType = MethodType.methodType(method.getReturnType(), method.getParameterTypes()).wrap();
+            if (isVoid) {
+                instantiatedType = instantiatedType.changeReturnType(void.class);
+            }
+            MethodType factoryType = receiver != null
+                    ? MethodType.methodType(functionalInterface, method.getDeclaringClass())
+                    : MethodType.methodType(functionalInterface);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "invoke", factoryType, samType, handle, instantiatedType);
+            Object function = receiver != null ? site.getTarget().invoke(receiver) : site.getTarget().invoke();
+            return adapt(function);
+        }
+
+        private static MethodInvoker adapt(Object function) {
+            if (function instanceof F0 f) {
+                return arguments -> f.invoke();
+            }
+            if (function instanceof F1 f) {
+                return arguments -> f.invoke(arguments[0]);
+            }
+            if (function instanceof F2 f) {
+                return arguments -> f.invoke(arguments[0], arguments[1]);
+            }
+            if (function instanceof F3 f) {
+                return arguments -> f.invoke(arguments[0], arguments[1], arguments[2]);
+            }
+            if (function instanceof F4 f) {
+                return arguments -> f.invoke(arguments[0], arguments[1], arguments[2], arguments[3]);
+            }
+            if (function instanceof F5 f) {
+                return arguments -> f.invoke(arguments[0], arguments[1], arguments[2], arguments[3], arguments[4]);
+            }
+            if (function instanceof V0 f) {
+                return arguments -> {
+                    f.invoke();
+                    return null;
+                };
+            }
+            if (function instanceof V1 f) {
+                return arguments -> {
+                    f.invoke(arguments[0]);
+                    return null;
+                };
+            }
+            if (function instanceof V2 f) {
+                return arguments -> {
+                    f.invoke(arguments[0], arguments[1]);
+                    return null;
+                };
+            }
+            if (function instanceof V3 f) {
+                return arguments -> {
+                    f.invoke(arguments[0], arguments[1], arguments[2]);
+                    return null;
+                };
+            }
+            if (function instanceof V4 f) {
+                return arguments -> {
+                    f.invoke(arguments[0], arguments[1], arguments[2], arguments[3]);
+                    return null;
+                };
+            }
+            V5 f = (V5) function;
+            return arguments -> {
+                f.invoke(arguments[0], arguments[1], arguments[2], arguments[3], arguments[4]);
+                return null;
+            };
+        }
+    }
+}
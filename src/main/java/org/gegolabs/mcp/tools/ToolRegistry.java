@@ -0,0 +1,185 @@
+package org.gegolabs.mcp.tools;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import io.modelcontextprotocol.spec.McpError;
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of tool descriptors serving {@code tools/list}.
+ * <p>
+ * Each descriptor is serialized to JSON once, when the tool is added. Pages of {@code tools/list}
+ * are assembled from those fragments into an immutable snapshot ordered by tool name, and the
+ * snapshot is rebuilt lazily only after a tool is added or removed. Cursors carry the snapshot
+ * version, so a client paging through the list keeps seeing a stable order; the last few
+ * snapshots stay available for that purpose.
+ */
+@Slf4j
+public class ToolRegistry {
+
+    /**
+     * Number of previous snapshots kept so that clients can finish paging after a change.
+     */
+    private static final int RETAINED_SNAPSHOTS = 4;
+
+    private static final String CURSOR_PREFIX = "tools:";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final int pageSize;
+    private final ConcurrentSkipListMap<String, String> descriptors = new ConcurrentSkipListMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Long, Snapshot> snapshots = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Snapshot> eldest) {
+            return size() > RETAINED_SNAPSHOTS;
+        }
+    };
+    private volatile Snapshot current;
+
+    /**
+     * Creates a new registry.
+     *
+     * @param pageSize tools per {@code tools/list} page, zero to list every tool in one page
+     *                 (for clients that ignore {@code nextCursor})
+     */
+    public ToolRegistry(int pageSize) {
+        this.pageSize = Math.max(pageSize, 0);
+    }
+
+    /**
+     * Adds or replaces a tool descriptor.
+     *
+     * @param tool the descriptor
+     * @throws IllegalArgumentException if the descriptor cannot be serialized
+     */
+    public void add(McpSchema.Tool tool) {
+        String json;
+        try {
+            json = OBJECT_MAPPER.writeValueAsString(tool);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize tool " + tool.name(), e);
+        }
+        descriptors.put(tool.name(), json);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Removes a tool descriptor.
+     *
+     * @param name the tool name
+     * @return true if the tool was registered
+     */
+    public boolean remove(String name) {
+        if (descriptors.remove(name) == null) {
+            return false;
+        }
+        version.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Gets the number of registered tools.
+     *
+     * @return the tool count
+     */
+    public int size() {
+        return descriptors.size();
+    }
+
+    /**
+     * Gets one page of the tool list as preserialized JSON.
+     *
+     * @param cursor the cursor from the previous page, null for the first page
+     * @return the page, a {@code ListToolsResult} serialized as is by Jackson
+     * @throws McpError if the cursor is not valid or its snapshot is no longer available
+     */
+    public RawValue list(String cursor) {
+        if (cursor == null) {
+            return snapshot().pages.get(0);
+        }
+        long[] position = decodeCursor(cursor);
+        Snapshot snapshot;
+        synchronized (snapshots) {
+            snapshot = position != null ? snapshots.get(position[0]) : null;
+        }
+        if (snapshot == null || position[1] <= 0 || position[1] >= snapshot.pages.size()) {
+            throw new McpError(new McpSchema.JSONRPCResponse.JSONRPCError(McpSchema.ErrorCodes.INVALID_PARAMS,
+                    "Invalid or expired cursor: " + cursor, null));
+        }
+        return snapshot.pages.get((int) position[1]);
+    }
+
+    private Snapshot snapshot() {
+        Snapshot snapshot = current;
+        if (snapshot != null && snapshot.version == version.get()) {
+            return snapshot;
+        }
+        synchronized (snapshots) {
+            long currentVersion = version.get();
+            snapshot = current;
+            if (snapshot == null || snapshot.version != currentVersion) {
+                // Descriptors added while building end up in the next version
+                snapshot = new Snapshot(currentVersion, buildPages(currentVersion, new ArrayList<>(descriptors.values())));
+                snapshots.put(currentVersion, snapshot);
+                current = snapshot;
+                log.debug("Built tools/list snapshot {} with {} pages", currentVersion, snapshot.pages.size());
+            }
+            return snapshot;
+        }
+    }
+
+    private List<RawValue> buildPages(long snapshotVersion, List<String> tools) {
+        int size = pageSize > 0 ? pageSize : Math.max(tools.size(), 1);
+        List<RawValue> pages = new ArrayList<>();
+        for (int from = 0; from < tools.size() || from == 0; from += size) {
+            int to = Math.min(from + size, tools.size());
+            StringBuilder json = new StringBuilder("{\"tools\":[");
+            for (int i = from; i < to; i++) {
+                if (i > from) {
+                    json.append(',');
+                }
+                json.append(tools.get(i));
+            }
+            json.append(']');
+            if (to < tools.size()) {
+                json.append(",\"nextCursor\":\"").append(encodeCursor(snapshotVersion, pages.size() + 1)).append('"');
+            }
+            pages.add(new RawValue(json.append('}').toString()));
+        }
+        return List.copyOf(pages);
+    }
+
+    private static String encodeCursor(long snapshotVersion, int page) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + snapshotVersion + ":" + page).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long[] decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':', CURSOR_PREFIX.length());
+            if (!decoded.startsWith(CURSOR_PREFIX) || separator < 0) {
+                return null;
+            }
+            return new long[]{Long.parseLong(decoded.substring(CURSOR_PREFIX.length(), separator)),
+                    Long.parseLong(decoded.substring(separator + 1))};
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private record Snapshot(long version, List<RawValue> pages) {
+    }
+}
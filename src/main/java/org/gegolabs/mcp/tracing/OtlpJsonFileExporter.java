@@ -0,0 +1,173 @@
+package org.gegolabs.mcp.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appends spans to a file in the OTLP JSON format, one {@code ExportTraceServiceRequest} per line,
+ * as the OpenTelemetry Collector's file exporter writes them. The file can be loaded by the
+ * collector's {@code otlpjsonfile} receiver or read directly.
+ * <p>
+ * Spans are queued and written in batches by a background thread, so ending a span never waits
+ * for the disk. When the queue is full, spans are dropped and counted.
+ */
+@Slf4j
+public class OtlpJsonFileExporter implements SpanExporter {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int QUEUE_CAPACITY = 8192;
+    private static final int MAX_BATCH = 512;
+
+    private final Path file;
+    private final String serviceName;
+    private final BlockingQueue<Span> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * Creates an exporter appending to a file.
+     *
+     * @param file the file, created if missing
+     * @param serviceName the {@code service.name} resource attribute
+     */
+    public OtlpJsonFileExporter(Path file, String serviceName) {
+        this.file = file;
+        this.serviceName = serviceName;
+        this.writer = new Thread(this::writeLoop, "umcp-otlp-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void export(Span span) {
+        if (closed || !queue.offer(span)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the number of spans dropped because the queue was full or the exporter closed.
+     *
+     * @return the dropped span count
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Writes the queued spans and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        List<Span> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                // Not interrupted on close: an interrupt would also close the file channel mid-write
+                Span first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - batch.size());
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+            if (closed && queue.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    private void write(List<Span> batch) {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            out.write(OBJECT_MAPPER.writeValueAsString(toRequest(batch)));
+            out.newLine();
+        } catch (IOException e) {
+            dropped.addAndGet(batch.size());
+            log.warn("Failed to write {} spans to {}: {}", batch.size(), file, e.getMessage());
+        }
+    }
+
+    /**
+     * Builds the OTLP JSON request for a batch of spans.
+     *
+     * @param batch the spans
+     * @return the request
+     */
+    ObjectNode toRequest(List<Span> batch) {
+        ObjectNode request = OBJECT_MAPPER.createObjectNode();
+        ObjectNode resourceSpans = request.putArray("resourceSpans").addObject();
+        addAttribute(resourceSpans.putObject("resource").putArray("attributes"), "service.name", serviceName);
+        ObjectNode scopeSpans = resourceSpans.putArray("scopeSpans").addObject();
+        scopeSpans.putObject("scope").put("name", "org.gegolabs.mcp");
+        ArrayNode spans = scopeSpans.putArray("spans");
+        for (Span span : batch) {
+            ObjectNode node = spans.addObject();
+            node.put("traceId", span.getTraceId());
+            node.put("spanId", span.getSpanId());
+            if (span.getParentSpanId() != null) {
+                node.put("parentSpanId", span.getParentSpanId());
+            }
+            node.put("name", span.getName());
+            // SPAN_KIND_SERVER for the call, SPAN_KIND_INTERNAL for its steps
+            node.put("kind", span.getParentSpanId() == null ? 2 : 1);
+            // 64-bit integers are strings in OTLP JSON
+            node.put("startTimeUnixNano", Long.toString(span.getStartEpochNanos()));
+            node.put("endTimeUnixNano", Long.toString(span.getEndEpochNanos()));
+            ArrayNode attributes = node.putArray("attributes");
+            for (Map.Entry<String, Object> attribute : span.getAttributes().entrySet()) {
+                addAttribute(attributes, attribute.getKey(), attribute.getValue());
+            }
+            if (span.getError() != null) {
+                // STATUS_CODE_ERROR
+                node.putObject("status").put("code", 2).put("message", span.getError());
+            }
+        }
+        return request;
+    }
+
+    private static void addAttribute(ArrayNode attributes, String key, Object value) {
+        ObjectNode attribute = attributes.addObject();
+        attribute.put("key", key);
+        ObjectNode any = attribute.putObject("value");
+        if (value instanceof Boolean bool) {
+            any.put("boolValue", bool);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            any.put("intValue", value.toString());
+        } else if (value instanceof Number number) {
+            any.put("doubleValue", number.doubleValue());
+        } else {
+            any.put("stringValue", String.valueOf(value));
+        }
+    }
+}
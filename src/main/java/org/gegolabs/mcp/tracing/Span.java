@@ -0,0 +1,326 @@
+package org.gegolabs.mcp.tracing;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A timed step of a traced tool call.
+ * <p>
+ * Spans form a tree per call: the {@link Tracer} starts the root when the call arrives and the
+ * framework adds children for binding, queueing, execution and serialization. Capabilities can
+ * add their own children, e.g. around I/O, from {@link #current()}:
+ * <pre>{@code
+ * Span span = Span.current().child("whois");
+ * try {
+ *     return query(domain);
+ * } finally {
+ *     span.end();
+ * }
+ * }</pre>
+ * Calls that are not sampled get {@link #NOOP}, whose methods do nothing, so instrumented code
+ * never has to check whether tracing is on.
+ */
+public class Span {
+
+    /**
+     * The span of calls that are not traced. Its children are itself.
+     */
+    public static final Span NOOP = new Span();
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private final Tracer tracer;
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final String name;
+    private final long epochOffsetNanos;
+    private final long startNanos;
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+    private volatile long endNanos;
+    private volatile String error;
+
+    private Span() {
+        this.tracer = null;
+        this.traceId = null;
+        this.spanId = null;
+        this.parentSpanId = null;
+        this.name = "";
+        this.epochOffsetNanos = 0;
+        this.startNanos = 0;
+    }
+
+    Span(Tracer tracer, String traceId, String parentSpanId, String name, long epochOffsetNanos) {
+        this.tracer = tracer;
+        this.traceId = traceId;
+        this.spanId = randomHex(1);
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.epochOffsetNanos = epochOffsetNanos;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts the root span of a new trace.
+     *
+     * @param tracer the tracer receiving the span when it ends
+     * @param name the span name
+     * @return the root span
+     */
+    static Span root(Tracer tracer, String name) {
+        Instant now = Instant.now();
+        long epochNanos = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+        return new Span(tracer, randomHex(2), null, name, epochNanos - System.nanoTime());
+    }
+
+    /**
+     * Gets the span active on the current thread.
+     *
+     * @return the active span, or {@link #NOOP} outside of a traced call
+     */
+    public static Span current() {
+        Span span = CURRENT.get();
+        return span != null ? span : NOOP;
+    }
+
+    /**
+     * Wraps work handed to another thread. The time until it starts is recorded as a child span
+     * of the current span, and the current span is active while it runs.
+     *
+     * @param waitName the name of the span covering the wait
+     * @param work the work
+     * @param <T> result type
+     * @return the wrapped work, or the work itself outside of a traced call
+     */
+    public static <T> Callable<T> propagate(String waitName, Callable<T> work) {
+        Span parent = current();
+        if (parent == NOOP) {
+            return work;
+        }
+        Span wait = parent.child(waitName);
+        return () -> {
+            wait.end();
+            try (Scope scope = parent.activate()) {
+                return work.call();
+            }
+        };
+    }
+
+    /**
+     * Wraps a task handed to another thread, as {@link #propagate(String, Callable)} does.
+     *
+     * @param waitName the name of the span covering the wait
+     * @param task the task
+     * @return the wrapped task, or the task itself outside of a traced call
+     */
+    public static Runnable propagate(String waitName, Runnable task) {
+        Span parent = current();
+        if (parent == NOOP) {
+            return task;
+        }
+        Span wait = parent.child(waitName);
+        return () -> {
+            wait.end();
+            try (Scope scope = parent.activate()) {
+                task.run();
+            }
+        };
+    }
+
+    /**
+     * Starts a child span.
+     *
+     * @param name the child's name
+     * @return the child, or {@link #NOOP} if this span is not recorded
+     */
+    public Span child(String name) {
+        if (tracer == null) {
+            return this;
+        }
+        return new Span(tracer, traceId, spanId, name, epochOffsetNanos);
+    }
+
+    /**
+     * Makes this span the current span of the thread until the returned scope is closed.
+     *
+     * @return the scope restoring the previous span
+     */
+    public Scope activate() {
+        Span previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Sets an attribute. Strings, numbers and booleans are exported as such, other values as text.
+     *
+     * @param key the attribute name
+     * @param value the value, ignored if null
+     * @return this span
+     */
+    public Span attribute(String key, Object value) {
+        if (tracer != null && value != null) {
+            synchronized (attributes) {
+                attributes.put(key, value);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Marks the span as failed.
+     *
+     * @param message the error message
+     * @return this span
+     */
+    public Span error(String message) {
+        if (tracer != null) {
+            error = message != null ? message : "error";
+        }
+        return this;
+    }
+
+    /**
+     * Ends the span and hands it to the tracer. Only the first call has an effect.
+     */
+    public void end() {
+        if (tracer == null) {
+            return;
+        }
+        synchronized (this) {
+            if (endNanos != 0) {
+                return;
+            }
+            endNanos = Math.max(System.nanoTime(), startNanos + 1);
+        }
+        tracer.finished(this);
+    }
+
+    /**
+     * Checks whether the span is recorded.
+     *
+     * @return false for {@link #NOOP}
+     */
+    public boolean isRecording() {
+        return tracer != null;
+    }
+
+    /**
+     * Gets the trace id, 32 hex digits.
+     *
+     * @return the trace id, null for {@link #NOOP}
+     */
+    public String getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * Gets the span id, 16 hex digits.
+     *
+     * @return the span id, null for {@link #NOOP}
+     */
+    public String getSpanId() {
+        return spanId;
+    }
+
+    /**
+     * Gets the id of the parent span.
+     *
+     * @return the parent span id, null for a root span
+     */
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    /**
+     * Gets the span name.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the start time.
+     *
+     * @return nanoseconds since the epoch
+     */
+    public long getStartEpochNanos() {
+        return epochOffsetNanos + startNanos;
+    }
+
+    /**
+     * Gets the end time.
+     *
+     * @return nanoseconds since the epoch, or 0 while the span is open
+     */
+    public long getEndEpochNanos() {
+        long end = endNanos;
+        return end != 0 ? epochOffsetNanos + end : 0;
+    }
+
+    /**
+     * Gets the span duration.
+     *
+     * @return the duration, or the time elapsed so far while the span is open
+     */
+    public Duration getDuration() {
+        long end = endNanos;
+        return Duration.ofNanos((end != 0 ? end : System.nanoTime()) - startNanos);
+    }
+
+    /**
+     * Gets a copy of the attributes.
+     *
+     * @return the attributes, in the order they were set
+     */
+    public Map<String, Object> getAttributes() {
+        synchronized (attributes) {
+            return new LinkedHashMap<>(attributes);
+        }
+    }
+
+    /**
+     * Gets the error message set by {@link #error(String)}.
+     *
+     * @return the message, or null if the span did not fail
+     */
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return tracer == null ? "Span[noop]" : "Span[" + name + " " + traceId + "/" + spanId + "]";
+    }
+
+    private static String randomHex(int longs) {
+        StringBuilder hex = new StringBuilder(longs * 16);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < longs; i++) {
+            String part = Long.toHexString(random.nextLong());
+            hex.append("0".repeat(16 - part.length())).append(part);
+        }
+        return hex.toString();
+    }
+
+    /**
+     * The activation of a span on a thread, undone by {@link #close()}.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,24 @@
+package org.gegolabs.mcp.tracing;
+
+/**
+ * Receives spans as they end.
+ * <p>
+ * Called on the thread that ended the span, which is often a tool's executor thread, so
+ * implementations must be thread-safe and must not block.
+ */
+public interface SpanExporter {
+
+    /**
+     * Exports a finished span.
+     *
+     * @param span the span
+     */
+    void export(Span span);
+
+    /**
+     * Flushes and releases resources. Called when the tracer is closed.
+     */
+    default void close() {
+        // Nothing to release by default
+    }
+}
@@ -0,0 +1,77 @@
+package org.gegolabs.mcp.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps the most recent finished spans in memory, overwriting the oldest.
+ * Adding a span is lock-free; a snapshot taken while spans are added may miss or reorder the newest ones.
+ */
+public class SpanRingBuffer implements SpanExporter {
+
+    private final AtomicReferenceArray<Span> spans;
+    private final AtomicLong written = new AtomicLong();
+
+    /**
+     * Creates a ring buffer.
+     *
+     * @param capacity the number of spans kept
+     */
+    public SpanRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.spans = new AtomicReferenceArray<>(capacity);
+    }
+
+    @Override
+    public void export(Span span) {
+        long index = written.getAndIncrement();
+        spans.set((int) (index % spans.length()), span);
+    }
+
+    /**
+     * Gets the spans kept, oldest first.
+     *
+     * @return the spans
+     */
+    public List<Span> snapshot() {
+        long end = written.get();
+        long start = Math.max(0, end - spans.length());
+        List<Span> result = new ArrayList<>((int) (end - start));
+        for (long i = start; i < end; i++) {
+            Span span = spans.get((int) (i % spans.length()));
+            if (span != null) {
+                result.add(span);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the spans of one trace.
+     *
+     * @param traceId the trace id
+     * @return the spans of the trace still kept, oldest first
+     */
+    public List<Span> trace(String traceId) {
+        List<Span> result = new ArrayList<>();
+        for (Span span : snapshot()) {
+            if (span.getTraceId().equals(traceId)) {
+                result.add(span);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the total number of spans added, including those overwritten.
+     *
+     * @return the span count
+     */
+    public long getWritten() {
+        return written.get();
+    }
+}
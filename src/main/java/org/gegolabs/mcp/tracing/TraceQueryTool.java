@@ -0,0 +1,139 @@
+package org.gegolabs.mcp.tracing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.gegolabs.mcp.protocol.CapabilityException;
+import org.gegolabs.mcp.protocol.Description;
+import org.gegolabs.mcp.protocol.Name;
+import org.gegolabs.mcp.protocol.SyncCapability;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Built-in tool listing the traced calls kept in a {@link Tracer}'s ring buffer.
+ * <p>
+ * Each trace is returned with its steps in start order, their offset from the start of the call,
+ * duration and nesting depth, which shows where a slow call spent its time, e.g. waiting for a
+ * scheduler slot or an executor thread.
+ */
+@Name("traces")
+@Description("Lists recently traced tool calls, slowest first, with the time spent in each step (bind, queue, execute, serialize)")
+public class TraceQueryTool implements SyncCapability<TraceQueryTool.Query, String> {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int DEFAULT_LIMIT = 10;
+
+    private final Tracer tracer;
+
+    /**
+     * Creates the tool.
+     *
+     * @param tracer the tracer whose spans are queried
+     */
+    public TraceQueryTool(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    /**
+     * Filters for the traces listed. Every field is optional.
+     */
+    public static class Query {
+        /** Only calls of this tool. */
+        public String tool;
+        /** Only the trace with this id. */
+        public String traceId;
+        /** Only calls that took at least this long. */
+        public Double minDurationMillis;
+        /** Maximum number of traces returned (default 10). */
+        public Integer limit;
+    }
+
+    @Override
+    public String execute(Query query) throws CapabilityException {
+        Query filter = query != null ? query : new Query();
+        Map<String, List<Span>> byTrace = new HashMap<>();
+        List<Span> roots = new ArrayList<>();
+        for (Span span : tracer.getRingBuffer().snapshot()) {
+            if (filter.traceId != null && !filter.traceId.equals(span.getTraceId())) {
+                continue;
+            }
+            byTrace.computeIfAbsent(span.getTraceId(), id -> new ArrayList<>()).add(span);
+            if (span.getParentSpanId() == null
+                    && (filter.tool == null || filter.tool.equals(span.getAttributes().get("tool")))
+                    && (filter.minDurationMillis == null || millis(span.getDuration().toNanos()) >= filter.minDurationMillis)) {
+                roots.add(span);
+            }
+        }
+        roots.sort(Comparator.comparing(Span::getDuration).reversed());
+        int limit = filter.limit != null && filter.limit > 0 ? filter.limit : DEFAULT_LIMIT;
+
+        ObjectNode result = OBJECT_MAPPER.createObjectNode();
+        result.put("sampleRatio", tracer.getSampleRatio());
+        result.put("matched", roots.size());
+        ArrayNode traces = result.putArray("traces");
+        for (Span root : roots.subList(0, Math.min(limit, roots.size()))) {
+            traces.add(toTrace(root, byTrace.get(root.getTraceId())));
+        }
+        try {
+            return OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new CapabilityException("Failed to serialize traces", e);
+        }
+    }
+
+    private ObjectNode toTrace(Span root, List<Span> spans) {
+        ObjectNode trace = OBJECT_MAPPER.createObjectNode();
+        trace.put("traceId", root.getTraceId());
+        trace.put("name", root.getName());
+        trace.put("start", Instant.ofEpochSecond(0, root.getStartEpochNanos()).toString());
+        trace.put("durationMillis", millis(root.getDuration().toNanos()));
+        trace.set("attributes", OBJECT_MAPPER.valueToTree(root.getAttributes()));
+        if (root.getError() != null) {
+            trace.put("error", root.getError());
+        }
+
+        Map<String, Span> byId = new LinkedHashMap<>();
+        for (Span span : spans) {
+            byId.put(span.getSpanId(), span);
+        }
+        List<Span> steps = new ArrayList<>(spans);
+        steps.remove(root);
+        steps.sort(Comparator.comparingLong(Span::getStartEpochNanos));
+        ArrayNode stepNodes = trace.putArray("steps");
+        for (Span step : steps) {
+            ObjectNode node = stepNodes.addObject();
+            node.put("name", step.getName());
+            node.put("depth", depth(step, byId));
+            node.put("offsetMillis", millis(step.getStartEpochNanos() - root.getStartEpochNanos()));
+            node.put("durationMillis", millis(step.getDuration().toNanos()));
+            Map<String, Object> attributes = step.getAttributes();
+            if (!attributes.isEmpty()) {
+                node.set("attributes", OBJECT_MAPPER.valueToTree(attributes));
+            }
+            if (step.getError() != null) {
+                node.put("error", step.getError());
+            }
+        }
+        return trace;
+    }
+
+    private static int depth(Span span, Map<String, Span> byId) {
+        int depth = 0;
+        for (Span parent = byId.get(span.getParentSpanId()); parent != null && depth < 64; parent = byId.get(parent.getParentSpanId())) {
+            depth++;
+        }
+        return depth;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
@@ -0,0 +1,114 @@
+package org.gegolabs.mcp.tracing;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Samples tool calls and collects their spans.
+ * <p>
+ * A sampled call gets a root span with children for each step the framework runs; other calls get
+ * {@link Span#NOOP} and cost a random draw. Finished spans go to an in-memory {@link SpanRingBuffer},
+ * queried by the {@link TraceQueryTool}, and to any configured exporter, such as an OTLP JSON file.
+ */
+@Slf4j
+public class Tracer implements AutoCloseable {
+
+    /**
+     * Default share of calls traced.
+     */
+    public static final double DEFAULT_SAMPLE_RATIO = 0.1;
+
+    /**
+     * Default number of spans kept in memory.
+     */
+    public static final int DEFAULT_RING_BUFFER_SIZE = 4096;
+
+    private final double sampleRatio;
+    private final SpanRingBuffer ringBuffer;
+    private final List<SpanExporter> exporters;
+
+    /**
+     * Creates a new tracer.
+     *
+     * @param sampleRatio share of calls traced, from 0 to 1 (default 0.1)
+     * @param ringBufferSize number of finished spans kept in memory (default 4096)
+     * @param otlpFile file to append spans to in OTLP JSON, or null
+     * @param serviceName service name written to the OTLP file (default "uMCP")
+     * @param exporters additional exporters
+     */
+    @Builder
+    public Tracer(Double sampleRatio, int ringBufferSize, Path otlpFile, String serviceName, @Singular List<SpanExporter> exporters) {
+        this.sampleRatio = sampleRatio != null ? Math.max(0, Math.min(1, sampleRatio)) : DEFAULT_SAMPLE_RATIO;
+        this.ringBuffer = new SpanRingBuffer(ringBufferSize > 0 ? ringBufferSize : DEFAULT_RING_BUFFER_SIZE);
+        this.exporters = new ArrayList<>();
+        this.exporters.add(ringBuffer);
+        if (otlpFile != null) {
+            this.exporters.add(new OtlpJsonFileExporter(otlpFile, serviceName != null ? serviceName : "uMCP"));
+        }
+        if (exporters != null) {
+            this.exporters.addAll(exporters);
+        }
+    }
+
+    /**
+     * Starts the root span of a call, if the call is sampled.
+     *
+     * @param name the span name
+     * @return the root span, or {@link Span#NOOP} if the call is not traced
+     */
+    public Span startTrace(String name) {
+        if (sampleRatio < 1 && (sampleRatio == 0 || ThreadLocalRandom.current().nextDouble() >= sampleRatio)) {
+            return Span.NOOP;
+        }
+        return Span.root(this, name);
+    }
+
+    /**
+     * Gets the buffer holding the most recent spans.
+     *
+     * @return the ring buffer
+     */
+    public SpanRingBuffer getRingBuffer() {
+        return ringBuffer;
+    }
+
+    /**
+     * Gets the share of calls traced.
+     *
+     * @return the sample ratio
+     */
+    public double getSampleRatio() {
+        return sampleRatio;
+    }
+
+    /**
+     * Hands a finished span to the exporters.
+     *
+     * @param span the span
+     */
+    void finished(Span span) {
+        for (SpanExporter exporter : exporters) {
+            try {
+                exporter.export(span);
+            } catch (RuntimeException e) {
+                log.warn("Span exporter {} failed: {}", exporter.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Closes the exporters, flushing spans not yet written.
+     */
+    @Override
+    public void close() {
+        for (SpanExporter exporter : exporters) {
+            exporter.close();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.gegolabs.mcp.transport;
+
+import lombok.Builder;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of reusable byte buffers in power-of-two size classes, used to serialize outbound
+ * messages without allocating a new copy of every payload.
+ * <p>
+ * Buffers from {@code minSize} to {@code maxSize} bytes are pooled, up to {@code maxPooledBytes}
+ * in total; larger requests are allocated and dropped on release. Buffers are heap buffers unless
+ * {@code direct} is set, which only pays off for transports writing to NIO channels.
+ * <p>
+ * Every acquired buffer must be released exactly once. {@link #getStats()} reports the buffers
+ * currently out, so leaks show up as a count that never returns to zero.
+ */
+public class BufferPool {
+
+    private static final int DEFAULT_MIN_SIZE = 4096;
+    private static final int DEFAULT_MAX_SIZE = 1 << 20;
+    private static final long DEFAULT_MAX_POOLED_BYTES = 64L << 20;
+
+    private final int minShift;
+    private final int maxSize;
+    private final long maxPooledBytes;
+    private final boolean direct;
+    private final Queue<ByteBuffer>[] classes;
+
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final AtomicLong outstanding = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a buffer pool.
+     *
+     * @param minSize smallest buffer size, rounded up to a power of two (default 4 KB)
+     * @param maxSize largest pooled buffer size, rounded up to a power of two (default 1 MB)
+     * @param maxPooledBytes total size of the idle buffers kept (default 64 MB)
+     * @param direct whether to allocate direct buffers
+     */
+    @Builder
+    @SuppressWarnings("unchecked")
+    public BufferPool(int minSize, int maxSize, long maxPooledBytes, boolean direct) {
+        this.minShift = shift(minSize > 0 ? minSize : DEFAULT_MIN_SIZE);
+        this.maxSize = 1 << Math.max(minShift, shift(maxSize > 0 ? maxSize : DEFAULT_MAX_SIZE));
+        this.maxPooledBytes = maxPooledBytes > 0 ? maxPooledBytes : DEFAULT_MAX_POOLED_BYTES;
+        this.direct = direct;
+        this.classes = new Queue[shift(this.maxSize) - minShift + 1];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * Takes a cleared buffer of at least the given capacity from the pool, allocating one if none is idle.
+     *
+     * @param capacity the capacity needed
+     * @return the buffer, to be released once no longer used
+     */
+    public ByteBuffer acquire(int capacity) {
+        outstanding.incrementAndGet();
+        if (capacity > maxSize) {
+            misses.increment();
+            return allocate(capacity);
+        }
+        int index = Math.max(0, shift(capacity) - minShift);
+        ByteBuffer buffer = classes[index].poll();
+        if (buffer == null) {
+            misses.increment();
+            return allocate(1 << (index + minShift));
+        }
+        hits.increment();
+        pooledBytes.addAndGet(-buffer.capacity());
+        return buffer.clear();
+    }
+
+    /**
+     * Returns a buffer to the pool. It must not be used afterwards.
+     *
+     * @param buffer a buffer acquired from this pool
+     */
+    public void release(ByteBuffer buffer) {
+        outstanding.decrementAndGet();
+        int capacity = buffer.capacity();
+        if (capacity > maxSize || Integer.bitCount(capacity) != 1 || capacity < 1 << minShift || buffer.isDirect() != direct) {
+            return;
+        }
+        if (pooledBytes.addAndGet(capacity) > maxPooledBytes) {
+            pooledBytes.addAndGet(-capacity);
+            return;
+        }
+        classes[shift(capacity) - minShift].offer(buffer);
+    }
+
+    /**
+     * Creates an empty output buffer drawing its chunks from this pool.
+     *
+     * @return the output buffer, to be released once written
+     */
+    public PooledBuffer newBuffer() {
+        return new PooledBuffer(this);
+    }
+
+    /**
+     * Gets the size of the chunk that follows one of the given size in a {@link PooledBuffer}:
+     * chunks double up to the largest pooled size.
+     *
+     * @param previous size of the previous chunk, 0 for the first
+     * @return the next chunk size
+     */
+    int nextChunkSize(int previous) {
+        return previous == 0 ? 1 << minShift : Math.min(maxSize, previous * 2);
+    }
+
+    /**
+     * Gets a snapshot of the pool's activity.
+     *
+     * @return the current statistics
+     */
+    public BufferPoolStats getStats() {
+        return new BufferPoolStats(hits.sum(), misses.sum(), outstanding.get(), pooledBytes.get());
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * Gets the exponent of the smallest power of two not below a size.
+     */
+    private static int shift(int size) {
+        return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    /**
+     * Buffer pool snapshot.
+     *
+     * @param hits buffers served from the pool
+     * @param misses buffers allocated because none was idle or the size is not pooled
+     * @param outstanding buffers acquired and not yet released
+     * @param pooledBytes total size of the idle buffers
+     */
+    public record BufferPoolStats(long hits, long misses, long outstanding, long pooledBytes) {
+    }
+}
@@ -0,0 +1,845 @@
+package org.gegolabs.mcp.transport;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streamable HTTP transport for the MCP server, served by the JDK {@link HttpServer}.
+ * <p>
+ * A single endpoint (by default {@code /mcp}) accepts:
+ * <ul>
+ *   <li>{@code POST} with one JSON-RPC message or a batch. Requests are answered either
+ *       with a JSON body or, when the client accepts {@code text/event-stream}, with an SSE
+ *       stream that closes once every request in the body has been answered. Requests the
+ *       client cancelled get no response; when none is left the POST is answered with 202.</li>
+ *   <li>{@code GET} to open a standalone SSE stream for server-initiated notifications and requests.
+ *       Notifications about a request in flight, such as its progress, go on that request's own
+ *       stream instead while it is open.</li>
+ *   <li>{@code DELETE} to terminate a session.</li>
+ * </ul>
+ * Sessions are identified by the {@code Mcp-Session-Id} header returned on {@code initialize}.
+ * <p>
+ * Handlers never block on a tool call: responses are written from the thread that completes
+ * them, so a request thread is only held while a request body is read. When the runtime offers
+ * virtual threads they are used for request handling; otherwise a small fixed pool is used.
+ * Open sessions and SSE streams are capped, idle SSE streams receive keep-alive comments and
+ * idle sessions are evicted.
+ * <p>
+ * Outbound messages are serialized straight into buffers from a {@link BufferPool} and written
+ * from there, so a response is not copied into an intermediate string and byte array. Each
+ * buffer is owned by the stream or backlog holding it and returned to the pool once written or
+ * dropped.
+ */
+@Slf4j
+public class HttpServerTransportProvider implements McpServerTransportProvider {
+
+    /**
+     * Header carrying the session id assigned on initialize.
+     */
+    public static final String SESSION_HEADER = "Mcp-Session-Id";
+
+    private static final String EVENT_STREAM = "text/event-stream";
+    private static final String APPLICATION_JSON = "application/json";
+    private static final byte[] KEEP_ALIVE = ": keep-alive\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] EVENT_PREFIX = "event: message\ndata: ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] EVENT_SUFFIX = "\n\n".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Maximum number of outbound messages kept for a session with no open stream.
+     */
+    private static final int MAX_BACKLOG = 1024;
+
+    private final String host;
+    private final int port;
+    private final String endpoint;
+    private final int maxSessions;
+    private final int maxStreams;
+    private final int backlog;
+    private final Duration keepAliveInterval;
+    private final Duration sessionIdleTimeout;
+    private final ObjectMapper objectMapper;
+    private final BufferPool bufferPool;
+
+    private final Map<String, HttpSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger openStreams = new AtomicInteger();
+
+    private volatile McpServerSession.Factory sessionFactory;
+    private volatile boolean closing;
+    private HttpServer httpServer;
+    private ExecutorService requestExecutor;
+    private ScheduledExecutorService housekeeping;
+
+    /**
+     * Creates a new HTTP transport provider. Unset values fall back to sensible defaults.
+     *
+     * @param host the host to bind to (default {@code localhost})
+     * @param port the port to bind to, {@code 0} for an ephemeral port
+     * @param endpoint the MCP endpoint path (default {@code /mcp})
+     * @param maxSessions maximum number of concurrent sessions (default 10000)
+     * @param maxStreams maximum number of concurrently open SSE streams (default 20000)
+     * @param backlog the TCP accept backlog (default 1024)
+     * @param keepAliveInterval interval between keep-alive comments on idle SSE streams (default 15s)
+     * @param sessionIdleTimeout time after which a session without activity is closed (default 30m)
+     * @param objectMapper the mapper used for JSON-RPC (de)serialization
+     * @param bufferPool the pool of buffers outbound messages are serialized into (default a heap buffer pool)
+     */
+    @Builder
+    public HttpServerTransportProvider(String host, int port, String endpoint, int maxSessions, int maxStreams,
+                                       int backlog, Duration keepAliveInterval, Duration sessionIdleTimeout,
+                                       ObjectMapper objectMapper, BufferPool bufferPool) {
+        this.host = host != null ? host : "localhost";
+        this.port = port;
+        this.endpoint = endpoint != null ? endpoint : "/mcp";
+        this.maxSessions = maxSessions > 0 ? maxSessions : 10_000;
+        this.maxStreams = maxStreams > 0 ? maxStreams : 20_000;
+        this.backlog = backlog > 0 ? backlog : 1024;
+        this.keepAliveInterval = keepAliveInterval != null ? keepAliveInterval : Duration.ofSeconds(15);
+        this.sessionIdleTimeout = sessionIdleTimeout != null ? sessionIdleTimeout : Duration.ofMinutes(30);
+        this.objectMapper = objectMapper != null ? objectMapper : new ObjectMapper();
+        // The exchange's response stream only takes byte arrays, so direct buffers would be copied again
+        this.bufferPool = bufferPool != null ? bufferPool : BufferPool.builder().build();
+    }
+
+    /**
+     * Starts listening for HTTP connections.
+     * Must be called after the MCP server has been built so the session factory is set.
+     *
+     * @throws IOException if the server socket cannot be bound
+     */
+    public synchronized void start() throws IOException {
+        if (httpServer != null) {
+            return;
+        }
+        httpServer = HttpServer.create(new InetSocketAddress(host, port), backlog);
+        requestExecutor = newRequestExecutor();
+        httpServer.setExecutor(requestExecutor);
+        httpServer.createContext(endpoint, this::handle);
+        httpServer.start();
+
+        housekeeping = Executors.newSingleThreadScheduledExecutor(daemonThreads("umcp-http-housekeeping"));
+        long period = keepAliveInterval.toMillis();
+        housekeeping.scheduleAtFixedRate(this::housekeeping, period, period, TimeUnit.MILLISECONDS);
+
+        log.info("HTTP transport listening on http://{}:{}{}", host, getPort(), endpoint);
+    }
+
+    /**
+     * Gets the port the server is bound to. Useful when started with port {@code 0}.
+     *
+     * @return the bound port, or the configured port if not started
+     */
+    public int getPort() {
+        return httpServer != null ? httpServer.getAddress().getPort() : port;
+    }
+
+    /**
+     * Gets the pool of buffers outbound messages are serialized into.
+     *
+     * @return the buffer pool
+     */
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * Gets the number of open sessions.
+     *
+     * @return the number of open sessions
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    @Override
+    public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Override
+    public Mono<Void> notifyClients(String method, Object params) {
+        return Flux.fromIterable(sessions.values())
+                .flatMap(session -> session.mcpSession.sendNotification(method, params)
+                        .doOnError(e -> log.warn("Failed to notify session {}: {}", session.id, e.getMessage()))
+                        .onErrorResume(e -> Mono.empty()))
+                .then();
+    }
+
+    @Override
+    public Mono<Void> closeGracefully() {
+        closing = true;
+        return Flux.fromIterable(sessions.values())
+                .flatMap(session -> session.mcpSession.closeGracefully().onErrorResume(e -> Mono.empty()))
+                .then(Mono.fromRunnable(this::stop));
+    }
+
+    @Override
+    public void close() {
+        closing = true;
+        sessions.values().forEach(session -> session.mcpSession.close());
+        stop();
+    }
+
+    private synchronized void stop() {
+        sessions.values().forEach(HttpSession::closeStreams);
+        sessions.clear();
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+        }
+        if (housekeeping != null) {
+            housekeeping.shutdownNow();
+            housekeeping = null;
+        }
+        if (requestExecutor != null) {
+            requestExecutor.shutdown();
+            requestExecutor = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) {
+        try {
+            switch (exchange.getRequestMethod()) {
+                case "POST" -> handlePost(exchange);
+                case "GET" -> handleGet(exchange);
+                case "DELETE" -> handleDelete(exchange);
+                default -> {
+                    exchange.getResponseHeaders().set("Allow", "GET, POST, DELETE");
+                    sendStatus(exchange, 405);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error handling HTTP {} request", exchange.getRequestMethod(), e);
+            sendStatus(exchange, 500);
+        }
+    }
+
+    private void handlePost(HttpExchange exchange) throws IOException {
+        if (closing) {
+            sendStatus(exchange, 503);
+            return;
+        }
+
+        List<McpSchema.JSONRPCMessage> messages;
+        boolean batch;
+        try {
+            JsonNode root = objectMapper.readTree(exchange.getRequestBody());
+            batch = root.isArray();
+            messages = parseMessages(root);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Rejecting malformed JSON-RPC body: {}", e.getMessage());
+            sendStatus(exchange, 400);
+            return;
+        }
+
+        boolean initialize = messages.stream().anyMatch(m -> m instanceof McpSchema.JSONRPCRequest request
+                && McpSchema.METHOD_INITIALIZE.equals(request.method()));
+
+        HttpSession session;
+        if (initialize) {
+            if (sessions.size() >= maxSessions) {
+                log.warn("Session limit reached ({}), rejecting initialize", maxSessions);
+                sendStatus(exchange, 503);
+                return;
+            }
+            session = createSession();
+            exchange.getResponseHeaders().set(SESSION_HEADER, session.id);
+        } else {
+            String sessionId = exchange.getRequestHeaders().getFirst(SESSION_HEADER);
+            if (sessionId == null) {
+                sendStatus(exchange, 400);
+                return;
+            }
+            session = sessions.get(sessionId);
+            if (session == null) {
+                sendStatus(exchange, 404);
+                return;
+            }
+        }
+        session.touch();
+
+        List<McpSchema.JSONRPCRequest> requests = new ArrayList<>();
+        for (McpSchema.JSONRPCMessage message : messages) {
+            if (message instanceof McpSchema.JSONRPCRequest request) {
+                requests.add(request);
+            }
+        }
+
+        if (requests.isEmpty()) {
+            // Only notifications or responses: acknowledge and dispatch
+            sendStatus(exchange, 202);
+        } else if (accepts(exchange, EVENT_STREAM)) {
+            if (!tryAcquireStream()) {
+                sendStatus(exchange, 503);
+                return;
+            }
+            SseStream stream = new SseStream(exchange, requests.size());
+            stream.open();
+            session.register(requests, stream);
+        } else {
+            session.register(requests, new JsonReply(exchange, requests.size(), batch));
+        }
+
+        for (McpSchema.JSONRPCMessage message : messages) {
+            session.mcpSession.handle(message)
+                    .subscribe(null, e -> log.error("Error handling message in session {}", session.id, e));
+        }
+    }
+
+    private void handleGet(HttpExchange exchange) throws IOException {
+        if (!accepts(exchange, EVENT_STREAM)) {
+            sendStatus(exchange, 406);
+            return;
+        }
+        HttpSession session = sessions.get(String.valueOf(exchange.getRequestHeaders().getFirst(SESSION_HEADER)));
+        if (session == null) {
+            sendStatus(exchange, 404);
+            return;
+        }
+        if (!tryAcquireStream()) {
+            sendStatus(exchange, 503);
+            return;
+        }
+        session.touch();
+        SseStream stream = new SseStream(exchange, -1);
+        stream.open();
+        session.attachStandalone(stream);
+    }
+
+    private void handleDelete(HttpExchange exchange) {
+        HttpSession session = sessions.remove(String.valueOf(exchange.getRequestHeaders().getFirst(SESSION_HEADER)));
+        if (session == null) {
+            sendStatus(exchange, 404);
+            return;
+        }
+        log.info("Session {} terminated by client", session.id);
+        session.closeStreams();
+        session.mcpSession.closeGracefully().subscribe();
+        sendStatus(exchange, 200);
+    }
+
+    private HttpSession createSession() {
+        if (sessionFactory == null) {
+            throw new IllegalStateException("Session factory not set; build the MCP server before starting the transport");
+        }
+        HttpSession session = new HttpSession();
+        session.mcpSession = sessionFactory.create(session);
+        session.id = session.mcpSession.getId();
+        sessions.put(session.id, session);
+        log.debug("Created HTTP session {}", session.id);
+        return session;
+    }
+
+    private List<McpSchema.JSONRPCMessage> parseMessages(JsonNode root) throws IOException {
+        List<McpSchema.JSONRPCMessage> messages = new ArrayList<>();
+        if (root.isArray()) {
+            if (root.isEmpty()) {
+                throw new IllegalArgumentException("Empty batch");
+            }
+            for (JsonNode node : root) {
+                messages.add(McpSchema.deserializeJsonRpcMessage(objectMapper, node.toString()));
+            }
+        } else if (root.isObject()) {
+            messages.add(McpSchema.deserializeJsonRpcMessage(objectMapper, root.toString()));
+        } else {
+            throw new IllegalArgumentException("Expected a JSON object or array");
+        }
+        return messages;
+    }
+
+    private boolean tryAcquireStream() {
+        while (true) {
+            int current = openStreams.get();
+            if (current >= maxStreams) {
+                log.warn("SSE stream limit reached ({})", maxStreams);
+                return false;
+            }
+            if (openStreams.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Sends keep-alive comments on open streams and evicts idle sessions.
+     */
+    private void housekeeping() {
+        long idleLimit = System.nanoTime() - sessionIdleTimeout.toNanos();
+        for (HttpSession session : sessions.values()) {
+            session.keepAlive();
+            if (session.lastActivity < idleLimit && !session.hasOpenStreams()) {
+                if (sessions.remove(session.id, session)) {
+                    log.info("Evicting idle session {}", session.id);
+                    session.mcpSession.closeGracefully().subscribe();
+                }
+            }
+        }
+    }
+
+    private static boolean accepts(HttpExchange exchange, String mediaType) {
+        List<String> accept = exchange.getRequestHeaders().get("Accept");
+        if (accept == null) {
+            return false;
+        }
+        for (String value : accept) {
+            if (value.contains(mediaType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void sendStatus(HttpExchange exchange, int status) {
+        try {
+            exchange.sendResponseHeaders(status, -1);
+        } catch (IOException e) {
+            log.debug("Could not send status {}: {}", status, e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static ExecutorService newRequestExecutor() {
+        try {
+            // Virtual threads are only available when running on Java 21+
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+            return Executors.newFixedThreadPool(threads, daemonThreads("umcp-http"));
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A channel that can carry outbound JSON-RPC messages to the client.
+     */
+    private interface Reply {
+        /**
+         * Delivers a serialized message. On success the reply owns the message and releases it
+         * once written; otherwise the caller still owns it.
+         *
+         * @param message the serialized message
+         * @param answersRequest whether the message answers one of the requests this reply is waiting for
+         * @return false if the reply is closed and the message was not delivered
+         */
+        boolean deliver(PooledBuffer message, boolean answersRequest);
+
+        /**
+         * Stops waiting for the response to one of the requests, which will not be answered.
+         */
+        void skip();
+
+        boolean isOpen();
+
+        void close();
+    }
+
+    /**
+     * SSE stream, either bound to a POST (closes after {@code expected} responses)
+     * or standalone from a GET ({@code expected < 0}).
+     */
+    private class SseStream implements Reply {
+        private final HttpExchange exchange;
+        private int remaining;
+        private boolean open;
+
+        SseStream(HttpExchange exchange, int expected) {
+            this.exchange = exchange;
+            this.remaining = expected;
+        }
+
+        synchronized void open() throws IOException {
+            exchange.getResponseHeaders().set("Content-Type", EVENT_STREAM);
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.getResponseHeaders().set("Connection", "keep-alive");
+            exchange.sendResponseHeaders(200, 0);
+            open = true;
+        }
+
+        @Override
+        public synchronized boolean deliver(PooledBuffer message, boolean answersRequest) {
+            if (!open) {
+                return false;
+            }
+            if (!write(message)) {
+                return false;
+            }
+            message.release();
+            if (answersRequest && remaining > 0 && --remaining == 0) {
+                close();
+            }
+            return true;
+        }
+
+        @Override
+        public synchronized void skip() {
+            if (remaining > 0 && --remaining == 0) {
+                close();
+            }
+        }
+
+        synchronized void keepAlive() {
+            if (open) {
+                write(KEEP_ALIVE);
+            }
+        }
+
+        private boolean write(byte[] bytes) {
+            try {
+                OutputStream out = exchange.getResponseBody();
+                out.write(bytes);
+                out.flush();
+                return true;
+            } catch (IOException e) {
+                log.debug("SSE stream closed by peer: {}", e.getMessage());
+                close();
+                return false;
+            }
+        }
+
+        private boolean write(PooledBuffer message) {
+            try {
+                OutputStream out = exchange.getResponseBody();
+                out.write(EVENT_PREFIX);
+                message.writeTo(out);
+                out.write(EVENT_SUFFIX);
+                out.flush();
+                return true;
+            } catch (IOException e) {
+                log.debug("SSE stream closed by peer: {}", e.getMessage());
+                close();
+                return false;
+            }
+        }
+
+        @Override
+        public synchronized boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (open) {
+                open = false;
+                openStreams.decrementAndGet();
+                exchange.close();
+            }
+        }
+    }
+
+    /**
+     * Plain JSON reply that is written once all expected responses have arrived.
+     */
+    private static class JsonReply implements Reply {
+        private final HttpExchange exchange;
+        private final boolean batch;
+        private final List<PooledBuffer> responses = new ArrayList<>();
+        private int remaining;
+        private boolean open = true;
+
+        JsonReply(HttpExchange exchange, int expected, boolean batch) {
+            this.exchange = exchange;
+            this.remaining = expected;
+            this.batch = batch;
+        }
+
+        @Override
+        public synchronized boolean deliver(PooledBuffer message, boolean answersRequest) {
+            if (!open || !answersRequest) {
+                // A JSON reply can only carry responses
+                return false;
+            }
+            responses.add(message);
+            if (--remaining == 0) {
+                write();
+            }
+            return true;
+        }
+
+        @Override
+        public synchronized void skip() {
+            if (open && --remaining == 0) {
+                write();
+            }
+        }
+
+        /**
+         * Writes the responses received, or only a status when none of the requests was answered.
+         */
+        private void write() {
+            if (responses.isEmpty()) {
+                sendStatus(exchange, 202);
+                open = false;
+                return;
+            }
+            long length = batch ? responses.size() + 1 : 0;
+            for (PooledBuffer response : responses) {
+                length += response.size();
+            }
+            try {
+                exchange.getResponseHeaders().set("Content-Type", APPLICATION_JSON);
+                exchange.sendResponseHeaders(200, length);
+                OutputStream out = exchange.getResponseBody();
+                if (batch) {
+                    out.write('[');
+                }
+                for (int i = 0; i < responses.size(); i++) {
+                    if (i > 0) {
+                        out.write(',');
+                    }
+                    responses.get(i).writeTo(out);
+                }
+                if (batch) {
+                    out.write(']');
+                }
+            } catch (IOException e) {
+                log.debug("Could not write JSON reply: {}", e.getMessage());
+            } finally {
+                close();
+            }
+        }
+
+        @Override
+        public synchronized boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (open) {
+                open = false;
+                responses.forEach(PooledBuffer::release);
+                responses.clear();
+                exchange.close();
+            }
+        }
+    }
+
+    /**
+     * Per-session state. Also acts as the {@link McpServerTransport} handed to the SDK session,
+     * routing each outbound message to the stream that is waiting for it.
+     */
+    private class HttpSession implements McpServerTransport, InterceptingTransportProvider.AwaitingTransport {
+        private String id;
+        private McpServerSession mcpSession;
+        private volatile long lastActivity = System.nanoTime();
+
+        private final Map<Object, Reply> pending = new ConcurrentHashMap<>();
+        private final Map<Object, Object> progressTokens = new ConcurrentHashMap<>();
+        private final Map<Object, Reply> progressReplies = new ConcurrentHashMap<>();
+        private final Set<Reply> openReplies = ConcurrentHashMap.newKeySet();
+        private final Deque<PooledBuffer> backlog = new ArrayDeque<>();
+        private volatile SseStream standalone;
+
+        void touch() {
+            lastActivity = System.nanoTime();
+        }
+
+        void register(List<McpSchema.JSONRPCRequest> requests, Reply reply) {
+            openReplies.add(reply);
+            for (McpSchema.JSONRPCRequest request : requests) {
+                pending.put(request.id(), reply);
+                Object progressToken = InterceptingTransportProvider.progressToken(request.params());
+                if (progressToken != null) {
+                    progressTokens.put(request.id(), progressToken);
+                    progressReplies.put(progressToken, reply);
+                }
+            }
+        }
+
+        void attachStandalone(SseStream stream) {
+            SseStream previous;
+            // Shares the lock with route, so nothing lands in the backlog after it was drained
+            synchronized (backlog) {
+                previous = standalone;
+                standalone = stream;
+                while (!backlog.isEmpty() && stream.deliver(backlog.peekFirst(), false)) {
+                    backlog.pollFirst();
+                }
+            }
+            if (previous != null) {
+                previous.close();
+            }
+        }
+
+        boolean hasOpenStreams() {
+            SseStream stream = standalone;
+            return (stream != null && stream.isOpen()) || !pending.isEmpty();
+        }
+
+        void keepAlive() {
+            SseStream stream = standalone;
+            if (stream != null) {
+                stream.keepAlive();
+            }
+            for (Reply reply : openReplies) {
+                if (reply instanceof SseStream sse) {
+                    sse.keepAlive();
+                }
+            }
+            openReplies.removeIf(reply -> !reply.isOpen());
+        }
+
+        void closeStreams() {
+            SseStream stream = standalone;
+            if (stream != null) {
+                stream.close();
+            }
+            openReplies.forEach(Reply::close);
+            openReplies.clear();
+            pending.clear();
+            progressTokens.clear();
+            progressReplies.clear();
+            synchronized (backlog) {
+                backlog.forEach(PooledBuffer::release);
+                backlog.clear();
+            }
+        }
+
+        @Override
+        public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+            return Mono.fromRunnable(() -> route(message));
+        }
+
+        private void route(McpSchema.JSONRPCMessage message) {
+            PooledBuffer json = bufferPool.newBuffer();
+            try {
+                objectMapper.writeValue(json, message);
+            } catch (IOException e) {
+                json.release();
+                log.error("Failed to serialize message for session {}", id, e);
+                return;
+            }
+
+            if (message instanceof McpSchema.JSONRPCResponse response) {
+                Reply reply = pending.remove(response.id());
+                Object progressToken = progressTokens.remove(response.id());
+                if (progressToken != null) {
+                    progressReplies.remove(progressToken, reply);
+                }
+                if (reply != null) {
+                    if (!reply.deliver(json, true)) {
+                        json.release();
+                        log.warn("Dropping response {} for session {}: stream closed", response.id(), id);
+                    }
+                    if (!reply.isOpen()) {
+                        openReplies.remove(reply);
+                    }
+                    return;
+                }
+            }
+
+            // Messages about a request in flight, such as its progress, go on that request's stream
+            Reply related = relatedReply(message);
+            if (related != null && related.deliver(json, false)) {
+                return;
+            }
+
+            // Other notifications and server-initiated requests prefer the standalone stream,
+            // then any open request stream, and are kept until the client opens one
+            synchronized (backlog) {
+                SseStream stream = standalone;
+                if (stream != null && stream.deliver(json, false)) {
+                    return;
+                }
+                for (Reply reply : openReplies) {
+                    if (reply.deliver(json, false)) {
+                        return;
+                    }
+                }
+                if (backlog.size() >= MAX_BACKLOG) {
+                    backlog.pollFirst().release();
+                    log.warn("Backlog full for session {}, dropping oldest message", id);
+                }
+                backlog.offerLast(json);
+            }
+        }
+
+        @Override
+        public void abandon(Object requestId) {
+            Reply reply = pending.remove(requestId);
+            Object progressToken = progressTokens.remove(requestId);
+            if (progressToken != null) {
+                progressReplies.remove(progressToken, reply);
+            }
+            if (reply != null) {
+                reply.skip();
+                if (!reply.isOpen()) {
+                    openReplies.remove(reply);
+                }
+            }
+        }
+
+        /**
+         * Finds the stream of the request a notification is about, by its progress token or request id.
+         */
+        private Reply relatedReply(McpSchema.JSONRPCMessage message) {
+            if (message instanceof McpSchema.JSONRPCNotification notification && notification.params() instanceof Map<?, ?> params) {
+                Object progressToken = params.get("progressToken");
+                if (progressToken != null) {
+                    return progressReplies.get(progressToken);
+                }
+                Object requestId = params.get("requestId");
+                if (requestId != null) {
+                    return pending.get(requestId);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+            return objectMapper.convertValue(data, typeRef);
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return Mono.fromRunnable(this::close);
+        }
+
+        @Override
+        public void close() {
+            sessions.remove(id, this);
+            closeStreams();
+        }
+    }
+}
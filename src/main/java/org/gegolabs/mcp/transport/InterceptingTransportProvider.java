@@ -0,0 +1,429 @@
+package org.gegolabs.mcp.transport;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.modelcontextprotocol.spec.McpError;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Transport provider decorator that sees every inbound message before the SDK session handles it.
+ * <p>
+ * The SDK only passes the exchange and the arguments to tool handlers. This decorator wraps each
+ * session so that {@code tools/call} requests run with a {@link ToolCallContext} (request id,
+ * progress token, notification channel) in their Reactor context. It also tracks in-flight calls
+ * by request id and cancels them when the client sends {@code notifications/cancelled}, which the
+ * SDK does not handle; as the protocol asks, no response is sent for a cancelled call. Requests of overridden methods are answered here without reaching the SDK,
+ * for features the SDK implements too naively (e.g. list methods without pagination).
+ * It works with any transport, including the TCP bridge.
+ * <p>
+ * Tool calls are dispatched without waiting for the previous ones, so calls sent together in a
+ * batch or pipelined on one connection run concurrently and each response goes out as soon as
+ * its call completes, correlated by request id. A session runs at most {@code maxInFlight}
+ * calls at once; further calls wait in arrival order, and calls beyond {@code maxQueued}
+ * waiting ones are answered at once with an error result.
+ */
+@Slf4j
+public class InterceptingTransportProvider implements McpServerTransportProvider {
+
+    /**
+     * Method name of MCP cancellation notifications.
+     */
+    public static final String METHOD_NOTIFICATION_CANCELLED = "notifications/cancelled";
+
+    /**
+     * Default number of tool calls a session runs at once.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 16;
+
+    /**
+     * Default number of tool calls a session can have waiting for a slot.
+     */
+    public static final int DEFAULT_MAX_QUEUED = 1024;
+
+    private final McpServerTransportProvider delegate;
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final Map<String, Function<Object, Mono<?>>> requestHandlers = new ConcurrentHashMap<>();
+    private final List<SessionListener> sessionListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a new intercepting provider.
+     *
+     * @param delegate the transport provider that actually talks to clients
+     */
+    public InterceptingTransportProvider(McpServerTransportProvider delegate) {
+        this(delegate, DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_QUEUED);
+    }
+
+    /**
+     * Creates a new intercepting provider with per-session call limits.
+     *
+     * @param delegate the transport provider that actually talks to clients
+     * @param maxInFlight tool calls a session runs at once, or 0 for the default
+     * @param maxQueued tool calls a session can have waiting for a slot, or 0 for the default
+     */
+    public InterceptingTransportProvider(McpServerTransportProvider delegate, int maxInFlight, int maxQueued) {
+        this.delegate = delegate;
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : DEFAULT_MAX_IN_FLIGHT;
+        this.maxQueued = maxQueued > 0 ? maxQueued : DEFAULT_MAX_QUEUED;
+    }
+
+    /**
+     * Answers every request of a method with the given handler instead of the SDK's.
+     * The handler receives the raw request params; errors are sent back as JSON-RPC errors,
+     * using the error of an {@link McpError} when there is one. When the handler completes
+     * empty, the request goes to the SDK as usual.
+     *
+     * @param method the JSON-RPC method
+     * @param handler function from the request params to the result
+     */
+    public void overrideRequest(String method, Function<Object, Mono<?>> handler) {
+        requestHandlers.put(method, handler);
+    }
+
+    /**
+     * Registers a listener notified of session lifecycle events.
+     *
+     * @param listener the listener
+     */
+    public void addSessionListener(SessionListener listener) {
+        sessionListeners.add(listener);
+    }
+
+    private void fire(String event, Consumer<SessionListener> callback) {
+        for (SessionListener listener : sessionListeners) {
+            try {
+                callback.accept(listener);
+            } catch (Exception e) {
+                log.warn("Session listener failed on {}", event, e);
+            }
+        }
+    }
+
+    @Override
+    public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+        delegate.setSessionFactory(transport -> {
+            SuppressingTransport suppressing = new SuppressingTransport(transport);
+            return new InterceptingSession(sessionFactory.create(suppressing), suppressing);
+        });
+    }
+
+    @Override
+    public Mono<Void> notifyClients(String method, Object params) {
+        return delegate.notifyClients(method, params);
+    }
+
+    @Override
+    public Mono<Void> closeGracefully() {
+        return delegate.closeGracefully();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    /**
+     * Extracts the progress token from the {@code _meta} of a request's params.
+     *
+     * @param params the raw request params
+     * @return the progress token, or null if absent
+     */
+    static Object progressToken(Object params) {
+        if (params instanceof Map<?, ?> map && map.get("_meta") instanceof Map<?, ?> meta) {
+            return meta.get("progressToken");
+        }
+        return null;
+    }
+
+    /**
+     * Transport that waits for the responses of the requests it received, and must be told when
+     * one will never be sent.
+     */
+    interface AwaitingTransport {
+        /**
+         * Stops waiting for the response to a request.
+         *
+         * @param requestId the id of the request that will not be answered
+         */
+        void abandon(Object requestId);
+    }
+
+    /**
+     * Transport of the SDK session, dropping the responses to calls the client cancelled.
+     */
+    private static class SuppressingTransport implements McpServerTransport {
+
+        private final McpServerTransport delegate;
+        private final Set<Object> suppressed = ConcurrentHashMap.newKeySet();
+
+        SuppressingTransport(McpServerTransport delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * Drops the response to a request, if it was not sent yet.
+         *
+         * @param requestId the request id
+         */
+        void suppress(Object requestId) {
+            suppressed.add(requestId);
+            if (delegate instanceof AwaitingTransport awaiting) {
+                awaiting.abandon(requestId);
+            }
+        }
+
+        /**
+         * Forgets a request once its handling is over, whether its response was dropped or not.
+         *
+         * @param requestId the request id
+         */
+        void finished(Object requestId) {
+            suppressed.remove(requestId);
+        }
+
+        @Override
+        public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+            if (message instanceof McpSchema.JSONRPCResponse response && suppressed.remove(response.id())) {
+                log.debug("Not answering cancelled request {}", response.id());
+                return Mono.empty();
+            }
+            return delegate.sendMessage(message);
+        }
+
+        @Override
+        public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+            return delegate.unmarshalFrom(data, typeRef);
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return delegate.closeGracefully();
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+
+    /**
+     * Session that delegates everything to the SDK session, adding the call context to tool calls.
+     */
+    private class InterceptingSession extends McpServerSession {
+
+        private final McpServerSession delegate;
+        private final SuppressingTransport transport;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile Map<?, ?> clientCapabilities = Map.of();
+        private final Map<Object, ToolCallContext> inFlight = new ConcurrentHashMap<>();
+        private final CallWindow window = new CallWindow(maxInFlight, maxQueued);
+
+        InterceptingSession(McpServerSession delegate, SuppressingTransport transport) {
+            super(delegate.getId(), Duration.ZERO, transport, null, null, Map.of(), Map.of());
+            this.delegate = delegate;
+            this.transport = transport;
+        }
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public void init(McpSchema.ClientCapabilities clientCapabilities, McpSchema.Implementation clientInfo) {
+            delegate.init(clientCapabilities, clientInfo);
+        }
+
+        @Override
+        public <T> Mono<T> sendRequest(String method, Object requestParams, TypeReference<T> typeRef) {
+            return delegate.sendRequest(method, requestParams, typeRef);
+        }
+
+        @Override
+        public Mono<Void> sendNotification(String method, Object params) {
+            return delegate.sendNotification(method, params);
+        }
+
+        @Override
+        public Mono<Void> handle(McpSchema.JSONRPCMessage message) {
+            if (message instanceof McpSchema.JSONRPCRequest request) {
+                Function<Object, Mono<?>> handler = requestHandlers.get(request.method());
+                if (handler != null) {
+                    return respond(request, handler);
+                }
+                if (McpSchema.METHOD_INITIALIZE.equals(request.method())
+                        && request.params() instanceof Map<?, ?> params
+                        && params.get("capabilities") instanceof Map<?, ?> capabilities) {
+                    clientCapabilities = capabilities;
+                }
+            }
+            if (message instanceof McpSchema.JSONRPCRequest request
+                    && McpSchema.METHOD_TOOLS_CALL.equals(request.method())) {
+                return Mono.fromRunnable(() -> dispatch(request));
+            }
+            if (message instanceof McpSchema.JSONRPCNotification notification
+                    && METHOD_NOTIFICATION_CANCELLED.equals(notification.method())) {
+                return Mono.fromRunnable(() -> cancel(notification.params()));
+            }
+            if (message instanceof McpSchema.JSONRPCNotification notification && !sessionListeners.isEmpty()) {
+                return delegate.handle(message).doOnSuccess(v -> notified(notification));
+            }
+            return delegate.handle(message);
+        }
+
+        /**
+         * Starts a tool call once the session has a free slot, without waiting for it to finish.
+         * The SDK session sends the response when the call completes.
+         *
+         * @param request the tools/call request
+         */
+        private void dispatch(McpSchema.JSONRPCRequest request) {
+            ToolCallContext call = new ToolCallContext(delegate, request.id(), progressToken(request.params()));
+            inFlight.put(request.id(), call);
+            Mono<Void> handling = delegate.handle(request)
+                    .contextWrite(Context.of(ToolCallContext.CONTEXT_KEY, call))
+                    // Binding and validation run off the thread reading the connection
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .doFinally(signal -> {
+                        inFlight.remove(request.id(), call);
+                        transport.finished(request.id());
+                        window.finished();
+                    });
+            boolean accepted = window.submit(() -> handling.subscribe(null,
+                    e -> log.error("Error handling tool call {} in session {}", request.id(), getId(), e)));
+            if (!accepted) {
+                inFlight.remove(request.id(), call);
+                log.warn("Session {} has too many tool calls waiting, rejecting request {}", getId(), request.id());
+                McpSchema.CallToolResult busy = new McpSchema.CallToolResult(
+                        "Too many calls in flight for this session, retry when some have completed", true);
+                transport.sendMessage(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), busy, null))
+                        .subscribe(null, e -> log.warn("Failed to reject request {}: {}", request.id(), e.getMessage()));
+            }
+        }
+
+        private void notified(McpSchema.JSONRPCNotification notification) {
+            if (McpSchema.METHOD_NOTIFICATION_INITIALIZED.equals(notification.method())) {
+                fire(notification.method(), listener -> listener.onInitialized(delegate, clientCapabilities));
+            }
+            fire(notification.method(), listener -> listener.onNotification(delegate, notification.method(), notification.params()));
+        }
+
+        private void closed() {
+            if (closed.compareAndSet(false, true)) {
+                fire("close", listener -> listener.onClosed(delegate));
+            }
+        }
+
+        private Mono<Void> respond(McpSchema.JSONRPCRequest request, Function<Object, Mono<?>> handler) {
+            return Mono.defer(() -> handler.apply(request.params()))
+                    .map(result -> new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), result, null))
+                    // No result: the SDK answers as usual
+                    .switchIfEmpty(Mono.defer(() -> delegate.handle(request).then(Mono.empty())))
+                    .onErrorResume(e -> {
+                        McpSchema.JSONRPCResponse.JSONRPCError error = e instanceof McpError mcpError && mcpError.getJsonRpcError() != null
+                                ? mcpError.getJsonRpcError()
+                                : new McpSchema.JSONRPCResponse.JSONRPCError(McpSchema.ErrorCodes.INTERNAL_ERROR, e.getMessage(), null);
+                        return Mono.just(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), null, error));
+                    })
+                    .flatMap(transport::sendMessage);
+        }
+
+        private void cancel(Object params) {
+            if (!(params instanceof Map<?, ?> map)) {
+                return;
+            }
+            Object requestId = map.get("requestId");
+            ToolCallContext call = requestId != null ? inFlight.get(requestId) : null;
+            if (call == null) {
+                // Already finished or unknown, nothing to do
+                log.debug("Cancellation for unknown request {} in session {}", requestId, getId());
+                return;
+            }
+            Object reason = map.get("reason");
+            log.info("Client cancelled request {} in session {}{}", requestId, getId(), reason != null ? ": " + reason : "");
+            transport.suppress(requestId);
+            call.getCallContext().cancel(reason != null ? reason.toString() : null);
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return delegate.closeGracefully().doFinally(signal -> closed());
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+            closed();
+        }
+    }
+
+    /**
+     * Tool calls of one session running at once, and those waiting for a slot in arrival order.
+     */
+    private static final class CallWindow {
+        private final int limit;
+        private final int queueLimit;
+        private final Deque<Runnable> waiting = new ArrayDeque<>();
+        private int running;
+
+        CallWindow(int limit, int queueLimit) {
+            this.limit = limit;
+            this.queueLimit = queueLimit;
+        }
+
+        /**
+         * Starts a call now if a slot is free, otherwise queues it.
+         *
+         * @param start starts the call
+         * @return false if the queue is full and the call was not accepted
+         */
+        boolean submit(Runnable start) {
+            synchronized (this) {
+                if (running >= limit) {
+                    if (waiting.size() >= queueLimit) {
+                        return false;
+                    }
+                    waiting.addLast(start);
+                    return true;
+                }
+                running++;
+            }
+            start.run();
+            return true;
+        }
+
+        /**
+         * Hands the slot of a finished call to the next waiting call, if any.
+         */
+        void finished() {
+            Runnable next;
+            synchronized (this) {
+                next = waiting.pollFirst();
+                if (next == null) {
+                    running--;
+                    return;
+                }
+            }
+            next.run();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.gegolabs.mcp.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Output stream collecting a serialized message in chunks taken from a {@link BufferPool}.
+ * <p>
+ * Chunks double in size as the message grows, so a message is never copied to make room. The
+ * buffer has a single owner at a time: whoever holds it writes it out with {@link #writeTo} and
+ * then calls {@link #release()}, which returns the chunks to the pool. Releasing twice is
+ * harmless, but the buffer cannot be written to or read once released.
+ * <p>
+ * {@link #close()} does nothing, so serializers that close their target do not release the
+ * buffer early. Not thread-safe.
+ */
+public final class PooledBuffer extends OutputStream {
+
+    private final BufferPool pool;
+    private final List<ByteBuffer> chunks = new ArrayList<>(2);
+    private ByteBuffer current;
+    private long size;
+    private boolean released;
+
+    PooledBuffer(BufferPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void write(int b) {
+        ensureRemaining().put((byte) b);
+        size++;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        while (length > 0) {
+            ByteBuffer chunk = ensureRemaining();
+            int count = Math.min(length, chunk.remaining());
+            chunk.put(bytes, offset, count);
+            offset += count;
+            length -= count;
+            size += count;
+        }
+    }
+
+    /**
+     * Gets the number of bytes written.
+     *
+     * @return the size in bytes
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Writes the contents to a stream. The buffer keeps its contents and can be written again.
+     *
+     * @param out the target stream
+     * @throws IOException if the stream fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        checkNotReleased();
+        byte[] scratch = null;
+        for (ByteBuffer chunk : chunks) {
+            if (chunk.hasArray()) {
+                out.write(chunk.array(), chunk.arrayOffset(), chunk.position());
+                continue;
+            }
+            if (scratch == null) {
+                scratch = new byte[8192];
+            }
+            for (int start = 0; start < chunk.position(); start += scratch.length) {
+                int count = Math.min(scratch.length, chunk.position() - start);
+                chunk.get(start, scratch, 0, count);
+                out.write(scratch, 0, count);
+            }
+        }
+    }
+
+    /**
+     * Returns the chunks to the pool.
+     */
+    public void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        for (ByteBuffer chunk : chunks) {
+            pool.release(chunk);
+        }
+        chunks.clear();
+        current = null;
+    }
+
+    /**
+     * Does nothing; use {@link #release()} once the contents are written.
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Decodes the contents as UTF-8, for logging and tests.
+     *
+     * @return the contents
+     */
+    @Override
+    public String toString() {
+        if (released) {
+            return "PooledBuffer[released]";
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(size, Integer.MAX_VALUE));
+        try {
+            writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer ensureRemaining() {
+        checkNotReleased();
+        if (current == null || !current.hasRemaining()) {
+            current = pool.acquire(pool.nextChunkSize(current != null ? current.capacity() : 0));
+            chunks.add(current);
+        }
+        return current;
+    }
+
+    private void checkNotReleased() {
+        if (released) {
+            throw new IllegalStateException("Buffer already released");
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.gegolabs.mcp.transport;
+
+import io.modelcontextprotocol.spec.McpServerSession;
+
+import java.util.Map;
+
+/**
+ * Callbacks on the lifecycle of client sessions, fired by {@link InterceptingTransportProvider}.
+ * <p>
+ * Callbacks run on the transport's threads and must not block.
+ */
+public interface SessionListener {
+
+    /**
+     * Called once the client has sent {@code notifications/initialized}.
+     *
+     * @param session the SDK session, usable to send requests to the client
+     * @param clientCapabilities the capabilities from the client's initialize request, never null
+     */
+    default void onInitialized(McpServerSession session, Map<?, ?> clientCapabilities) {
+    }
+
+    /**
+     * Called after the SDK handled a notification from the client.
+     *
+     * @param session the SDK session
+     * @param method the notification method
+     * @param params the raw notification params, may be null
+     */
+    default void onNotification(McpServerSession session, String method, Object params) {
+    }
+
+    /**
+     * Called once when the session is closed.
+     *
+     * @param session the SDK session
+     */
+    default void onClosed(McpServerSession session) {
+    }
+}
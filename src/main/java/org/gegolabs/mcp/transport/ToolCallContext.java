@@ -0,0 +1,105 @@
+package org.gegolabs.mcp.transport;
+
+import io.modelcontextprotocol.spec.McpServerSession;
+import lombok.Getter;
+import org.gegolabs.mcp.protocol.CallContext;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Protocol-level details of one {@code tools/call} request that the SDK does not hand to tool handlers:
+ * the request id, the client's progress token, a channel for notifications back to the session and
+ * the {@link CallContext} used to cancel the call.
+ * <p>
+ * Set by {@link InterceptingTransportProvider} in the Reactor context of the request, so tool handlers
+ * can read it with {@link #current()}.
+ */
+public final class ToolCallContext {
+
+    /**
+     * Reactor context key under which the call context is stored.
+     */
+    public static final String CONTEXT_KEY = ToolCallContext.class.getName();
+
+    /**
+     * Method name of MCP progress notifications.
+     */
+    public static final String METHOD_NOTIFICATION_PROGRESS = "notifications/progress";
+
+    /**
+     * Id of the session that sent the request.
+     */
+    @Getter
+    private final String sessionId;
+
+    /**
+     * JSON-RPC id of the request.
+     */
+    @Getter
+    private final Object requestId;
+
+    /**
+     * Progress token from the request's {@code _meta}, or null if the client did not ask for progress.
+     */
+    @Getter
+    private final Object progressToken;
+
+    /**
+     * Capability-facing state of the call, used to signal cancellation.
+     */
+    @Getter
+    private final CallContext callContext;
+
+    private final McpServerSession session;
+
+    /**
+     * Creates a new call context.
+     *
+     * @param session the session that sent the request
+     * @param requestId the JSON-RPC id of the request
+     * @param progressToken the client's progress token, may be null
+     */
+    public ToolCallContext(McpServerSession session, Object requestId, Object progressToken) {
+        this.session = session;
+        this.sessionId = session.getId();
+        this.requestId = requestId;
+        this.progressToken = progressToken;
+        this.callContext = new CallContext(sessionId, requestId);
+    }
+
+    /**
+     * Gets the call context of the current request from the Reactor context.
+     *
+     * @return the call context, or empty when the call did not arrive through an intercepted transport
+     */
+    public static Mono<ToolCallContext> current() {
+        return Mono.deferContextual(context -> Mono.justOrEmpty(context.<ToolCallContext>getOrEmpty(CONTEXT_KEY)));
+    }
+
+    /**
+     * Sends a progress notification for this call. Does nothing if the client sent no progress token.
+     *
+     * @param progress progress so far, increasing with each notification
+     * @param total total expected progress, may be null if unknown
+     * @param message optional human-readable message or partial result
+     * @return a Mono completing when the notification has been handed to the transport
+     */
+    public Mono<Void> sendProgress(double progress, Double total, String message) {
+        if (progressToken == null) {
+            return Mono.empty();
+        }
+        // A map keeps the token's original JSON type (string or number)
+        Map<String, Object> params = new HashMap<>();
+        params.put("progressToken", progressToken);
+        params.put("progress", progress);
+        if (total != null) {
+            params.put("total", total);
+        }
+        if (message != null) {
+            params.put("message", message);
+        }
+        return session.sendNotification(METHOD_NOTIFICATION_PROGRESS, params);
+    }
+}
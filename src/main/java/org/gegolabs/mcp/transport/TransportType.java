@@ -0,0 +1,18 @@
+package org.gegolabs.mcp.transport;
+
+/**
+ * Network transports supported by {@link org.gegolabs.mcp.MCPServer}.
+ */
+public enum TransportType {
+    /**
+     * Raw TCP transport via mcp-java-bridge. Clients such as Claude Desktop
+     * connect through the bridge connector.
+     */
+    TCP,
+
+    /**
+     * Streamable HTTP transport (POST + Server-Sent Events) served directly
+     * by the server process. No connector process is needed.
+     */
+    HTTP
+}
@@ -0,0 +1,175 @@
+package org.gegolabs.mcp;
+
+import io.modelcontextprotocol.server.McpAsyncServer;
+import io.modelcontextprotocol.server.McpServer;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.gegolabs.mcp.protocol.StreamingCapability;
+import org.gegolabs.mcp.scheduling.BulkheadExecutor;
+import org.gegolabs.mcp.transport.HttpServerTransportProvider;
+import org.gegolabs.mcp.transport.InterceptingTransportProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import reactor.adapter.JdkFlowAdapter;
+import reactor.core.publisher.Flux;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for streaming capabilities and progress notifications.
+ */
+@Timeout(value = 10, unit = TimeUnit.SECONDS)
+class StreamingCapabilityTest {
+
+    private HttpServerTransportProvider transport;
+    private McpAsyncServer server;
+    private HttpClient client;
+    private URI endpoint;
+    private BulkheadExecutor bulkhead;
+    private ToolContainer isolated;
+
+    static class Countdown implements StreamingCapability<Integer, String> {
+        @Override
+        public Flow.Publisher<String> stream(Integer from) {
+            return JdkFlowAdapter.publisherToFlowPublisher(Flux.range(0, from).map(i -> "chunk-" + (from - i)));
+        }
+
+        @Override
+        public StringBuilder accumulate(StringBuilder result, String chunk) {
+            // Keep only the last chunk
+            result.setLength(0);
+            return result.append(chunk);
+        }
+    }
+
+    /**
+     * A streaming tool whose chunks name the thread that produced them.
+     */
+    static class Threads implements StreamingCapability<Integer, String> {
+        @Override
+        public Flow.Publisher<String> stream(Integer count) {
+            return JdkFlowAdapter.publisherToFlowPublisher(Flux.range(0, count).map(i -> Thread.currentThread().getName() + ";"));
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        transport = HttpServerTransportProvider.builder().port(0).build();
+        server = McpServer.async(new InterceptingTransportProvider(transport))
+                .serverInfo("streaming-test", "1.0.0")
+                .capabilities(McpSchema.ServerCapabilities.builder().tools(true).build())
+                .build();
+        server.addTool(ToolContainer.builder().tool(new Countdown()).build().getAsyncToolSpecification()).block();
+        bulkhead = BulkheadExecutor.builder().name("streams").threads(1).build();
+        isolated = ToolContainer.builder().tool(new Threads()).bulkhead(bulkhead).build();
+        server.addTool(isolated.getAsyncToolSpecification()).block();
+        transport.start();
+
+        client = HttpClient.newHttpClient();
+        endpoint = URI.create("http://localhost:" + transport.getPort() + "/mcp");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        bulkhead.shutdown();
+    }
+
+    /**
+     * Test that chunks are accumulated into the final result when executed directly.
+     */
+    @Test
+    void testExecuteAccumulatesChunks() throws Exception {
+        assertEquals("chunk-1", new Countdown().execute(3));
+    }
+
+    /**
+     * Test that by default the final result is every chunk, in order.
+     */
+    @Test
+    void testDefaultAccumulationKeepsEveryChunk() throws Exception {
+        StreamingCapability<Integer, String> countdown = from -> new Countdown().stream(from);
+
+        assertEquals("chunk-3chunk-2chunk-1", countdown.execute(3));
+    }
+
+    /**
+     * Test that each chunk is sent as a progress notification before the final result.
+     */
+    @Test
+    void testChunksForwardedAsProgress() throws Exception {
+        String session = initialize();
+
+        String body = post(session, "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/call\",\"params\":"
+                + "{\"name\":\"Countdown\",\"arguments\":{\"value\":3},\"_meta\":{\"progressToken\":\"tok-1\"}}}").body();
+
+        assertEquals(3, body.split("notifications/progress", -1).length - 1);
+        assertTrue(body.indexOf("chunk-3") < body.indexOf("chunk-2"));
+        assertTrue(body.contains("\"progressToken\":\"tok-1\""));
+        assertTrue(body.lastIndexOf("\"id\":2") > body.lastIndexOf("notifications/progress"));
+    }
+
+    /**
+     * Test that no progress is sent when the client did not ask for it.
+     */
+    @Test
+    void testNoProgressWithoutToken() throws Exception {
+        String session = initialize();
+
+        String body = post(session, "{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"tools/call\",\"params\":"
+                + "{\"name\":\"Countdown\",\"arguments\":{\"value\":2}}}").body();
+
+        assertFalse(body.contains("notifications/progress"));
+        assertTrue(body.contains("chunk-1"));
+    }
+
+    /**
+     * Test that a streaming tool runs on its bulkhead whether or not the client asked for progress,
+     * and when another capability streams it.
+     */
+    @Test
+    void testStreamsRunOnTheBulkhead() throws Exception {
+        String session = initialize();
+
+        for (String meta : List.of("", ",\"_meta\":{\"progressToken\":\"tok-2\"}")) {
+            String body = post(session, "{\"jsonrpc\":\"2.0\",\"id\":4,\"method\":\"tools/call\",\"params\":"
+                    + "{\"name\":\"Threads\",\"arguments\":{\"value\":3}" + meta + "}}").body();
+            String result = body.substring(body.lastIndexOf("\"text\""));
+            assertEquals(3, result.split("umcp-bulkhead-streams-", -1).length - 1, body);
+        }
+
+        List<Object> chunks = isolated.stream(Map.of("value", 2)).collectList().block();
+        assertEquals(2, chunks.size());
+        chunks.forEach(chunk -> assertTrue(chunk.toString().startsWith("umcp-bulkhead-streams-"), chunk.toString()));
+        assertEquals(3, bulkhead.getStats().completed());
+    }
+
+    private String initialize() throws Exception {
+        HttpResponse<String> response = post(null, "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":"
+                + "{\"protocolVersion\":\"2024-11-05\",\"capabilities\":{},\"clientInfo\":{\"name\":\"test\",\"version\":\"1.0\"}}}");
+        String session = response.headers().firstValue(HttpServerTransportProvider.SESSION_HEADER).orElseThrow();
+        post(session, "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}");
+        return session;
+    }
+
+    private HttpResponse<String> post(String session, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(endpoint)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json, text/event-stream")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (session != null) {
+            request.header(HttpServerTransportProvider.SESSION_HEADER, session);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
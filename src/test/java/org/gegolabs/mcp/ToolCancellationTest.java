@@ -0,0 +1,147 @@
+package org.gegolabs.mcp;
+
+import io.modelcontextprotocol.server.McpAsyncServer;
+import io.modelcontextprotocol.server.McpServer;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.gegolabs.mcp.protocol.CallContext;
+import org.gegolabs.mcp.protocol.CapabilityException;
+import org.gegolabs.mcp.protocol.SyncCapability;
+import org.gegolabs.mcp.transport.HttpServerTransportProvider;
+import org.gegolabs.mcp.transport.InterceptingTransportProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for cancellation of in-flight tool calls.
+ */
+@Timeout(value = 10, unit = TimeUnit.SECONDS)
+class ToolCancellationTest {
+
+    /**
+     * A capability that blocks until interrupted.
+     */
+    static class Sleeper implements SyncCapability<String, String> {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        @Override
+        public String execute(String input) throws CapabilityException {
+            started.countDown();
+            try {
+                Thread.sleep(30_000);
+                return "woke up";
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw new CapabilityException("Interrupted", e);
+            }
+        }
+    }
+
+    /**
+     * Test that cancelling the call context interrupts the default asynchronous execution.
+     */
+    @Test
+    void testCancelInterruptsDefaultExecution() throws Exception {
+        Sleeper sleeper = new Sleeper();
+        CallContext context = new CallContext(1);
+
+        CompletableFuture<String> future = context.call(() -> sleeper.executeAsync("x"));
+        sleeper.started.await();
+        context.cancel("test");
+
+        assertTrue(sleeper.interrupted.await(2, TimeUnit.SECONDS));
+        assertTrue(future.isCancelled());
+    }
+
+    /**
+     * Test that the call context reaches the executor thread for cooperative checks.
+     */
+    @Test
+    void testIsCancelledVisibleToCapability() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        CallContext context = new CallContext(1);
+        SyncCapability<String, String> polling = new SyncCapability<>() {
+            @Override
+            public String execute(String input) {
+                started.countDown();
+                while (!isCancelled()) {
+                    Thread.onSpinWait();
+                }
+                cancelled.countDown();
+                return "stopped";
+            }
+        };
+
+        context.call(() -> polling.executeAsync("x"));
+        started.await();
+        context.cancel(null);
+
+        assertTrue(cancelled.await(2, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Test that a notifications/cancelled message from the client stops the running tool, and
+     * that no response is sent for the cancelled call.
+     */
+    @Test
+    void testClientCancellationStopsTool() throws Exception {
+        Sleeper sleeper = new Sleeper();
+        HttpServerTransportProvider transport = HttpServerTransportProvider.builder().port(0).build();
+        McpAsyncServer server = McpServer.async(new InterceptingTransportProvider(transport))
+                .serverInfo("cancel-test", "1.0.0")
+                .capabilities(McpSchema.ServerCapabilities.builder().tools(true).build())
+                .build();
+        try {
+            server.addTool(ToolContainer.builder().tool(sleeper).build().getAsyncToolSpecification()).block();
+            transport.start();
+            HttpClient client = HttpClient.newHttpClient();
+            URI endpoint = URI.create("http://localhost:" + transport.getPort() + "/mcp");
+
+            HttpResponse<String> init = client.send(request(endpoint, null,
+                    "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{\"protocolVersion\":\"2024-11-05\","
+                            + "\"capabilities\":{},\"clientInfo\":{\"name\":\"test\",\"version\":\"1.0\"}}}"),
+                    HttpResponse.BodyHandlers.ofString());
+            String session = init.headers().firstValue(HttpServerTransportProvider.SESSION_HEADER).orElseThrow();
+            client.send(request(endpoint, session, "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}"),
+                    HttpResponse.BodyHandlers.ofString());
+
+            CompletableFuture<HttpResponse<String>> call = client.sendAsync(request(endpoint, session,
+                    "{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"tools/call\",\"params\":{\"name\":\"Sleeper\",\"arguments\":{\"value\":\"x\"}}}"),
+                    HttpResponse.BodyHandlers.ofString());
+            assertTrue(sleeper.started.await(5, TimeUnit.SECONDS));
+
+            client.send(request(endpoint, session,
+                    "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/cancelled\",\"params\":{\"requestId\":7,\"reason\":\"no longer needed\"}}"),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertTrue(sleeper.interrupted.await(2, TimeUnit.SECONDS));
+            HttpResponse<String> response = call.get(5, TimeUnit.SECONDS);
+            assertEquals(202, response.statusCode());
+            assertEquals("", response.body());
+        } finally {
+            server.close();
+        }
+    }
+
+    private static HttpRequest request(URI endpoint, String session, String body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(endpoint)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (session != null) {
+            request.header(HttpServerTransportProvider.SESSION_HEADER, session);
+        }
+        return request.build();
+    }
+}
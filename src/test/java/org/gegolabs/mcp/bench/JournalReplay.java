@@ -0,0 +1,173 @@
+package org.gegolabs.mcp.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.gegolabs.mcp.journal.JournalEntry;
+import org.gegolabs.mcp.journal.JournalReader;
+import org.gegolabs.mcp.transport.HttpServerTransportProvider;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays the calls recorded by a {@code CallJournal} against a server on the HTTP transport and
+ * reports latency percentiles per tool, next to the latencies recorded in the journal.
+ * <p>
+ * Calls are sent at their recorded offsets, divided by the speed factor, whether or not earlier
+ * calls have returned. Latency is measured from when a call was due rather than when it was sent,
+ * so a stalled server shows up in the percentiles instead of slowing the replay down.
+ * <p>
+ * Run through the {@code replayJournal} Gradle task:
+ * <pre>
+ * ./gradlew replayJournal -Pjournal=logs/journal -Ptarget=http://localhost:8080/mcp -Pspeed=2
+ * </pre>
+ */
+public final class JournalReplay {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private JournalReplay() {
+    }
+
+    /**
+     * Runs the replay.
+     * Reads {@code umcp.replay.journal}, {@code umcp.replay.target}, {@code umcp.replay.speed}
+     * (default 1) and {@code umcp.replay.sessions} (default 4) from the system properties.
+     *
+     * @param args unused
+     * @throws Exception if the journal cannot be read or the server cannot be reached
+     */
+    public static void main(String[] args) throws Exception {
+        String journal = System.getProperty("umcp.replay.journal");
+        if (journal == null) {
+            throw new IllegalArgumentException("umcp.replay.journal is required");
+        }
+        URI target = URI.create(System.getProperty("umcp.replay.target", "http://localhost:3000/mcp"));
+        double speed = Double.parseDouble(System.getProperty("umcp.replay.speed", "1"));
+        int sessionCount = Integer.getInteger("umcp.replay.sessions", 4);
+
+        List<JournalEntry> entries = new ArrayList<>(JournalReader.readAll(Path.of(journal)));
+        if (entries.isEmpty()) {
+            System.out.println("Journal " + journal + " has no calls");
+            return;
+        }
+        entries.sort((a, b) -> Long.compare(a.startEpochNanos(), b.startEpochNanos()));
+
+        HttpClient client = HttpClient.newHttpClient();
+        List<String> sessions = new ArrayList<>();
+        for (int i = 0; i < sessionCount; i++) {
+            sessions.add(openSession(client, target));
+        }
+
+        Map<String, Stats> stats = new ConcurrentHashMap<>();
+        List<CompletableFuture<?>> pending = new ArrayList<>(entries.size());
+        AtomicLong ids = new AtomicLong(100);
+        long firstRecorded = entries.get(0).startEpochNanos();
+        long replayStart = System.nanoTime();
+        for (int i = 0; i < entries.size(); i++) {
+            JournalEntry entry = entries.get(i);
+            long due = replayStart + (long) ((entry.startEpochNanos() - firstRecorded) / speed);
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Stats tool = stats.computeIfAbsent(entry.tool(), name -> new Stats());
+            tool.recorded.add(entry.durationNanos());
+            String body = "{\"jsonrpc\":\"2.0\",\"id\":" + ids.incrementAndGet() + ",\"method\":\"tools/call\",\"params\":{\"name\":"
+                    + OBJECT_MAPPER.writeValueAsString(entry.tool()) + ",\"arguments\":"
+                    + (entry.argumentsJson() != null ? entry.argumentsJson() : "{}") + "}}";
+            pending.add(client.sendAsync(request(target, sessions.get(i % sessions.size()), body), HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, error) -> {
+                        tool.replayed.add(System.nanoTime() - due);
+                        if (error != null || response.statusCode() != 200 || response.body().contains("\"isError\":true")
+                                || response.body().contains("\"error\":{")) {
+                            tool.errors.incrementAndGet();
+                        }
+                    }));
+        }
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+        double elapsed = (System.nanoTime() - replayStart) / 1e9;
+        double recordedSpan = (entries.get(entries.size() - 1).startEpochNanos() - firstRecorded) / 1e9;
+
+        System.out.printf("Replayed %d calls in %.1f s (recorded over %.1f s, speed x%s, %d sessions)%n",
+                entries.size(), elapsed, recordedSpan, speed, sessionCount);
+        System.out.printf("%-28s %7s %6s %9s %9s %9s %9s %9s | %9s %9s%n", "tool (ms)", "calls", "errors",
+                "p50", "p90", "p99", "p99.9", "max", "rec p50", "rec p99");
+        for (Map.Entry<String, Stats> tool : new TreeMap<>(stats).entrySet()) {
+            long[] replayed = tool.getValue().replayed.sorted();
+            long[] recorded = tool.getValue().recorded.sorted();
+            System.out.printf("%-28s %7d %6d %9.2f %9.2f %9.2f %9.2f %9.2f | %9.2f %9.2f%n", tool.getKey(),
+                    replayed.length, tool.getValue().errors.get(),
+                    percentile(replayed, 50), percentile(replayed, 90), percentile(replayed, 99), percentile(replayed, 99.9),
+                    percentile(replayed, 100), percentile(recorded, 50), percentile(recorded, 99));
+        }
+    }
+
+    private static String openSession(HttpClient client, URI target) throws Exception {
+        HttpResponse<String> init = client.send(request(target, null,
+                "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{\"protocolVersion\":\"2024-11-05\","
+                        + "\"capabilities\":{},\"clientInfo\":{\"name\":\"journal-replay\",\"version\":\"1.0\"}}}"),
+                HttpResponse.BodyHandlers.ofString());
+        String session = init.headers().firstValue(HttpServerTransportProvider.SESSION_HEADER)
+                .orElseThrow(() -> new IllegalStateException("No session from " + target + ": " + init.body()));
+        client.send(request(target, session, "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}"),
+                HttpResponse.BodyHandlers.ofString());
+        return session;
+    }
+
+    private static HttpRequest request(URI target, String session, String body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(target)
+                .timeout(Duration.ofMinutes(1))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json, text/event-stream")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (session != null) {
+            request.header(HttpServerTransportProvider.SESSION_HEADER, session);
+        }
+        return request.build();
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+
+    private static final class Stats {
+        final Samples replayed = new Samples();
+        final Samples recorded = new Samples();
+        final AtomicLong errors = new AtomicLong();
+    }
+
+    private static final class Samples {
+        private long[] values = new long[64];
+        private int size;
+
+        synchronized void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
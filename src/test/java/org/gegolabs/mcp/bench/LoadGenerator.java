@@ -0,0 +1,230 @@
+package org.gegolabs.mcp.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Drives a server with tool calls from many concurrent sessions at a fixed target rate and reports
+ * throughput and latency percentiles per tool.
+ * <p>
+ * The generator lists the server's tools and calls them at random with arguments generated from
+ * their input schemas. Calls are scheduled open loop: the n-th call is due at {@code n / rate}
+ * seconds and is sent then whether or not earlier calls have returned. Latency is measured from
+ * when a call was due rather than when it was sent, so a server that stalls is charged for every
+ * call that should have gone out during the stall instead of slowing the generator down
+ * (coordinated omission). Calls due during the warm-up are sent but not measured.
+ * <p>
+ * Sessions use the TCP transport by default, one newline-delimited JSON-RPC connection each, or
+ * the HTTP transport. Run through the {@code loadTest} Gradle task:
+ * <pre>
+ * ./gradlew loadTest -Ptarget=localhost:3000 -Psessions=32 -Prate=500 -Pduration=60
+ * ./gradlew loadTest -Ptransport=http -Ptarget=http://localhost:8080/mcp -Ptools=SystemInformation
+ * </pre>
+ */
+public final class LoadGenerator {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private LoadGenerator() {
+    }
+
+    /**
+     * Runs the load test.
+     * Reads {@code umcp.load.target} ({@code host:port} for TCP, a URL for HTTP),
+     * {@code umcp.load.transport} ({@code tcp} or {@code http}, default tcp),
+     * {@code umcp.load.sessions} (default 16), {@code umcp.load.rate} in calls per second (default 100),
+     * {@code umcp.load.duration} and {@code umcp.load.warmup} in seconds (default 30 and 5),
+     * {@code umcp.load.tools} (comma-separated, default all) and {@code umcp.load.seed}
+     * from the system properties.
+     *
+     * @param args unused
+     * @throws Exception if the server cannot be reached or has no tools to call
+     */
+    public static void main(String[] args) throws Exception {
+        String target = System.getProperty("umcp.load.target", "localhost:3000");
+        boolean http = "http".equalsIgnoreCase(System.getProperty("umcp.load.transport", "tcp"));
+        int sessionCount = Integer.getInteger("umcp.load.sessions", 16);
+        double rate = Double.parseDouble(System.getProperty("umcp.load.rate", "100"));
+        double duration = Double.parseDouble(System.getProperty("umcp.load.duration", "30"));
+        double warmup = Double.parseDouble(System.getProperty("umcp.load.warmup", "5"));
+        String toolFilter = System.getProperty("umcp.load.tools", "");
+        Random random = new Random(Long.getLong("umcp.load.seed", System.nanoTime()));
+        if (rate <= 0 || duration <= 0 || sessionCount <= 0) {
+            throw new IllegalArgumentException("Rate, duration and sessions must be positive");
+        }
+
+        List<McpClientSession> sessions = new ArrayList<>();
+        HttpClient client = http ? HttpClient.newHttpClient() : null;
+        try {
+            for (int i = 0; i < sessionCount; i++) {
+                sessions.add(open(target, http, client));
+            }
+            Map<String, JsonNode> schemas = listTools(sessions.get(0), toolFilter);
+            if (schemas.isEmpty()) {
+                throw new IllegalStateException("No tools to call on " + target
+                        + (toolFilter.isBlank() ? "" : " matching " + toolFilter));
+            }
+            run(sessions, schemas, rate, duration, warmup, random, target, http);
+        } finally {
+            for (McpClientSession session : sessions) {
+                try {
+                    session.close();
+                } catch (Exception e) {
+                    // The server may already be gone
+                }
+            }
+        }
+    }
+
+    private static void run(List<McpClientSession> sessions, Map<String, JsonNode> schemas, double rate, double duration,
+                            double warmup, Random random, String target, boolean http) {
+        List<String> tools = new ArrayList<>(schemas.keySet());
+        Map<String, Stats> stats = new TreeMap<>();
+        tools.forEach(tool -> stats.put(tool, new Stats()));
+
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + (long) (warmup * 1e9);
+        long end = measureFrom + (long) (duration * 1e9);
+        long maxLag = 0;
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        System.out.printf("Calling %d tools on %s over %s: %d sessions, %.0f calls/s, %.0f s warm-up, %.0f s measured%n",
+                tools.size(), target, http ? "HTTP" : "TCP", sessions.size(), rate, warmup, duration);
+
+        for (long n = 0; ; n++) {
+            long due = start + n * interval;
+            if (due >= end) {
+                break;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else {
+                maxLag = Math.max(maxLag, -wait);
+            }
+            String tool = tools.get(random.nextInt(tools.size()));
+            ObjectNode params = McpClientSession.OBJECT_MAPPER.createObjectNode().put("name", tool);
+            params.set("arguments", SyntheticArguments.generate(schemas.get(tool), random));
+            Stats toolStats = due >= measureFrom ? stats.get(tool) : null;
+            pending.add(sessions.get((int) (n % sessions.size())).request("tools/call", params)
+                    .whenComplete((response, error) -> {
+                        if (toolStats != null) {
+                            toolStats.record(System.nanoTime() - due, error != null || failed(response));
+                        }
+                    }));
+        }
+        long sent = pending.size();
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+        double drain = (System.nanoTime() - end) / 1e9;
+        report(stats, duration, sent, maxLag, drain);
+    }
+
+    private static boolean failed(JsonNode response) {
+        return response.has("error") || response.path("result").path("isError").asBoolean(false);
+    }
+
+    private static void report(Map<String, Stats> stats, double duration, long sent, long maxLag, double drain) {
+        System.out.printf("Sent %d calls; sender lag at most %.2f ms; outstanding calls drained in %.2f s%n",
+                sent, maxLag / 1e6, Math.max(0, drain));
+        System.out.printf("%-28s %8s %7s %9s %9s %9s %9s %9s %9s %9s%n", "tool (ms)", "calls", "errors", "calls/s",
+                "p50", "p90", "p99", "p99.9", "p99.99", "max");
+        Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+        long totalErrors = 0;
+        for (Map.Entry<String, Stats> tool : stats.entrySet()) {
+            Histogram latencies = tool.getValue().latencies.copy();
+            long errors = tool.getValue().errors.get();
+            total.add(latencies);
+            totalErrors += errors;
+            print(tool.getKey(), latencies, errors, duration);
+        }
+        print("total", total, totalErrors, duration);
+    }
+
+    private static void print(String name, Histogram latencies, long errors, double duration) {
+        System.out.printf("%-28s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, latencies.getTotalCount(), errors,
+                latencies.getTotalCount() / duration, millis(latencies, 50), millis(latencies, 90), millis(latencies, 99),
+                millis(latencies, 99.9), millis(latencies, 99.99), latencies.getMaxValue() / 1e3);
+    }
+
+    private static double millis(Histogram latencies, double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1e3;
+    }
+
+    /**
+     * Lists the server's tools, following pagination, and keeps those selected by the filter.
+     *
+     * @param session the session to list with
+     * @param filter comma-separated tool names, blank for all
+     * @return the input schema of each selected tool, by name
+     * @throws Exception if listing fails
+     */
+    private static Map<String, JsonNode> listTools(McpClientSession session, String filter) throws Exception {
+        Set<String> selected = Arrays.stream(filter.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toSet());
+        Map<String, JsonNode> schemas = new LinkedHashMap<>();
+        String cursor = null;
+        do {
+            ObjectNode params = McpClientSession.OBJECT_MAPPER.createObjectNode();
+            if (cursor != null) {
+                params.put("cursor", cursor);
+            }
+            JsonNode response = session.request("tools/list", params).get();
+            if (response.has("error")) {
+                throw new IllegalStateException("Listing tools failed: " + response.get("error"));
+            }
+            JsonNode result = response.path("result");
+            for (JsonNode tool : result.path("tools")) {
+                String name = tool.path("name").asText();
+                if (selected.isEmpty() || selected.contains(name)) {
+                    schemas.put(name, tool.path("inputSchema"));
+                }
+            }
+            cursor = result.hasNonNull("nextCursor") ? result.get("nextCursor").asText() : null;
+        } while (cursor != null);
+        return schemas;
+    }
+
+    private static McpClientSession open(String target, boolean http, HttpClient client) throws Exception {
+        if (http) {
+            return McpClientSession.http(URI.create(target.contains("://") ? target : "http://" + target + "/mcp"), client);
+        }
+        int colon = target.lastIndexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("TCP target must be host:port, was " + target);
+        }
+        return McpClientSession.tcp(target.substring(0, colon), Integer.parseInt(target.substring(colon + 1)));
+    }
+
+    private static final class Stats {
+        // Microseconds, resized as needed
+        final ConcurrentHistogram latencies = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        final AtomicLong errors = new AtomicLong();
+
+        void record(long nanos, boolean error) {
+            latencies.recordValue(Math.max(1, nanos / 1000));
+            if (error) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package org.gegolabs.mcp.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.gegolabs.mcp.transport.HttpServerTransportProvider;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A minimal MCP client session for load generation: sends JSON-RPC requests without waiting for
+ * earlier ones and completes each with its response.
+ */
+abstract class McpClientSession implements AutoCloseable {
+
+    static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+    private final AtomicLong ids = new AtomicLong();
+
+    /**
+     * Opens a session over TCP, as the bridge connector does: one JSON-RPC message per line.
+     *
+     * @param host the server host
+     * @param port the server port
+     * @return the initialized session
+     * @throws Exception if the server cannot be reached or initialization fails
+     */
+    static McpClientSession tcp(String host, int port) throws Exception {
+        return new Tcp(host, port).initialize();
+    }
+
+    /**
+     * Opens a session over the Streamable HTTP transport.
+     *
+     * @param endpoint the MCP endpoint
+     * @param client the shared HTTP client
+     * @return the initialized session
+     * @throws Exception if the server cannot be reached or initialization fails
+     */
+    static McpClientSession http(URI endpoint, HttpClient client) throws Exception {
+        return new Http(endpoint, client).initialize();
+    }
+
+    /**
+     * Sends a request.
+     *
+     * @param method the JSON-RPC method
+     * @param params the parameters, may be null
+     * @return the response message, failed if the session broke or the request timed out
+     */
+    CompletableFuture<JsonNode> request(String method, JsonNode params) {
+        long id = ids.incrementAndGet();
+        ObjectNode message = OBJECT_MAPPER.createObjectNode().put("jsonrpc", "2.0").put("id", id).put("method", method);
+        if (params != null) {
+            message.set("params", params);
+        }
+        return send(id, message).orTimeout(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+    }
+
+    abstract CompletableFuture<JsonNode> send(long id, ObjectNode message);
+
+    abstract void notify(String method) throws Exception;
+
+    McpClientSession initialize() throws Exception {
+        ObjectNode params = OBJECT_MAPPER.createObjectNode().put("protocolVersion", "2024-11-05");
+        params.putObject("capabilities");
+        params.putObject("clientInfo").put("name", "load-generator").put("version", "1.0");
+        JsonNode response = request("initialize", params).get();
+        if (response.has("error")) {
+            throw new IllegalStateException("Initialize failed: " + response.get("error"));
+        }
+        notify("notifications/initialized");
+        return this;
+    }
+
+    /**
+     * Newline-delimited JSON-RPC over a socket. A reader thread matches responses to requests by id.
+     */
+    private static final class Tcp extends McpClientSession {
+        private final Socket socket;
+        private final BufferedWriter out;
+        private final Map<Long, CompletableFuture<JsonNode>> pending = new ConcurrentHashMap<>();
+
+        Tcp(String host, int port) throws IOException {
+            socket = new Socket(host, port);
+            socket.setTcpNoDelay(true);
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            Thread reader = new Thread(this::readLoop, "load-tcp-reader");
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        @Override
+        CompletableFuture<JsonNode> send(long id, ObjectNode message) {
+            CompletableFuture<JsonNode> response = new CompletableFuture<>();
+            pending.put(id, response);
+            response.whenComplete((r, e) -> pending.remove(id));
+            try {
+                write(message);
+            } catch (IOException e) {
+                response.completeExceptionally(e);
+            }
+            return response;
+        }
+
+        @Override
+        void notify(String method) throws IOException {
+            write(OBJECT_MAPPER.createObjectNode().put("jsonrpc", "2.0").put("method", method));
+        }
+
+        private void write(ObjectNode message) throws IOException {
+            String line = OBJECT_MAPPER.writeValueAsString(message);
+            synchronized (out) {
+                out.write(line);
+                out.write('\n');
+                out.flush();
+            }
+        }
+
+        private void readLoop() {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    JsonNode message = OBJECT_MAPPER.readTree(line);
+                    // Server requests and notifications have no matching call and are ignored
+                    if (message.has("id") && !message.has("method")) {
+                        CompletableFuture<JsonNode> response = pending.get(message.get("id").asLong());
+                        if (response != null) {
+                            response.complete(message);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // Connection closed
+            }
+            IOException closed = new IOException("Connection closed");
+            pending.values().forEach(response -> response.completeExceptionally(closed));
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    /**
+     * One POST per request, answered with JSON or a short SSE stream.
+     */
+    private static final class Http extends McpClientSession {
+        private final URI endpoint;
+        private final HttpClient client;
+        private volatile String session;
+
+        Http(URI endpoint, HttpClient client) {
+            this.endpoint = endpoint;
+            this.client = client;
+        }
+
+        @Override
+        CompletableFuture<JsonNode> send(long id, ObjectNode message) {
+            try {
+                return client.sendAsync(post(OBJECT_MAPPER.writeValueAsString(message)), HttpResponse.BodyHandlers.ofString())
+                        .thenApply(response -> {
+                            response.headers().firstValue(HttpServerTransportProvider.SESSION_HEADER).ifPresent(header -> {
+                                if (session == null) {
+                                    session = header;
+                                }
+                            });
+                            return parse(response);
+                        });
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        @Override
+        void notify(String method) throws Exception {
+            client.send(post("{\"jsonrpc\":\"2.0\",\"method\":\"" + method + "\"}"), HttpResponse.BodyHandlers.discarding());
+        }
+
+        private HttpRequest post(String body) {
+            HttpRequest.Builder request = HttpRequest.newBuilder(endpoint)
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "application/json, text/event-stream")
+                    .POST(HttpRequest.BodyPublishers.ofString(body));
+            if (session != null) {
+                request.header(HttpServerTransportProvider.SESSION_HEADER, session);
+            }
+            return request.build();
+        }
+
+        private static JsonNode parse(HttpResponse<String> response) {
+            try {
+                if (response.statusCode() != 200) {
+                    return OBJECT_MAPPER.createObjectNode().set("error",
+                            OBJECT_MAPPER.createObjectNode().put("code", response.statusCode()).put("message", response.body()));
+                }
+                String body = response.body();
+                if (response.headers().firstValue("Content-Type").orElse("").startsWith("text/event-stream")) {
+                    // The response is the last data line of the stream
+                    String data = null;
+                    for (String line : body.split("\n")) {
+                        if (line.startsWith("data:")) {
+                            data = line.substring(5).trim();
+                        }
+                    }
+                    body = data != null ? data : "{}";
+                }
+                return OBJECT_MAPPER.readTree(body);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unreadable response: " + response.body(), e);
+            }
+        }
+
+        @Override
+        public void close() throws Exception {
+            if (session != null) {
+                client.send(HttpRequest.newBuilder(endpoint).header(HttpServerTransportProvider.SESSION_HEADER, session)
+                        .DELETE().build(), HttpResponse.BodyHandlers.discarding());
+            }
+        }
+    }
+}
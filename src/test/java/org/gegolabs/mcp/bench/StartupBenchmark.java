@@ -0,0 +1,165 @@
+package org.gegolabs.mcp.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures the time from launching the server to its first {@code tools/list} response,
+ * with and without an AppCDS archive.
+ * <p>
+ * Run through the {@code startupBenchmark} Gradle task, which passes the installed classpath and
+ * the archive the launch scripts load. Each run launches a fresh JVM with the CLI on its default
+ * TCP transport, as the launch scripts do, then initializes a session and lists the tools as the
+ * bridge connector would. Runs with and without the
+ * archive are interleaved so both see the same machine conditions.
+ */
+public final class StartupBenchmark {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+
+    private StartupBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark.
+     * Reads {@code umcp.bench.classpath}, {@code umcp.bench.archive}, {@code umcp.bench.jvmArgs}
+     * and {@code umcp.bench.runs} from the system properties.
+     *
+     * @param args unused
+     * @throws Exception if a run fails
+     */
+    public static void main(String[] args) throws Exception {
+        String classpath = System.getProperty("umcp.bench.classpath");
+        String archive = System.getProperty("umcp.bench.archive");
+        String jvmArgs = System.getProperty("umcp.bench.jvmArgs", "");
+        int runs = Integer.getInteger("umcp.bench.runs", 10);
+        if (classpath == null || archive == null) {
+            throw new IllegalArgumentException("umcp.bench.classpath and umcp.bench.archive are required");
+        }
+        List<String> baseCommand = new ArrayList<>();
+        baseCommand.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (!jvmArgs.isBlank()) {
+            baseCommand.addAll(Arrays.asList(jvmArgs.trim().split("\\s+")));
+        }
+
+        // One discarded run of each to warm the file system cache
+        timeToFirstList(baseCommand, classpath, null);
+        timeToFirstList(baseCommand, classpath, archive);
+
+        long[] without = new long[runs];
+        long[] with = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            without[i] = timeToFirstList(baseCommand, classpath, null);
+            with[i] = timeToFirstList(baseCommand, classpath, archive);
+        }
+
+        System.out.printf("Time to first tools/list over %d runs (ms)%n", runs);
+        System.out.printf("%-16s %8s %8s %8s%n", "", "min", "median", "max");
+        print("default CDS", without);
+        print("AppCDS archive", with);
+        System.out.printf("Median saving: %d ms%n", (median(without) - median(with)) / 1_000_000);
+    }
+
+    private static long timeToFirstList(List<String> baseCommand, String classpath, String archive) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>(baseCommand);
+        if (archive != null) {
+            command.add("-XX:SharedArchiveFile=" + archive);
+        }
+        command.addAll(List.of("-cp", classpath, "org.gegolabs.mcp.MCPServerCLI", String.valueOf(port)));
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try (Socket socket = connectWhenUp(process, started, port);
+             Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            socket.setSoTimeout((int) STARTUP_TIMEOUT.toMillis());
+            send(out, "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{\"protocolVersion\":\"2024-11-05\","
+                    + "\"capabilities\":{},\"clientInfo\":{\"name\":\"startup-benchmark\",\"version\":\"1.0\"}}}");
+            response(in, 1);
+            send(out, "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}");
+            send(out, "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/list\"}");
+            String list = response(in, 2);
+            long elapsed = System.nanoTime() - started;
+            if (!list.contains("\"tools\"")) {
+                throw new IllegalStateException("Unexpected tools/list response: " + list);
+            }
+            return elapsed;
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static Socket connectWhenUp(Process process, long started, int port) throws Exception {
+        while (true) {
+            try {
+                return new Socket("localhost", port);
+            } catch (ConnectException e) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Server exited with status " + process.exitValue());
+                }
+                if (System.nanoTime() - started > STARTUP_TIMEOUT.toNanos()) {
+                    throw new IllegalStateException("Server did not start within " + STARTUP_TIMEOUT);
+                }
+                Thread.sleep(2);
+            }
+        }
+    }
+
+    private static void send(Writer out, String message) throws IOException {
+        out.write(message);
+        out.write('\n');
+        out.flush();
+    }
+
+    /**
+     * Reads lines until the response to the given request id, skipping notifications.
+     */
+    private static String response(BufferedReader in, int id) throws IOException {
+        String marker = "\"id\":" + id;
+        while (true) {
+            String line = in.readLine();
+            if (line == null) {
+                throw new IOException("Server closed the connection");
+            }
+            if (line.contains(marker) && !line.contains("\"method\"")) {
+                return line;
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void print(String label, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-16s %8d %8d %8d%n", label, sorted[0] / 1_000_000, median(nanos) / 1_000_000,
+                sorted[sorted.length - 1] / 1_000_000);
+    }
+
+    private static long median(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,113 @@
+package org.gegolabs.mcp.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates tool arguments that satisfy a tool's input schema: every required property and about
+ * half of the optional ones, enum values where declared, short words, small numbers and arrays
+ * of one to three items.
+ */
+final class SyntheticArguments {
+
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+    private static final String[] WORDS = {"alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel"};
+    private static final int MAX_DEPTH = 4;
+
+    private SyntheticArguments() {
+    }
+
+    /**
+     * Generates arguments for an input schema.
+     *
+     * @param schema the tool's input schema
+     * @param random the random source
+     * @return the arguments object
+     */
+    static ObjectNode generate(JsonNode schema, Random random) {
+        JsonNode value = value(schema, random, 0);
+        return value instanceof ObjectNode object ? object : NODES.objectNode();
+    }
+
+    private static JsonNode value(JsonNode schema, Random random, int depth) {
+        if (schema == null || !schema.isObject()) {
+            return NODES.textNode(word(random));
+        }
+        JsonNode values = schema.get("enum");
+        if (values != null && values.isArray() && !values.isEmpty()) {
+            return values.get(random.nextInt(values.size()));
+        }
+        String type = type(schema);
+        switch (type) {
+            case "integer":
+                return NODES.numberNode(bounded(schema, random));
+            case "number":
+                return NODES.numberNode(bounded(schema, random) + random.nextInt(100) / 100.0);
+            case "boolean":
+                return NODES.booleanNode(random.nextBoolean());
+            case "array": {
+                ArrayNode array = NODES.arrayNode();
+                if (depth < MAX_DEPTH) {
+                    int items = 1 + random.nextInt(3);
+                    for (int i = 0; i < items; i++) {
+                        array.add(value(schema.get("items"), random, depth + 1));
+                    }
+                }
+                return array;
+            }
+            case "object": {
+                ObjectNode object = NODES.objectNode();
+                JsonNode properties = schema.get("properties");
+                if (properties == null || depth >= MAX_DEPTH) {
+                    return object;
+                }
+                Set<String> required = new HashSet<>();
+                schema.path("required").forEach(name -> required.add(name.asText()));
+                for (Iterator<Map.Entry<String, JsonNode>> fields = properties.fields(); fields.hasNext(); ) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    if (required.contains(field.getKey()) || random.nextBoolean()) {
+                        object.set(field.getKey(), value(field.getValue(), random, depth + 1));
+                    }
+                }
+                return object;
+            }
+            default:
+                return NODES.textNode(word(random) + "-" + random.nextInt(10_000));
+        }
+    }
+
+    private static String type(JsonNode schema) {
+        JsonNode type = schema.get("type");
+        if (type == null) {
+            return schema.has("properties") ? "object" : "string";
+        }
+        if (type.isArray()) {
+            // Prefer the first non-null type of a union
+            for (JsonNode option : type) {
+                if (!"null".equals(option.asText())) {
+                    return option.asText();
+                }
+            }
+            return "null";
+        }
+        return type.asText();
+    }
+
+    private static long bounded(JsonNode schema, Random random) {
+        long min = schema.path("minimum").asLong(0);
+        long max = schema.path("maximum").asLong(min + 100);
+        return max > min ? min + (long) (random.nextDouble() * (max - min)) : min;
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
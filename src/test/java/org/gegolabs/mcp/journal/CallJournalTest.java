@@ -0,0 +1,122 @@
+package org.gegolabs.mcp.journal;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.gegolabs.mcp.ToolContainer;
+import org.gegolabs.mcp.protocol.SyncCapability;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the call journal.
+ */
+@Timeout(value = 10, unit = TimeUnit.SECONDS)
+class CallJournalTest {
+
+    /**
+     * Test that concurrent writers lose no record across segment rotations.
+     */
+    @Test
+    void testConcurrentAppendsAcrossSegments(@TempDir Path dir) throws Exception {
+        int threads = 8;
+        int perThread = 500;
+        CallJournal journal = CallJournal.builder().directory(dir).segmentSize(8192).maxSegments(10_000).build();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int writer = t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    journal.record("tool-" + writer, "{\"id\":\"" + writer + "-" + i + "\"}", i, 1000 + i, i % 7, i % 5 == 0);
+                }
+            });
+            thread.start();
+            writers.add(thread);
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        journal.close();
+
+        List<JournalEntry> entries = JournalReader.readAll(dir);
+        assertEquals(threads * perThread, journal.getRecorded());
+        assertEquals(threads * perThread, entries.size());
+        assertTrue(CallJournal.listSegments(dir).size() > 1);
+        Set<String> ids = new HashSet<>();
+        for (JournalEntry entry : entries) {
+            ids.add(entry.argumentsJson());
+            int i = (int) entry.startEpochNanos();
+            assertEquals(1000 + i, entry.durationNanos());
+            assertEquals(i % 7, entry.resultSize());
+            assertEquals(i % 5 == 0, entry.error());
+            assertTrue(entry.argumentsJson().contains(entry.tool().substring(5) + "-" + i));
+        }
+        assertEquals(threads * perThread, ids.size());
+    }
+
+    /**
+     * Test that old segments are deleted and a reopened journal continues after the last segment.
+     */
+    @Test
+    void testRotationKeepsNewestSegments(@TempDir Path dir) throws Exception {
+        CallJournal journal = CallJournal.builder().directory(dir).segmentSize(1024).maxSegments(2).build();
+        String arguments = "x".repeat(200);
+        for (int i = 0; i < 40; i++) {
+            journal.record("tool", arguments, i, 1, 0, false);
+        }
+        journal.close();
+        List<Path> segments = CallJournal.listSegments(dir);
+        assertEquals(2, segments.size());
+        List<JournalEntry> kept = JournalReader.readAll(dir);
+        assertEquals(39, kept.get(kept.size() - 1).startEpochNanos());
+
+        CallJournal reopened = CallJournal.builder().directory(dir).segmentSize(1024).maxSegments(2).build();
+        reopened.record("after", null, 100, 1, 0, false);
+        reopened.close();
+        JournalEntry last = JournalReader.readAll(dir).get(JournalReader.readAll(dir).size() - 1);
+        assertEquals("after", last.tool());
+        assertNull(last.argumentsJson());
+        assertFalse(CallJournal.listSegments(dir).contains(segments.get(0)));
+    }
+
+    /**
+     * A tool echoing its input.
+     */
+    static class Echo implements SyncCapability<String, String> {
+        @Override
+        public String execute(String input) {
+            return "echo " + input;
+        }
+    }
+
+    /**
+     * Test that a tool container records each call with its arguments and result size.
+     */
+    @Test
+    void testToolCallsAreRecorded(@TempDir Path dir) throws Exception {
+        CallJournal journal = CallJournal.builder().directory(dir).segmentSize(4096).build();
+        var specification = ToolContainer.builder().tool(new Echo()).journal(journal).build().getAsyncToolSpecification();
+
+        McpSchema.CallToolResult result = specification.call().apply(null, Map.of("value", "hello")).block();
+        assertFalse(result.isError());
+        journal.close();
+
+        List<JournalEntry> entries = JournalReader.readAll(dir);
+        assertEquals(1, entries.size());
+        JournalEntry entry = entries.get(0);
+        assertEquals("Echo", entry.tool());
+        assertEquals("{\"value\":\"hello\"}", entry.argumentsJson());
+        assertEquals("echo hello".length(), entry.resultSize());
+        assertTrue(entry.durationNanos() > 0);
+        assertTrue(Math.abs(entry.start().toEpochMilli() - System.currentTimeMillis()) < 60_000);
+    }
+}
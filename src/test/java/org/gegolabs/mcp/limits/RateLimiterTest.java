@@ -0,0 +1,221 @@
+package org.gegolabs.mcp.limits;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.gegolabs.mcp.ToolContainer;
+import org.gegolabs.mcp.protocol.SyncCapability;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for per-session rate limits and quotas.
+ */
+@Timeout(value = 10, unit = TimeUnit.SECONDS)
+class RateLimiterTest {
+
+    /**
+     * A clock moved by hand.
+     */
+    static class ManualClock extends Clock {
+        Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    /**
+     * Test that a session gets its burst, then calls at the sustained rate, independently of other sessions.
+     */
+    @Test
+    void testBurstThenSustainedRate() {
+        ManualClock clock = new ManualClock();
+        RateLimiter limiter = RateLimiter.builder()
+                .sessionLimit(RateLimit.builder().permitsPerSecond(10).burst(3).build())
+                .clock(clock)
+                .build();
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.acquire("a", "tool").allowed());
+        }
+        RateLimiter.Decision refused = limiter.acquire("a", "tool");
+        assertFalse(refused.allowed());
+        assertEquals(Duration.ofMillis(100), refused.retryAfter());
+        assertTrue(refused.message("tool").contains("retry after 100 ms"));
+        assertTrue(limiter.acquire("b", "tool").allowed());
+
+        clock.advance(Duration.ofMillis(100));
+        assertTrue(limiter.acquire("a", "tool").allowed());
+        assertFalse(limiter.acquire("a", "tool").allowed());
+        assertEquals(5, limiter.getAllowed());
+        assertEquals(2, limiter.getRejected());
+    }
+
+    /**
+     * Test that a fixed quota resets with the period, and that a call refused by a tool limit
+     * does not count against the session limit.
+     */
+    @Test
+    void testQuotaPerPeriodAndPerTool() {
+        ManualClock clock = new ManualClock();
+        RateLimiter limiter = RateLimiter.builder()
+                .sessionLimit(RateLimit.builder().quota(3).quotaPeriod(Duration.ofHours(1)).build())
+                .toolLimit("search", RateLimit.builder().quota(1).quotaPeriod(Duration.ofHours(1)).build())
+                .clock(clock)
+                .build();
+
+        assertTrue(limiter.acquire("s", "search").allowed());
+        clock.advance(Duration.ofMinutes(15));
+        RateLimiter.Decision refused = limiter.acquire("s", "search");
+        assertFalse(refused.allowed());
+        assertEquals(Duration.ofMinutes(45), refused.retryAfter());
+
+        // The refused search left the session with two calls
+        assertTrue(limiter.acquire("s", "other").allowed());
+        assertTrue(limiter.acquire("s", "other").allowed());
+        assertFalse(limiter.acquire("s", "other").allowed());
+
+        clock.advance(Duration.ofMinutes(45));
+        assertTrue(limiter.acquire("s", "search").allowed());
+    }
+
+    /**
+     * Test that a rolling quota still counts the calls of the previous period.
+     */
+    @Test
+    void testRollingQuota() {
+        ManualClock clock = new ManualClock();
+        RateLimiter limiter = RateLimiter.builder()
+                .sessionLimit(RateLimit.builder().quota(4).quotaPeriod(Duration.ofMinutes(10)).rollingQuota(true).build())
+                .clock(clock)
+                .build();
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.acquire("s", "tool").allowed());
+        }
+
+        // Two minutes into the next period, 80% of the previous period's calls still count
+        clock.advance(Duration.ofMinutes(12));
+        RateLimiter.Decision refused = limiter.acquire("s", "tool");
+        assertFalse(refused.allowed());
+        assertEquals(Duration.ofSeconds(30), refused.retryAfter());
+
+        clock.advance(refused.retryAfter());
+        assertTrue(limiter.acquire("s", "tool").allowed());
+    }
+
+    /**
+     * Test that concurrent callers never get more than the burst.
+     */
+    @Test
+    void testConcurrentCallersShareTheBucket() throws Exception {
+        RateLimiter limiter = RateLimiter.builder()
+                .sessionLimit(RateLimit.builder().permitsPerSecond(0.001).burst(100).build())
+                .build();
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 100; i++) {
+                    if (limiter.acquire("shared", "tool").allowed()) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(100, allowed.get());
+        assertEquals(700, limiter.getRejected());
+    }
+
+    /**
+     * Test that idle sessions are dropped and the number of tracked sessions stays bounded.
+     */
+    @Test
+    void testSessionsAreBounded() {
+        ManualClock clock = new ManualClock();
+        RateLimiter limiter = RateLimiter.builder()
+                .sessionLimit(RateLimit.builder().permitsPerSecond(1).build())
+                .maxSessions(3)
+                .idleTimeout(Duration.ofMinutes(5))
+                .clock(clock)
+                .build();
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire("session-" + i, "tool");
+            clock.advance(Duration.ofSeconds(1));
+            assertTrue(limiter.getSessionCount() <= 3);
+        }
+
+        clock.advance(Duration.ofMinutes(10));
+        limiter.acquire("late", "tool");
+        assertEquals(1, limiter.getSessionCount());
+    }
+
+    /**
+     * A tool echoing its input.
+     */
+    static class Echo implements SyncCapability<String, String> {
+        @Override
+        public String execute(String input) {
+            return "echo " + input;
+        }
+    }
+
+    /**
+     * Test that a tool over its limit answers with an error result instead of running.
+     */
+    @Test
+    void testToolCallOverLimitFailsFast() throws Exception {
+        RateLimiter limiter = RateLimiter.builder()
+                .toolLimit("Echo", RateLimit.builder().permitsPerSecond(1).build())
+                .build();
+        var specification = ToolContainer.builder().tool(new Echo()).rateLimiter(limiter).build().getAsyncToolSpecification();
+
+        McpSchema.CallToolResult first = specification.call().apply(null, Map.of("value", "a")).block();
+        McpSchema.CallToolResult second = specification.call().apply(null, Map.of("value", "b")).block();
+
+        assertFalse(first.isError());
+        assertTrue(second.isError());
+        String text = ((McpSchema.TextContent) second.content().get(0)).text();
+        assertTrue(text.startsWith("Rate limit exceeded for tool Echo"), text);
+        assertTrue(text.contains("retry after"), text);
+    }
+}
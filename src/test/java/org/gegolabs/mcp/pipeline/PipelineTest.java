@@ -0,0 +1,248 @@
+package org.gegolabs.mcp.pipeline;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.gegolabs.mcp.ToolContainer;
+import org.gegolabs.mcp.protocol.CapabilityException;
+import org.gegolabs.mcp.protocol.MCPServer;
+import org.gegolabs.mcp.protocol.Name;
+import org.gegolabs.mcp.protocol.StreamingCapability;
+import org.gegolabs.mcp.scheduling.BulkheadExecutor;
+import org.gegolabs.mcp.tools.MethodCapability;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import reactor.adapter.JdkFlowAdapter;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for server-side pipelines of tools.
+ */
+@Timeout(value = 10, unit = TimeUnit.SECONDS)
+class PipelineTest {
+
+    static class NameTools {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final AtomicLong firstDescribed = new AtomicLong();
+        final AtomicLong lastChecked = new AtomicLong();
+
+        @MCPServer
+        @Name("names")
+        public List<String> names(@Name("topic") String topic) {
+            return List.of(topic + "ly", topic + "hub", topic + "io", topic + "ify");
+        }
+
+        @MCPServer
+        @Name("check")
+        public String check(@Name("value") String name) throws Exception {
+            int now = running.incrementAndGet();
+            maxRunning.accumulateAndGet(now, Math::max);
+            try {
+                // The first name is the slowest, so later results wait for it
+                Thread.sleep(name.endsWith("ly") ? 300 : 100);
+                if (name.startsWith("bad")) {
+                    throw new CapabilityException("Lookup of " + name + " failed");
+                }
+                return name + (name.length() % 2 == 0 ? " free" : " taken");
+            } finally {
+                running.decrementAndGet();
+                lastChecked.set(System.nanoTime());
+            }
+        }
+
+        @MCPServer
+        @Name("describe")
+        public String describe(@Name("value") String result) {
+            firstDescribed.compareAndSet(0, System.nanoTime());
+            return "[" + result + "]";
+        }
+
+        @MCPServer
+        @Name("slow")
+        public String slow(@Name("label") String label) throws InterruptedException {
+            Thread.sleep(300);
+            return label;
+        }
+
+        @MCPServer
+        @Name("join")
+        public String join(@Name("parts") List<String> parts) {
+            return String.join("+", parts);
+        }
+    }
+
+    /**
+     * A streaming tool emitting numbered parts one at a time.
+     */
+    static class Parts implements StreamingCapability<String, String> {
+        final AtomicLong finished = new AtomicLong();
+
+        @Override
+        public Flow.Publisher<String> stream(String prefix) {
+            return JdkFlowAdapter.publisherToFlowPublisher(Flux.range(1, 3)
+                    .delayElements(Duration.ofMillis(100))
+                    .map(i -> prefix + "-" + i)
+                    .doOnComplete(() -> finished.set(System.nanoTime())));
+        }
+    }
+
+    private NameTools tools;
+    private Map<String, ToolContainer> containers;
+    private BulkheadExecutor bulkhead;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tools = new NameTools();
+        containers = new HashMap<>();
+        // Threads of their own, so stages overlap even on a single-core machine
+        bulkhead = BulkheadExecutor.builder().name("pipeline-test").threads(8).queueCapacity(16).build();
+        for (MethodCapability tool : MethodCapability.discover(tools)) {
+            ToolContainer container = ToolContainer.builder().tool(tool).bulkhead(bulkhead).build();
+            container.initialize();
+            containers.put(container.getName(), container);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkhead.shutdown();
+    }
+
+    private String call(Pipeline pipeline, Map<String, Object> arguments, boolean expectError) throws Exception {
+        pipeline.resolve(containers::get);
+        var specification = ToolContainer.builder().tool(pipeline).build().getAsyncToolSpecification();
+        McpSchema.CallToolResult result = specification.call().apply(null, arguments).block();
+        assertEquals(expectError, result.isError());
+        return ((McpSchema.TextContent) result.content().get(0)).text();
+    }
+
+    /**
+     * Test that a chain of stages runs as one tool: a list is fanned out to a stage per item,
+     * in parallel up to the concurrency, and the results come back in order.
+     */
+    @Test
+    void testFanOutAndCollect() throws Exception {
+        Pipeline pipeline = Pipeline.builder()
+                .name("check-names")
+                .stage(PipelineStage.builder().id("candidates").tool("names").build())
+                .stage(PipelineStage.builder().id("checks").tool("check").forEach("candidates").concurrency(2).build())
+                .stage(PipelineStage.builder().id("report").tool("join").dependsOn("checks")
+                        .arguments(context -> Map.of("parts", context.results("checks")))
+                        .build())
+                .build();
+
+        String result = call(pipeline, Map.of("topic", "acme"), false);
+
+        assertEquals("acmely free+acmehub taken+acmeio free+acmeify taken", result);
+        assertEquals(2, tools.maxRunning.get());
+        assertEquals("check-names", pipeline.getName());
+        assertEquals("Pipeline of names, check, join", pipeline.getDescription());
+    }
+
+    /**
+     * Test that items flow to the next stage as they are produced, before the previous stage is done,
+     * and that independent stages run at the same time.
+     */
+    @Test
+    void testStreamsAndRunsInParallel() throws Exception {
+        Pipeline streaming = Pipeline.builder()
+                .name("describe-names")
+                .stage(PipelineStage.builder().id("candidates").tool("names").build())
+                .stage(PipelineStage.builder().id("checks").tool("check").forEach("candidates").concurrency(1).build())
+                .stage(PipelineStage.builder().id("described").tool("describe").forEach("checks").build())
+                .build();
+
+        String result = call(streaming, Map.of("topic", "acme"), false);
+
+        assertEquals("[acmely free]\n[acmehub taken]\n[acmeio free]\n[acmeify taken]", result);
+        assertTrue(tools.firstDescribed.get() < tools.lastChecked.get());
+
+        Pipeline parallel = Pipeline.builder()
+                .name("both")
+                .stage(PipelineStage.builder().id("left").tool("slow").arguments(context -> Map.of("label", "L")).build())
+                .stage(PipelineStage.builder().id("right").tool("slow").arguments(context -> Map.of("label", "R")).build())
+                .stage(PipelineStage.builder().id("joined").tool("join").dependsOn("left").dependsOn("right")
+                        .arguments(context -> Map.of("parts", List.of(context.result("left"), context.result("right"))))
+                        .build())
+                .build();
+
+        long started = System.nanoTime();
+        assertEquals("L+R", call(parallel, Map.of(), false));
+        assertTrue(System.nanoTime() - started < TimeUnit.MILLISECONDS.toNanos(550));
+    }
+
+    /**
+     * Test that each chunk of a streaming tool is an item of a forEach stage, handed on before the
+     * stream ends rather than folded into one result.
+     */
+    @Test
+    void testForEachOverStreamingTool() throws Exception {
+        Parts parts = new Parts();
+        ToolContainer container = ToolContainer.builder().tool(parts).build();
+        container.initialize();
+        containers.put(container.getName(), container);
+        Pipeline pipeline = Pipeline.builder()
+                .name("describe-parts")
+                .stage(PipelineStage.builder().id("parts").tool("Parts").build())
+                .stage(PipelineStage.builder().id("described").tool("describe").forEach("parts").build())
+                .build();
+
+        String result = call(pipeline, Map.of("value", "part"), false);
+
+        assertEquals("[part-1]\n[part-2]\n[part-3]", result);
+        assertTrue(tools.firstDescribed.get() < parts.finished.get());
+    }
+
+    /**
+     * Test that a failing stage fails the pipeline with the stage named in the error.
+     */
+    @Test
+    void testStageFailure() throws Exception {
+        Pipeline pipeline = Pipeline.builder()
+                .name("failing")
+                .stage(PipelineStage.builder().id("candidates").tool("names").build())
+                .stage(PipelineStage.builder().id("checks").tool("check").forEach("candidates").build())
+                .build();
+
+        String error = call(pipeline, Map.of("topic", "bad"), true);
+
+        assertTrue(error.startsWith("Stage checks (check) failed: Lookup of bad"), error);
+    }
+
+    /**
+     * Test that malformed graphs and unknown tools are rejected.
+     */
+    @Test
+    void testInvalidPipelines() {
+        PipelineStage first = PipelineStage.builder().id("a").tool("names").dependsOn("b").build();
+        PipelineStage second = PipelineStage.builder().id("b").tool("names").dependsOn("a").build();
+        PipelineStage last = PipelineStage.builder().id("c").tool("join").dependsOn("b").build();
+        IllegalArgumentException cycle = assertThrows(IllegalArgumentException.class,
+                () -> Pipeline.builder().name("p").stage(first).stage(second).stage(last).build());
+        assertTrue(cycle.getMessage().contains("cycle"), cycle.getMessage());
+
+        PipelineStage lone = PipelineStage.builder().id("d").tool("names").build();
+        assertThrows(IllegalArgumentException.class, () -> Pipeline.builder().name("p").stage(lone)
+                .stage(PipelineStage.builder().id("e").tool("names").build()).build());
+        assertThrows(IllegalArgumentException.class, () -> Pipeline.builder().name("p")
+                .stage(PipelineStage.builder().id("f").tool("names").dependsOn("missing").build()).build());
+        assertThrows(IllegalArgumentException.class, () -> PipelineStage.builder().id("g").tool("check")
+                .forEach("d").dependsOn("e").build());
+
+        Pipeline unknownTool = Pipeline.builder().name("p").stage(PipelineStage.builder().id("h").tool("nope").build()).build();
+        IllegalArgumentException unknown = assertThrows(IllegalArgumentException.class, () -> unknownTool.resolve(containers::get));
+        assertTrue(unknown.getMessage().contains("unknown tool nope"));
+    }
+}
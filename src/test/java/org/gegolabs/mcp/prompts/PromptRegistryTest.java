@@ -0,0 +1,133 @@
+package org.gegolabs.mcp.prompts;
+
+import io.modelcontextprotocol.spec.McpError;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.gegolabs.mcp.model.Prompt;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for compiled prompt templates and the prompt registry.
+ */
+class PromptRegistryTest {
+
+    private static Prompt review() {
+        return Prompt.builder()
+                .name("code_review")
+                .description("Review code")
+                .requiredArgument("code", "The code to review")
+                .optionalArgument("language", "Language of the code")
+                .user("Review this {{ language }} code:\n{{code}}")
+                .assistant("Reviewing {{code}}")
+                .build();
+    }
+
+    /**
+     * Test that placeholders are replaced and optional arguments render as empty.
+     */
+    @Test
+    void testTemplateRendering() {
+        PromptTemplate template = PromptTemplate.compile("{{a}}-{{b}}-{{a}}!", List.of("a", "b"));
+
+        assertEquals("x-y-x!", template.render(new String[]{"x", "y"}));
+        assertEquals("x--x!", template.render(new String[]{"x", null}));
+        assertEquals("plain", PromptTemplate.compile("plain", List.of()).render(new String[0]));
+    }
+
+    /**
+     * Test that invalid templates are rejected at compile time.
+     */
+    @Test
+    void testInvalidTemplates() {
+        assertThrows(IllegalArgumentException.class, () -> PromptTemplate.compile("{{missing}}", List.of("a")));
+        assertThrows(IllegalArgumentException.class, () -> PromptTemplate.compile("{{a", List.of("a")));
+    }
+
+    /**
+     * Test that rendered prompts are cached per argument set.
+     */
+    @Test
+    void testRenderCachedPerArguments() {
+        PromptRegistry registry = PromptRegistry.builder().prompt(review()).build();
+
+        McpSchema.GetPromptResult first = registry.get("code_review", Map.of("code", "x = 1", "language", "Python"));
+        McpSchema.GetPromptResult second = registry.get("code_review", Map.of("code", "x = 1", "language", "Python"));
+        McpSchema.GetPromptResult other = registry.get("code_review", Map.of("code", "x = 2"));
+
+        assertSame(first, second);
+        assertNotSame(first, other);
+        assertEquals(McpSchema.Role.USER, first.messages().get(0).role());
+        assertEquals("Review this Python code:\nx = 1", ((McpSchema.TextContent) first.messages().get(0).content()).text());
+        assertEquals("Review this  code:\nx = 2", ((McpSchema.TextContent) other.messages().get(0).content()).text());
+        assertEquals(1, registry.getCache().getHits());
+        assertEquals(2, registry.getCache().size());
+    }
+
+    /**
+     * Test that the cache evicts least recently used renders beyond its weight.
+     */
+    @Test
+    void testCacheBoundedByWeight() {
+        PromptRegistry registry = PromptRegistry.builder().prompt(review()).cacheWeight(100).build();
+
+        for (int i = 0; i < 20; i++) {
+            registry.get("code_review", Map.of("code", "value " + i));
+        }
+
+        assertTrue(registry.getCache().getWeight() <= 100);
+        assertTrue(registry.getCache().size() < 20);
+    }
+
+    /**
+     * Test that missing required arguments and unknown prompts are rejected.
+     */
+    @Test
+    void testInvalidRequests() {
+        PromptRegistry registry = PromptRegistry.builder().prompt(review()).build();
+
+        assertThrows(McpError.class, () -> registry.get("code_review", Map.of("language", "Java")));
+        assertThrows(McpError.class, () -> registry.get("unknown", Map.of()));
+    }
+
+    /**
+     * Test that the list is paginated in registration order with opaque cursors.
+     */
+    @Test
+    void testPagination() {
+        PromptRegistry.PromptRegistryBuilder builder = PromptRegistry.builder().pageSize(2);
+        for (int i = 0; i < 5; i++) {
+            builder.prompt(Prompt.builder().name("p" + i).user("Prompt " + i).build());
+        }
+        PromptRegistry registry = builder.build();
+
+        List<String> names = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            McpSchema.ListPromptsResult page = registry.list(cursor);
+            page.prompts().forEach(prompt -> names.add(prompt.name()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(List.of("p0", "p1", "p2", "p3", "p4"), names);
+        assertThrows(McpError.class, () -> registry.list("bogus"));
+    }
+
+    /**
+     * Test that an empty registry still lists one empty page.
+     */
+    @Test
+    void testEmptyRegistry() {
+        McpSchema.ListPromptsResult page = PromptRegistry.builder().build().list(null);
+
+        assertTrue(page.prompts().isEmpty());
+        assertNull(page.nextCursor());
+    }
+}
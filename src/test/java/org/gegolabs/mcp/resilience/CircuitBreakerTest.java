@@ -0,0 +1,277 @@
+package org.gegolabs.mcp.resilience;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.gegolabs.mcp.ToolContainer;
+import org.gegolabs.mcp.protocol.CapabilityException;
+import org.gegolabs.mcp.protocol.SyncCapability;
+import org.gegolabs.mcp.scheduling.BulkheadExecutor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the circuit breaker.
+ */
+@Timeout(value = 10, unit = TimeUnit.SECONDS)
+class CircuitBreakerTest {
+
+    /**
+     * A clock moved by hand.
+     */
+    static class ManualClock extends Clock {
+        Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private static void fail(CircuitBreaker breaker) {
+        assertThrows(IllegalStateException.class, () -> breaker.call(() -> {
+            throw new IllegalStateException("down");
+        }));
+    }
+
+    /**
+     * Test that the breaker opens at the failure rate, fails fast while open and reports the change.
+     */
+    @Test
+    void testOpensOnFailureRate() throws Exception {
+        ManualClock clock = new ManualClock();
+        List<CircuitBreaker.Transition> transitions = new ArrayList<>();
+        CircuitBreaker breaker = CircuitBreaker.builder()
+                .name("whois")
+                .windowSize(10)
+                .minimumCalls(4)
+                .failureRateThreshold(0.5)
+                .openDuration(Duration.ofSeconds(30))
+                .listener(transitions::add)
+                .clock(clock)
+                .build();
+
+        assertEquals("ok", breaker.call(() -> "ok"));
+        fail(breaker);
+        assertEquals("ok", breaker.call(() -> "ok"));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        fail(breaker);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        clock.advance(Duration.ofSeconds(10));
+        AtomicInteger calls = new AtomicInteger();
+        CircuitOpenException open = assertThrows(CircuitOpenException.class, () -> breaker.call(calls::incrementAndGet));
+        assertEquals(0, calls.get());
+        assertEquals("whois", open.getBreaker());
+        assertEquals(Duration.ofSeconds(20), open.getRetryAfter());
+
+        CompletableFuture<Object> future = breaker.execute(() -> CompletableFuture.completedFuture("never"));
+        ExecutionException error = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(CircuitOpenException.class, error.getCause());
+
+        assertEquals(1, transitions.size());
+        assertEquals(CircuitBreaker.State.CLOSED, transitions.get(0).from());
+        assertEquals(CircuitBreaker.State.OPEN, transitions.get(0).to());
+        assertEquals(0.5, transitions.get(0).failureRate());
+        CircuitBreaker.CircuitBreakerStats stats = breaker.getStats();
+        assertEquals(2, stats.rejected());
+        assertEquals(1, stats.timesOpened());
+    }
+
+    /**
+     * Test that after the open period a limited number of probes decide whether the breaker closes or reopens.
+     */
+    @Test
+    void testHalfOpenProbes() throws Exception {
+        ManualClock clock = new ManualClock();
+        CircuitBreaker breaker = CircuitBreaker.builder()
+                .name("probe")
+                .minimumCalls(2)
+                .halfOpenProbes(2)
+                .openDuration(Duration.ofSeconds(5))
+                .clock(clock)
+                .build();
+        fail(breaker);
+        fail(breaker);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // A failed probe reopens the breaker for another period
+        clock.advance(Duration.ofSeconds(5));
+        fail(breaker);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire());
+
+        // Only two probes at a time; both succeeding closes the breaker
+        clock.advance(Duration.ofSeconds(5));
+        CircuitBreaker.Permit first = breaker.tryAcquire();
+        CircuitBreaker.Permit second = breaker.tryAcquire();
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire());
+        first.success();
+        second.success();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getStats().bufferedCalls());
+        assertEquals("ok", breaker.call(() -> "ok"));
+    }
+
+    /**
+     * Test that a window of slow calls opens the breaker even though they succeed.
+     */
+    @Test
+    void testOpensOnSlowCalls() throws Exception {
+        CircuitBreaker breaker = CircuitBreaker.builder()
+                .name("slow")
+                .minimumCalls(3)
+                .slowCallDuration(Duration.ofMillis(5))
+                .slowCallRateThreshold(0.6)
+                .build();
+        breaker.call(() -> "fast");
+        for (int i = 0; i < 2; i++) {
+            breaker.call(() -> {
+                Thread.sleep(20);
+                return "slow";
+            });
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2.0 / 3, breaker.getStats().slowCallRate(), 1e-9);
+    }
+
+    /**
+     * Test that the registry keeps one breaker per downstream key.
+     */
+    @Test
+    void testRegistryIsolatesKeys() {
+        CircuitBreakerRegistry breakers = new CircuitBreakerRegistry(
+                key -> CircuitBreaker.builder().name("whois:" + key).minimumCalls(1).build());
+        fail(breakers.get("a.example"));
+
+        assertEquals(CircuitBreaker.State.OPEN, breakers.get("a.example").getState());
+        assertEquals(CircuitBreaker.State.CLOSED, breakers.get("b.example").getState());
+        assertSame(breakers.get("a.example"), breakers.get("a.example"));
+        assertEquals(2, breakers.getStats().size());
+    }
+
+    /**
+     * A tool whose downstream service is down.
+     */
+    static class Unreachable implements SyncCapability<String, String> {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public String execute(String input) throws CapabilityException {
+            calls.incrementAndGet();
+            throw new CapabilityException("Connection timed out");
+        }
+    }
+
+    /**
+     * Test that a tool behind an open breaker answers with an error result without running.
+     */
+    @Test
+    void testOpenBreakerSkipsTool() throws Exception {
+        Unreachable tool = new Unreachable();
+        CircuitBreaker breaker = CircuitBreaker.builder().name("downstream").minimumCalls(3).build();
+        var specification = ToolContainer.builder().tool(tool).circuitBreaker(breaker).build().getAsyncToolSpecification();
+
+        for (int i = 0; i < 3; i++) {
+            McpSchema.CallToolResult result = specification.call().apply(null, Map.of("value", "x")).block();
+            assertEquals("Connection timed out", ((McpSchema.TextContent) result.content().get(0)).text());
+        }
+        McpSchema.CallToolResult result = specification.call().apply(null, Map.of("value", "x")).block();
+
+        assertTrue(result.isError());
+        String text = ((McpSchema.TextContent) result.content().get(0)).text();
+        assertTrue(text.startsWith("Circuit breaker 'downstream' is open, retry after"), text);
+        assertEquals(3, tool.calls.get());
+    }
+
+    /**
+     * A tool whose "block" calls wait until released.
+     */
+    static class Latched implements SyncCapability<String, String> {
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public String execute(String input) throws CapabilityException {
+            if (input.equals("block")) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CapabilityException("Interrupted", e);
+                }
+            }
+            return input;
+        }
+    }
+
+    /**
+     * Test that calls rejected by a full bulkhead, or slowed down by waiting in its queue, are not
+     * held against the tool's breaker.
+     */
+    @Test
+    void testBulkheadRejectionsAndQueueingAreNotCounted() throws Exception {
+        Latched tool = new Latched();
+        BulkheadExecutor bulkhead = BulkheadExecutor.builder().name("latched").threads(1).queueCapacity(1).build();
+        CircuitBreaker breaker = CircuitBreaker.builder()
+                .name("latched")
+                .minimumCalls(2)
+                .slowCallDuration(Duration.ofMillis(50))
+                .slowCallRateThreshold(0.6)
+                .build();
+        var specification = ToolContainer.builder().tool(tool).bulkhead(bulkhead).circuitBreaker(breaker).build().getAsyncToolSpecification();
+        try {
+            CompletableFuture<McpSchema.CallToolResult> running = specification.call().apply(null, Map.of("value", "block")).toFuture();
+            CompletableFuture<McpSchema.CallToolResult> queued = specification.call().apply(null, Map.of("value", "fast")).toFuture();
+            while (bulkhead.getStats().queued() < 1) {
+                Thread.sleep(5);
+            }
+            for (int i = 0; i < 3; i++) {
+                McpSchema.CallToolResult rejected = specification.call().apply(null, Map.of("value", "fast")).block();
+                assertTrue(((McpSchema.TextContent) rejected.content().get(0)).text().contains("saturated"));
+            }
+            Thread.sleep(100);
+            tool.release.countDown();
+
+            assertFalse(running.get().isError());
+            assertFalse(queued.get().isError());
+            CircuitBreaker.CircuitBreakerStats stats = breaker.getStats();
+            assertEquals(CircuitBreaker.State.CLOSED, stats.state());
+            assertEquals(2, stats.bufferedCalls());
+            assertEquals(0, stats.failureRate(), 1e-9);
+            assertEquals(0.5, stats.slowCallRate(), 1e-9);
+        } finally {
+            bulkhead.shutdown();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.gegolabs.mcp.resilience;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for hedged requests.
+ */
+@Timeout(value = 10, unit = TimeUnit.SECONDS)
+class HedgerTest {
+
+    /**
+     * Test that a slow primary attempt is hedged, the backup answers and the primary is cancelled.
+     */
+    @Test
+    void testBackupAnswersSlowCall() throws Exception {
+        CountDownLatch primaryCancelled = new CountDownLatch(1);
+        try (Hedger hedger = Hedger.builder().name("test").initialDelay(Duration.ofMillis(20)).build()) {
+            long started = System.nanoTime();
+            String result = hedger.call(attempt -> {
+                if (attempt.isBackup()) {
+                    return "backup";
+                }
+                attempt.onCancel(primaryCancelled::countDown);
+                Thread.sleep(5_000);
+                return "primary";
+            });
+
+            assertEquals("backup", result);
+            assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(2));
+            assertTrue(primaryCancelled.await(1, TimeUnit.SECONDS));
+            Hedger.HedgerStats stats = hedger.getStats();
+            assertEquals(1, stats.hedges());
+            assertEquals(1, stats.backupWins());
+        }
+    }
+
+    /**
+     * Test that hedges stop once the budget is spent.
+     */
+    @Test
+    void testBudgetCapsHedges() throws Exception {
+        try (Hedger hedger = Hedger.builder().initialDelay(Duration.ofMillis(10)).budget(0.000001).burst(1).build()) {
+            Hedger.HedgedCall<String> slowPrimary = attempt -> {
+                if (attempt.isBackup()) {
+                    return "backup";
+                }
+                Thread.sleep(100);
+                return "primary";
+            };
+
+            assertEquals("backup", hedger.call(slowPrimary));
+            assertEquals("primary", hedger.call(slowPrimary));
+            assertEquals(1, hedger.getStats().hedges());
+            assertEquals(1, hedger.getStats().overBudget());
+        }
+    }
+
+    /**
+     * Test that the delay follows the observed latencies, and that a failure with no other attempt running fails the call.
+     */
+    @Test
+    void testDelayAdaptsAndFailuresPropagate() throws Exception {
+        try (Hedger hedger = Hedger.builder().initialDelay(Duration.ofSeconds(5)).minSamples(5).build()) {
+            for (int i = 0; i < 20; i++) {
+                assertEquals("ok", hedger.call(attempt -> {
+                    Thread.sleep(2);
+                    return "ok";
+                }));
+            }
+            Duration delay = hedger.getDelay();
+            assertTrue(delay.compareTo(Duration.ofMillis(2)) >= 0, delay.toString());
+            assertTrue(delay.compareTo(Duration.ofMillis(500)) < 0, delay.toString());
+
+            AtomicInteger attempts = new AtomicInteger();
+            IOException error = assertThrows(IOException.class, () -> hedger.call(attempt -> {
+                attempts.incrementAndGet();
+                throw new IOException("refused");
+            }));
+            assertEquals("refused", error.getMessage());
+            assertEquals(1, attempts.get());
+        }
+    }
+
+    /**
+     * Test that fast failures do not shorten the delay.
+     */
+    @Test
+    void testFailuresDoNotLowerTheDelay() throws Exception {
+        try (Hedger hedger = Hedger.builder().initialDelay(Duration.ofSeconds(5)).minSamples(5).build()) {
+            for (int i = 0; i < 5; i++) {
+                hedger.call(attempt -> {
+                    Thread.sleep(30);
+                    return "ok";
+                });
+            }
+            Duration delay = hedger.getDelay();
+            assertTrue(delay.compareTo(Duration.ofMillis(30)) >= 0, delay.toString());
+
+            for (int i = 0; i < 100; i++) {
+                assertThrows(IOException.class, () -> hedger.call(attempt -> {
+                    throw new IOException("refused");
+                }));
+            }
+            assertEquals(delay, hedger.getDelay());
+        }
+    }
+}
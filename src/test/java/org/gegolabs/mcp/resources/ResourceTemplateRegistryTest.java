@@ -0,0 +1,67 @@
+package org.gegolabs.mcp.resources;
+
+import io.modelcontextprotocol.spec.McpError;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.gegolabs.mcp.model.ResourceTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for reading resources through templates.
+ */
+class ResourceTemplateRegistryTest {
+
+    record Page(String book, int number) {
+    }
+
+    private final ResourceTemplateRegistry registry = ResourceTemplateRegistry.builder()
+            .template(ResourceTemplate.<Page>builder()
+                    .uriTemplate("books://{book}/pages/{number}")
+                    .name("Book pages")
+                    .mimeType("text/plain")
+                    .variablesType(Page.class)
+                    .reader(page -> page.book() + " page " + (page.number() + 1))
+                    .build())
+            .template(ResourceTemplate.<Map<String, String>>builder()
+                    .uriTemplate("raw://{+path}")
+                    .name("Raw bytes")
+                    .reader(variables -> variables.get("path").getBytes())
+                    .build())
+            .build();
+
+    /**
+     * Test that variables are bound to the typed parameter of the reader.
+     */
+    @Test
+    void testTypedBinding() {
+        McpSchema.ReadResourceResult result = registry.read("books://dune/pages/41").block();
+
+        McpSchema.TextResourceContents contents = (McpSchema.TextResourceContents) result.contents().get(0);
+        assertEquals("dune page 42", contents.text());
+        assertEquals("books://dune/pages/41", contents.uri());
+        assertEquals("text/plain", contents.mimeType());
+    }
+
+    /**
+     * Test that byte content is returned as a blob and map readers get the raw variables.
+     */
+    @Test
+    void testBlobContent() {
+        McpSchema.ReadResourceResult result = registry.read("raw://a/b").block();
+
+        assertEquals("YS9i", ((McpSchema.BlobResourceContents) result.contents().get(0)).blob());
+    }
+
+    /**
+     * Test that values that cannot be bound fail with invalid params and unknown URIs match nothing.
+     */
+    @Test
+    void testInvalidAndUnknownUris() {
+        assertThrows(McpError.class, () -> registry.read("books://dune/pages/first").block());
+        assertNull(registry.read("unknown://x").block());
+        assertEquals(2, registry.list().resourceTemplates().size());
+    }
+}
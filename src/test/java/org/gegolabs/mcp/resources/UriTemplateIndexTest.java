@@ -0,0 +1,117 @@
+package org.gegolabs.mcp.resources;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for URI template compilation and matching.
+ */
+class UriTemplateIndexTest {
+
+    private static UriTemplateIndex<String> index(String... templates) {
+        UriTemplateIndex<String> index = new UriTemplateIndex<>();
+        for (String template : templates) {
+            index.add(UriTemplate.compile(template), template);
+        }
+        return index;
+    }
+
+    /**
+     * Test that variables are extracted from simple and mixed segments.
+     */
+    @Test
+    void testSimpleExpansion() {
+        UriTemplateIndex<String> index = index("books://{book}/pages/{number}", "files://{name}.{ext}");
+
+        UriTemplateIndex.Match<String> page = index.match("books://dune/pages/42");
+        assertEquals("books://{book}/pages/{number}", page.value());
+        assertEquals(Map.of("book", "dune", "number", "42"), page.variables());
+
+        assertEquals(Map.of("name", "archive", "ext", "tar.gz"), index.match("files://archive.tar.gz").variables());
+        assertNull(index.match("books://dune/pages"));
+        assertNull(index.match("books://dune/pages/42/extra"));
+        assertNull(index.match("books:///pages/42"));
+    }
+
+    /**
+     * Test that reserved expansion captures the rest of the URI, slashes included.
+     */
+    @Test
+    void testReservedExpansion() {
+        UriTemplateIndex<String> index = index("file:///{+path}");
+
+        assertEquals(Map.of("path", "home/user/notes.txt"), index.match("file:///home/user/notes.txt").variables());
+        assertNull(index.match("file:///"));
+    }
+
+    /**
+     * Test that literal segments take precedence and the lookup backtracks when a branch fails.
+     */
+    @Test
+    void testPrecedenceAndBacktracking() {
+        UriTemplateIndex<String> index = index("db://{table}/schema", "db://users/{id}/name", "db://{+rest}");
+
+        assertEquals("db://users/{id}/name", index.match("db://users/7/name").value());
+        assertEquals("db://{table}/schema", index.match("db://users/schema").value());
+        assertEquals("db://{+rest}", index.match("db://orders/7/lines").value());
+    }
+
+    /**
+     * Test that matched values are percent-decoded without turning '+' into spaces.
+     */
+    @Test
+    void testDecoding() {
+        UriTemplateIndex<String> index = index("search://{query}");
+
+        assertEquals("a b+c", index.match("search://a%20b+c").variables().get("query"));
+        assertEquals("caf\u00e9", index.match("search://caf%C3%A9").variables().get("query"));
+    }
+
+    /**
+     * Test that unsupported or ambiguous templates are rejected.
+     */
+    @Test
+    void testInvalidTemplates() {
+        assertThrows(IllegalArgumentException.class, () -> UriTemplate.compile("x://{a}{b}"));
+        assertThrows(IllegalArgumentException.class, () -> UriTemplate.compile("x://{+a}/b"));
+        assertThrows(IllegalArgumentException.class, () -> UriTemplate.compile("x://{?a}"));
+        assertThrows(IllegalArgumentException.class, () -> UriTemplate.compile("x://{a}/{a}"));
+        assertThrows(IllegalArgumentException.class, () -> index("x://{a}", "x://{a}"));
+    }
+
+    /**
+     * Test that templates differing only in variable names conflict, and that templates sharing
+     * a templated prefix each get their own variable names.
+     */
+    @Test
+    void testVariableNamesDoNotMakeTemplatesDistinct() {
+        assertThrows(IllegalArgumentException.class, () -> index("files://{id}", "files://{name}"));
+        assertThrows(IllegalArgumentException.class, () -> index("files://{id}.json", "files://{name}.json"));
+        assertThrows(IllegalArgumentException.class, () -> index("files://{+path}", "files://{+rest}"));
+
+        UriTemplateIndex<String> index = index("files://{id}.json", "files://{name}.xml",
+                "db://{table}/schema", "db://{name}/rows");
+        assertEquals(Map.of("name", "report"), index.match("files://report.xml").variables());
+        assertEquals(Map.of("table", "users"), index.match("db://users/schema").variables());
+        assertEquals(Map.of("name", "users"), index.match("db://users/rows").variables());
+    }
+
+    /**
+     * Test that lookups stay correct with many templates sharing prefixes.
+     */
+    @Test
+    void testManyTemplates() {
+        UriTemplateIndex<String> index = new UriTemplateIndex<>();
+        for (int i = 0; i < 5000; i++) {
+            index.add(UriTemplate.compile("app://tenant" + i + "/{kind}/{id}"), "t" + i);
+        }
+
+        UriTemplateIndex.Match<String> match = index.match("app://tenant4321/orders/99");
+        assertEquals("t4321", match.value());
+        assertEquals(Map.of("kind", "orders", "id", "99"), match.variables());
+        assertEquals(5000, index.size());
+    }
+}
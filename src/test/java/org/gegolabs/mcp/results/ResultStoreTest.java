@@ -0,0 +1,153 @@
+package org.gegolabs.mcp.results;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.gegolabs.mcp.ToolContainer;
+import org.gegolabs.mcp.protocol.CapabilityException;
+import org.gegolabs.mcp.protocol.SyncCapability;
+import org.gegolabs.mcp.resources.ResourceTemplateRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the store of oversized tool results.
+ */
+@Timeout(value = 10, unit = TimeUnit.SECONDS)
+class ResultStoreTest {
+
+    private static final Pattern RESULT_URI = Pattern.compile("umcp://results/([0-9a-f-]+)/pages/0");
+
+    private static String text(McpSchema.CallToolResult result) {
+        return ((McpSchema.TextContent) result.content().get(0)).text();
+    }
+
+    private static String resultId(String summary) {
+        Matcher matcher = RESULT_URI.matcher(summary);
+        assertTrue(matcher.find(), summary);
+        return matcher.group(1);
+    }
+
+    /**
+     * Test that a stored result reads back page by page through resources/read, with multibyte
+     * characters and surrogate pairs kept whole at page boundaries.
+     */
+    @Test
+    void testPagesReadBack(@TempDir Path directory) throws Exception {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            builder.append("línea ").append(i).append(" 😀 ñandú\n");
+        }
+        String result = builder.toString();
+        try (ResultStore store = ResultStore.builder().threshold(100).pageSize(7).directory(directory).build()) {
+            assertTrue(store.shouldStore(result));
+            String summary = text(store.store("report", result));
+            String id = resultId(summary);
+            assertTrue(summary.contains(result.length() + " characters"), summary);
+
+            ResourceTemplateRegistry registry = ResourceTemplateRegistry.builder().template(store.template()).build();
+            StringBuilder read = new StringBuilder();
+            for (int page = 0; read.length() < result.length(); page++) {
+                McpSchema.ReadResourceResult contents = registry.read("umcp://results/" + id + "/pages/" + page).block();
+                String pageText = ((McpSchema.TextResourceContents) contents.contents().get(0)).text();
+                assertFalse(pageText.isEmpty());
+                assertTrue(pageText.length() <= 7);
+                read.append(pageText);
+            }
+            assertEquals(result, read.toString());
+            assertThrows(CapabilityException.class, () -> store.read(id, 100_000));
+        }
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    /**
+     * A tool with a large result.
+     */
+    static class Dump implements SyncCapability<String, String> {
+        @Override
+        public String execute(String input) {
+            return input.repeat(5_000);
+        }
+    }
+
+    /**
+     * Test that a tool returns a summary with a preview instead of a result over the threshold,
+     * and the full result under it.
+     */
+    @Test
+    void testToolReturnsSummary(@TempDir Path directory) throws Exception {
+        try (ResultStore store = ResultStore.builder().threshold(1_000).previewLength(20).directory(directory).build()) {
+            var specification = ToolContainer.builder().tool(new Dump()).resultStore(store).build().getAsyncToolSpecification();
+
+            McpSchema.CallToolResult large = specification.call().apply(null, Map.of("value", "abc")).block();
+            assertFalse(large.isError());
+            String summary = text(large);
+            assertTrue(summary.endsWith("Preview:\n" + "abc".repeat(7).substring(0, 20)), summary);
+            assertEquals("abc".repeat(5_000), store.read(resultId(summary), 0));
+            assertEquals(1, store.size());
+            assertEquals(15_000, store.getStoredBytes());
+
+            McpSchema.CallToolResult small = specification.call().apply(null, Map.of("value", "")).block();
+            assertEquals("", text(small));
+            assertEquals(1, store.size());
+        }
+    }
+
+    /**
+     * Test that a result not read within its time to live is deleted, and that the oldest results
+     * are deleted when the store is over its size limit.
+     */
+    @Test
+    void testExpiryAndEviction(@TempDir Path directory) throws Exception {
+        try (ResultStore store = ResultStore.builder().threshold(10).maxBytes(50).ttl(Duration.ofMillis(50)).directory(directory).build()) {
+            String first = resultId(text(store.store("t", "a".repeat(30))));
+            String second = resultId(text(store.store("t", "b".repeat(30))));
+            assertEquals(1, store.size());
+            assertThrows(CapabilityException.class, () -> store.read(first, 0));
+            assertEquals("b".repeat(30), store.read(second, 0));
+
+            Thread.sleep(100);
+            store.expire();
+            assertEquals(0, store.size());
+            assertEquals(0, store.getStoredBytes());
+            CapabilityException expired = assertThrows(CapabilityException.class, () -> store.read(second, 0));
+            assertTrue(expired.getMessage().contains("expired"));
+        }
+    }
+
+    /**
+     * Test that a result whose file cannot be deleted still leaves the store, without stopping the
+     * expiry of the other results.
+     */
+    @Test
+    void testUndeletableFileDoesNotStopExpiry(@TempDir Path directory) throws Exception {
+        try (ResultStore store = ResultStore.builder().threshold(10).ttl(Duration.ofMillis(50)).directory(directory).build()) {
+            String stuck = resultId(text(store.store("t", "a".repeat(30))));
+            store.store("t", "b".repeat(30));
+            // A non-empty directory in place of the file cannot be deleted
+            Path file = directory.resolve(stuck + ".txt");
+            Files.delete(file);
+            Files.createDirectory(file);
+            Files.writeString(file.resolve("keep"), "x");
+
+            Thread.sleep(100);
+            store.expire();
+            assertEquals(0, store.size());
+            assertEquals(0, store.getStoredBytes());
+            try (var files = Files.list(directory)) {
+                assertEquals(1, files.count());
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.gegolabs.mcp.roots;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the file index and the roots manager.
+ */
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+class FileIndexTest {
+
+    @TempDir
+    Path root;
+
+    private FileIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.createDirectories(root.resolve("src/main"));
+        Files.createDirectories(root.resolve(".git"));
+        Files.writeString(root.resolve("src/main/App.java"), "class App {}");
+        Files.writeString(root.resolve("src/main/app.properties"), "a=1");
+        Files.writeString(root.resolve("README.md"), "# readme");
+        Files.writeString(root.resolve(".git/HEAD"), "ref");
+
+        index = FileIndex.builder().root(root).hashContents(true).excludedDirectory(".git").build();
+        index.start();
+        index.ready().get(10, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.close();
+    }
+
+    /**
+     * Test that the initial scan indexes files with size and hash, skipping excluded directories.
+     */
+    @Test
+    void testInitialScan() {
+        assertEquals(3, index.size());
+        FileIndex.FileEntry app = index.get("src/main/App.java").orElseThrow();
+        assertEquals(12, app.size());
+        assertEquals(64, app.hash().length());
+        assertTrue(index.get(".git/HEAD").isEmpty());
+    }
+
+    /**
+     * Test prefix and glob queries.
+     */
+    @Test
+    void testQueries() {
+        assertEquals(List.of("src/main/App.java", "src/main/app.properties"),
+                index.findByPrefix("src/").stream().map(FileIndex.FileEntry::path).toList());
+        assertEquals(List.of("src/main/App.java"),
+                index.findByGlob("src/**/*.java").stream().map(FileIndex.FileEntry::path).toList());
+        assertEquals(List.of("README.md"),
+                index.findByGlob("*.md").stream().map(FileIndex.FileEntry::path).toList());
+    }
+
+    /**
+     * Test that the watcher keeps the index current.
+     */
+    @Test
+    void testWatcherUpdates() throws Exception {
+        Files.createDirectories(root.resolve("src/test"));
+        Files.writeString(root.resolve("src/test/AppTest.java"), "class AppTest {}");
+        Files.delete(root.resolve("README.md"));
+
+        await(() -> index.get("src/test/AppTest.java").isPresent());
+        await(() -> index.get("README.md").isEmpty());
+
+        Files.writeString(root.resolve("src/main/App.java"), "class App { int x; }");
+        await(() -> index.get("src/main/App.java").map(entry -> entry.size() == 20).orElse(false));
+    }
+
+    /**
+     * Test that sessions sharing a root share its index, which closes with the last session.
+     */
+    @Test
+    void testRootsManagerSharesIndexes() {
+        RootsManager roots = RootsManager.builder().build();
+        List<McpSchema.Root> list = List.of(new McpSchema.Root(root.toUri().toString(), "project"),
+                new McpSchema.Root("https://example.com/repo", "remote"));
+
+        roots.setRoots("s1", list);
+        roots.setRoots("s2", list);
+
+        assertEquals(2, roots.getRoots("s1").size());
+        FileIndex shared = roots.getIndexes("s1").get(0);
+        assertSame(shared, roots.getIndexes("s2").get(0));
+
+        roots.setRoots("s1", List.of());
+        assertSame(shared, roots.getIndexes("s2").get(0));
+        roots.setRoots("s2", List.of());
+        assertTrue(roots.getIndexes("s2").isEmpty());
+        assertEquals(0, shared.size());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        while (!condition.getAsBoolean()) {
+            Thread.sleep(20);
+        }
+    }
+}
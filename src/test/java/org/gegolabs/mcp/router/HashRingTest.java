@@ -0,0 +1,87 @@
+package org.gegolabs.mcp.router;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the consistent hash ring.
+ */
+@Timeout(value = 10, unit = TimeUnit.SECONDS)
+class HashRingTest {
+
+    private static final int KEYS = 10_000;
+
+    private static Map<String, String> assign(HashRing<String> ring) {
+        Map<String, String> owners = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            owners.put("key-" + i, ring.get("key-" + i));
+        }
+        return owners;
+    }
+
+    /**
+     * Test that keys spread evenly, and that a joining or leaving node only moves its own share of
+     * the keys.
+     */
+    @Test
+    void testMinimalMovement() {
+        HashRing<String> ring = new HashRing<>(128, Function.identity());
+        assertNull(ring.get("key"));
+        ring.add("a");
+        ring.add("b");
+        ring.add("c");
+        assertFalse(ring.add("c"));
+
+        Map<String, String> before = assign(ring);
+        for (String node : ring.getNodes()) {
+            long share = before.values().stream().filter(node::equals).count();
+            assertTrue(share > KEYS / 3 * 0.75 && share < KEYS / 3 * 1.25, node + " owns " + share);
+        }
+
+        ring.add("d");
+        Map<String, String> joined = assign(ring);
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "key-" + i;
+            if (!before.get(key).equals(joined.get(key))) {
+                assertEquals("d", joined.get(key), "keys only move to the new node");
+                moved++;
+            }
+        }
+        assertTrue(moved > KEYS / 4 * 0.75 && moved < KEYS / 4 * 1.25, moved + " keys moved");
+
+        assertTrue(ring.remove("d"));
+        assertEquals(before, assign(ring));
+        assertFalse(ring.remove("d"));
+    }
+
+    /**
+     * Test that skipped nodes hand their keys to the next eligible node, and only their keys.
+     */
+    @Test
+    void testSkipsIneligibleNodes() {
+        HashRing<String> ring = new HashRing<>(64, Function.identity());
+        ring.add("a");
+        ring.add("b");
+        ring.add("c");
+
+        for (int i = 0; i < 1000; i++) {
+            String key = "key-" + i;
+            String owner = ring.get(key);
+            String fallback = ring.get(key, node -> !node.equals("b"));
+            if (owner.equals("b")) {
+                assertNotEquals("b", fallback);
+            } else {
+                assertEquals(owner, fallback);
+            }
+        }
+        assertNull(ring.get("key", node -> false));
+    }
+}
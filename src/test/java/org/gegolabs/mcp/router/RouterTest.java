@@ -0,0 +1,218 @@
+package org.gegolabs.mcp.router;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.gegolabs.mcp.MCPServer;
+import org.gegolabs.mcp.protocol.CapabilityException;
+import org.gegolabs.mcp.protocol.Name;
+import org.gegolabs.mcp.transport.HttpServerTransportProvider;
+import org.gegolabs.mcp.transport.TransportType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for routing tool calls over a pool of backends.
+ */
+@Timeout(value = 10, unit = TimeUnit.SECONDS)
+class RouterTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    public static class LookupTools {
+        private final String node;
+
+        LookupTools(String node) {
+            this.node = node;
+        }
+
+        @org.gegolabs.mcp.protocol.MCPServer
+        @Name("lookup")
+        public String lookup(@Name("domain") String domain, @Name("attempt") int attempt) {
+            return node + ":" + domain;
+        }
+
+        @org.gegolabs.mcp.protocol.MCPServer
+        @Name("fail")
+        public String fail(@Name("domain") String domain) throws CapabilityException {
+            throw new CapabilityException("No registry for " + domain);
+        }
+    }
+
+    private MCPServer first;
+    private MCPServer second;
+    private Router router;
+    private URI firstEndpoint;
+    private URI secondEndpoint;
+    private int routerPort;
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static MCPServer backend(String node, int port) throws Exception {
+        MCPServer server = MCPServer.builder()
+                .name(node)
+                .version("1.0.0")
+                .transportType(TransportType.HTTP)
+                .port(port)
+                .toolObject(new LookupTools(node))
+                .build();
+        server.start();
+        return server;
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        int firstPort = freePort();
+        int secondPort = freePort();
+        routerPort = freePort();
+        first = backend("first", firstPort);
+        second = backend("second", secondPort);
+        firstEndpoint = URI.create("http://localhost:" + firstPort + "/mcp");
+        secondEndpoint = URI.create("http://localhost:" + secondPort + "/mcp");
+        router = Router.builder()
+                .server(MCPServer.builder().name("router").version("1.0.0").transportType(TransportType.HTTP).port(routerPort))
+                .backend(firstEndpoint)
+                .backend(secondEndpoint)
+                .keyArgument("lookup", "domain")
+                .healthCheckInterval(Duration.ofMillis(200))
+                .build();
+        router.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.close();
+        first.close();
+        second.close();
+    }
+
+    /**
+     * Test that calls with the same key argument go to the same backend, that keys spread over
+     * the backends, and that the keys of a stopped backend move to the other one.
+     */
+    @Test
+    void testRoutesByKeyAndFailsOver() throws Exception {
+        Map<String, String> owners = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            String domain = "site" + i + ".com";
+            String result = router.route("lookup", Map.of("domain", domain, "attempt", 1)).get();
+            String node = result.substring(0, result.indexOf(':'));
+            assertEquals(node + ":" + domain, router.route("lookup", Map.of("domain", domain, "attempt", 2)).get());
+            assertEquals(node.equals("first") ? firstEndpoint : secondEndpoint, router.locate("lookup", Map.of("domain", domain)));
+            owners.put(domain, node);
+        }
+        assertTrue(owners.containsValue("first") && owners.containsValue("second"), owners.toString());
+
+        first.close();
+        for (Map.Entry<String, String> owner : owners.entrySet()) {
+            assertEquals("second:" + owner.getKey(), router.route("lookup", Map.of("domain", owner.getKey(), "attempt", 3)).get());
+        }
+        Backend.BackendStats stopped = router.getBackendStats().get(0);
+        assertEquals(firstEndpoint, stopped.endpoint());
+        assertFalse(stopped.healthy());
+
+        assertTrue(router.removeBackend(firstEndpoint));
+        assertEquals(1, router.getBackendStats().size());
+    }
+
+    /**
+     * Test that clients of the router see the backend tools, and get their results and errors.
+     */
+    @Test
+    void testForwardsClientCalls() throws Exception {
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> router.route("fail", Map.of("domain", "example.com")).get());
+        assertInstanceOf(CapabilityException.class, error.getCause());
+        assertEquals("No registry for example.com", error.getCause().getMessage());
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI endpoint = URI.create("http://localhost:" + routerPort + "/mcp");
+        String session = connect(client, endpoint);
+
+        JsonNode tools = OBJECT_MAPPER.readTree(client.send(post(endpoint, session,
+                "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/list\"}"), HttpResponse.BodyHandlers.ofString()).body());
+        assertEquals(2, tools.at("/result/tools").size());
+
+        JsonNode call = lookup(client, endpoint, session, "acme.com");
+        String expected = (router.locate("lookup", Map.of("domain", "acme.com")).equals(firstEndpoint) ? "first" : "second") + ":acme.com";
+        assertEquals(expected, call.at("/result/content/0/text").asText());
+        assertFalse(call.at("/result/isError").asBoolean());
+    }
+
+    /**
+     * Test that each client session of the router gets its own session on the backend it calls,
+     * and that closing the client session ends it.
+     */
+    @Test
+    void testOpensOneBackendSessionPerClientSession() throws Exception {
+        router.route("lookup", Map.of("domain", "acme.com", "attempt", 1)).get();
+        int owner = router.locate("lookup", Map.of("domain", "acme.com")).equals(firstEndpoint) ? 0 : 1;
+        // Health checks and calls outside of a client session share one session per backend
+        assertEquals(1, router.getBackendStats().get(owner).sessions());
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI endpoint = URI.create("http://localhost:" + routerPort + "/mcp");
+        String alice = connect(client, endpoint);
+        String bob = connect(client, endpoint);
+        for (String session : new String[] {alice, bob, alice}) {
+            assertFalse(lookup(client, endpoint, session, "acme.com").at("/result/isError").asBoolean());
+        }
+        assertEquals(3, router.getBackendStats().get(owner).sessions());
+        assertEquals(1, router.getBackendStats().get(1 - owner).sessions());
+
+        // Ended on a connection of its own, which the server may close afterwards
+        HttpClient.newHttpClient().send(HttpRequest.newBuilder(endpoint).header(HttpServerTransportProvider.SESSION_HEADER, alice).DELETE().build(),
+                HttpResponse.BodyHandlers.discarding());
+        while (router.getBackendStats().get(owner).sessions() != 2) {
+            Thread.sleep(20);
+        }
+        assertFalse(lookup(client, endpoint, bob, "acme.com").at("/result/isError").asBoolean());
+        assertEquals(2, router.getBackendStats().get(owner).sessions());
+    }
+
+    private static String connect(HttpClient client, URI endpoint) throws Exception {
+        HttpResponse<String> init = client.send(post(endpoint, null,
+                "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{\"protocolVersion\":\"2024-11-05\","
+                        + "\"capabilities\":{},\"clientInfo\":{\"name\":\"test\",\"version\":\"1.0\"}}}"),
+                HttpResponse.BodyHandlers.ofString());
+        String session = init.headers().firstValue(HttpServerTransportProvider.SESSION_HEADER).orElseThrow();
+        client.send(post(endpoint, session, "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}"),
+                HttpResponse.BodyHandlers.discarding());
+        return session;
+    }
+
+    private static JsonNode lookup(HttpClient client, URI endpoint, String session, String domain) throws Exception {
+        return OBJECT_MAPPER.readTree(client.send(post(endpoint, session,
+                "{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"tools/call\",\"params\":{\"name\":\"lookup\","
+                        + "\"arguments\":{\"domain\":\"" + domain + "\",\"attempt\":1}}}"), HttpResponse.BodyHandlers.ofString()).body());
+    }
+
+    private static HttpRequest post(URI endpoint, String session, String body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(endpoint)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (session != null) {
+            request.header(HttpServerTransportProvider.SESSION_HEADER, session);
+        }
+        return request.build();
+    }
+}
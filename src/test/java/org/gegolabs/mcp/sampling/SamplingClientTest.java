@@ -0,0 +1,135 @@
+package org.gegolabs.mcp.sampling;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.gegolabs.mcp.protocol.CallContext;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the sampling client.
+ */
+class SamplingClientTest {
+
+    private static McpSchema.CreateMessageRequest request(String text) {
+        return McpSchema.CreateMessageRequest.builder()
+                .messages(List.of(new McpSchema.SamplingMessage(McpSchema.Role.USER, new McpSchema.TextContent(text))))
+                .maxTokens(100)
+                .build();
+    }
+
+    private static McpSchema.CreateMessageResult result(String text) {
+        return McpSchema.CreateMessageResult.builder().content(new McpSchema.TextContent(text)).model("test").build();
+    }
+
+    /**
+     * Test that requests beyond the per-session limit wait for a slot.
+     */
+    @Test
+    void testConcurrencyLimitPerSession() {
+        List<Sinks.One<McpSchema.CreateMessageResult>> pending = new CopyOnWriteArrayList<>();
+        SamplingClient client = SamplingClient.builder().maxConcurrentPerSession(2).build();
+        client.register("s1", request -> {
+            Sinks.One<McpSchema.CreateMessageResult> sink = Sinks.one();
+            pending.add(sink);
+            return sink.asMono();
+        });
+
+        CompletableFuture<McpSchema.CreateMessageResult> first = client.createMessage("s1", request("a"));
+        client.createMessage("s1", request("b"));
+        CompletableFuture<McpSchema.CreateMessageResult> third = client.createMessage("s1", request("c"));
+        assertEquals(2, pending.size());
+
+        pending.get(0).tryEmitValue(result("A"));
+        assertEquals("A", ((McpSchema.TextContent) first.join().content()).text());
+        assertEquals(3, pending.size());
+
+        pending.get(2).tryEmitValue(result("C"));
+        assertEquals("C", ((McpSchema.TextContent) third.join().content()).text());
+    }
+
+    /**
+     * Test that identical requests in flight are sent once and cancelling one caller leaves the others intact.
+     */
+    @Test
+    void testDeduplication() {
+        AtomicInteger sent = new AtomicInteger();
+        Sinks.One<McpSchema.CreateMessageResult> sink = Sinks.one();
+        SamplingClient client = SamplingClient.builder().build();
+        client.register("s1", request -> {
+            sent.incrementAndGet();
+            return sink.asMono();
+        });
+
+        CompletableFuture<McpSchema.CreateMessageResult> first = client.createMessage("s1", request("same"));
+        CompletableFuture<McpSchema.CreateMessageResult> second = client.createMessage("s1", request("same"));
+        first.cancel(true);
+        sink.tryEmitValue(result("answer"));
+
+        assertEquals(1, sent.get());
+        assertEquals("answer", ((McpSchema.TextContent) second.join().content()).text());
+    }
+
+    /**
+     * Test that cached results are returned without asking the client again.
+     */
+    @Test
+    void testCache() {
+        AtomicInteger sent = new AtomicInteger();
+        SamplingClient client = SamplingClient.builder().cacheWeight(1000).build();
+        client.register("s1", request -> Mono.just(result("answer " + sent.incrementAndGet())));
+
+        client.createMessage("s1", request("q")).join();
+        McpSchema.CreateMessageResult cached = client.createMessage("s1", request("q")).join();
+
+        assertEquals(1, sent.get());
+        assertEquals("answer 1", ((McpSchema.TextContent) cached.content()).text());
+        assertEquals(1, client.getCache().getHits());
+    }
+
+    /**
+     * Test that a cached result is only returned to the session that produced it, and is dropped
+     * when that session closes.
+     */
+    @Test
+    void testCacheIsPerSession() {
+        SamplingClient client = SamplingClient.builder().cacheWeight(1000).build();
+        client.register("s1", request -> Mono.just(result("from s1")));
+        client.register("s2", request -> Mono.just(result("from s2")));
+
+        client.createMessage("s1", request("q")).join();
+        McpSchema.CreateMessageResult other = client.createMessage("s2", request("q")).join();
+
+        assertEquals("from s2", ((McpSchema.TextContent) other.content()).text());
+        assertEquals(0, client.getCache().getHits());
+        assertEquals(2, client.getCache().size());
+
+        client.unregister("s1");
+        assertEquals(1, client.getCache().size());
+    }
+
+    /**
+     * Test that the current call's session is used and unsupported sessions fail.
+     */
+    @Test
+    void testSessionFromCallContext() throws Exception {
+        SamplingClient client = SamplingClient.builder().build();
+        client.register("s1", request -> Mono.just(result("ok")));
+
+        CompletableFuture<McpSchema.CreateMessageResult> result = new CallContext("s1", 1)
+                .call(() -> client.createMessage(request("q")));
+        assertEquals("ok", ((McpSchema.TextContent) result.join().content()).text());
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> new CallContext("s2", 1).call(() -> client.createMessage(request("q"))).get());
+        assertTrue(error.getCause().getMessage().contains("does not support sampling"));
+    }
+}
@@ -0,0 +1,82 @@
+package org.gegolabs.mcp.scheduling;
+
+import org.gegolabs.mcp.protocol.CapabilityException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the BulkheadExecutor class.
+ */
+@Timeout(value = 5, unit = TimeUnit.SECONDS)
+class BulkheadExecutorTest {
+
+    private final BulkheadExecutor slow = BulkheadExecutor.builder().name("slow").threads(1).queueCapacity(1).build();
+    private final BulkheadExecutor fast = BulkheadExecutor.builder().name("fast").threads(1).queueCapacity(1).build();
+
+    @AfterEach
+    void tearDown() {
+        slow.shutdown();
+        fast.shutdown();
+    }
+
+    /**
+     * Test that a saturated bulkhead rejects calls while other bulkheads keep working.
+     */
+    @Test
+    void testSaturatedBulkheadDoesNotAffectOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        slow.submit(() -> {
+            running.countDown();
+            release.await();
+            return "slow";
+        });
+        running.await();
+        slow.submit(() -> "queued");
+
+        CompletableFuture<String> rejected = slow.submit(() -> "rejected");
+        ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(CapabilityException.class, e.getCause());
+
+        assertEquals("fast", fast.submit(() -> "fast").get());
+
+        BulkheadExecutor.BulkheadStats stats = slow.getStats();
+        assertEquals(1, stats.active());
+        assertEquals(1, stats.queued());
+        assertEquals(1, stats.rejected());
+        assertEquals(1.0, stats.saturation());
+
+        release.countDown();
+    }
+
+    /**
+     * Test that cancelling the returned future interrupts the running call.
+     */
+    @Test
+    void testCancellationInterruptsCall() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CompletableFuture<String> call = slow.submit(() -> {
+            running.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "done";
+        });
+        running.await();
+
+        call.cancel(true);
+
+        assertTrue(interrupted.await(2, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,142 @@
+package org.gegolabs.mcp.scheduling;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.gegolabs.mcp.MCPServer;
+import org.gegolabs.mcp.ToolContainer;
+import org.gegolabs.mcp.protocol.CapabilityException;
+import org.gegolabs.mcp.protocol.SyncCapability;
+import org.gegolabs.mcp.transport.TransportType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for draining calls in flight and the server shutdown.
+ */
+@Timeout(value = 10, unit = TimeUnit.SECONDS)
+class CallTrackerTest {
+
+    /**
+     * Test that draining refuses new calls and waits for the ones in flight.
+     */
+    @Test
+    void testDrainWaitsForCallsInFlight() throws Exception {
+        CallTracker tracker = new CallTracker();
+        CompletableFuture<String> running = new CompletableFuture<>();
+        assertSame(running, tracker.track("slow", () -> running));
+        assertEquals(1, tracker.getInFlight());
+
+        tracker.drain();
+        assertNull(tracker.track("late", () -> CompletableFuture.completedFuture("x")));
+        assertFalse(tracker.awaitIdle(Duration.ofMillis(50)));
+
+        CompletableFuture.runAsync(() -> running.complete("done"), CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+        assertTrue(tracker.awaitIdle(Duration.ofSeconds(5)));
+        assertEquals(0, tracker.getInFlight());
+    }
+
+    /**
+     * Test that calls still running at the deadline are cancelled and reported.
+     */
+    @Test
+    void testAbandonCancelsCalls() throws Exception {
+        CallTracker tracker = new CallTracker();
+        CompletableFuture<String> stuck = tracker.track("stuck", CompletableFuture::new);
+        tracker.drain();
+
+        List<CallTracker.AbandonedCall> abandoned = tracker.abandon();
+
+        assertEquals(1, abandoned.size());
+        assertEquals("stuck", abandoned.get(0).tool());
+        assertTrue(stuck.isCancelled());
+        assertTrue(tracker.awaitIdle(Duration.ofSeconds(1)));
+    }
+
+    /**
+     * Test that a tool container refuses calls once its tracker is draining.
+     */
+    @Test
+    void testToolContainerRefusesWhileDraining() throws Exception {
+        CallTracker tracker = new CallTracker();
+        var specification = ToolContainer.builder().tool(new Quick()).tracker(tracker).build().getAsyncToolSpecification();
+
+        tracker.drain();
+        McpSchema.CallToolResult result = specification.call().apply(null, Map.of("value", "x")).block();
+
+        assertTrue(result.isError());
+        assertEquals("Server is shutting down", ((McpSchema.TextContent) result.content().get(0)).text());
+    }
+
+    /**
+     * A capability whose shutdown never returns on its own.
+     */
+    static class StuckOnShutdown implements SyncCapability<String, String> {
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public String execute(String input) {
+            return input;
+        }
+
+        @Override
+        public void shutdown() throws CapabilityException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new CapabilityException("Interrupted", e);
+            }
+        }
+    }
+
+    /**
+     * A capability that shuts down normally.
+     */
+    static class Quick implements SyncCapability<String, String> {
+        volatile boolean shutDown;
+
+        @Override
+        public String execute(String input) {
+            return input;
+        }
+
+        @Override
+        public void shutdown() {
+            shutDown = true;
+        }
+    }
+
+    /**
+     * Test that the server shuts tools down in parallel and reports the ones that time out.
+     */
+    @Test
+    void testServerShutdownReportsStuckTools() throws Exception {
+        StuckOnShutdown stuck = new StuckOnShutdown();
+        Quick quick = new Quick();
+        MCPServer server = MCPServer.builder()
+                .name("shutdown-test")
+                .version("1.0.0")
+                .transportType(TransportType.HTTP)
+                .port(0)
+                .tool(stuck)
+                .tool(quick)
+                .toolShutdownTimeout(Duration.ofMillis(200))
+                .build();
+        server.start();
+
+        MCPServer.ShutdownReport report = server.shutdown();
+
+        assertTrue(quick.shutDown);
+        assertFalse(report.isClean());
+        assertEquals(List.of("StuckOnShutdown"), report.failedTools().stream().map(MCPServer.ToolFailure::tool).toList());
+        assertTrue(report.duration().toMillis() < 5_000, report.toString());
+        assertSame(report, server.shutdown());
+    }
+}
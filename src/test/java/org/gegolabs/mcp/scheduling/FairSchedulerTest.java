@@ -0,0 +1,127 @@
+package org.gegolabs.mcp.scheduling;
+
+import org.gegolabs.mcp.protocol.CapabilityException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the FairScheduler class.
+ */
+class FairSchedulerTest {
+
+    /**
+     * Test that a session with a long backlog does not delay a newly arriving session.
+     */
+    @Test
+    void testSessionsAreServedRoundRobin() {
+        FairScheduler scheduler = FairScheduler.builder().maxConcurrency(1).build();
+        Object chatty = new Object();
+        Object quiet = new Object();
+        List<String> order = new ArrayList<>();
+
+        CompletableFuture<String> blocker = new CompletableFuture<>();
+        scheduler.submit(chatty, "chatty", () -> blocker);
+        for (int i = 0; i < 3; i++) {
+            scheduler.submit(chatty, "chatty", () -> record(order, "chatty"));
+        }
+        scheduler.submit(quiet, "quiet", () -> record(order, "quiet"));
+
+        blocker.complete("done");
+
+        assertEquals(List.of("chatty", "quiet", "chatty", "chatty"), order);
+    }
+
+    /**
+     * Test that weights let a session start several calls per round.
+     */
+    @Test
+    void testWeightsAreHonored() {
+        FairScheduler scheduler = FairScheduler.builder().maxConcurrency(1).weight("heavy", 2).build();
+        Object heavy = new Object();
+        Object light = new Object();
+        List<String> order = new ArrayList<>();
+
+        CompletableFuture<String> blocker = new CompletableFuture<>();
+        scheduler.submit(new Object(), "other", () -> blocker);
+        for (int i = 0; i < 4; i++) {
+            scheduler.submit(heavy, "heavy", () -> record(order, "heavy"));
+            scheduler.submit(light, "light", () -> record(order, "light"));
+        }
+
+        blocker.complete("done");
+
+        assertEquals(List.of("heavy", "heavy", "light", "heavy", "heavy", "light", "light", "light"), order);
+    }
+
+    /**
+     * Test that queue depth is reported per session and idle sessions are dropped.
+     */
+    @Test
+    void testQueueDepthMetrics() {
+        FairScheduler scheduler = FairScheduler.builder().maxConcurrency(1).build();
+        CompletableFuture<String> blocker = new CompletableFuture<>();
+        scheduler.submit(new Object(), "a", () -> blocker);
+        Object session = new Object();
+        scheduler.submit(session, "b", () -> CompletableFuture.completedFuture("x"));
+        scheduler.submit(session, "b", () -> CompletableFuture.completedFuture("y"));
+
+        FairScheduler.SessionStats stats = scheduler.getSessionStats().stream()
+                .filter(s -> s.session().startsWith("b#"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(2, stats.queued());
+        assertEquals(1, scheduler.getRunning());
+
+        blocker.complete("done");
+
+        assertTrue(scheduler.getSessionStats().isEmpty());
+        assertEquals(0, scheduler.getRunning());
+    }
+
+    /**
+     * Test that calls beyond the per-session queue depth are rejected.
+     */
+    @Test
+    void testQueueDepthLimit() {
+        FairScheduler scheduler = FairScheduler.builder().maxConcurrency(1).maxQueueDepth(1).build();
+        Object session = new Object();
+        scheduler.submit(session, "a", CompletableFuture::new);
+        scheduler.submit(session, "a", CompletableFuture::new);
+
+        CompletableFuture<Object> rejected = scheduler.submit(session, "a", CompletableFuture::new);
+
+        ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(CapabilityException.class, e.getCause());
+    }
+
+    /**
+     * Test that a call cancelled while queued leaves the queue at once and frees its place.
+     */
+    @Test
+    void testCancelledCallsLeaveTheQueue() {
+        FairScheduler scheduler = FairScheduler.builder().maxConcurrency(1).maxQueueDepth(1).build();
+        CompletableFuture<String> blocker = new CompletableFuture<>();
+        scheduler.submit(new Object(), "a", () -> blocker);
+        Object session = new Object();
+        CompletableFuture<String> cancelled = scheduler.submit(session, "b", () -> record(new ArrayList<>(), "b"));
+
+        cancelled.cancel(true);
+
+        assertTrue(scheduler.getSessionStats().stream().noneMatch(s -> s.session().startsWith("b#")));
+        CompletableFuture<String> next = scheduler.submit(session, "b", () -> record(new ArrayList<>(), "b"));
+        assertFalse(next.isDone());
+        blocker.complete("done");
+        assertEquals("b", next.join());
+    }
+
+    private static CompletableFuture<String> record(List<String> order, String session) {
+        order.add(session);
+        return CompletableFuture.completedFuture(session);
+    }
+}
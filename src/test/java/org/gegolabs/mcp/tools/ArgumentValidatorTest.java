@@ -0,0 +1,90 @@
+package org.gegolabs.mcp.tools;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.gegolabs.mcp.MiscTools;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for argument validation against compiled tool schemas.
+ */
+class ArgumentValidatorTest {
+
+    public enum Mode {
+        FAST, THOROUGH
+    }
+
+    public static class Options {
+        public Mode mode;
+        public boolean verbose;
+    }
+
+    public static class Query {
+        public String domain;
+        public int retries;
+        public double timeout;
+        public List<String> tags;
+        public Options options;
+    }
+
+    private static ArgumentValidator generated() {
+        return ArgumentValidator.compile(MiscTools.generateJsonSchema(Query.class));
+    }
+
+    /**
+     * Test that arguments matching the generated schema pass, including optional and null ones.
+     */
+    @Test
+    void testValidArguments() {
+        ArgumentValidator validator = generated();
+
+        assertEquals(List.of(), validator.validate(Map.of("domain", "example.com", "retries", 3, "timeout", 1.5,
+                "tags", List.of("a"), "options", Map.of("mode", "FAST", "verbose", true))));
+        assertEquals(List.of(), validator.validate(Map.of()));
+        assertEquals(List.of(), validator.validate(Map.of("retries", 2.0, "timeout", 1)));
+        Map<String, Object> withNull = new HashMap<>();
+        withNull.put("domain", null);
+        assertEquals(List.of(), validator.validate(withNull));
+    }
+
+    /**
+     * Test that wrong types, enum values and unknown arguments are reported with their path.
+     */
+    @Test
+    void testViolationsReportedWithPath() {
+        ArgumentValidator validator = generated();
+
+        List<String> errors = validator.validate(Map.of("domain", 42, "retries", 1.5, "tags", "a",
+                "options", Map.of("mode", "SLOW", "colour", "red")));
+
+        assertEquals(5, errors.size(), errors.toString());
+        assertTrue(errors.contains("'domain': expected string but got integer"));
+        assertTrue(errors.contains("'retries': expected integer but got number"));
+        assertTrue(errors.contains("'tags': expected array but got string"));
+        assertTrue(errors.contains("'options.mode': must be one of [FAST, THOROUGH]"));
+        assertTrue(errors.contains("'options.colour': unknown argument"));
+    }
+
+    /**
+     * Test that missing and null required arguments are reported.
+     */
+    @Test
+    void testRequiredArguments() {
+        McpSchema.JsonSchema schema = new McpSchema.JsonSchema("object",
+                Map.of("name", new McpSchema.JsonSchema("string", null, null, null, null, null),
+                        "count", new McpSchema.JsonSchema("integer", null, null, null, null, null)),
+                List.of("name", "count"), false, null, null);
+        ArgumentValidator validator = ArgumentValidator.compile(schema);
+
+        assertEquals(List.of(), validator.validate(Map.of("name", "x", "count", 1)));
+        assertEquals(List.of("'count': required argument missing"), validator.validate(Map.of("name", "x")));
+        Map<String, Object> withNull = new HashMap<>(Map.of("count", 1));
+        withNull.put("name", null);
+        assertEquals(List.of("'name': required argument missing"), validator.validate(withNull));
+    }
+}
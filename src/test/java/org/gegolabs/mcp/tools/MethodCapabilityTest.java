@@ -0,0 +1,129 @@
+package org.gegolabs.mcp.tools;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.gegolabs.mcp.ToolContainer;
+import org.gegolabs.mcp.protocol.CapabilityException;
+import org.gegolabs.mcp.protocol.Description;
+import org.gegolabs.mcp.protocol.MCPServer;
+import org.gegolabs.mcp.protocol.Name;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for tools backed by annotated methods.
+ */
+class MethodCapabilityTest {
+
+    static class MathTools {
+        final AtomicReference<String> last = new AtomicReference<>();
+
+        @MCPServer
+        @Description("Adds two numbers")
+        public int add(@Name("a") int a, @Name("b") int b) {
+            return a + b;
+        }
+
+        @MCPServer
+        @Name("join-words")
+        String join(@Name("words") List<String> words, @Name("separator") String separator) {
+            return String.join(separator != null ? separator : " ", words);
+        }
+
+        @MCPServer
+        public void remember(@Name("value") String value) {
+            last.set(value);
+        }
+
+        @MCPServer
+        public CompletableFuture<Long> square(@Name("n") long n) {
+            return CompletableFuture.completedFuture(n * n);
+        }
+
+        @MCPServer
+        public int sum(@Name("a") int a, @Name("b") int b, @Name("c") int c, @Name("d") int d,
+                       @Name("e") int e, @Name("f") int f) {
+            return a + b + c + d + e + f;
+        }
+
+        @MCPServer
+        public String fail() throws CapabilityException {
+            throw new CapabilityException("Nope");
+        }
+
+        public String notATool() {
+            return "";
+        }
+
+        @MCPServer
+        static String version() {
+            return "1.0";
+        }
+    }
+
+    private static MethodCapability find(List<MethodCapability> tools, String name) {
+        return tools.stream().filter(tool -> tool.getName().equals(name)).findFirst().orElseThrow();
+    }
+
+    /**
+     * Test that annotated methods are discovered with names, descriptions and parameter schemas.
+     */
+    @Test
+    void testDiscovery() {
+        List<MethodCapability> tools = MethodCapability.discover(new MathTools());
+
+        assertEquals(List.of("add", "fail", "join-words", "remember", "square", "sum", "version"),
+                tools.stream().map(MethodCapability::getName).toList());
+        MethodCapability add = find(tools, "add");
+        assertEquals("Adds two numbers", add.getDescription());
+        assertEquals(List.of("a", "b"), List.copyOf(add.getInputSchema().properties().keySet()));
+        assertEquals(List.of("a", "b"), add.getInputSchema().required());
+        assertNull(find(tools, "join-words").getInputSchema().required());
+
+        assertEquals(List.of("version"), MethodCapability.discover(MathTools.class).stream().map(MethodCapability::getName).toList());
+    }
+
+    /**
+     * Test invocation through generated invokers, including void, async, static and wide methods.
+     */
+    @Test
+    void testInvocation() throws Exception {
+        MathTools target = new MathTools();
+        List<MethodCapability> tools = MethodCapability.discover(target);
+
+        assertEquals(5, find(tools, "add").execute(Map.of("a", 2, "b", 3)));
+        assertEquals("x-y", find(tools, "join-words").execute(Map.of("words", List.of("x", "y"), "separator", "-")));
+        assertEquals("x y", find(tools, "join-words").execute(Map.of("words", List.of("x", "y"))));
+        assertNull(find(tools, "remember").execute(Map.of("value", "kept")));
+        assertEquals("kept", target.last.get());
+        assertEquals(49L, find(tools, "square").executeAsync(Map.of("n", 7)).get());
+        assertEquals(21, find(tools, "sum").execute(Map.of("a", 1, "b", 2, "c", 3, "d", 4, "e", 5, "f", 6)));
+        assertEquals("1.0", find(tools, "version").execute(Map.of()));
+
+        assertEquals("Nope", assertThrows(CapabilityException.class, () -> find(tools, "fail").execute(Map.of())).getMessage());
+        assertThrows(CapabilityException.class, () -> find(tools, "add").execute(Map.of("a", 1)));
+    }
+
+    /**
+     * Test that a method tool is served through a tool container with validated arguments.
+     */
+    @Test
+    void testThroughToolContainer() throws Exception {
+        MethodCapability add = find(MethodCapability.discover(new MathTools()), "add");
+        var specification = ToolContainer.builder().tool(add).build().getAsyncToolSpecification();
+
+        assertEquals("add", specification.tool().name());
+        McpSchema.CallToolResult result = specification.call().apply(null, Map.of("a", 20, "b", 22)).block();
+        assertFalse(result.isError());
+        assertEquals("42", ((McpSchema.TextContent) result.content().get(0)).text());
+
+        McpSchema.CallToolResult invalid = specification.call().apply(null, Map.of("a", "x", "b", 1)).block();
+        assertTrue(invalid.isError());
+        assertTrue(((McpSchema.TextContent) invalid.content().get(0)).text().contains("'a': expected integer"));
+    }
+}
@@ -0,0 +1,122 @@
+package org.gegolabs.mcp.tools;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import io.modelcontextprotocol.spec.McpError;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the paginated, preserialized tool list.
+ */
+class ToolRegistryTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static McpSchema.Tool tool(String name) {
+        return new McpSchema.Tool(name, "Tool " + name,
+                new McpSchema.JsonSchema("object", Map.of(), null, false, null, null));
+    }
+
+    private static McpSchema.ListToolsResult parse(RawValue page) throws Exception {
+        // Serialize as a transport would, embedding the raw JSON
+        String json = OBJECT_MAPPER.writeValueAsString(Map.of("result", page));
+        return OBJECT_MAPPER.convertValue(OBJECT_MAPPER.readTree(json).get("result"), McpSchema.ListToolsResult.class);
+    }
+
+    private static List<String> names(McpSchema.ListToolsResult result) {
+        return result.tools().stream().map(McpSchema.Tool::name).toList();
+    }
+
+    /**
+     * Test that every tool is listed in one page by default.
+     */
+    @Test
+    void testSinglePageByDefault() throws Exception {
+        ToolRegistry registry = new ToolRegistry(0);
+        registry.add(tool("b"));
+        registry.add(tool("a"));
+
+        McpSchema.ListToolsResult result = parse(registry.list(null));
+
+        assertEquals(List.of("a", "b"), names(result));
+        assertNull(result.nextCursor());
+        assertEquals("Tool a", result.tools().get(0).description());
+        assertEquals(List.of(), names(parse(new ToolRegistry(0).list(null))));
+    }
+
+    /**
+     * Test that cursors walk every tool once, in name order.
+     */
+    @Test
+    void testPagination() throws Exception {
+        ToolRegistry registry = new ToolRegistry(2);
+        for (String name : List.of("e", "c", "a", "d", "b")) {
+            registry.add(tool(name));
+        }
+
+        List<String> listed = new ArrayList<>();
+        McpSchema.ListToolsResult page = parse(registry.list(null));
+        int pages = 1;
+        while (true) {
+            listed.addAll(names(page));
+            if (page.nextCursor() == null) {
+                break;
+            }
+            page = parse(registry.list(page.nextCursor()));
+            pages++;
+        }
+
+        assertEquals(List.of("a", "b", "c", "d", "e"), listed);
+        assertEquals(3, pages);
+    }
+
+    /**
+     * Test that the snapshot is reused until the registry changes, and old cursors keep their snapshot.
+     */
+    @Test
+    void testSnapshotInvalidation() throws Exception {
+        ToolRegistry registry = new ToolRegistry(1);
+        registry.add(tool("a"));
+        registry.add(tool("b"));
+
+        RawValue first = registry.list(null);
+        assertSame(first, registry.list(null));
+        String cursor = parse(first).nextCursor();
+
+        registry.add(tool("aa"));
+        assertNotSame(first, registry.list(null));
+        assertEquals(List.of("b"), names(parse(registry.list(cursor))));
+        assertEquals(List.of("aa"), names(parse(registry.list(parse(registry.list(null)).nextCursor()))));
+
+        assertTrue(registry.remove("aa"));
+        assertFalse(registry.remove("aa"));
+        assertEquals(2, registry.size());
+    }
+
+    /**
+     * Test that invalid and expired cursors are rejected.
+     */
+    @Test
+    void testInvalidCursor() throws Exception {
+        ToolRegistry registry = new ToolRegistry(1);
+        registry.add(tool("a"));
+        registry.add(tool("b"));
+        String cursor = parse(registry.list(null)).nextCursor();
+
+        for (int i = 0; i < 5; i++) {
+            registry.add(tool("t" + i));
+            registry.list(null);
+        }
+
+        assertThrows(McpError.class, () -> registry.list(cursor));
+        assertThrows(McpError.class, () -> registry.list("not a cursor"));
+        assertThrows(McpError.class, () -> registry.list("dG9vbHM6MTo5OQ"));
+    }
+}
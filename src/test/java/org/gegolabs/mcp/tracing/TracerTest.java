@@ -0,0 +1,161 @@
+package org.gegolabs.mcp.tracing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.gegolabs.mcp.ToolContainer;
+import org.gegolabs.mcp.protocol.CallContext;
+import org.gegolabs.mcp.protocol.CapabilityException;
+import org.gegolabs.mcp.protocol.SyncCapability;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for call tracing.
+ */
+@Timeout(value = 10, unit = TimeUnit.SECONDS)
+class TracerTest {
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+
+    /**
+     * A capability tracing its own I/O on its executor.
+     */
+    static class Lookup implements SyncCapability<String, String> {
+        @Override
+        public String execute(String input) throws CapabilityException {
+            Span span = Span.current().child("lookup").attribute("key", input);
+            try {
+                return input.toUpperCase();
+            } finally {
+                span.end();
+            }
+        }
+
+        @Override
+        public Executor getExecutor() {
+            return EXECUTOR;
+        }
+    }
+
+    private static Map<String, Span> byName(List<Span> spans) {
+        return spans.stream().collect(Collectors.toMap(span -> span.getName().split(" ")[0], Function.identity()));
+    }
+
+    /**
+     * Test that the span travels with the call context to the executor and records the wait for a thread.
+     */
+    @Test
+    void testPropagationThroughExecutor() throws Exception {
+        Tracer tracer = Tracer.builder().sampleRatio(1.0).build();
+        CountDownLatch release = new CountDownLatch(1);
+        EXECUTOR.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        Span root = tracer.startTrace("root");
+        CompletableFuture<String> future;
+        try (Span.Scope scope = root.activate()) {
+            future = new CallContext(1).call(() -> CallContext.supplyAsync(() -> {
+                Span.current().child("io").end();
+                return "done";
+            }, EXECUTOR));
+        }
+        assertSame(Span.NOOP, Span.current());
+        Thread.sleep(50);
+        release.countDown();
+        assertEquals("done", future.get());
+        root.end();
+
+        Map<String, Span> spans = byName(tracer.getRingBuffer().trace(root.getTraceId()));
+        assertEquals(root.getSpanId(), spans.get("executor.wait").getParentSpanId());
+        assertEquals(root.getSpanId(), spans.get("io").getParentSpanId());
+        assertTrue(spans.get("executor.wait").getDuration().toMillis() >= 40, spans.toString());
+    }
+
+    /**
+     * Test that a traced tool call records each step and can be queried through the traces tool.
+     */
+    @Test
+    void testToolCallSpans() throws Exception {
+        Tracer tracer = Tracer.builder().sampleRatio(1.0).build();
+        var specification = ToolContainer.builder().tool(new Lookup()).tracer(tracer).build().getAsyncToolSpecification();
+
+        McpSchema.CallToolResult result = specification.call().apply(null, Map.of("value", "abc")).block();
+        assertEquals("ABC", ((McpSchema.TextContent) result.content().get(0)).text());
+
+        List<Span> all = tracer.getRingBuffer().snapshot();
+        Span root = all.stream().filter(span -> span.getParentSpanId() == null).findFirst().orElseThrow();
+        Map<String, Span> spans = byName(tracer.getRingBuffer().trace(root.getTraceId()));
+        assertEquals("Lookup", root.getAttributes().get("tool"));
+        assertEquals(root.getSpanId(), spans.get("bind").getParentSpanId());
+        assertEquals(root.getSpanId(), spans.get("queue").getParentSpanId());
+        assertEquals(root.getSpanId(), spans.get("execute").getParentSpanId());
+        assertEquals(root.getSpanId(), spans.get("serialize").getParentSpanId());
+        assertEquals(spans.get("execute").getSpanId(), spans.get("executor.wait").getParentSpanId());
+        assertEquals(spans.get("execute").getSpanId(), spans.get("lookup").getParentSpanId());
+        assertEquals("abc", spans.get("lookup").getAttributes().get("key"));
+
+        JsonNode traces = new ObjectMapper().readTree(new TraceQueryTool(tracer).execute(new TraceQueryTool.Query()));
+        assertEquals(1, traces.get("matched").asInt());
+        JsonNode steps = traces.get("traces").get(0).get("steps");
+        assertEquals(List.of("bind", "queue", "execute", "executor.wait", "lookup", "serialize"),
+                List.of(steps.get(0).get("name").asText(), steps.get(1).get("name").asText(), steps.get(2).get("name").asText(),
+                        steps.get(3).get("name").asText(), steps.get(4).get("name").asText(), steps.get(5).get("name").asText()));
+        assertEquals(2, steps.get(4).get("depth").asInt());
+    }
+
+    /**
+     * Test that unsampled calls record nothing and sampled spans are written as OTLP JSON.
+     */
+    @Test
+    void testSamplingAndOtlpFile(@TempDir Path dir) throws Exception {
+        Tracer off = Tracer.builder().sampleRatio(0.0).build();
+        var specification = ToolContainer.builder().tool(new Lookup()).tracer(off).build().getAsyncToolSpecification();
+        specification.call().apply(null, Map.of("value", "x")).block();
+        assertEquals(0, off.getRingBuffer().getWritten());
+
+        Path file = dir.resolve("traces.jsonl");
+        Tracer tracer = Tracer.builder().sampleRatio(1.0).otlpFile(file).serviceName("test").build();
+        Span root = tracer.startTrace("root").attribute("count", 3);
+        root.child("step").error("failed").end();
+        root.end();
+        tracer.close();
+
+        // Each line is one batch; the two spans may land in the same batch or not
+        List<JsonNode> spans = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            JsonNode resourceSpans = new ObjectMapper().readTree(line).get("resourceSpans").get(0);
+            assertEquals("test", resourceSpans.get("resource").get("attributes").get(0).get("value").get("stringValue").asText());
+            resourceSpans.get("scopeSpans").get(0).get("spans").forEach(spans::add);
+        }
+        assertEquals(2, spans.size());
+        JsonNode step = spans.get(0);
+        assertEquals("step", step.get("name").asText());
+        assertEquals(root.getSpanId(), step.get("parentSpanId").asText());
+        assertEquals(2, step.get("status").get("code").asInt());
+        assertEquals(32, spans.get(1).get("traceId").asText().length());
+        assertEquals("3", spans.get(1).get("attributes").get(0).get("value").get("intValue").asText());
+    }
+}
@@ -0,0 +1,94 @@
+package org.gegolabs.mcp.transport;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the pool of serialization buffers.
+ */
+@Timeout(value = 10, unit = TimeUnit.SECONDS)
+class BufferPoolTest {
+
+    /**
+     * Test that buffers are rounded up to their size class and reused once released.
+     */
+    @Test
+    void testSizeClassesAndReuse() {
+        BufferPool pool = BufferPool.builder().minSize(1000).maxSize(8192).build();
+
+        ByteBuffer small = pool.acquire(10);
+        ByteBuffer medium = pool.acquire(3000);
+        ByteBuffer huge = pool.acquire(10_000);
+        assertEquals(1024, small.capacity());
+        assertEquals(4096, medium.capacity());
+        assertEquals(10_000, huge.capacity());
+        assertEquals(3, pool.getStats().outstanding());
+
+        small.put((byte) 1);
+        pool.release(small);
+        pool.release(medium);
+        pool.release(huge);
+        assertEquals(0, pool.getStats().outstanding());
+        assertEquals(1024 + 4096, pool.getStats().pooledBytes());
+
+        ByteBuffer again = pool.acquire(1024);
+        assertSame(small, again);
+        assertEquals(0, again.position());
+        assertEquals(1, pool.getStats().hits());
+        assertEquals(3, pool.getStats().misses());
+    }
+
+    /**
+     * Test that the idle buffers kept never exceed the pooled size limit.
+     */
+    @Test
+    void testPooledBytesCapped() {
+        BufferPool pool = BufferPool.builder().minSize(1024).maxPooledBytes(2048).build();
+        ByteBuffer first = pool.acquire(1024);
+        ByteBuffer second = pool.acquire(1024);
+        ByteBuffer third = pool.acquire(1024);
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+
+        assertEquals(2048, pool.getStats().pooledBytes());
+        assertEquals(0, pool.getStats().outstanding());
+    }
+
+    /**
+     * Test that a pooled buffer grows across chunks, writes its contents out intact from heap and
+     * direct buffers, and returns every chunk on release.
+     */
+    @Test
+    void testPooledBufferChunks() throws Exception {
+        for (boolean direct : new boolean[]{false, true}) {
+            BufferPool pool = BufferPool.builder().minSize(16).maxSize(64).direct(direct).build();
+            String text = "ñandú 😀 ".repeat(100);
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+            PooledBuffer buffer = pool.newBuffer();
+            buffer.write('{');
+            buffer.write(bytes, 0, bytes.length);
+            buffer.close();
+            assertEquals(bytes.length + 1, buffer.size());
+            assertTrue(pool.getStats().outstanding() > 2);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            buffer.writeTo(out);
+            assertEquals("{" + text, out.toString(StandardCharsets.UTF_8));
+            assertEquals("{" + text, buffer.toString());
+
+            buffer.release();
+            buffer.release();
+            assertEquals(0, pool.getStats().outstanding());
+            assertThrows(IllegalStateException.class, () -> buffer.writeTo(out));
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package org.gegolabs.mcp.transport;
+
+import io.modelcontextprotocol.server.McpAsyncServer;
+import io.modelcontextprotocol.server.McpServer;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.gegolabs.mcp.ToolContainer;
+import org.gegolabs.mcp.protocol.StreamingCapability;
+import org.gegolabs.mcp.protocol.SyncCapability;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import reactor.adapter.JdkFlowAdapter;
+import reactor.core.publisher.Flux;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the Streamable HTTP transport.
+ */
+@Timeout(value = 10, unit = TimeUnit.SECONDS)
+class HttpServerTransportProviderTest {
+
+    private static final String INITIALIZE = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":"
+            + "{\"protocolVersion\":\"2024-11-05\",\"capabilities\":{},\"clientInfo\":{\"name\":\"test\",\"version\":\"1.0\"}}}";
+    private static final String INITIALIZED = "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}";
+
+    private HttpServerTransportProvider transport;
+    private McpAsyncServer server;
+    private HttpClient client;
+    private URI endpoint;
+
+    static class UpperCase implements SyncCapability<String, String> {
+        @Override
+        public String execute(String input) {
+            return input.toUpperCase();
+        }
+    }
+
+    static class Spell implements StreamingCapability<String, String> {
+        @Override
+        public Flow.Publisher<String> stream(String input) {
+            return JdkFlowAdapter.publisherToFlowPublisher(Flux.fromArray(input.split("")));
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        transport = HttpServerTransportProvider.builder().port(0).build();
+        // The intercepting layer sends the progress of streaming tools
+        server = McpServer.async(new InterceptingTransportProvider(transport))
+                .serverInfo("http-test", "1.0.0")
+                .capabilities(McpSchema.ServerCapabilities.builder().tools(true).build())
+                .build();
+        server.addTool(ToolContainer.builder().tool(new UpperCase()).build().getAsyncToolSpecification()).block();
+        server.addTool(ToolContainer.builder().tool(new Spell()).build().getAsyncToolSpecification()).block();
+        transport.start();
+
+        client = HttpClient.newHttpClient();
+        endpoint = URI.create("http://localhost:" + transport.getPort() + "/mcp");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void testInitializeAssignsSession() throws Exception {
+        HttpResponse<String> response = post(null, INITIALIZE, "application/json");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue(HttpServerTransportProvider.SESSION_HEADER).isPresent());
+        assertTrue(response.body().contains("\"serverInfo\""));
+        assertEquals(1, transport.getSessionCount());
+    }
+
+    @Test
+    void testToolCallStreamedOverSse() throws Exception {
+        String session = initialize();
+
+        HttpResponse<String> response = post(session,
+                "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/call\",\"params\":{\"name\":\"UpperCase\",\"arguments\":{\"value\":\"hello\"}}}",
+                "application/json, text/event-stream");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("text/event-stream", response.headers().firstValue("Content-Type").orElse(""));
+        assertTrue(response.body().startsWith("event: message\ndata: "));
+        assertTrue(response.body().contains("HELLO"));
+    }
+
+    @Test
+    void testBatchAnsweredAsJsonArray() throws Exception {
+        String session = initialize();
+
+        HttpResponse<String> response = post(session,
+                "[{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"ping\"},{\"jsonrpc\":\"2.0\",\"id\":4,\"method\":\"tools/list\"}]",
+                "application/json");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().startsWith("["));
+        assertTrue(response.body().contains("\"id\":3"));
+        assertTrue(response.body().contains("\"id\":4"));
+    }
+
+    @Test
+    void testLargeResponsesReleaseBuffers() throws Exception {
+        String session = initialize();
+        String value = "payload-".repeat(20_000);
+        String call = "{\"jsonrpc\":\"2.0\",\"id\":%d,\"method\":\"tools/call\",\"params\":{\"name\":\"UpperCase\",\"arguments\":{\"value\":\"" + value + "\"}}}";
+
+        HttpResponse<String> sse = post(session, call.formatted(6), "application/json, text/event-stream");
+        HttpResponse<String> batch = post(session, "[" + call.formatted(7) + "," + call.formatted(8) + "]", "application/json");
+
+        assertTrue(sse.body().contains(value.toUpperCase()));
+        assertTrue(sse.body().endsWith("}\n\n"));
+        assertTrue(batch.body().startsWith("[{"));
+        assertTrue(batch.body().endsWith("}]"));
+        assertTrue(batch.body().contains("\"id\":7") && batch.body().contains("\"id\":8"));
+        while (transport.getBufferPool().getStats().outstanding() > 0) {
+            Thread.sleep(10);
+        }
+        assertTrue(transport.getBufferPool().getStats().hits() > 0);
+    }
+
+    @Test
+    void testProgressGoesOnTheRequestStream() throws Exception {
+        String session = initialize();
+        CompletableFuture<HttpResponse<InputStream>> standalone = client.sendAsync(HttpRequest.newBuilder(endpoint)
+                .header("Accept", "text/event-stream")
+                .header(HttpServerTransportProvider.SESSION_HEADER, session)
+                .GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, standalone.get().statusCode());
+
+        HttpResponse<String> response = post(session,
+                "{\"jsonrpc\":\"2.0\",\"id\":9,\"method\":\"tools/call\",\"params\":{\"name\":\"Spell\","
+                        + "\"arguments\":{\"value\":\"abc\"},\"_meta\":{\"progressToken\":\"spelling\"}}}",
+                "application/json, text/event-stream");
+
+        assertEquals(3, response.body().split("notifications/progress", -1).length - 1, response.body());
+        assertTrue(response.body().contains("\"id\":9"));
+
+        // Ending the session closes the standalone stream, which got none of the progress
+        client.send(HttpRequest.newBuilder(endpoint).header(HttpServerTransportProvider.SESSION_HEADER, session)
+                .DELETE().build(), HttpResponse.BodyHandlers.discarding());
+        String events = new String(standalone.get().body().readAllBytes(), StandardCharsets.UTF_8);
+        assertFalse(events.contains("notifications/progress"), events);
+    }
+
+    @Test
+    void testUnknownSessionRejected() throws Exception {
+        HttpResponse<String> response = post("missing", "{\"jsonrpc\":\"2.0\",\"id\":5,\"method\":\"ping\"}", "application/json");
+
+        assertEquals(404, response.statusCode());
+    }
+
+    @Test
+    void testSessionLimitEnforced() throws Exception {
+        server.close();
+        transport = HttpServerTransportProvider.builder().port(0).maxSessions(1).build();
+        server = McpServer.async(transport).serverInfo("http-test", "1.0.0").build();
+        transport.start();
+        endpoint = URI.create("http://localhost:" + transport.getPort() + "/mcp");
+
+        assertEquals(200, post(null, INITIALIZE, "application/json").statusCode());
+        assertEquals(503, post(null, INITIALIZE, "application/json").statusCode());
+    }
+
+    private String initialize() throws Exception {
+        HttpResponse<String> response = post(null, INITIALIZE, "application/json");
+        String session = response.headers().firstValue(HttpServerTransportProvider.SESSION_HEADER).orElseThrow();
+        assertEquals(202, post(session, INITIALIZED, "application/json").statusCode());
+        return session;
+    }
+
+    private HttpResponse<String> post(String session, String body, String accept) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(endpoint)
+                .header("Content-Type", "application/json")
+                .header("Accept", accept)
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (session != null) {
+            request.header(HttpServerTransportProvider.SESSION_HEADER, session);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,192 @@
+package org.gegolabs.mcp.transport;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.McpAsyncServer;
+import io.modelcontextprotocol.server.McpServer;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import org.gegolabs.mcp.ToolContainer;
+import org.gegolabs.mcp.protocol.SyncCapability;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the intercepting transport decorator.
+ */
+@Timeout(value = 10, unit = TimeUnit.SECONDS)
+class InterceptingTransportProviderTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * A tool whose calls each wait until the test releases them.
+     */
+    static class Gate implements SyncCapability<String, String> {
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        final Map<String, CountDownLatch> releases = new ConcurrentHashMap<>();
+        final BlockingQueue<String> started = new LinkedBlockingQueue<>();
+
+        @Override
+        public String execute(String value) {
+            started.add(value);
+            try {
+                releases.computeIfAbsent(value, key -> new CountDownLatch(1)).await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "done " + value;
+        }
+
+        void release(String value) {
+            releases.computeIfAbsent(value, key -> new CountDownLatch(1)).countDown();
+        }
+
+        @Override
+        public Executor getExecutor() {
+            return executor;
+        }
+    }
+
+    /**
+     * Transport recording what the server sends.
+     */
+    static class RecordingTransport implements McpServerTransport {
+        final BlockingQueue<McpSchema.JSONRPCMessage> sent = new LinkedBlockingQueue<>();
+
+        @Override
+        public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+            return Mono.fromRunnable(() -> sent.add(message));
+        }
+
+        @Override
+        public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+            return MAPPER.convertValue(data, typeRef);
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return Mono.empty();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        McpSchema.JSONRPCResponse next() throws InterruptedException {
+            McpSchema.JSONRPCMessage message = sent.poll(5, TimeUnit.SECONDS);
+            assertNotNull(message, "No response sent");
+            return (McpSchema.JSONRPCResponse) message;
+        }
+    }
+
+    /**
+     * Provider handing out sessions over recording transports.
+     */
+    static class RecordingProvider implements McpServerTransportProvider {
+        McpServerSession.Factory factory;
+
+        @Override
+        public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+            this.factory = sessionFactory;
+        }
+
+        @Override
+        public Mono<Void> notifyClients(String method, Object params) {
+            return Mono.empty();
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return Mono.empty();
+        }
+    }
+
+    private final Gate gate = new Gate();
+    private McpAsyncServer server;
+
+    @AfterEach
+    void tearDown() {
+        List.of("a", "b", "c", "d").forEach(gate::release);
+        gate.executor.shutdownNow();
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private static McpSchema.JSONRPCRequest toolCall(int id, String value) {
+        return new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_CALL, id,
+                Map.of("name", "Gate", "arguments", Map.of("value", value)));
+    }
+
+    private static String text(McpSchema.JSONRPCResponse response) {
+        McpSchema.CallToolResult result = MAPPER.convertValue(response.result(), McpSchema.CallToolResult.class);
+        return ((McpSchema.TextContent) result.content().get(0)).text();
+    }
+
+    /**
+     * Test that pipelined tool calls run concurrently up to the session limit, that responses go out
+     * as each call completes with their own ids, and that calls beyond the queue are rejected.
+     */
+    @Test
+    void testPipelinedCallsRunConcurrently() throws Exception {
+        RecordingProvider provider = new RecordingProvider();
+        server = McpServer.async(new InterceptingTransportProvider(provider, 2, 1))
+                .serverInfo("pipelining-test", "1.0.0")
+                .capabilities(McpSchema.ServerCapabilities.builder().tools(true).build())
+                .build();
+        server.addTool(ToolContainer.builder().tool(gate).build().getAsyncToolSpecification()).block();
+
+        RecordingTransport transport = new RecordingTransport();
+        McpServerSession session = provider.factory.create(transport);
+        session.handle(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_INITIALIZE, 1,
+                Map.of("protocolVersion", "2024-11-05", "capabilities", Map.of(),
+                        "clientInfo", Map.of("name", "test", "version", "1.0")))).block();
+        assertEquals(1, transport.next().id());
+        session.handle(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION,
+                McpSchema.METHOD_NOTIFICATION_INITIALIZED, null)).block();
+
+        // Handling returns at once, before any call completes
+        for (String value : List.of("a", "b", "c", "d")) {
+            session.handle(toolCall(10 + value.charAt(0) - 'a', value)).block();
+        }
+
+        McpSchema.JSONRPCResponse rejected = transport.next();
+        assertEquals(13, rejected.id());
+        assertTrue(text(rejected).startsWith("Too many calls in flight"));
+        // The first two calls run at once, in either order
+        assertEquals(Set.of("a", "b"), Set.of(gate.started.poll(5, TimeUnit.SECONDS), gate.started.poll(5, TimeUnit.SECONDS)));
+        assertNull(gate.started.poll(100, TimeUnit.MILLISECONDS));
+
+        gate.release("b");
+        McpSchema.JSONRPCResponse second = transport.next();
+        assertEquals(11, second.id());
+        assertEquals("done b", text(second));
+        assertEquals("c", gate.started.poll(5, TimeUnit.SECONDS));
+
+        gate.release("c");
+        gate.release("a");
+        McpSchema.JSONRPCResponse third = transport.next();
+        McpSchema.JSONRPCResponse fourth = transport.next();
+        assertEquals(Map.of(10, "done a", 12, "done c"),
+                Map.of(third.id(), text(third), fourth.id(), text(fourth)));
+    }
+}